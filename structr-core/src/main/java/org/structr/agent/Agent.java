@@ -73,11 +73,20 @@ public abstract class Agent<T> extends Thread implements StatusInfo {
 
 				currentTask = taskQueue.poll();
 
+				// queue is empty, quit (must happen atomically with
+				// the poll, otherwise a task could be assigned to an
+				// agent that is about to stop)
+				if (currentTask == null) {
+					acceptingTasks.set(false);
+				}
 			}
 
 			if (currentTask != null) {
 
-				ReturnValue ret = null;
+				agentService.notifyTaskStarted(this, currentTask);
+
+				final long startTime = System.nanoTime();
+				ReturnValue ret      = null;
 
 				// only execute process if Service layer is ready
 				// (and not shutting down right now)
@@ -132,16 +141,13 @@ public abstract class Agent<T> extends Thread implements StatusInfo {
 					}
 				}
 
-				long endTime = System.nanoTime();
+				final long executionTime = System.nanoTime() - startTime;
 
 				// calc. average execution time
-				averageExecutionTime += endTime;
+				averageExecutionTime += executionTime;
 				averageExecutionTime /= 2;
 
-			} else {
-
-				// queue is empty, quit.
-				acceptingTasks.set(false);
+				agentService.notifyTaskFinished(this, currentTask, executionTime);
 			}
 
 		} while (acceptingTasks.get());
@@ -153,14 +159,14 @@ public abstract class Agent<T> extends Thread implements StatusInfo {
 
 	public final boolean assignTask(final Task<T> task) {
 
-		if (canHandleMore() && acceptingTasks.get()) {
+		synchronized (taskQueue) {
 
-			synchronized (taskQueue) {
+			if (canHandleMore() && acceptingTasks.get()) {
 
 				taskQueue.add(task);
-			}
 
-			return true;
+				return true;
+			}
 		}
 
 		return false;
@@ -171,8 +177,15 @@ public abstract class Agent<T> extends Thread implements StatusInfo {
 		// stop accepting tasks
 		acceptingTasks.set(false);
 
-		// clear queue
-		taskQueue.clear();
+		// clear queue, equivalent tasks can be queued again
+		synchronized (taskQueue) {
+
+			for (final Task<T> task : taskQueue) {
+				agentService.notifyTaskStarted(this, task);
+			}
+
+			taskQueue.clear();
+		}
 
 		// interrupt running process..
 		// not sure if this works... see Thread.interrupt()'s description!
@@ -225,6 +238,10 @@ public abstract class Agent<T> extends Thread implements StatusInfo {
 		return maxQueueSize;
 	}
 
+	public final int getQueueSize() {
+		return taskQueue.size();
+	}
+
 	public final long getAverageExecutionTime() {
 		return averageExecutionTime;
 	}
@@ -20,17 +20,18 @@ package org.structr.agent;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.api.config.Settings;
 import org.structr.api.service.Command;
 import org.structr.api.service.RunnableService;
 import org.structr.api.service.StructrServices;
@@ -40,18 +41,23 @@ import org.structr.schema.ConfigurationProvider;
 /**
  * The agent service main class.
  *
+ * Tasks are taken from a blocking priority queue and assigned to agents,
+ * the number of agents per task type is limited by the maxagents setting.
+ * Tasks that cannot be assigned because all agents of their type are busy
+ * are set aside until an agent of that type reports progress.
+ *
  *
  */
 public class AgentService extends Thread implements RunnableService {
 
 	private static final Logger logger = LoggerFactory.getLogger(AgentService.class.getName());
 
-	private final int maxAgents                          = 10;    // TODO: make configurable
 	private final Map<String, List<Agent>> runningAgents = new ConcurrentHashMap<>(10, 0.9f, 8);
 	private final Map<String, Class> agentClassCache     = new ConcurrentHashMap<>(10, 0.9f, 8);
-	private final Queue<Task> taskQueue                  = new ConcurrentLinkedQueue<>();
+	private final Map<String, TaskTypeState> taskTypes   = new ConcurrentHashMap<>(10, 0.9f, 8);
+	private final TaskQueue taskQueue                    = new TaskQueue();
 	private Set<Class> supportedCommands                 = null;
-	private boolean run                                  = false;
+	private volatile boolean run                         = false;
 
 	public AgentService() {
 
@@ -64,10 +70,17 @@ public class AgentService extends Thread implements RunnableService {
 
 	public void processTask(Task task) {
 
-		synchronized (taskQueue) {
+		final TaskTypeState state = getTaskTypeState(task.getClass());
+
+		if (taskQueue.add(task) != null) {
 
-			taskQueue.add(task);
+			state.queued();
 			logger.debug("Task {} added to task queue", task);
+
+		} else {
+
+			state.deduplicated();
+			logger.debug("Task {} is already queued, ignoring", task);
 		}
 	}
 
@@ -78,14 +91,14 @@ public class AgentService extends Thread implements RunnableService {
 
 		while (run) {
 
-			Task nextTask = taskQueue.poll();
-			if (nextTask != null) {
+			try {
 
-				assignNextAgentForTask(nextTask);
-			}
+				assignNextAgentForTask(taskQueue.take());
 
-			// let others act
-			try { Thread.sleep(10); } catch(Throwable ignore) {}
+			} catch (InterruptedException iex) {
+
+				// service is stopping
+			}
 		}
 	}
 
@@ -105,6 +118,37 @@ public class AgentService extends Thread implements RunnableService {
 		synchronized (agents) {
 			agents.remove(agent);
 		}
+
+		// a new agent can be created, assign all deferred tasks again
+		getTaskTypeState(agent.getSupportedTaskType()).release(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Called by an agent before it starts to process a task, from now on
+	 * equivalent tasks are queued again.
+	 *
+	 * @param agent
+	 * @param task
+	 */
+	public void notifyTaskStarted(final Agent agent, final Task task) {
+		taskQueue.done(task);
+	}
+
+	/**
+	 * Called by an agent after it has processed a task.
+	 *
+	 * @param agent
+	 * @param task
+	 * @param duration the processing time in nanoseconds
+	 */
+	public void notifyTaskFinished(final Agent agent, final Task task, final long duration) {
+
+		final TaskTypeState state = getTaskTypeState(agent.getSupportedTaskType());
+
+		state.finished(duration);
+
+		// the agent has room for one more task
+		state.release(1);
 	}
 
 	public Map<String, Class<? extends Agent>> getAgents() {
@@ -118,6 +162,32 @@ public class AgentService extends Thread implements RunnableService {
 		return Collections.emptyMap();
 	}
 
+	/**
+	 * Returns queue and processing statistics for all task types.
+	 *
+	 * @return a list of status maps
+	 */
+	public List<Map<String, Object>> getStatus() {
+
+		final List<Map<String, Object>> result = new LinkedList<>();
+
+		for (final TaskTypeState state : taskTypes.values()) {
+
+			final Map<String, Object> data = new LinkedHashMap<>();
+			final List<Agent> agents       = getRunningAgentsForTask(state.taskClass);
+
+			data.put("type",          state.taskClass.getName());
+			data.put("maxAgents",     getMaxAgents(state.taskClass));
+			data.put("runningAgents", agents.size());
+			data.put("agentQueueSize", getAgentQueueSize(agents));
+			data.putAll(state.toMap());
+
+			result.add(data);
+		}
+
+		return result;
+	}
+
 	@Override
 	public void injectArguments(Command command) {
 		command.setArgument("agentService", this);
@@ -143,7 +213,9 @@ public class AgentService extends Thread implements RunnableService {
 
 	@Override
 	public void stopService() {
+
 		run = false;
+		this.interrupt();
 	}
 
 	@Override
@@ -151,54 +223,93 @@ public class AgentService extends Thread implements RunnableService {
 		return true;
 	}
 
-	private void assignNextAgentForTask(final Task nextTask) {
+	private void assignNextAgentForTask(final TaskQueue.Entry entry) {
 
-		Class taskClass    = nextTask.getClass();
-		List<Agent> agents = getRunningAgentsForTask(taskClass);
+		final Task nextTask       = entry.getTask();
+		final Class taskClass     = nextTask.getClass();
+		final List<Agent> agents  = getRunningAgentsForTask(taskClass);
+		final TaskTypeState state = getTaskTypeState(taskClass);
 
-		// need to synchronize on agents
-		synchronized (agents) {
+		// deferring and releasing tasks must not interleave
+		synchronized (state) {
+
+			// need to synchronize on agents
+			synchronized (agents) {
 
-			// find next free agent (agents should be sorted by load, so one
-			// of the first should do..
-			for (Agent agent : agents) {
+				// find next free agent (agents should be sorted by load, so one
+				// of the first should do..
+				for (Agent agent : agents) {
 
-				if (agent.assignTask(nextTask)) {
+					if (agent.assignTask(nextTask)) {
 
-					// ok, task is assigned
-					logger.debug("Task assigned to agent {} ({})", agent.getName(), agent.hashCode());
+						// ok, task is assigned
+						logger.debug("Task assigned to agent {} ({})", agent.getName(), agent.hashCode());
 
-					return;
+						state.dispatched(System.nanoTime() - entry.getEnqueueTime());
+
+						return;
+					}
 				}
 			}
-		}
 
-		if (agents.size() < maxAgents) {
+			if (agents.size() < getMaxAgents(taskClass)) {
 
-			// if we get here, task was not assigned to any agent, need to create a new one.
-			Agent agent = createAgent(nextTask);
+				// if we get here, task was not assigned to any agent, need to create a new one.
+				Agent agent = createAgent(nextTask);
 
-			if ((agent != null) && agent.assignTask(nextTask)) {
+				if (agent == null) {
 
-				agent.start();
+					logger.warn("No agent found for task type {}, discarding task", taskClass.getName());
 
-			} else {
+					taskQueue.done(nextTask);
+					state.discarded();
+
+				} else if (agent.assignTask(nextTask)) {
+
+					state.dispatched(System.nanoTime() - entry.getEnqueueTime());
+					agent.start();
+
+				} else {
 
-				// re-add task..
-				synchronized (taskQueue) {
-					taskQueue.add(nextTask);
+					state.defer(entry);
 				}
+
+			} else {
+
+				logger.debug("Agents limit reached for task type {}, deferring task", taskClass.getName());
+
+				state.defer(entry);
 			}
+		}
+	}
 
-		} else {
+	private int getAgentQueueSize(final List<Agent> agents) {
+
+		int size = 0;
 
-			logger.debug("Overall agents limit reached, re-queueing task");
+		synchronized (agents) {
 
-			// re-add task..
-			synchronized (taskQueue) {
-				taskQueue.add(nextTask);
+			for (final Agent agent : agents) {
+				size += agent.getQueueSize();
 			}
 		}
+
+		return size;
+	}
+
+	private int getMaxAgents(final Class taskClass) {
+
+		final Integer max = Settings.getOrCreateIntegerSetting(taskClass.getSimpleName(), "maxagents").getValue();
+		if (max != null) {
+
+			return Math.max(1, max);
+		}
+
+		return Math.max(1, Settings.AgentMaxAgents.getValue());
+	}
+
+	private TaskTypeState getTaskTypeState(final Class taskClass) {
+		return taskTypes.computeIfAbsent(taskClass.getName(), k -> new TaskTypeState(taskClass));
 	}
 
 	/**
@@ -282,7 +393,14 @@ public class AgentService extends Thread implements RunnableService {
 	 * @return tasks
 	 */
 	public Collection<Task> getTaskQueue() {
-		return (taskQueue);
+
+		final Collection<Task> tasks = taskQueue.getTasks();
+
+		for (final TaskTypeState state : taskTypes.values()) {
+			tasks.addAll(state.getDeferredTasks());
+		}
+
+		return tasks;
 	}
 
 	/**
@@ -328,4 +446,96 @@ public class AgentService extends Thread implements RunnableService {
 	public String getModuleName() {
 		return "agents";
 	}
+
+	// ----- nested classes -----
+	private class TaskTypeState {
+
+		private final LinkedList<TaskQueue.Entry> deferred = new LinkedList<>();
+		private Class taskClass                            = null;
+		private long submitted                             = 0L;
+		private long deduplicated                          = 0L;
+		private long discarded                             = 0L;
+		private long dispatched                            = 0L;
+		private long completed                             = 0L;
+		private long queueTime                             = 0L;
+		private long maxQueueTime                          = 0L;
+		private long processingTime                        = 0L;
+		private int queued                                 = 0;
+
+		public TaskTypeState(final Class taskClass) {
+			this.taskClass = taskClass;
+		}
+
+		public synchronized void queued() {
+			submitted++;
+			queued++;
+		}
+
+		public synchronized void deduplicated() {
+			deduplicated++;
+		}
+
+		public synchronized void discarded() {
+			queued--;
+			discarded++;
+		}
+
+		public synchronized void dispatched(final long time) {
+
+			queued--;
+			dispatched++;
+
+			queueTime   += time;
+			maxQueueTime = Math.max(maxQueueTime, time);
+		}
+
+		public synchronized void finished(final long time) {
+
+			completed++;
+			processingTime += time;
+		}
+
+		public synchronized void defer(final TaskQueue.Entry entry) {
+			deferred.add(entry);
+		}
+
+		/**
+		 * Puts up to the given number of deferred tasks back into the queue.
+		 */
+		public synchronized void release(final int count) {
+
+			for (int i=0; i<count && !deferred.isEmpty(); i++) {
+				taskQueue.requeue(deferred.removeFirst());
+			}
+		}
+
+		public synchronized List<Task> getDeferredTasks() {
+
+			final List<Task> tasks = new LinkedList<>();
+
+			for (final TaskQueue.Entry entry : deferred) {
+				tasks.add(entry.getTask());
+			}
+
+			return tasks;
+		}
+
+		public synchronized Map<String, Object> toMap() {
+
+			final Map<String, Object> data = new LinkedHashMap<>();
+
+			data.put("queued",                queued);
+			data.put("deferred",              deferred.size());
+			data.put("submitted",             submitted);
+			data.put("deduplicated",          deduplicated);
+			data.put("discarded",             discarded);
+			data.put("dispatched",            dispatched);
+			data.put("completed",             completed);
+			data.put("averageQueueTime",      dispatched > 0L ? TimeUnit.NANOSECONDS.toMillis(queueTime / dispatched) : 0L);
+			data.put("maxQueueTime",          TimeUnit.NANOSECONDS.toMillis(maxQueueTime));
+			data.put("averageProcessingTime", completed > 0L ? TimeUnit.NANOSECONDS.toMillis(processingTime / completed) : 0L);
+
+			return data;
+		}
+	}
 }
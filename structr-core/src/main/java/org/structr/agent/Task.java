@@ -83,4 +83,15 @@ public interface Task<T> extends Delayed, StatusInfo {
 	 * @return the retry count
 	 */
 	int getRetryCount();
+
+	/**
+	 * Returns a key that identifies tasks with the same effect. A task
+	 * is dropped when a task with the same key is already waiting in
+	 * the queue.
+	 *
+	 * @return the deduplication key, or null if the task must always be queued
+	 */
+	default Object getDeduplicationKey() {
+		return null;
+	}
 }
@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.agent;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Blocking task queue that orders tasks by priority and drops tasks
+ * whose deduplication key matches that of a task still in the queue.
+ *
+ * Tasks with higher priority are returned first, tasks with the same
+ * priority in the order they were added. A deduplication key is held
+ * until {@link #done} is called for the task that owns it, usually
+ * when an agent starts to process the task.
+ */
+public class TaskQueue {
+
+	private final PriorityBlockingQueue<Entry> queue = new PriorityBlockingQueue<>();
+	private final Map<Object, Entry> pending         = new ConcurrentHashMap<>();
+	private final AtomicLong sequence                = new AtomicLong();
+
+	/**
+	 * Adds the given task to the queue.
+	 *
+	 * @param task
+	 * @return the new entry, or null if an equivalent task is already queued
+	 */
+	public Entry add(final Task task) {
+
+		final Object taskKey = task.getDeduplicationKey();
+		final Object key     = taskKey != null ? getKey(task, taskKey) : null;
+		final Entry entry    = new Entry(task, key, sequence.incrementAndGet());
+
+		if (key != null && pending.putIfAbsent(key, entry) != null) {
+			return null;
+		}
+
+		queue.add(entry);
+
+		return entry;
+	}
+
+	/**
+	 * Waits for the next entry.
+	 *
+	 * @return the entry with the highest priority
+	 * @throws InterruptedException
+	 */
+	public Entry take() throws InterruptedException {
+		return queue.take();
+	}
+
+	/**
+	 * Puts an entry that could not be processed back into the queue,
+	 * keeping its original position.
+	 *
+	 * @param entry
+	 */
+	public void requeue(final Entry entry) {
+		queue.add(entry);
+	}
+
+	/**
+	 * Releases the deduplication key of the given task, so that
+	 * equivalent tasks are queued again.
+	 *
+	 * @param task
+	 */
+	public void done(final Task task) {
+
+		final Object taskKey = task.getDeduplicationKey();
+		if (taskKey != null) {
+
+			pending.computeIfPresent(getKey(task, taskKey), (k, entry) -> entry.task == task ? null : entry);
+		}
+	}
+
+	public int size() {
+		return queue.size();
+	}
+
+	public Collection<Task> getTasks() {
+
+		final List<Task> tasks = new LinkedList<>();
+
+		for (final Entry entry : queue) {
+			tasks.add(entry.task);
+		}
+
+		return tasks;
+	}
+
+	// ----- private methods -----
+	private Object getKey(final Task task, final Object taskKey) {
+		return new SimpleImmutableEntry<>(task.getClass(), taskKey);
+	}
+
+	// ----- nested classes -----
+	public static class Entry implements Comparable<Entry> {
+
+		private final long enqueueTime = System.nanoTime();
+		private Object key             = null;
+		private Task task              = null;
+		private long sequence          = 0L;
+
+		private Entry(final Task task, final Object key, final long sequence) {
+
+			this.task     = task;
+			this.key      = key;
+			this.sequence = sequence;
+		}
+
+		public Task getTask() {
+			return task;
+		}
+
+		/**
+		 * @return the time in nanoseconds this entry was added to the queue
+		 */
+		public long getEnqueueTime() {
+			return enqueueTime;
+		}
+
+		@Override
+		public int compareTo(final Entry other) {
+
+			final int p1 = task.priority();
+			final int p2 = other.task.priority();
+
+			if (p1 != p2) {
+				return p1 > p2 ? -1 : 1;
+			}
+
+			return Long.compare(sequence, other.sequence);
+		}
+	}
+}
@@ -18,23 +18,28 @@
  */
 package org.structr.common;
 
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import org.structr.api.config.Settings;
 import org.structr.api.graph.Node;
 import org.structr.api.graph.PropertyContainer;
 import org.structr.api.graph.Relationship;
+import org.structr.api.util.Cachable;
+import org.structr.api.util.FixedSizeCache;
 import org.structr.core.graph.NodeInterface;
 
 /**
- *
+ * Cache for resolved access paths between two nodes. Reverse indexes map
+ * the UUIDs and relationship types of each path to the cache entries that
+ * depend on them, so that invalidation only touches affected entries. The
+ * number of entries is limited by database.cache.accesspath.size.
  */
 public class AccessPathCache {
 
-	private static final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
-	private static final Set<String> allRelTypes       = new HashSet<>();
-	private static final Set<String> allUuids          = new HashSet<>();
+	private static final FixedSizeCache<String, CacheEntry> cache  = new FixedSizeCache<>(Settings.AccessPathCacheSize.getValue());
+	private static final Map<String, Set<CacheEntry>> uuidIndex    = new ConcurrentHashMap<>();
+	private static final Map<String, Set<CacheEntry>> relTypeIndex = new ConcurrentHashMap<>();
 
 	public static PermissionResolutionMask get(final NodeInterface startNode, final NodeInterface endNode) {
 
@@ -52,9 +57,9 @@ public class AccessPathCache {
 
 		final CacheEntry entry = getOrCreateCacheEntry(startNode, endNode);
 
-		// remember UUIDs
-		allUuids.add(startNode.getUuid());
-		allUuids.add(endNode.getUuid());
+		// the path depends on its start and end node as well
+		entry.addUuid(startNode.getUuid());
+		entry.addUuid(endNode.getUuid());
 
 		entry.mask = mask;
 	}
@@ -66,8 +71,7 @@ public class AccessPathCache {
 
 		if (uuid != null) {
 
-			entry.uuids.add(uuid);
-			allUuids.add(uuid);
+			entry.addUuid(uuid);
 		}
 	}
 
@@ -78,69 +82,51 @@ public class AccessPathCache {
 
 		if (uuid != null) {
 
-			final String relType   = rel.getType().name();
-
-			entry.uuids.add(uuid);
-			allUuids.add(uuid);
-
-			entry.relTypes.add(relType);
-			allRelTypes.add(relType);
-
+			entry.addUuid(uuid);
+			entry.addRelType(rel.getType().name());
 		}
 	}
 
 	public static void invalidateForId(final String uuid) {
-
-		if (allUuids.contains(uuid)) {
-
-			for (final CacheEntry entry : cache.values()) {
-
-				if (entry.uuids.contains(uuid)) {
-					cache.remove(entry.key);
-				}
-			}
-
-			allUuids.remove(uuid);
-		}
+		invalidate(uuidIndex.remove(uuid));
 	}
 
 	public static void invalidateForRelType(final String relType) {
-
-		if (allRelTypes.contains(relType)) {
-
-			for (final CacheEntry entry : cache.values()) {
-
-				if (entry.relTypes.contains(relType)) {
-					cache.remove(entry.key);
-				}
-			}
-
-			allRelTypes.remove(relType);
-		}
+		invalidate(relTypeIndex.remove(relType));
 	}
 
 	public static void invalidate() {
 
-		allRelTypes.clear();
-		allUuids.clear();
 		cache.clear();
+		uuidIndex.clear();
+		relTypeIndex.clear();
+	}
+
+	public static int size() {
+		return cache.size();
 	}
 
 	// ----- private methods -----
 	private static CacheEntry getOrCreateCacheEntry(final NodeInterface startNode, final NodeInterface endNode) {
+		return cache.getOrCreate(cacheKey(startNode, endNode), entry -> true, CacheEntry::new);
+	}
 
-		final String cacheKey = cacheKey(startNode, endNode);
-		CacheEntry entry      = cache.get(cacheKey);
+	private static void invalidate(final Set<CacheEntry> entries) {
 
-		if (entry == null) {
+		if (entries != null) {
 
-			entry = new CacheEntry();
-			entry.key = cacheKey;
+			for (final CacheEntry entry : entries) {
 
-			cache.put(cacheKey, entry);
-		}
+				final CacheEntry removed = cache.remove(entry.key);
+
+				entry.remove();
 
-		return entry;
+				// a newer entry for the same path depends on the same objects
+				if (removed != null && removed != entry) {
+					removed.remove();
+				}
+			}
+		}
 	}
 
 	private static String cacheKey(final NodeInterface startNode, final NodeInterface endNode) {
@@ -156,12 +142,70 @@ public class AccessPathCache {
 		return null;
 	}
 
+	private static void index(final Map<String, Set<CacheEntry>> index, final String value, final CacheEntry entry) {
+		index.computeIfAbsent(value, k -> ConcurrentHashMap.newKeySet()).add(entry);
+	}
+
+	private static void unindex(final Map<String, Set<CacheEntry>> index, final String value, final CacheEntry entry) {
+
+		index.computeIfPresent(value, (k, entries) -> {
+
+			entries.remove(entry);
+
+			return entries.isEmpty() ? null : entries;
+		});
+	}
+
 	// ----- nested classes -----
-	private static class CacheEntry {
+	private static class CacheEntry implements Cachable {
+
+		protected final Set<String> uuids                = ConcurrentHashMap.newKeySet();
+		protected final Set<String> relTypes             = ConcurrentHashMap.newKeySet();
+		protected volatile PermissionResolutionMask mask = null;
+		protected volatile boolean removed               = false;
+		protected final String key;
 
-		protected Set<String> uuids             = new HashSet<>();
-		protected Set<String> relTypes          = new HashSet<>();
-		protected PermissionResolutionMask mask = null;
-		protected String key                    = null;
+		public CacheEntry(final String key) {
+			this.key = key;
+		}
+
+		@Override
+		public void onRemoveFromCache() {
+			remove();
+		}
+
+		public void addUuid(final String uuid) {
+
+			uuids.add(uuid);
+			index(uuidIndex, uuid, this);
+
+			// the entry may have been evicted while it was updated
+			if (removed) {
+				unindex(uuidIndex, uuid, this);
+			}
+		}
+
+		public void addRelType(final String relType) {
+
+			relTypes.add(relType);
+			index(relTypeIndex, relType, this);
+
+			if (removed) {
+				unindex(relTypeIndex, relType, this);
+			}
+		}
+
+		public void remove() {
+
+			removed = true;
+
+			for (final String uuid : uuids) {
+				unindex(uuidIndex, uuid, this);
+			}
+
+			for (final String relType : relTypes) {
+				unindex(relTypeIndex, relType, this);
+			}
+		}
 	}
 }
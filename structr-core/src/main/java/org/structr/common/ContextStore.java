@@ -42,13 +42,17 @@ public class ContextStore {
 	public ContextStore () {
 	}
 
+	/**
+	 * Creates a copy of the given context store. The maps are copied so
+	 * that the copy can be used in a different thread than the original.
+	 */
 	public ContextStore (final ContextStore other) {
 
-		this.headers     = other.headers;
-		this.constants   = other.constants;
-		this.tmpStore    = other.tmpStore;
-		this.timerStore  = other.timerStore;
-		this.counters    = other.counters;
+		this.headers     = new HashMap<>(other.headers);
+		this.constants   = new HashMap<>(other.constants);
+		this.tmpStore    = new HashMap<>(other.tmpStore);
+		this.timerStore  = new HashMap<>(other.timerStore);
+		this.counters    = new HashMap<>(other.counters);
 		this.amc         = other.amc;
 	}
 
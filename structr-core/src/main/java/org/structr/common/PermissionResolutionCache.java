@@ -0,0 +1,210 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.common;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.structr.api.config.Settings;
+import org.structr.api.util.FixedSizeCache;
+
+/**
+ * Bounded, thread-safe cache for permission resolution results.
+ *
+ * Results are stored per node, so that a change to the security
+ * information of a single node only invalidates the entries of that
+ * node. Results that were obtained by following permission-propagating
+ * relationships depend on other nodes as well, they are tagged with a
+ * global generation counter and become invalid as soon as any security-
+ * relevant change is recorded.
+ */
+public class PermissionResolutionCache {
+
+	private static final FixedSizeCache<Long, CacheEntry> cache = new FixedSizeCache<>(Settings.PermissionCacheSize.getValue());
+	private static final AtomicLong generation                  = new AtomicLong();
+
+	/**
+	 * Returns the current propagation generation. Callers should fetch the
+	 * generation before resolving a permission and pass it to the store
+	 * method, so that a result computed during a concurrent invalidation
+	 * is not cached.
+	 *
+	 * @return the current generation
+	 */
+	public static long getGeneration() {
+		return generation.get();
+	}
+
+	public static Boolean getDecision(final long nodeId, final Permission permission, final String principalId) {
+
+		final CacheEntry entry = cache.get(nodeId);
+		if (entry != null) {
+
+			final Decision decision = entry.decisions.get(decisionKey(permission, principalId));
+			if (decision != null && decision.isValid()) {
+
+				return decision.value;
+			}
+		}
+
+		return null;
+	}
+
+	public static void storeDecision(final long nodeId, final Permission permission, final String principalId, final boolean value, final boolean propagated, final long startGeneration) {
+
+		if (propagated && startGeneration != generation.get()) {
+			return;
+		}
+
+		getOrCreateCacheEntry(nodeId).decisions.put(decisionKey(permission, principalId), new Decision(value, propagated ? startGeneration : -1L));
+	}
+
+	public static Boolean getResolutionResult(final long nodeId, final long principalId, final Permission permission) {
+
+		final CacheEntry entry = cache.get(nodeId);
+		if (entry != null) {
+
+			final ResolutionResult result = entry.results.get(principalId);
+			if (result != null && result.generation == generation.get()) {
+
+				return result.get(permission);
+			}
+		}
+
+		return null;
+	}
+
+	public static void storeResolutionResult(final long nodeId, final long principalId, final Permission permission, final boolean value) {
+
+		final Map<Long, ResolutionResult> results = getOrCreateCacheEntry(nodeId).results;
+		final long currentGeneration              = generation.get();
+
+		ResolutionResult result = results.get(principalId);
+		if (result == null || result.generation != currentGeneration) {
+
+			result = new ResolutionResult(currentGeneration);
+			results.put(principalId, result);
+		}
+
+		result.set(permission, value);
+	}
+
+	/**
+	 * Removes all cached results for the given node.
+	 *
+	 * @param nodeId
+	 */
+	public static void invalidateNode(final long nodeId) {
+		cache.remove(nodeId);
+	}
+
+	/**
+	 * Invalidates all cached results that were obtained by following
+	 * permission-propagating relationships.
+	 */
+	public static void invalidatePropagated() {
+		generation.incrementAndGet();
+	}
+
+	public static void invalidate() {
+
+		generation.incrementAndGet();
+		cache.clear();
+	}
+
+	// ----- private methods -----
+	private static CacheEntry getOrCreateCacheEntry(final long nodeId) {
+
+		final CacheEntry entry = cache.get(nodeId);
+		if (entry == null) {
+
+			final CacheEntry newEntry = new CacheEntry();
+			final CacheEntry existing = cache.putIfAbsent(nodeId, newEntry);
+
+			return existing != null ? existing : newEntry;
+		}
+
+		return entry;
+	}
+
+	private static String decisionKey(final Permission permission, final String principalId) {
+		return permission.name() + "." + principalId;
+	}
+
+	// ----- nested classes -----
+	private static class CacheEntry {
+
+		protected final Map<String, Decision> decisions     = new ConcurrentHashMap<>();
+		protected final Map<Long, ResolutionResult> results = new ConcurrentHashMap<>();
+	}
+
+	private static class Decision {
+
+		private final boolean value;
+		private final long generation;
+
+		public Decision(final boolean value, final long generation) {
+
+			this.value      = value;
+			this.generation = generation;
+		}
+
+		public boolean isValid() {
+			return generation < 0 || generation == PermissionResolutionCache.generation.get();
+		}
+	}
+
+	private static class ResolutionResult {
+
+		private final long generation;
+		private volatile Boolean read          = null;
+		private volatile Boolean write         = null;
+		private volatile Boolean delete        = null;
+		private volatile Boolean accessControl = null;
+
+		public ResolutionResult(final long generation) {
+			this.generation = generation;
+		}
+
+		public Boolean get(final Permission permission) {
+
+			switch (permission.name()) {
+
+				case "read":          return read;
+				case "write":         return write;
+				case "delete":        return delete;
+				case "accessControl": return accessControl;
+			}
+
+			return null;
+		}
+
+		public void set(final Permission permission, final boolean value) {
+
+			// a positive result is never overwritten by a negative one
+			switch (permission.name()) {
+
+				case "read":          if (!Boolean.TRUE.equals(read))          { read = value; }          break;
+				case "write":         if (!Boolean.TRUE.equals(write))         { write = value; }         break;
+				case "delete":        if (!Boolean.TRUE.equals(delete))        { delete = value; }        break;
+				case "accessControl": if (!Boolean.TRUE.equals(accessControl)) { accessControl = value; } break;
+			}
+		}
+	}
+}
@@ -0,0 +1,197 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.common;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.lang3.ArrayUtils;
+import org.structr.api.config.Settings;
+import org.structr.api.util.FixedSizeCache;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.app.App;
+import org.structr.core.app.StructrApp;
+import org.structr.core.entity.Principal;
+import org.structr.core.entity.SessionDataNode;
+import org.structr.core.graph.NodeAttribute;
+import org.structr.core.property.PropertyKey;
+
+/**
+ * Bounded, thread-safe cache for the mapping of session ids to principals.
+ *
+ * Session ids are stored in an array property of the principal, which can
+ * not be looked up through an index. The id of the principal is therefore
+ * stored in the session node with the same session id as well, which is
+ * maintained by the modification queue whenever the session ids of a
+ * principal change. Lookups that miss this cache use the sessionId index
+ * of the session nodes. Positive results are verified against the session
+ * ids of the principal. Negative results are tagged with a global
+ * generation counter, so that a result computed during a concurrent
+ * modification of session ids is not cached.
+ */
+public class SessionPrincipalCache {
+
+	private static final FixedSizeCache<String, String> cache = new FixedSizeCache<>(Settings.SessionCacheSize.getValue());
+	private static final AtomicLong generation                = new AtomicLong();
+	private static final String NO_PRINCIPAL                  = "";
+
+	/**
+	 * Returns the principal that has the given session id, or null.
+	 *
+	 * @param sessionId
+	 * @param isPing
+	 * @return the principal or null
+	 * @throws FrameworkException
+	 */
+	public static Principal getPrincipalForSessionId(final String sessionId, final boolean isPing) throws FrameworkException {
+
+		final App app         = StructrApp.getInstance();
+		final String cachedId = cache.get(sessionId);
+
+		if (cachedId != null) {
+
+			if (NO_PRINCIPAL.equals(cachedId)) {
+				return null;
+			}
+
+			final Principal principal = getPrincipal(app, cachedId, sessionId);
+			if (principal != null) {
+
+				return principal;
+			}
+
+			cache.remove(sessionId);
+		}
+
+		final long startGeneration = generation.get();
+		Principal principal        = null;
+
+		for (final SessionDataNode node : getSessionNodes(app, sessionId, isPing)) {
+
+			final String principalId = node.getProperty(SessionDataNode.principalId);
+			if (principalId != null) {
+
+				principal = getPrincipal(app, principalId, sessionId);
+				if (principal != null) {
+					break;
+				}
+			}
+		}
+
+		if (principal != null) {
+
+			cache.put(sessionId, principal.getUuid());
+
+		} else if (startGeneration == generation.get()) {
+
+			cache.put(sessionId, NO_PRINCIPAL);
+		}
+
+		return principal;
+	}
+
+	/**
+	 * Stores the given mapping of session ids to principal ids in the
+	 * session nodes, creating them if necessary. A null principal id
+	 * removes the mapping, unless the session id is still assigned to
+	 * the principal that is currently stored in the session node.
+	 *
+	 * @param sessionPrincipals
+	 * @throws FrameworkException
+	 */
+	public static void updateSessionPrincipals(final Map<String, String> sessionPrincipals) throws FrameworkException {
+
+		final App app = StructrApp.getInstance();
+
+		for (final Map.Entry<String, String> entry : sessionPrincipals.entrySet()) {
+
+			final String sessionId            = entry.getKey();
+			final String principalId          = entry.getValue();
+			final List<SessionDataNode> nodes = getSessionNodes(app, sessionId, false);
+
+			if (principalId != null) {
+
+				if (nodes.isEmpty()) {
+
+					// session nodes expire when they have not been accessed for the session timeout
+					app.create(SessionDataNode.class,
+						new NodeAttribute<>(SessionDataNode.sessionId,    sessionId),
+						new NodeAttribute<>(SessionDataNode.lastAccessed, new Date()),
+						new NodeAttribute<>(SessionDataNode.principalId,  principalId)
+					);
+
+				} else {
+
+					for (final SessionDataNode node : nodes) {
+
+						node.setProperty(SessionDataNode.principalId, principalId);
+					}
+				}
+
+			} else {
+
+				for (final SessionDataNode node : nodes) {
+
+					final String currentId = node.getProperty(SessionDataNode.principalId);
+					if (currentId != null && getPrincipal(app, currentId, sessionId) == null) {
+
+						node.setProperty(SessionDataNode.principalId, null);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the cached results for the given session ids.
+	 *
+	 * @param sessionIds
+	 */
+	public static void invalidate(final Collection<String> sessionIds) {
+
+		generation.incrementAndGet();
+		cache.removeAll(sessionIds);
+	}
+
+	public static void invalidate() {
+
+		generation.incrementAndGet();
+		cache.clear();
+	}
+
+	// ----- private methods -----
+	private static List<SessionDataNode> getSessionNodes(final App app, final String sessionId, final boolean isPing) throws FrameworkException {
+		return app.nodeQuery(SessionDataNode.class).and(SessionDataNode.sessionId, sessionId).disableSorting().isPing(isPing).getAsList();
+	}
+
+	private static Principal getPrincipal(final App app, final String principalId, final String sessionId) throws FrameworkException {
+
+		final PropertyKey<String[]> key = StructrApp.key(Principal.class, "sessionIds");
+		final Principal principal       = app.get(Principal.class, principalId);
+
+		if (principal != null && ArrayUtils.contains(principal.getProperty(key), sessionId)) {
+
+			return principal;
+		}
+
+		return null;
+	}
+}
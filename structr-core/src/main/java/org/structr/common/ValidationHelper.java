@@ -18,9 +18,11 @@
  */
 package org.structr.common;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -53,6 +55,14 @@ public class ValidationHelper {
 
 	private static final PropertyKey UnknownType       = new GenericProperty("unknown type");
 	private static final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+	private static final ReentrantLock[] uniqueLocks   = new ReentrantLock[256];
+
+	static {
+
+		for (int i=0; i<uniqueLocks.length; i++) {
+			uniqueLocks[i] = new ReentrantLock();
+		}
+	}
 
 	// ----- public static methods -----
 	/**
@@ -507,7 +517,7 @@ public class ValidationHelper {
 		return true;
 	}
 
-	public static synchronized boolean isValidUniqueProperty(final GraphObject object, final PropertyKey key, final ErrorBuffer errorBuffer) {
+	public static boolean isValidUniqueProperty(final GraphObject object, final PropertyKey key, final ErrorBuffer errorBuffer) {
 
 		if (key != null) {
 
@@ -525,6 +535,11 @@ public class ValidationHelper {
 					type = object.getClass();
 				}
 
+				// only checks for the same type, key and value need to be serialized
+				final ReentrantLock lock = getUniqueLock(type, key.dbName(), value);
+
+				lock.lock();
+
 				try {
 
 					if (object instanceof NodeInterface) {
@@ -549,6 +564,9 @@ public class ValidationHelper {
 
 					logger.warn("", fex);
 
+				} finally {
+
+					lock.unlock();
 				}
 
 				/* This validation code runs at the end of a transaction, so if there
@@ -584,7 +602,7 @@ public class ValidationHelper {
 		return true;
 	}
 
-	public static synchronized boolean areValidCompoundUniqueProperties(final GraphObject object, final ErrorBuffer errorBuffer, final PropertyKey... keys) {
+	public static boolean areValidCompoundUniqueProperties(final GraphObject object, final ErrorBuffer errorBuffer, final PropertyKey... keys) {
 
 		if (keys != null && keys.length > 0) {
 
@@ -609,6 +627,10 @@ public class ValidationHelper {
 				type = object.getClass();
 			}
 
+			final ReentrantLock lock = getUniqueLock(type, getKeysAndValues(properties));
+
+			lock.lock();
+
 			try {
 
 				if (object instanceof NodeInterface) {
@@ -633,6 +655,9 @@ public class ValidationHelper {
 
 				logger.warn("", fex);
 
+			} finally {
+
+				lock.unlock();
 			}
 
 			/* This validation code runs at the end of a transaction, so if there
@@ -667,12 +692,15 @@ public class ValidationHelper {
 		return true;
 	}
 
-	public static synchronized boolean isValidGloballyUniqueProperty(final GraphObject object, final PropertyKey key, final ErrorBuffer errorBuffer) {
+	public static boolean isValidGloballyUniqueProperty(final GraphObject object, final PropertyKey key, final ErrorBuffer errorBuffer) {
 
 		if (key != null) {
 
 			final Object value                 = object.getProperty(key);
 			List<? extends GraphObject> result = null;
+			final ReentrantLock lock           = getUniqueLock(GraphObject.class, key.dbName(), value);
+
+			lock.lock();
 
 			try {
 
@@ -703,6 +731,10 @@ public class ValidationHelper {
 
 				logger.warn("Unable to fetch list of nodes for uniqueness check", fex);
 				// handle error
+
+			} finally {
+
+				lock.unlock();
 			}
 
 			if (result != null) {
@@ -728,4 +760,31 @@ public class ValidationHelper {
 		return true;
 
 	}
+
+	// ----- private static methods -----
+	/**
+	 * Returns the lock that serializes uniqueness checks for the given
+	 * type and key/value combination. Locks are striped, so unrelated
+	 * checks can run concurrently.
+	 */
+	private static ReentrantLock getUniqueLock(final Class type, final Object... keysAndValues) {
+
+		final int hash = 31 * type.getName().hashCode() + Arrays.deepHashCode(keysAndValues);
+
+		return uniqueLocks[(hash & Integer.MAX_VALUE) % uniqueLocks.length];
+	}
+
+	private static Object[] getKeysAndValues(final PropertyMap properties) {
+
+		final Object[] keysAndValues = new Object[properties.size() * 2];
+		int index                    = 0;
+
+		for (final Map.Entry<PropertyKey, Object> entry : properties.entrySet()) {
+
+			keysAndValues[index++] = entry.getKey().dbName();
+			keysAndValues[index++] = entry.getValue();
+		}
+
+		return keysAndValues;
+	}
 }
@@ -67,6 +67,7 @@ import org.structr.common.AccessControllable;
 import org.structr.common.GraphObjectComparator;
 import org.structr.common.Permission;
 import org.structr.common.PermissionPropagation;
+import org.structr.common.PermissionResolutionCache;
 import org.structr.common.PermissionResolutionMask;
 import org.structr.common.PropertyView;
 import org.structr.common.SecurityContext;
@@ -102,11 +103,9 @@ import org.structr.schema.action.Function;
  */
 public abstract class AbstractNode implements NodeInterface, AccessControllable, CMISInfo, CMISItemInfo {
 
-	private static final int permissionResolutionMaxLevel                                                 = Settings.ResolutionDepth.getValue();
-	private static final Logger logger                                                                    = LoggerFactory.getLogger(AbstractNode.class.getName());
-	private static final FixedSizeCache<String, Boolean> isGrantedResultCache                             = new FixedSizeCache<String, Boolean>(100000);
-	private static final FixedSizeCache<String, Object> relationshipTemplateInstanceCache                 = new FixedSizeCache<>(1000);
-	private static final Map<Long, Map<Long, PermissionResolutionResult>> globalPermissionResolutionCache = new HashMap<>();
+	private static final int permissionResolutionMaxLevel                                 = Settings.ResolutionDepth.getValue();
+	private static final Logger logger                                                    = LoggerFactory.getLogger(AbstractNode.class.getName());
+	private static final FixedSizeCache<String, Object> relationshipTemplateInstanceCache = new FixedSizeCache<>(1000);
 
 	public static final View defaultView = new View(AbstractNode.class, PropertyView.Public, id, type);
 
@@ -793,17 +792,23 @@ public abstract class AbstractNode implements NodeInterface, AccessControllable,
 			accessingUser = context.getUser(false);
 		}
 
-		final String cacheKey = getUuid() + "." + permission.name() + "." + context.getCachedUserId();
-		final Boolean cached  = isGrantedResultCache.get(cacheKey);
+		final String principalId = context.getCachedUserId();
+		final Boolean cached     = PermissionResolutionCache.getDecision(getId(), permission, principalId);
 
-		if (cached != null && cached == true) {
-			return true;
+		if (cached != null) {
+			return cached;
 		}
 
-		final boolean doLog  = securityContext.hasParameter("logPermissionResolution");
-		final boolean result = isGranted(permission, accessingUser, new PermissionResolutionMask(), 0, new AlreadyTraversed(), true, doLog);
+		final long generation                   = PermissionResolutionCache.getGeneration();
+		final AlreadyTraversed alreadyTraversed = new AlreadyTraversed();
+		final boolean doLog                     = securityContext.hasParameter("logPermissionResolution");
+		final boolean result                    = isGranted(permission, accessingUser, new PermissionResolutionMask(), 0, alreadyTraversed, true, doLog);
+
+		// the result for a node that is being created depends on the state of the transaction
+		if (!isCreation && (result || !alreadyTraversed.usedCustomQuery)) {
 
-		isGrantedResultCache.put(cacheKey, result);
+			PermissionResolutionCache.storeDecision(getId(), permission, principalId, result, alreadyTraversed.propagated, generation);
+		}
 
 		return result;
 	}
@@ -886,6 +891,9 @@ public abstract class AbstractNode implements NodeInterface, AccessControllable,
 				params.put("targetNodeId", this.getId());
 				params.put("targetNodeType", this.getType());
 
+				// results of custom queries can depend on arbitrary data, so negative results are not cached
+				alreadyTraversed.usedCustomQuery = true;
+
 				boolean result = false;
 				try {
 
@@ -920,6 +928,8 @@ public abstract class AbstractNode implements NodeInterface, AccessControllable,
 						final Boolean value = info.node.getPermissionResolutionResult(accessingUser.getId(), permission);
 						if (value != null) {
 
+							alreadyTraversed.propagated = true;
+
 							// returning immediately
 							if (Boolean.TRUE.equals(value)) {
 
@@ -1025,6 +1035,8 @@ public abstract class AbstractNode implements NodeInterface, AccessControllable,
 
 						if (mask.allowsPermission(permission)) {
 
+							alreadyTraversed.propagated = true;
+
 							final AbstractNode otherNode = (AbstractNode)rel.getOtherNode(this);
 
 							if (otherNode.isGranted(permission, principal, mask, level+1, alreadyTraversed, false, doLog)) {
@@ -1171,68 +1183,11 @@ public abstract class AbstractNode implements NodeInterface, AccessControllable,
 	}
 
 	private Boolean getPermissionResolutionResult(final long principalId, final Permission permission) {
-
-		Map<Long, PermissionResolutionResult> permissionResolutionCache = globalPermissionResolutionCache.get(getId());
-		if (permissionResolutionCache == null) {
-
-			permissionResolutionCache = new HashMap<>();
-			globalPermissionResolutionCache.put(getId(), permissionResolutionCache);
-		}
-
-		PermissionResolutionResult result = permissionResolutionCache.get(principalId);
-		if (result != null) {
-
-			if (permission.equals(Permission.read)) {
-				return result.read;
-			}
-
-			if (permission.equals(Permission.write)) {
-				return result.write;
-			}
-
-			if (permission.equals(Permission.delete)) {
-				return result.delete;
-			}
-
-			if (permission.equals(Permission.accessControl)) {
-				return result.accessControl;
-			}
-		}
-
-		return null;
+		return PermissionResolutionCache.getResolutionResult(getId(), principalId, permission);
 	}
 
 	private void storePermissionResolutionResult(final long principalId, final Permission permission, final boolean value) {
-
-		Map<Long, PermissionResolutionResult> permissionResolutionCache = globalPermissionResolutionCache.get(getId());
-		if (permissionResolutionCache == null) {
-
-			permissionResolutionCache = new HashMap<>();
-			globalPermissionResolutionCache.put(getId(), permissionResolutionCache);
-		}
-
-		PermissionResolutionResult result = permissionResolutionCache.get(principalId);
-		if (result == null) {
-
-			result = new PermissionResolutionResult();
-			permissionResolutionCache.put(principalId, result);
-		}
-
-		if (permission.equals(Permission.read) && (result.read == null || result.read == false)) {
-			result.read = value;
-		}
-
-		if (permission.equals(Permission.write) && (result.write == null || result.write == false)) {
-			result.write = value;
-		}
-
-		if (permission.equals(Permission.delete) && (result.delete == null || result.delete == false)) {
-			result.delete = value;
-		}
-
-		if (permission.equals(Permission.accessControl) && (result.accessControl == null || result.accessControl == false)) {
-			result.accessControl = value;
-		}
+		PermissionResolutionCache.storeResolutionResult(getId(), principalId, permission, value);
 	}
 
 	private Security getSecurityRelationship(final Principal p, final Map<String, Security> securityRelationships) {
@@ -1274,12 +1229,10 @@ public abstract class AbstractNode implements NodeInterface, AccessControllable,
 
 	@Override
 	public void onModification(SecurityContext securityContext, ErrorBuffer errorBuffer, final ModificationQueue modificationQueue) throws FrameworkException {
-		clearCaches();
 	}
 
 	@Override
 	public void onDeletion(SecurityContext securityContext, ErrorBuffer errorBuffer, PropertyMap properties) throws FrameworkException {
-		clearCaches();
 	}
 
 	@Override
@@ -1296,22 +1249,18 @@ public abstract class AbstractNode implements NodeInterface, AccessControllable,
 
 	@Override
 	public void ownerModified(SecurityContext securityContext) {
-		clearCaches();
 	}
 
 	@Override
 	public void securityModified(SecurityContext securityContext) {
-		clearCaches();
 	}
 
 	@Override
 	public void locationModified(SecurityContext securityContext) {
-		clearCaches();
 	}
 
 	@Override
 	public void propagatedModification(SecurityContext securityContext) {
-		clearCaches();
 	}
 
 	@Override
@@ -1549,8 +1498,7 @@ public abstract class AbstractNode implements NodeInterface, AccessControllable,
 	}
 
 	public static void clearCaches() {
-		globalPermissionResolutionCache.clear();
-		isGrantedResultCache.clear();
+		PermissionResolutionCache.invalidate();
 	}
 
 	public static <A extends NodeInterface, B extends NodeInterface, R extends Relation<A, B, ?, ?>> R getRelationshipForType(final Class<R> type) {
@@ -1786,8 +1734,6 @@ public abstract class AbstractNode implements NodeInterface, AccessControllable,
 			throw new FrameworkException(403, "Access control not permitted");
 		}
 
-		clearCaches();
-
 		Security secRel = getSecurityRelationship(principal);
 		if (secRel == null) {
 
@@ -1827,8 +1773,6 @@ public abstract class AbstractNode implements NodeInterface, AccessControllable,
 			throw new FrameworkException(403, "Access control not permitted");
 		}
 
-		clearCaches();
-
 		Security secRel = getSecurityRelationship(principal);
 		if (secRel != null) {
 
@@ -2116,6 +2060,8 @@ public abstract class AbstractNode implements NodeInterface, AccessControllable,
 	private static class AlreadyTraversed {
 
 		private Map<String, Set<Long>> sets = new LinkedHashMap<>();
+		private boolean usedCustomQuery     = false;
+		private boolean propagated          = false;
 
 		public boolean contains(final String key, final Long id) {
 
@@ -2157,12 +2103,4 @@ public abstract class AbstractNode implements NodeInterface, AccessControllable,
 			}
 		}
 	}
-
-	private static class PermissionResolutionResult {
-
-		Boolean read          = false;
-		Boolean write         = false;
-		Boolean delete        = false;
-		Boolean accessControl = false;
-	}
 }
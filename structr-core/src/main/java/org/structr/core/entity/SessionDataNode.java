@@ -41,9 +41,10 @@ public class SessionDataNode extends AbstractNode {
 	public static final Property<String>               vhost        = new StringProperty("vhost");
 	public static final Property<Date>                 lastAccessed = new DateProperty("lastAccessed").indexed();
 	public static final Property<Long>                 version      = new LongProperty("version");
+	public static final Property<String>               principalId  = new StringProperty("principalId");
 
 	public static final View uiView = new View(SessionDataNode.class, PropertyView.Ui,
-		sessionId, contextPath, vhost, lastAccessed, version
+		sessionId, contextPath, vhost, lastAccessed, version, principalId
 	);
 
 	public static final View publicView = new View(SessionDataNode.class, PropertyView.Public,
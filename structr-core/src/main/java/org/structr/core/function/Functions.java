@@ -29,6 +29,8 @@ import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
 import org.apache.commons.lang3.StringUtils;
+import org.structr.api.config.Settings;
+import org.structr.api.util.FixedSizeCache;
 import org.structr.common.error.FrameworkException;
 import org.structr.common.error.UnlicensedScriptException;
 import org.structr.core.GraphObject;
@@ -60,8 +62,9 @@ import org.structr.schema.action.Function;
  */
 public class Functions {
 
-	private static final Map<String, Function<Object, Object>> functions = new LinkedHashMap<>();
-	public static final String NULL_STRING                               = "___NULL___";
+	private static final FixedSizeCache<String, Expression> expressionCache = new FixedSizeCache<>(Settings.ExpressionCacheSize.getValue());
+	private static final Map<String, Function<Object, Object>> functions    = new LinkedHashMap<>();
+	public static final String NULL_STRING                                  = "___NULL___";
 
 	public static void put(final boolean licensed, final int edition, final String name, final Function<Object, Object> function) {
 
@@ -89,6 +92,12 @@ public class Functions {
 
 	public static Object evaluate(final ActionContext actionContext, final GraphObject entity, final String expression) throws FrameworkException, UnlicensedScriptException {
 
+		final Expression cached = expressionCache.get(expression);
+		if (cached != null) {
+
+			return cached.evaluate(actionContext, entity);
+		}
+
 		final String expressionWithoutNewlines = expression.replace('\n', ' ').replace('\r', ' ');
 		final StreamTokenizer tokenizer = new StreamTokenizer(new StringReader(expressionWithoutNewlines));
 		tokenizer.eolIsSignificant(true);
@@ -101,6 +110,7 @@ public class Functions {
 		Expression current = root;
 		Expression next = null;
 		String lastToken = null;
+		boolean cacheable = true;
 		int token = 0;
 		int level = 0;
 
@@ -130,6 +140,12 @@ public class Functions {
 						throw new FrameworkException(422, "Invalid expression: mismatched opening bracket before " + tokenizer.sval);
 					}
 					next = checkReservedWords(tokenizer.sval);
+					if (next instanceof BatchExpression) {
+
+						// batch() stores its batch size in the expression tree
+						// during evaluation, so it must not be shared
+						cacheable = false;
+					}
 					Expression previousExpression = current.getPrevious();
 					if (tokenizer.sval.startsWith(".") && previousExpression != null && previousExpression instanceof FunctionExpression && next instanceof ValueExpression) {
 
@@ -214,9 +230,17 @@ public class Functions {
 			throw new FrameworkException(422, "Invalid expression: mismatched closing bracket after " + lastToken);
 		}
 
+		if (cacheable) {
+			expressionCache.put(expression, root);
+		}
+
 		return root.evaluate(actionContext, entity);
 	}
 
+	public static void clearCache() {
+		expressionCache.clear();
+	}
+
 	public static String cleanString(final Object input) {
 
 		if (input == null) {
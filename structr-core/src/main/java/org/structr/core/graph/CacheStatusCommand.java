@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.core.graph;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import org.structr.api.util.FixedSizeCache;
+import org.structr.bolt.index.QueryResultCache;
+import org.structr.bolt.wrapper.NodeWrapper;
+import org.structr.bolt.wrapper.RelationshipWrapper;
+import org.structr.common.error.FrameworkException;
+
+/**
+ * Maintenance command that returns the size and the hit, miss and
+ * eviction counts of the node, relationship and query caches.
+ */
+public class CacheStatusCommand extends NodeServiceCommand implements MaintenanceCommand {
+
+	private List<Map<String, Object>> status = null;
+
+	@Override
+	public void execute(final Map<String, Object> attributes) throws FrameworkException {
+
+		status = new LinkedList<>();
+
+		addStatus("node",         NodeWrapper.getCache());
+		addStatus("relationship", RelationshipWrapper.getCache());
+		addStatus("query",        QueryResultCache.getCache());
+	}
+
+	@Override
+	public Object getCommandResult() {
+		return status;
+	}
+
+	@Override
+	public boolean requiresEnclosingTransaction() {
+		return false;
+	}
+
+	@Override
+	public boolean requiresFlushingOfCaches() {
+		return false;
+	}
+
+	// ----- private methods -----
+	private void addStatus(final String name, final FixedSizeCache cache) {
+
+		final Map<String, Object> data = new LinkedHashMap<>();
+
+		data.put("name", name);
+
+		// caches are created when the database service is started
+		if (cache != null) {
+
+			data.put("size",      cache.size());
+			data.put("maxSize",   cache.getMaxSize());
+			data.put("hits",      cache.getHitCount());
+			data.put("misses",    cache.getMissCount());
+			data.put("evictions", cache.getEvictionCount());
+		}
+
+		status.add(data);
+	}
+}
@@ -25,9 +25,12 @@ import org.structr.bolt.index.AdvancedCypherQuery;
 import org.structr.bolt.wrapper.NodeWrapper;
 import org.structr.bolt.wrapper.RelationshipWrapper;
 import org.structr.common.AccessPathCache;
+import org.structr.common.SessionPrincipalCache;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.app.StructrApp;
 import org.structr.core.entity.ResourceAccess;
+import org.structr.core.function.Functions;
+import org.structr.core.graphql.GraphQLRequest;
 import org.structr.schema.action.Actions;
 
 public class FlushCachesCommand extends NodeServiceCommand implements MaintenanceCommand {
@@ -50,9 +53,12 @@ public class FlushCachesCommand extends NodeServiceCommand implements Maintenanc
 		NodeWrapper.clearCache();
 		RelationshipWrapper.clearCache();
 		Actions.clearCache();
+		Functions.clearCache();
 		AdvancedCypherQuery.flushCaches();
+		GraphQLRequest.clearCache();
 
 		AccessPathCache.invalidate();
+		SessionPrincipalCache.invalidate();
 
 		StructrApp.getInstance().invalidateCache();
 	}
@@ -41,4 +41,14 @@ public interface MaintenanceCommand {
 		return customHeaders;
 	}
 
+	/**
+	 * Returns data that is sent to the client in the response body
+	 * after the command was executed.
+	 *
+	 * @return the result, or null if the command has no result
+	 */
+	default public Object getCommandResult() {
+		return null;
+	}
+
 }
@@ -40,12 +40,16 @@ import org.structr.api.graph.PropertyContainer;
 import org.structr.api.graph.Relationship;
 import org.structr.api.graph.RelationshipType;
 import org.structr.bolt.wrapper.EntityWrapper;
+import org.structr.common.PermissionPropagation;
+import org.structr.common.PermissionResolutionCache;
 import org.structr.common.RelType;
 import org.structr.common.SecurityContext;
+import org.structr.common.SessionPrincipalCache;
 import org.structr.common.error.ErrorBuffer;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.GraphObject;
 import org.structr.core.entity.Principal;
+import org.structr.core.entity.Security;
 import org.structr.core.function.ChangelogFunction;
 import org.structr.core.property.PropertyKey;
 
@@ -61,8 +65,14 @@ public class ModificationQueue {
 	private final ConcurrentSkipListMap<String, GraphObjectModificationState> modifications = new ConcurrentSkipListMap<>();
 	private final Collection<ModificationEvent> modificationEvents                          = new ArrayDeque<>(1000);
 	private final Map<String, TransactionPostProcess> postProcesses                         = new LinkedHashMap<>();
+	private final Map<String, Runnable> afterCommitTasks                                    = new LinkedHashMap<>();
 	private final Set<String> alreadyPropagated                                             = new LinkedHashSet<>();
 	private final Set<String> synchronizationKeys                                           = new TreeSet<>();
+	private final Set<Long> permissionInvalidatedNodes                                      = new LinkedHashSet<>();
+	private final Set<String> invalidatedSessionIds                                         = new LinkedHashSet<>();
+	private final Map<String, String> sessionPrincipals                                     = new LinkedHashMap<>();
+	private boolean invalidatePropagatedPermissions                                         = false;
+	private boolean invalidateAllPermissions                                                = false;
 
 	/**
 	 * Returns a set containing the different entity types of
@@ -217,6 +227,38 @@ public class ModificationQueue {
 		modificationEvents.clear();
 	}
 
+	/**
+	 * Repeats the permission cache invalidations recorded in this queue.
+	 * Must be called after the transaction is committed or rolled back,
+	 * to remove results that other transactions have cached in the
+	 * meantime based on the previous state.
+	 */
+	public void invalidatePermissionCache() {
+
+		if (invalidateAllPermissions) {
+
+			PermissionResolutionCache.invalidate();
+
+		} else {
+
+			for (final Long id : permissionInvalidatedNodes) {
+				PermissionResolutionCache.invalidateNode(id);
+			}
+
+			if (invalidatePropagatedPermissions) {
+				PermissionResolutionCache.invalidatePropagated();
+			}
+		}
+	}
+
+	public void invalidateSessionCache() {
+
+		if (!invalidatedSessionIds.isEmpty()) {
+
+			SessionPrincipalCache.invalidate(invalidatedSessionIds);
+		}
+	}
+
 	public void create(final Principal user, final NodeInterface node) {
 
 		getState(node).create();
@@ -238,6 +280,7 @@ public class ModificationQueue {
 
 		if (sourceNode != null && targetNode != null) {
 
+			invalidatePermissions(relationship, sourceNode, targetNode);
 			modifyEndNodes(user, sourceNode, targetNode, relationship.getRelType());
 
 			if (Settings.ChangelogEnabled.getValue()) {
@@ -266,6 +309,25 @@ public class ModificationQueue {
 	public void modify(final Principal user, final NodeInterface node, final PropertyKey key, final Object previousValue, final Object newValue) {
 		getState(node).modify(user, key, previousValue, newValue);
 
+		if (isCreated(node)) {
+
+			// nodes created in this transaction can not be part of a cached result of another node
+			invalidatePermissions(node, false);
+
+		} else if (node instanceof Principal) {
+
+			invalidateAllPermissions();
+
+		} else {
+
+			// visibility flags are evaluated for other nodes during permission propagation
+			invalidatePermissions(node, GraphObject.visibleToPublicUsers.equals(key) || GraphObject.visibleToAuthenticatedUsers.equals(key));
+		}
+
+		if (node instanceof Principal) {
+			invalidateSessionIds(node, key, previousValue, newValue);
+		}
+
 		if (key != null&& key.requiresSynchronization()) {
 			synchronizationKeys.add(key.getSynchronizationKey());
 		}
@@ -274,11 +336,17 @@ public class ModificationQueue {
 	public void modify(final Principal user, RelationshipInterface relationship, PropertyKey key, Object previousValue, Object newValue) {
 		getState(relationship).modify(user, key, previousValue, newValue);
 
+		invalidatePermissions(relationship, relationship.getSourceNodeAsSuperUser(), relationship.getTargetNodeAsSuperUser());
+
 		if (key != null && key.requiresSynchronization()) {
 			synchronizationKeys.add(key.getSynchronizationKey());
 		}
 	}
 
+	public void modifyPermissions(final RelationshipInterface relationship) {
+		invalidatePermissions(relationship, relationship.getSourceNodeAsSuperUser(), relationship.getTargetNodeAsSuperUser());
+	}
+
 	public void propagatedModification(NodeInterface node) {
 
 		if (node != null) {
@@ -298,6 +366,15 @@ public class ModificationQueue {
 
 		getState(node).delete(false);
 
+		if (node instanceof Principal) {
+
+			invalidateAllPermissions();
+
+		} else {
+
+			invalidatePermissions(node, true);
+		}
+
 		if (Settings.ChangelogEnabled.getValue()) {
 
 			getState(node).updateChangeLog(user, GraphObjectModificationState.Verb.delete, node.getUuid());
@@ -311,6 +388,7 @@ public class ModificationQueue {
 		final NodeInterface sourceNode = relationship.getSourceNodeAsSuperUser();
 		final NodeInterface targetNode = relationship.getTargetNodeAsSuperUser();
 
+		invalidatePermissions(relationship, sourceNode, targetNode);
 		modifyEndNodes(user, sourceNode, targetNode, relationship.getRelType());
 
 		if (Settings.ChangelogEnabled.getValue()) {
@@ -334,6 +412,34 @@ public class ModificationQueue {
 		}
 	}
 
+	public void afterCommit(final String key, final Runnable task) {
+
+		if (!afterCommitTasks.containsKey(key)) {
+
+			this.afterCommitTasks.put(key, task);
+		}
+	}
+
+	/**
+	 * Runs the tasks registered with {@link TransactionCommand#afterCommit}.
+	 * Must only be called after the transaction was committed.
+	 */
+	public void doAfterCommit() {
+
+		for (final Runnable task : afterCommitTasks.values()) {
+
+			try {
+
+				task.run();
+
+			} catch (Throwable t) {
+				logger.warn("Unable to run after-commit task: {}", t.getMessage());
+			}
+		}
+
+		afterCommitTasks.clear();
+	}
+
 	public boolean isDeleted(final Node node) {
 
 		final GraphObjectModificationState state = modifications.get("N" + node.getId());
@@ -460,6 +566,95 @@ public class ModificationQueue {
 		}
 	}
 
+	private void invalidateSessionIds(final NodeInterface node, final PropertyKey key, final Object previousValue, final Object newValue) {
+
+		if (key != null && "sessionIds".equals(key.jsonName())) {
+
+			final Set<String> sessionIds = new LinkedHashSet<>();
+
+			if (previousValue instanceof String[]) {
+
+				for (final String sessionId : (String[])previousValue) {
+
+					sessionIds.add(sessionId);
+
+					// the session id may have been assigned to another principal in this transaction
+					sessionPrincipals.putIfAbsent(sessionId, null);
+				}
+			}
+
+			if (newValue instanceof String[]) {
+
+				for (final String sessionId : (String[])newValue) {
+
+					sessionIds.add(sessionId);
+					sessionPrincipals.put(sessionId, node.getUuid());
+				}
+			}
+
+			invalidatedSessionIds.addAll(sessionIds);
+
+			// invalidate now and again when the transaction is finished
+			SessionPrincipalCache.invalidate(sessionIds);
+
+			// store the new mapping in the session nodes before the transaction is committed
+			postProcess("updateSessionPrincipals", (securityContext, errorBuffer) -> {
+
+				SessionPrincipalCache.updateSessionPrincipals(sessionPrincipals);
+				return true;
+			});
+		}
+	}
+
+	private void invalidatePermissions(final RelationshipInterface relationship, final NodeInterface sourceNode, final NodeInterface targetNode) {
+
+		if (sourceNode == null || targetNode == null) {
+			return;
+		}
+
+		if (relationship instanceof PermissionPropagation) {
+
+			invalidatePermissions(sourceNode, true);
+			invalidatePermissions(targetNode, true);
+
+		} else if (relationship instanceof Security || RelType.OWNS.equals(relationship.getRelType())) {
+
+			invalidatePermissions(targetNode, !isCreated(targetNode));
+
+		} else if (sourceNode instanceof Principal && targetNode instanceof Principal) {
+
+			// group membership
+			invalidateAllPermissions();
+		}
+	}
+
+	private void invalidatePermissions(final NodeInterface node, final boolean propagated) {
+
+		final long id = node.getId();
+
+		permissionInvalidatedNodes.add(id);
+		PermissionResolutionCache.invalidateNode(id);
+
+		if (propagated) {
+
+			invalidatePropagatedPermissions = true;
+			PermissionResolutionCache.invalidatePropagated();
+		}
+	}
+
+	private void invalidateAllPermissions() {
+
+		invalidateAllPermissions = true;
+		PermissionResolutionCache.invalidate();
+	}
+
+	private boolean isCreated(final NodeInterface node) {
+
+		final GraphObjectModificationState state = modifications.get(hash(node));
+
+		return state != null && state.isCreated();
+	}
+
 	private GraphObjectModificationState getState(final NodeInterface node) {
 		return getState(node, false);
 	}
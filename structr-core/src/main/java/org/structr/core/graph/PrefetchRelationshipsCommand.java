@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.core.graph;
+
+import java.util.LinkedList;
+import java.util.List;
+import org.structr.api.DatabaseService;
+import org.structr.api.graph.Direction;
+import org.structr.api.graph.Node;
+import org.structr.core.GraphObject;
+import org.structr.core.entity.Relation;
+import org.structr.core.property.RelationProperty;
+
+/**
+ * Loads the relationships of a relationship property for a collection of
+ * nodes with a single database query, so that reading the property of the
+ * individual nodes in the current transaction does not access the database.
+ */
+public class PrefetchRelationshipsCommand extends NodeServiceCommand {
+
+	public void execute(final Iterable<? extends GraphObject> objects, final RelationProperty key) {
+
+		final DatabaseService graphDb = (DatabaseService)arguments.get("graphDb");
+		final Relation relation       = key.getRelation();
+
+		if (graphDb != null && relation != null) {
+
+			final Direction direction = "in".equals(key.getDirectionKey()) ? Direction.INCOMING : Direction.OUTGOING;
+			final List<Node> nodes    = new LinkedList<>();
+
+			for (final GraphObject obj : objects) {
+
+				if (obj instanceof NodeInterface) {
+
+					final Node node = ((NodeInterface)obj).getNode();
+					if (node != null) {
+
+						nodes.add(node);
+					}
+				}
+			}
+
+			if (!nodes.isEmpty()) {
+
+				graphDb.prefetchRelationships(nodes, direction, relation);
+			}
+		}
+	}
+}
@@ -168,6 +168,10 @@ public class TransactionCommand extends NodeServiceCommand implements AutoClosea
 
 					// release semaphores as the transaction is now finished
 					semaphore.release(synchronizationKeys);	// careful: this can be null
+
+					// repeat permission cache invalidation now that the changes are visible to (or discarded for) other transactions
+					modificationQueue.invalidatePermissionCache();
+					modificationQueue.invalidateSessionCache();
 				}
 
 			} else {
@@ -236,6 +240,31 @@ public class TransactionCommand extends NodeServiceCommand implements AutoClosea
 
 	}
 
+	/**
+	 * Registers a task that is run after the current transaction was
+	 * committed, e.g. to hand nodes created or modified in it to another
+	 * thread. The task is dropped if the transaction fails, and run
+	 * immediately if there is no transaction.
+	 *
+	 * @param key tasks with the same key are only registered once
+	 * @param task
+	 */
+	public static void afterCommit(final String key, final Runnable task) {
+
+		TransactionCommand command = currentCommand.get();
+		if (command != null) {
+
+			ModificationQueue modificationQueue = command.getModificationQueue();
+			if (modificationQueue != null) {
+
+				modificationQueue.afterCommit(key, task);
+				return;
+			}
+		}
+
+		task.run();
+	}
+
 	public static void nodeCreated(final Principal user, final NodeInterface node) {
 
 		TransactionCommand command = currentCommand.get();
@@ -362,6 +391,27 @@ public class TransactionCommand extends NodeServiceCommand implements AutoClosea
 		}
 	}
 
+	public static void permissionsModified(final RelationshipInterface relationship) {
+
+		TransactionCommand command = currentCommand.get();
+		if (command != null) {
+
+			ModificationQueue modificationQueue = command.getModificationQueue();
+			if (modificationQueue != null) {
+
+				modificationQueue.modifyPermissions(relationship);
+
+			} else {
+
+				logger.error("Got empty changeSet from command!");
+			}
+
+		} else {
+
+			logger.error("Permissions modified while outside of transaction!");
+		}
+	}
+
 	public static void registerTransactionListener(final StructrTransactionListener listener) {
 		listeners.add(listener);
 	}
@@ -413,6 +463,21 @@ public class TransactionCommand extends NodeServiceCommand implements AutoClosea
 		return currentCommand.get() != null;
 	}
 
+	/**
+	 * Returns the number of objects modified in the current transaction.
+	 *
+	 * @return the number of modified objects, or 0 if not in a transaction
+	 */
+	public static int getModificationQueueSize() {
+
+		final ModificationQueue queue = queues.get();
+		if (queue != null) {
+			return queue.getSize();
+		}
+
+		return 0;
+	}
+
 	public static boolean isDeleted(final Node node) {
 
 		if (!inTransaction()) {
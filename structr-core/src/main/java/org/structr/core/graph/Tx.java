@@ -76,6 +76,12 @@ public class Tx implements AutoCloseable {
 
 		final ModificationQueue modificationQueue = cmd.finishTx();
 
+		if (success && modificationQueue != null) {
+
+			// changes are now visible to other threads
+			modificationQueue.doAfterCommit();
+		}
+
 		if (success && guard.compareAndSet(false, true)) {
 
 			boolean retry  = true;
@@ -19,8 +19,10 @@
 package org.structr.core.graph.search;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
@@ -51,8 +53,23 @@ import org.structr.core.graph.NodeInterface;
 import org.structr.core.graph.NodeServiceCommand;
 import org.structr.core.graph.RelationshipInterface;
 import org.structr.core.property.AbstractPrimitiveProperty;
+import org.structr.core.property.ArrayProperty;
+import org.structr.core.property.BooleanArrayProperty;
+import org.structr.core.property.BooleanProperty;
+import org.structr.core.property.DateProperty;
+import org.structr.core.property.DoubleProperty;
+import org.structr.core.property.EnumProperty;
+import org.structr.core.property.GenericProperty;
+import org.structr.core.property.ISO8601DateProperty;
+import org.structr.core.property.IntProperty;
+import org.structr.core.property.LongProperty;
+import org.structr.core.property.LowercaseStringProperty;
+import org.structr.core.property.PasswordProperty;
 import org.structr.core.property.PropertyKey;
 import org.structr.core.property.PropertyMap;
+import org.structr.core.property.StringProperty;
+import org.structr.core.property.TypeProperty;
+import org.structr.core.property.UuidProperty;
 import org.structr.schema.ConfigurationProvider;
 
 /**
@@ -68,6 +85,11 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 
 	private static final Map<String, Set<String>> subtypeMapForType = new LinkedHashMap<>();
 	private static final Set<String> baseTypes                      = new LinkedHashSet<>();
+	private static final Set<Class> storedPropertyTypes             = new HashSet<>(Arrays.asList(
+		StringProperty.class, LowercaseStringProperty.class, TypeProperty.class, UuidProperty.class, PasswordProperty.class,
+		IntProperty.class, LongProperty.class, DoubleProperty.class, BooleanProperty.class, DateProperty.class, ISO8601DateProperty.class,
+		EnumProperty.class, ArrayProperty.class, BooleanArrayProperty.class, GenericProperty.class
+	));
 
 	public static final String LAT_LON_SEARCH_KEYWORD     = "latlon";
 	public static final String LOCATION_SEARCH_KEYWORD    = "location";
@@ -111,10 +133,16 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 			return Result.EMPTY_RESULT;
 		}
 
-		final Factory<S, T> factory  = getFactory(securityContext, includeHidden, publicOnly, pageSize, page);
+		final boolean sortInDatabase = sortKey != null && !doNotSort && isStoredInDatabase(sortKey);
+		Comparator<T> sortComparator = null;
 		boolean hasGraphSources      = false;
 		boolean hasSpatialSource     = false;
 
+		// sort keys that are computed at runtime (functions, notions etc.) or not indexed can only be sorted in memory
+		if (comparator == null && sortKey != null && !doNotSort && !sortInDatabase) {
+			sortComparator = (Comparator)new GraphObjectComparator(sortKey, sortDescending);
+		}
+
 		if (securityContext.getUser(false) == null && !isRelationshipSearch()) {
 
 			rootGroup.add(new PropertySearchAttribute(GraphObject.visibleToPublicUsers, true, Occurrence.REQUIRED, true));
@@ -208,7 +236,7 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 		} else {
 
 			// apply sorting
-			if (sortKey != null && !doNotSort) {
+			if (sortInDatabase) {
 
 				rootGroup.setSortKey(sortKey);
 				rootGroup.sortDescending(sortDescending);
@@ -217,13 +245,25 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 			final Index<S> index = getIndex();
 			if (index != null) {
 
+				final boolean pageInDatabase = canPageInDatabase(sortComparator, hasEmptySearchFields, hasRelationshipVisibilitySearch, hasSpatialSource);
+				final Factory<S, T> factory  = getFactory(securityContext, includeHidden, publicOnly, pageSize, pageInDatabase ? 1 : page);
+				QueryContext context         = getQueryContext();
+
 				// paging needs to be done AFTER instantiating all nodes
-				if (hasEmptySearchFields || comparator != null) {
+				if (hasEmptySearchFields || comparator != null || sortComparator != null) {
 					factory.disablePaging();
 				}
 
+				if (pageInDatabase) {
+
+					final int offset = (page - 1) * pageSize;
+
+					// every database result is part of the final result, so SKIP and LIMIT can be applied by the database
+					context = new QueryContext().isPing(context.isPing()).slice(offset, offset + pageSize);
+				}
+
 				// do query
-				final QueryResult hits = index.query(getQueryContext(), rootGroup);
+				final QueryResult hits = index.query(context, rootGroup);
 				intermediateResult     = factory.instantiate(hits);
 
 				if (comparator != null) {
@@ -283,12 +323,23 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 				}
 			}
 
-			// sort list
-			Collections.sort(finalResult, new GraphObjectComparator(sortKey, sortDescending));
+			// sort list, unless the order of the database result is still intact
+			if (!sortInDatabase || hasGraphSources || hasSpatialSource) {
+				Collections.sort(finalResult, new GraphObjectComparator(sortKey, sortDescending));
+			}
 
 			// return paged final result
 			return new Result(PagingHelper.subList(finalResult, pageSize, page), resultCount, true, false);
 
+		} else if (intermediateResult != null && sortComparator != null) {
+
+			final List<T> rawResult = intermediateResult.getResults();
+
+			// no filtering, but the sort key can only be evaluated in memory
+			Collections.sort(rawResult, sortComparator);
+
+			return new Result(PagingHelper.subList(rawResult, pageSize, page), rawResult.size(), true, false);
+
 		} else {
 
 			// no filtering
@@ -846,6 +897,35 @@ public abstract class SearchCommand<S extends PropertyContainer, T extends Graph
 	}
 
 	// ----- private methods ----
+	/**
+	 * Indicates whether the given key is indexed and stored in the database,
+	 * so that it can be used in an ORDER BY clause. Only the exact property
+	 * types that read their value from the database are accepted, subclasses
+	 * like JoinProperty or RelationshipTypeProperty compute their value.
+	 */
+	private boolean isStoredInDatabase(final PropertyKey key) {
+		return key.isIndexed() && storedPropertyTypes.contains(key.getClass());
+	}
+
+	/**
+	 * Indicates whether SKIP and LIMIT can be applied by the database. This is only
+	 * possible if the result is neither sorted nor filtered in memory, and if the
+	 * factory will not drop any of the database results. Since the overall result
+	 * count is not known in this case, the security context must ignore it.
+	 */
+	private boolean canPageInDatabase(final Comparator<T> sortComparator, final boolean hasEmptySearchFields, final boolean hasRelationshipVisibilitySearch, final boolean hasSpatialSource) {
+
+		if (comparator != null || sortComparator != null || hasEmptySearchFields || hasRelationshipVisibilitySearch || hasSpatialSource || getQueryContext().isSliced()) {
+			return false;
+		}
+
+		if (page < 1 || pageSize == Integer.MAX_VALUE) {
+			return false;
+		}
+
+		return securityContext.ignoreResultCount() && securityContext.isSuperUser() && !publicOnly;
+	}
+
 	private void assertPropertyIsIndexed(final PropertyKey key) {
 
 		if (key != null && !key.isIndexed() && key instanceof AbstractPrimitiveProperty) {
@@ -24,14 +24,22 @@ import graphql.language.SelectionSet;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import org.structr.api.Predicate;
+import org.structr.api.util.Iterables;
 import org.structr.common.SecurityContext;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.GraphObject;
+import org.structr.core.app.App;
 import org.structr.core.app.Query;
 import org.structr.core.app.StructrApp;
+import org.structr.core.graph.PrefetchRelationshipsCommand;
 import org.structr.core.property.PropertyKey;
+import org.structr.core.property.RelationProperty;
 
 /**
  */
@@ -86,6 +94,18 @@ public class GraphQLQuery {
 		return query.getAsList();
 	}
 
+	/**
+	 * Loads the related nodes of all nested fields of the given entities
+	 * level by level, so that the nodes of each level are fetched with
+	 * one query per relationship property instead of one per object.
+	 *
+	 * @param securityContext
+	 * @param entities
+	 */
+	public void prefetch(final SecurityContext securityContext, final Iterable<GraphObject> entities) {
+		prefetch(securityContext, getRootPath(), Iterables.toList(entities));
+	}
+
 	// ----- private methods -----
 	private void init(final SecurityContext securityContext, final Class type, final Field field, final String path) throws FrameworkException {
 
@@ -119,6 +139,53 @@ public class GraphQLQuery {
 		}
 	}
 
+	private void prefetch(final SecurityContext securityContext, final String path, final List<GraphObject> objects) {
+
+		final QueryConfig config = configurations.get(path);
+		if (config != null && !objects.isEmpty()) {
+
+			final App app = StructrApp.getInstance(securityContext);
+
+			for (final PropertyKey key : config.getPropertyKeys()) {
+
+				if (key instanceof RelationProperty) {
+
+					final String childPath        = path + "/" + key.jsonName();
+					final QueryConfig childConfig = configurations.get(childPath);
+
+					app.command(PrefetchRelationshipsCommand.class).execute(objects, (RelationProperty)key);
+
+					if (childConfig != null) {
+
+						final Predicate<GraphObject> predicate = childConfig.getPredicateForPropertyKey(key);
+						final Set<GraphObject> children        = new LinkedHashSet<>();
+
+						// relationships are cached now, collect next level
+						for (final GraphObject obj : objects) {
+
+							final Object value = obj.getProperty(key, predicate);
+							if (value instanceof Iterable) {
+
+								for (final Object child : (Iterable)value) {
+
+									if (child instanceof GraphObject) {
+										children.add((GraphObject)child);
+									}
+								}
+
+							} else if (value instanceof GraphObject) {
+
+								children.add((GraphObject)value);
+							}
+						}
+
+						prefetch(securityContext, childPath, new LinkedList<>(children));
+					}
+				}
+			}
+		}
+	}
+
 	private QueryConfig getConfig(final String path) {
 
 		QueryConfig config = configurations.get(path);
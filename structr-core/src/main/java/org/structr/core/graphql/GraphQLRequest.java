@@ -25,6 +25,9 @@ import graphql.language.OperationDefinition;
 import graphql.language.Selection;
 import graphql.language.SelectionSet;
 import graphql.parser.Parser;
+import graphql.schema.GraphQLSchema;
+import graphql.validation.ValidationError;
+import graphql.validation.Validator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -35,6 +38,8 @@ import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.api.config.Settings;
+import org.structr.api.util.FixedSizeCache;
 import org.structr.common.SecurityContext;
 import org.structr.common.error.FrameworkException;
 
@@ -43,7 +48,8 @@ import org.structr.common.error.FrameworkException;
  */
 public class GraphQLRequest {
 
-	private static final Logger logger = LoggerFactory.getLogger(GraphQLRequest.class);
+	private static final Logger logger                               = LoggerFactory.getLogger(GraphQLRequest.class);
+	private static final FixedSizeCache<String, ParsedQuery> queryCache = new FixedSizeCache<>(Math.max(1, Settings.GraphQLDocumentCacheSize.getValue()));
 
 	private final List<GraphQLQuery> queries = new LinkedList<>();
 	private boolean hasSchemaQuery           = false;
@@ -69,11 +75,30 @@ public class GraphQLRequest {
 		return originalQuery;
 	}
 
+	/**
+	 * Parses the given query, parsed documents are cached and must not
+	 * be modified.
+	 *
+	 * @param parser
+	 * @param query
+	 * @return the parsed document
+	 * @throws FrameworkException
+	 */
 	public static Document parse(final Parser parser, final String query) throws FrameworkException {
 
+		final ParsedQuery cached = queryCache.get(query);
+		if (cached != null) {
+
+			return cached.document;
+		}
+
 		try {
 
-			return parser.parseDocument(query);
+			final Document document = parser.parseDocument(query);
+
+			queryCache.put(query, new ParsedQuery(document));
+
+			return document;
 
 		} catch (Throwable t) {
 
@@ -116,6 +141,30 @@ public class GraphQLRequest {
 		}
 	}
 
+	/**
+	 * Validates the given document that was parsed from the given query,
+	 * the result is cached until the schema changes.
+	 *
+	 * @param schema
+	 * @param query
+	 * @param document
+	 * @return the validation errors
+	 */
+	public static List<ValidationError> validate(final GraphQLSchema schema, final String query, final Document document) {
+
+		final ParsedQuery cached = queryCache.get(query);
+		if (cached != null && cached.document == document) {
+
+			return cached.validate(schema);
+		}
+
+		return new Validator().validateDocument(schema, document);
+	}
+
+	public static void clearCache() {
+		queryCache.clear();
+	}
+
 	// ----- private methods -----
 	private void initialize(final SecurityContext securityContext,  Document document) throws FrameworkException {
 
@@ -173,4 +222,27 @@ public class GraphQLRequest {
 			throw fex;
 		}
 	}
+
+	// ----- nested classes -----
+	private static class ParsedQuery {
+
+		private List<ValidationError> errors = null;
+		private GraphQLSchema schema         = null;
+		private Document document            = null;
+
+		ParsedQuery(final Document document) {
+			this.document = document;
+		}
+
+		synchronized List<ValidationError> validate(final GraphQLSchema currentSchema) {
+
+			if (errors == null || schema != currentSchema) {
+
+				errors = new Validator().validateDocument(currentSchema, document);
+				schema = currentSchema;
+			}
+
+			return errors;
+		}
+	}
 }
@@ -25,6 +25,7 @@ import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.atomic.AtomicLong;
+import org.structr.api.config.Settings;
 import org.structr.common.error.FrameworkException;
 
 public class JobQueueManager {
@@ -41,7 +42,7 @@ public class JobQueueManager {
 	/*
 	 * Public API
 	 */
-	public static JobQueueManager getInstance() {
+	public static synchronized JobQueueManager getInstance() {
 
 		if (singletonInstance == null) {
 			singletonInstance = new JobQueueManager();
@@ -50,7 +51,7 @@ public class JobQueueManager {
 		return singletonInstance;
 	}
 
-	public void addJob(final ScheduledJob job) throws FrameworkException {
+	public synchronized void addJob(final ScheduledJob job) throws FrameworkException {
 
 		if (job.runInitialChecks()) {
 
@@ -59,14 +60,11 @@ public class JobQueueManager {
 
 			appendToQueueInternal(job);
 
-			if (!hasRunningJobs()) {
+			startQueuedJobs();
 
-				startNextJobInQueue();
-
-			} else {
+			if (queuedJobs.containsKey(jobId)) {
 
 				job.reportQueued();
-
 			}
 		}
 	}
@@ -125,24 +123,18 @@ public class JobQueueManager {
 		list.add(job.getJobInfo());
 	}
 
-	protected void jobFinished (final ScheduledJob job) {
+	protected synchronized void jobFinished (final ScheduledJob job) {
 
 		activeJobs.remove(job.jobId());
 
-		if (!hasRunningJobs()) {
-			startNextJobInQueue();
-		}
-
+		startQueuedJobs();
 	}
 
-	protected void jobAborted (final ScheduledJob job) {
+	protected synchronized void jobAborted (final ScheduledJob job) {
 
 		activeJobs.remove(job.jobId());
 
-		if (!hasRunningJobs()) {
-			startNextJobInQueue();
-		}
-
+		startQueuedJobs();
 	}
 
 
@@ -158,24 +150,17 @@ public class JobQueueManager {
 		return queuedJobs.remove(jobId);
 	}
 
-	private boolean hasRunningJobs() {
+	private boolean hasCapacity() {
 
-		// if any job is RUNNING or PAUSED, dont auto-start new tasks
-		return (!activeJobs.isEmpty());
+		// RUNNING and PAUSED jobs both count towards the limit
+		return activeJobs.size() < Math.max(1, Settings.ImportMaxConcurrentJobs.getValue());
+	}
 
-//		// if any job is RUNNING, dont auto-start new tasks
-//		// this effectively means that if a user PAUSES a job, the queue is stopped BUT
-//		// if another job is queued or the last running job finishes, then the next queued job is started
-//		boolean hasRunningJob = false;
-//
-//		for (ImportJob job : activeJobs.values()) {
-//			if (job.getCurrentStatus().equals(ImportJob.JobStatus.RUNNING)) {
-//				hasRunningJob = true;
-//			}
-//		}
-//
-//		return hasRunningJob;
+	private void startQueuedJobs() {
 
+		while (hasCapacity() && !jobIdQueue.isEmpty()) {
+			startNextJobInQueue();
+		}
 	}
 
 	private void startNextJobInQueue() {
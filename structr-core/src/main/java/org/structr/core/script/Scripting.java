@@ -19,15 +19,16 @@
 package org.structr.core.script;
 
 import java.io.StringWriter;
-import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.script.*;
-import org.apache.commons.collections4.map.LRUMap;
 import org.apache.commons.lang3.StringUtils;
 import org.mozilla.javascript.Context;
 import org.mozilla.javascript.ContextFactory;
@@ -37,6 +38,7 @@ import org.mozilla.javascript.Undefined;
 import org.renjin.script.RenjinScriptEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.api.util.FixedSizeCache;
 import org.structr.common.SecurityContext;
 import org.structr.common.error.FrameworkException;
 import org.structr.common.error.UnlicensedScriptException;
@@ -53,9 +55,11 @@ import org.structr.schema.parser.DatePropertyParser;
  */
 public class Scripting {
 
-	private static final Logger logger                       = LoggerFactory.getLogger(Scripting.class.getName());
-	private static final Pattern ScriptEngineExpression      = Pattern.compile("^\\$\\{(\\w+)\\{(.*)\\}\\}$", Pattern.DOTALL);
-	private static final Map<String, Script> compiledScripts = Collections.synchronizedMap(new LRUMap<>(10000));
+	private static final Logger logger                                        = LoggerFactory.getLogger(Scripting.class.getName());
+	private static final Pattern ScriptEngineExpression                       = Pattern.compile("^\\$\\{(\\w+)\\{(.*)\\}\\}$", Pattern.DOTALL);
+	private static final FixedSizeCache<String, CachedScript> compiledScripts = new FixedSizeCache<>(10000);
+	private static final LongAdder compilationCount                           = new LongAdder();
+	private static final LongAdder compilationTime                            = new LongAdder();
 
 	public static String replaceVariables(final ActionContext actionContext, final GraphObject entity, final Object rawValue) throws FrameworkException {
 
@@ -389,19 +393,56 @@ public class Scripting {
 
 	public static Script compileOrGetCached(final Context context, final String source, final String sourceName, final int lineNo) {
 
-		synchronized (compiledScripts) {
+		CachedScript cachedScript = compiledScripts.get(source);
+		if (cachedScript == null) {
 
-			Script script = compiledScripts.get(source);
-			if (script == null) {
+			final CachedScript newScript = new CachedScript();
 
-				script = context.compileString(source, sourceName, lineNo, null);
-				compiledScripts.put(source, script);
+			// only one thread registers a new entry, concurrent
+			// callers for the same source wait for its compilation
+			cachedScript = compiledScripts.putIfAbsent(source, newScript);
+			if (cachedScript == null) {
+
+				cachedScript = newScript;
 			}
+		}
 
-			return script;
+		try {
+
+			return cachedScript.getScript(context, source, sourceName, lineNo);
+
+		} catch (RuntimeException rex) {
+
+			// do not keep entries for sources that cannot be compiled
+			compiledScripts.remove(source);
+
+			throw rex;
 		}
 	}
 
+	/**
+	 * Returns statistics about the compilation of Javascript sources
+	 * and the compiled script cache.
+	 *
+	 * @return a map with compilation count, time and cache hit ratio
+	 */
+	public static Map<String, Object> getCompilationStatistics() {
+
+		final Map<String, Object> statistics = new LinkedHashMap<>();
+		final long hits                      = compiledScripts.getHitCount();
+		final long misses                    = compiledScripts.getMissCount();
+		final long lookups                   = hits + misses;
+
+		statistics.put("compilationCount",  compilationCount.sum());
+		statistics.put("compilationTimeMs", TimeUnit.NANOSECONDS.toMillis(compilationTime.sum()));
+		statistics.put("cacheSize",         compiledScripts.size());
+		statistics.put("cacheHits",         hits);
+		statistics.put("cacheMisses",       misses);
+		statistics.put("cacheHitRatio",     lookups > 0 ? (double)hits / (double)lookups : 0.0);
+
+		return statistics;
+	}
+
 	// this is only public to be testable :(
 	public static List<String> extractScripts(final String source) {
 
@@ -525,6 +566,26 @@ public class Scripting {
 	}
 
 	// ----- nested classes -----
+	private static class CachedScript {
+
+		private Script script = null;
+
+		public synchronized Script getScript(final Context context, final String source, final String sourceName, final int lineNo) {
+
+			if (script == null) {
+
+				final long t0 = System.nanoTime();
+
+				script = context.compileString(source, sourceName, lineNo, null);
+
+				compilationTime.add(System.nanoTime() - t0);
+				compilationCount.increment();
+			}
+
+			return script;
+		}
+	}
+
 	private static class Tuple {
 
 		public String key = null;
@@ -44,6 +44,9 @@ public class CronEntry implements Delayed {
 	private CronField seconds = null;
 	private String name       = null;
 
+	private final CronTaskStatus status        = new CronTaskStatus();
+	private CronTaskStatus.OverlapPolicy policy = CronTaskStatus.OverlapPolicy.skip;
+
 	private CronEntry(String name) {
 		this.name = name;
 	}
@@ -365,6 +368,18 @@ public class CronEntry implements Delayed {
 		return name;
 	}
 
+	public CronTaskStatus getStatus() {
+		return status;
+	}
+
+	public CronTaskStatus.OverlapPolicy getOverlapPolicy() {
+		return policy;
+	}
+
+	public void setOverlapPolicy(final CronTaskStatus.OverlapPolicy policy) {
+		this.policy = policy;
+	}
+
 	// ----- interface Delayed -----
 	@Override
 	public long getDelay(TimeUnit unit) {
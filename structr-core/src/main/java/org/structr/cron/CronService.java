@@ -19,8 +19,16 @@
 package org.structr.cron;
 
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,6 +46,10 @@ import org.structr.schema.action.Actions;
  * A service that keeps track of registered tasks and runs
  * them at their scheduled time.
  *
+ * Due tasks are executed by a bounded pool of worker threads, so a
+ * slow task does not delay other tasks. Whether a task may overlap
+ * with its own previous execution is controlled by the overlap
+ * policy of its entry.
  *
  */
 public class CronService extends Thread implements RunnableService {
@@ -45,11 +57,13 @@ public class CronService extends Thread implements RunnableService {
 	private static final Logger logger           = LoggerFactory.getLogger(CronService.class.getName());
 
 	public static final String   EXPRESSION_SUFFIX = "cronExpression";
+	public static final String   OVERLAP_SUFFIX    = "cronOverlap";
 	public static final TimeUnit GRANULARITY_UNIT  = TimeUnit.SECONDS;
 	public static final long     GRANULARITY       = 1;
 	public static final int      NUM_FIELDS        = 6;
 
 	private LinkedList<CronEntry> cronEntries = new LinkedList<>();
+	private ThreadPoolExecutor executor       = null;
 	private boolean doRun = false;
 
 	public CronService() {
@@ -79,47 +93,60 @@ public class CronService extends Thread implements RunnableService {
 
 				if (entry.getDelayToNextExecutionInMillis() < GRANULARITY_UNIT.toMillis(GRANULARITY)) {
 
-					final String taskClassName = entry.getName();
-					final Class taskClass      = instantiate(taskClassName);
+					if (entry.getStatus().schedule(entry.getOverlapPolicy())) {
 
-					try {
+						submit(entry);
 
-						if (taskClass != null) {
+					} else {
 
-							Task task = (Task)taskClass.newInstance();
+						logger.debug("Cron task {} is still running, execution deferred or skipped according to overlap policy {}", entry.getName(), entry.getOverlapPolicy());
+					}
+				}
+			}
+		}
+	}
 
-							logger.debug("Starting task {}", taskClassName);
-							StructrApp.getInstance().processTasks(task);
+	/**
+	 * Returns the configuration and execution statistics of all
+	 * cron entries.
+	 *
+	 * @return a list of status maps
+	 */
+	public List<Map<String, Object>> getStatus() {
 
-						} else {
+		final List<Map<String, Object>> result = new LinkedList<>();
 
-							try (final Tx tx = StructrApp.getInstance().tx()) {
+		for (final CronEntry entry : cronEntries) {
 
-								// check for schema method with the given name
-								Actions.callAsSuperUser(taskClassName, Collections.EMPTY_MAP);
+			final Map<String, Object> data = new LinkedHashMap<>();
 
-								tx.success();
-							}
-						}
+			data.put("name",          entry.getName());
+			data.put("expression",    entry.toString().trim());
+			data.put("overlapPolicy", entry.getOverlapPolicy().name());
+			data.putAll(entry.getStatus().toMap());
 
-					} catch (Throwable t) {
-						logger.warn("Exception while executing cron task {}: {}", taskClassName, t.getMessage());
-					}
-				}
-			}
+			result.add(data);
 		}
+
+		return result;
 	}
 
 	// ----- interface RunnableService -----
 	@Override
 	public void startService() throws Exception {
+
+		final int threads = Math.max(1, Settings.CronThreads.getValue());
+
+		this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(Math.max(1, Settings.CronQueueSize.getValue())), new CronThreadFactory());
+		this.executor.allowCoreThreadTimeOut(true);
+
 		this.doRun = true;
 		this.start();
 	}
 
 	@Override
 	public void stopService() {
-		this.doRun = false;
+		shutdown();
 	}
 
 	@Override
@@ -152,6 +179,19 @@ public class CronService extends Thread implements RunnableService {
 						CronEntry entry = CronEntry.parse(task, expression);
 						if(entry != null) {
 
+							final String policy = Settings.getOrCreateStringSetting(task, OVERLAP_SUFFIX).getValue();
+							if (StringUtils.isNotBlank(policy)) {
+
+								try {
+
+									entry.setOverlapPolicy(CronTaskStatus.OverlapPolicy.valueOf(policy.trim()));
+
+								} catch (IllegalArgumentException iex) {
+
+									logger.warn("Invalid overlap policy {} for task {}, using {}.", policy, task, entry.getOverlapPolicy());
+								}
+							}
+
 							logger.info("Adding cron entry {} for {}", new Object[]{ entry, task });
 
 							cronEntries.add(entry);
@@ -177,7 +217,12 @@ public class CronService extends Thread implements RunnableService {
 
 	@Override
 	public void shutdown() {
+
 		this.doRun = false;
+
+		if (executor != null) {
+			executor.shutdown();
+		}
 	}
 
 	@Override
@@ -191,6 +236,42 @@ public class CronService extends Thread implements RunnableService {
 	}
 
 	// ----- private methods -----
+	private void submit(final CronEntry entry) {
+
+		try {
+
+			executor.execute(new CronJob(entry));
+
+		} catch (RejectedExecutionException rex) {
+
+			entry.getStatus().rejected();
+
+			logger.warn("Cron queue is full ({} waiting, {} active), rejecting execution of task {}.", executor.getQueue().size(), executor.getActiveCount(), entry.getName());
+		}
+	}
+
+	private void execute(final String taskClassName) throws Throwable {
+
+		final Class taskClass = instantiate(taskClassName);
+		if (taskClass != null) {
+
+			Task task = (Task)taskClass.newInstance();
+
+			logger.debug("Starting task {}", taskClassName);
+			StructrApp.getInstance().processTasks(task);
+
+		} else {
+
+			try (final Tx tx = StructrApp.getInstance().tx()) {
+
+				// check for schema method with the given name
+				Actions.callAsSuperUser(taskClassName, Collections.EMPTY_MAP);
+
+				tx.success();
+			}
+		}
+	}
+
 	private Class instantiate(final String taskClass) {
 
 		try {
@@ -207,4 +288,57 @@ public class CronService extends Thread implements RunnableService {
 	public String getModuleName() {
 		return "cron";
 	}
+
+	// ----- nested classes -----
+	private class CronJob implements Runnable {
+
+		private CronEntry entry = null;
+
+		public CronJob(final CronEntry entry) {
+			this.entry = entry;
+		}
+
+		@Override
+		public void run() {
+
+			final CronTaskStatus status = entry.getStatus();
+			final String taskClassName  = entry.getName();
+			final long t0               = System.currentTimeMillis();
+			Throwable error             = null;
+
+			status.started();
+
+			try {
+
+				execute(taskClassName);
+
+			} catch (Throwable t) {
+
+				logger.warn("Exception while executing cron task {}: {}", taskClassName, t.getMessage());
+				error = t;
+			}
+
+			// start deferred execution if one was requested while running
+			if (status.finished(System.currentTimeMillis() - t0, error) && doRun) {
+
+				submit(entry);
+
+			}
+		}
+	}
+
+	private static class CronThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(final Runnable r) {
+
+			final Thread thread = new Thread(r, "CronWorker-" + count.incrementAndGet());
+
+			thread.setDaemon(true);
+
+			return thread;
+		}
+	}
 }
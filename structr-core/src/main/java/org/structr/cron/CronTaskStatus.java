@@ -0,0 +1,208 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.cron;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Execution state and statistics of a single cron entry.
+ *
+ * Decides whether a due execution is started, skipped or deferred
+ * according to the overlap policy of the entry, and records the
+ * outcome and duration of each execution in a histogram.
+ */
+public class CronTaskStatus {
+
+	public enum OverlapPolicy {
+
+		/** do not start a new execution while the previous one is running (default) */
+		skip,
+
+		/** run a single deferred execution after the current one has finished */
+		queue,
+
+		/** start executions regardless of running ones */
+		concurrent
+	}
+
+	private static final long[] BUCKETS   = { 10L, 100L, 1000L, 10000L, 60000L, 600000L };
+	private static final String[] LABELS  = { "< 10ms", "< 100ms", "< 1s", "< 10s", "< 1m", "< 10m", ">= 10m" };
+
+	private final long[] histogram        = new long[LABELS.length];
+	private boolean pending               = false;
+	private String lastStatus             = null;
+	private String lastError              = null;
+	private long lastStartTime            = 0L;
+	private long lastEndTime              = 0L;
+	private long lastDuration             = 0L;
+	private long maxDuration              = 0L;
+	private long totalDuration            = 0L;
+	private long executions               = 0L;
+	private long failures                 = 0L;
+	private long skipped                  = 0L;
+	private long rejected                 = 0L;
+	private int running                   = 0;
+
+	/**
+	 * Called when the entry is due. Returns true if an execution should
+	 * be started, in which case it is counted as running.
+	 *
+	 * @param policy
+	 * @return whether to start an execution now
+	 */
+	public synchronized boolean schedule(final OverlapPolicy policy) {
+
+		if (running > 0) {
+
+			switch (policy) {
+
+				case concurrent:
+					break;
+
+				case queue:
+					pending = true;
+					return false;
+
+				default:
+					skipped++;
+					return false;
+			}
+		}
+
+		running++;
+
+		return true;
+	}
+
+	public synchronized void started() {
+		lastStartTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Records the end of an execution. Returns true if a deferred execution
+	 * should be started now, in which case it is counted as running.
+	 *
+	 * @param duration the duration in milliseconds
+	 * @param error the error that caused the execution to fail, or null
+	 * @return whether to start a deferred execution
+	 */
+	public synchronized boolean finished(final long duration, final Throwable error) {
+
+		running--;
+		executions++;
+
+		lastEndTime    = System.currentTimeMillis();
+		lastDuration   = duration;
+		totalDuration += duration;
+		maxDuration    = Math.max(maxDuration, duration);
+
+		histogram[bucket(duration)]++;
+
+		if (error != null) {
+
+			failures++;
+
+			lastStatus = "failed";
+			lastError  = error.getMessage();
+
+		} else {
+
+			lastStatus = "success";
+			lastError  = null;
+		}
+
+		if (pending) {
+
+			pending = false;
+			running++;
+
+			return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Records that a scheduled execution was not accepted by the executor.
+	 */
+	public synchronized void rejected() {
+
+		running--;
+		rejected++;
+
+		lastStatus = "rejected";
+	}
+
+	public synchronized int getRunning() {
+		return running;
+	}
+
+	public synchronized boolean isPending() {
+		return pending;
+	}
+
+	public synchronized long getExecutions() {
+		return executions;
+	}
+
+	public synchronized long getSkipped() {
+		return skipped;
+	}
+
+	public synchronized Map<String, Object> toMap() {
+
+		final Map<String, Object> data = new LinkedHashMap<>();
+		final Map<String, Long> hist   = new LinkedHashMap<>();
+
+		for (int i=0; i<LABELS.length; i++) {
+			hist.put(LABELS[i], histogram[i]);
+		}
+
+		data.put("running",         running);
+		data.put("pending",         pending);
+		data.put("executions",      executions);
+		data.put("failures",        failures);
+		data.put("skipped",         skipped);
+		data.put("rejected",        rejected);
+		data.put("lastStatus",      lastStatus);
+		data.put("lastError",       lastError);
+		data.put("lastStartTime",   lastStartTime > 0L ? lastStartTime : null);
+		data.put("lastEndTime",     lastEndTime > 0L ? lastEndTime : null);
+		data.put("lastDuration",    lastDuration);
+		data.put("averageDuration", executions > 0L ? totalDuration / executions : 0L);
+		data.put("maxDuration",     maxDuration);
+		data.put("histogram",       hist);
+
+		return data;
+	}
+
+	// ----- private methods -----
+	private int bucket(final long duration) {
+
+		for (int i=0; i<BUCKETS.length; i++) {
+
+			if (duration < BUCKETS[i]) {
+				return i;
+			}
+		}
+
+		return BUCKETS.length;
+	}
+}
@@ -64,6 +64,7 @@ import org.structr.core.app.StructrApp;
 import org.structr.core.entity.AbstractNode;
 import org.structr.core.entity.SchemaNode;
 import org.structr.core.entity.SchemaRelationshipNode;
+import org.structr.core.function.Functions;
 import org.structr.core.graph.FlushCachesCommand;
 import org.structr.core.graph.NodeInterface;
 import org.structr.core.graph.Tx;
@@ -250,6 +251,9 @@ public class SchemaService implements Service {
 						// clear permission cache
 						AbstractNode.clearCaches();
 
+						// clear parsed expressions, they reference function instances of the previous schema
+						Functions.clearCache();
+
 						// inject views in configuration provider
 						config.registerDynamicViews(dynamicViews);
 
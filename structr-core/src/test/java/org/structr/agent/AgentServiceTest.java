@@ -0,0 +1,86 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.agent;
+
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.structr.common.StructrTest;
+import org.structr.cron.CronTestTask;
+
+/**
+ *
+ */
+public class AgentServiceTest extends StructrTest {
+
+	@Test
+	public void testTaskProcessing() {
+
+		final AgentService service = new AgentService();
+		final int count            = 100;
+
+		try {
+
+			service.startService();
+
+			for (int i=0; i<count; i++) {
+				service.processTask(new CronTestTask<>("test", null, null));
+			}
+
+			// wait for tasks to be processed
+			for (int i=0; i<100 && getCompleted(service) < count; i++) {
+				try { Thread.sleep(100); } catch (InterruptedException ignore) {}
+			}
+
+			final Map<String, Object> status = getStatus(service);
+
+			assertEquals(CronTestTask.class.getName(), status.get("type"));
+			assertEquals((long)count, status.get("submitted"));
+			assertEquals((long)count, status.get("dispatched"));
+			assertEquals((long)count, status.get("completed"));
+			assertEquals(0,           status.get("queued"));
+			assertEquals(0,           status.get("deferred"));
+
+		} catch (Exception ex) {
+
+			ex.printStackTrace();
+			fail("Unexpected exception.");
+
+		} finally {
+
+			service.stopService();
+		}
+	}
+
+	// ----- private methods -----
+	private Map<String, Object> getStatus(final AgentService service) {
+
+		final List<Map<String, Object>> status = service.getStatus();
+
+		assertEquals(1, status.size());
+
+		return status.get(0);
+	}
+
+	private long getCompleted(final AgentService service) {
+		return (Long)getStatus(service).get("completed");
+	}
+}
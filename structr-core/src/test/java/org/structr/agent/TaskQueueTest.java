@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class TaskQueueTest {
+
+	@Test
+	public void testPriorityOrder() throws InterruptedException {
+
+		final TaskQueue queue = new TaskQueue();
+
+		queue.add(new TestTask("first",  0, null));
+		queue.add(new TestTask("second", 0, null));
+		queue.add(new TestTask("urgent", 5, null));
+		queue.add(new TestTask("third",  0, null));
+
+		assertEquals(4, queue.size());
+
+		assertEquals("urgent", queue.take().getTask().getType());
+		assertEquals("first",  queue.take().getTask().getType());
+		assertEquals("second", queue.take().getTask().getType());
+		assertEquals("third",  queue.take().getTask().getType());
+	}
+
+	@Test
+	public void testDeduplication() throws InterruptedException {
+
+		final TaskQueue queue = new TaskQueue();
+		final TestTask task   = new TestTask("index", 0, "node1");
+
+		assertNotNull(queue.add(task));
+
+		for (int i=0; i<50; i++) {
+			assertNull("Equivalent task must not be queued twice", queue.add(new TestTask("index", 0, "node1")));
+		}
+
+		assertNotNull("Tasks with different keys must be queued", queue.add(new TestTask("index", 0, "node2")));
+		assertNotNull("Tasks without key must always be queued",  queue.add(new TestTask("index", 0, null)));
+		assertNotNull("Tasks without key must always be queued",  queue.add(new TestTask("index", 0, null)));
+
+		assertEquals(4, queue.size());
+
+		// key is still held after the task was taken from the queue
+		assertEquals(task, queue.take().getTask());
+		assertNull(queue.add(new TestTask("index", 0, "node1")));
+
+		// releasing the key of a different task has no effect
+		queue.done(new TestTask("index", 0, "node1"));
+		assertNull(queue.add(new TestTask("index", 0, "node1")));
+
+		queue.done(task);
+		assertNotNull("Task must be queued again after processing has started", queue.add(new TestTask("index", 0, "node1")));
+	}
+
+	@Test
+	public void testRequeueKeepsPosition() throws InterruptedException {
+
+		final TaskQueue queue = new TaskQueue();
+
+		queue.add(new TestTask("first",  0, null));
+		queue.add(new TestTask("second", 0, null));
+
+		final TaskQueue.Entry first = queue.take();
+
+		queue.requeue(first);
+
+		assertEquals("first",  queue.take().getTask().getType());
+		assertEquals("second", queue.take().getTask().getType());
+	}
+
+	// ----- nested classes -----
+	private static class TestTask extends AbstractTask<String> {
+
+		private String key = null;
+
+		public TestTask(final String type, final int priority, final String key) {
+
+			super(type, null);
+
+			this.key = key;
+
+			setPriority(priority);
+		}
+
+		@Override
+		public Object getDeduplicationKey() {
+			return key;
+		}
+	}
+}
@@ -1519,6 +1519,78 @@ public class AccessControlTest extends StructrTest {
 		}		
 	}
 
+	@Test
+	public void test12CachedPermissionInvalidation() {
+
+		// remove auto-generated resource access objects
+		clearResourceAccess();
+
+		Principal user = null;
+		TestOne test   = null;
+		Group group    = null;
+
+		try (final Tx tx = app.tx()) {
+
+			user  = createTestNode(Principal.class, "user");
+			test  = createTestNode(TestOne.class);
+			group = createTestNode(Group.class, "group");
+
+			tx.success();
+
+		} catch (FrameworkException t) {
+
+			logger.warn("", t);
+			fail("Unexpected exception.");
+		}
+
+		final SecurityContext userContext = SecurityContext.getInstance(user, AccessMode.Backend);
+
+		try {
+
+			// negative results are cached and must be invalidated by the grant
+			assertPermission(test, Permission.read, userContext, false);
+			assertPermission(test, Permission.read, userContext, false);
+
+			try (final Tx tx = app.tx()) {
+
+				test.grant(Permission.read, user);
+				tx.success();
+			}
+
+			assertPermission(test, Permission.read, userContext, true);
+
+			try (final Tx tx = app.tx()) {
+
+				test.revoke(Permission.read, user);
+				tx.success();
+			}
+
+			assertPermission(test, Permission.read, userContext, false);
+
+			// permissions granted to a group apply as soon as the user becomes a member
+			try (final Tx tx = app.tx()) {
+
+				test.grant(Permission.write, group);
+				tx.success();
+			}
+
+			assertPermission(test, Permission.write, userContext, false);
+
+			try (final Tx tx = app.tx()) {
+
+				group.addMember(user);
+				tx.success();
+			}
+
+			assertPermission(test, Permission.write, userContext, true);
+
+		} catch (FrameworkException t) {
+
+			logger.warn("", t);
+			fail("Unexpected exception.");
+		}
+	}
+
 	/**
 	 * Test whether users are allowed to add themselves to a group they don't have write access for (they shouldn't).
 	 * 
@@ -1663,4 +1735,13 @@ public class AccessControlTest extends StructrTest {
 			logger.warn("Unable to clear resource access grants", t);
 		}
 	}
+
+	private void assertPermission(final TestOne node, final Permission permission, final SecurityContext context, final boolean expected) throws FrameworkException {
+
+		try (final Tx tx = app.tx()) {
+
+			assertEquals("Invalid permission resolution result", expected, node.isGranted(permission, context));
+			tx.success();
+		}
+	}
 }
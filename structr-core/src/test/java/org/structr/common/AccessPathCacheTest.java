@@ -0,0 +1,87 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.entity.SixOneManyToMany;
+import org.structr.core.entity.TestOne;
+import org.structr.core.entity.TestSix;
+import org.structr.core.graph.Tx;
+
+/**
+ *
+ */
+public class AccessPathCacheTest extends StructrTest {
+
+	private static final Logger logger = LoggerFactory.getLogger(AccessPathCacheTest.class);
+
+	@Test
+	public void testInvalidation() {
+
+		try (final Tx tx = app.tx()) {
+
+			final TestSix six          = createTestNode(TestSix.class);
+			final TestOne one1         = createTestNode(TestOne.class);
+			final TestOne one2         = createTestNode(TestOne.class);
+			final SixOneManyToMany rel = app.create(six, one1, SixOneManyToMany.class);
+			final String relType       = rel.getRelType().name();
+
+			AccessPathCache.invalidate();
+
+			AccessPathCache.put(six, one1, new PermissionResolutionMask());
+			AccessPathCache.update(six, one1, rel.getRelationship());
+			AccessPathCache.put(six, one2, new PermissionResolutionMask());
+
+			assertEquals("Invalid number of cached access paths", 2, AccessPathCache.size());
+
+			// only the path that contains the relationship type must be removed
+			AccessPathCache.invalidateForRelType(relType);
+
+			assertNull("Access path was not invalidated for its relationship type", AccessPathCache.get(six, one1));
+			assertNotNull("Unrelated access path was invalidated", AccessPathCache.get(six, one2));
+
+			AccessPathCache.put(six, one1, new PermissionResolutionMask());
+
+			// the end node is part of the path
+			AccessPathCache.invalidateForId(one2.getUuid());
+
+			assertNotNull("Unrelated access path was invalidated", AccessPathCache.get(six, one1));
+			assertNull("Access path was not invalidated for its end node", AccessPathCache.get(six, one2));
+
+			// the start node is part of all paths
+			AccessPathCache.invalidateForId(six.getUuid());
+
+			assertEquals("Access paths were not invalidated for their start node", 0, AccessPathCache.size());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			logger.warn("", fex);
+			fail("Unexpected exception");
+		}
+	}
+}
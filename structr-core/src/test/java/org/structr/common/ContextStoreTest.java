@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class ContextStoreTest {
+
+	@Test
+	public void testCopiesAreIndependent() {
+
+		final ContextStore original = new ContextStore();
+
+		original.store("key", "value");
+		original.setConstant("constant", 1);
+		original.addHeader("header", "value");
+		original.incrementCounter(1);
+
+		final ContextStore first  = new ContextStore(original);
+		final ContextStore second = new ContextStore(original);
+
+		// copies start with the values of the original
+		assertEquals("Context store copy must contain stored values", "value", first.retrieve("key"));
+		assertEquals("Context store copy must contain constants",     1,       first.getConstant("constant"));
+		assertEquals("Context store copy must contain headers",        "value", first.getHeaders().get("header"));
+		assertEquals("Context store copy must contain counters",       1,       first.getCounter(1));
+
+		for (int i=0; i<10; i++) {
+			first.incrementCounter(1);
+		}
+
+		first.store("other", "first");
+		first.remove("key");
+
+		// modifications of one copy are not visible in the other copy or the original
+		assertEquals("Context store copies must not share counters", 11, first.getCounter(1));
+		assertEquals("Context store copies must not share counters", 1,  second.getCounter(1));
+		assertEquals("Context store copies must not share counters", 1,  original.getCounter(1));
+
+		assertNull("Context store copies must not share stored values",   second.retrieve("other"));
+		assertEquals("Context store copies must not share stored values", "value", second.retrieve("key"));
+		assertEquals("Context store copies must not share stored values", "value", original.retrieve("key"));
+	}
+}
@@ -26,6 +26,7 @@ import static org.junit.Assert.fail;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.api.Predicate;
 import org.structr.api.search.ComparisonQuery;
 import org.structr.api.search.Occurrence;
 import org.structr.common.error.FrameworkException;
@@ -37,6 +38,7 @@ import org.structr.core.app.StructrApp;
 import org.structr.core.entity.AbstractNode;
 import org.structr.core.entity.Group;
 import org.structr.core.entity.Principal;
+import org.structr.core.entity.SchemaNode;
 import org.structr.core.entity.SixOneManyToMany;
 import org.structr.core.entity.TestOne;
 import org.structr.core.entity.TestSeven;
@@ -2171,6 +2173,220 @@ public class SearchAndSortingTest extends StructrTest {
 		}
 	}
 
+	@Test
+	public void testSortByFunctionProperty() {
+
+		cleanDatabaseAndSchema();
+
+		try (final Tx tx = app.tx()) {
+
+			app.create(SchemaNode.class,
+				new NodeAttribute<>(SchemaNode.name, "SortTest"),
+				new NodeAttribute<>(new StringProperty("_sortName"), "Function(concat('sort', this.name))")
+			);
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			logger.warn("", fex);
+			fail("Unexpected exception");
+		}
+
+		final Class type          = StructrApp.getConfiguration().getNodeEntityClass("SortTest");
+		final PropertyKey sortKey = StructrApp.key(type, "sortName");
+
+		try (final Tx tx = app.tx()) {
+
+			for (final String name : new String[] { "c", "a", "d", "b" }) {
+				app.create(type, name);
+			}
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			logger.warn("", fex);
+			fail("Unexpected exception");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			final List<GraphObject> result = app.nodeQuery(type).sort(sortKey).pageSize(2).page(2).getAsList();
+
+			assertEquals("Invalid sort result for computed property", 2, result.size());
+			assertEquals("Invalid sort result for computed property", "sortc", result.get(0).getProperty(sortKey));
+			assertEquals("Invalid sort result for computed property", "sortd", result.get(1).getProperty(sortKey));
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			logger.warn("", fex);
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	public void testPagingInDatabase() {
+
+		try {
+
+			createTestNodes(TestOne.class, 20);
+
+			try (final Tx tx = app.tx()) {
+
+				int i = 0;
+
+				for (final TestOne test : app.nodeQuery(TestOne.class).getAsList()) {
+					test.setProperty(AbstractNode.name, "TestOne-" + StringUtils.leftPad(Integer.toString(i++), 2, "0"));
+				}
+
+				tx.success();
+			}
+
+			final SecurityContext context = SecurityContext.getSuperUserInstance();
+
+			// paging is applied by the database if the result count is not needed
+			context.ignoreResultCount(true);
+
+			try (final Tx tx = app.tx()) {
+
+				final List<TestOne> result = StructrApp.getInstance(context).nodeQuery(TestOne.class).sortDescending(AbstractNode.name).pageSize(5).page(2).getAsList();
+
+				assertEquals("Invalid paging result", 5, result.size());
+
+				for (int i=0; i<5; i++) {
+					assertEquals("Invalid paging result", "TestOne-" + (14 - i), result.get(i).getName());
+				}
+
+				tx.success();
+			}
+
+		} catch (FrameworkException fex) {
+
+			logger.warn("", fex);
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	public void testSortAsNonAdmin() {
+
+		final PropertyKey<String> inverseName = new StringProperty("inverseName", "name") {
+
+			@Override
+			public String getProperty(final SecurityContext securityContext, final GraphObject obj, final boolean applyConverter, final Predicate<GraphObject> predicate) {
+
+				// computed from the stored name, so it must not be sorted by the database
+				final String name = super.getProperty(securityContext, obj, applyConverter, predicate);
+
+				return "Inverse-" + (9 - Integer.parseInt(name.substring(8)));
+			}
+		};
+
+		Principal tester = null;
+
+		try (final Tx tx = app.tx()) {
+
+			tester = app.create(Principal.class, "tester");
+
+			int i = 0;
+
+			for (final NodeInterface node : createTestNodes(TestOne.class, 10)) {
+
+				node.setProperty(AbstractNode.name, "TestOne-" + i++);
+				node.setProperty(NodeInterface.owner, tester);
+			}
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			logger.warn("", fex);
+			fail("Unexpected exception");
+		}
+
+		final App testerApp = StructrApp.getInstance(SecurityContext.getInstance(tester, AccessMode.Backend));
+
+		try (final Tx tx = testerApp.tx()) {
+
+			final List<TestOne> stored = testerApp.nodeQuery(TestOne.class).sort(AbstractNode.name).pageSize(3).page(2).getAsList();
+
+			assertEquals("Invalid sort result for stored property", 3, stored.size());
+			assertEquals("Invalid sort result for stored property", "TestOne-3", stored.get(0).getName());
+			assertEquals("Invalid sort result for stored property", "TestOne-4", stored.get(1).getName());
+			assertEquals("Invalid sort result for stored property", "TestOne-5", stored.get(2).getName());
+
+			final List<TestOne> computed = testerApp.nodeQuery(TestOne.class).sort(inverseName).pageSize(3).page(1).getAsList();
+
+			assertEquals("Invalid sort result for computed property", 3, computed.size());
+			assertEquals("Invalid sort result for computed property", "TestOne-9", computed.get(0).getName());
+			assertEquals("Invalid sort result for computed property", "TestOne-8", computed.get(1).getName());
+			assertEquals("Invalid sort result for computed property", "TestOne-7", computed.get(2).getName());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			logger.warn("", fex);
+			fail("Unexpected exception");
+		}
+	}
+
+	@Test
+	public void testSortRelationshipsAsAnonymous() {
+
+		final PropertyKey<String> computedKey = new StringProperty("computedKey", "id") {
+
+			@Override
+			public String getProperty(final SecurityContext securityContext, final GraphObject obj, final boolean applyConverter, final Predicate<GraphObject> predicate) {
+
+				// computed at runtime, so it must be sorted in memory
+				return "Computed-" + super.getProperty(securityContext, obj, applyConverter, predicate);
+			}
+		};
+
+		try (final Tx tx = app.tx()) {
+
+			final TestSix source = createTestNode(TestSix.class);
+			int i = 0;
+
+			source.setProperty(GraphObject.visibleToPublicUsers, true);
+
+			for (final TestOne target : createTestNodes(TestOne.class, 4)) {
+
+				// only two of the four relationships have a visible target node
+				target.setProperty(GraphObject.visibleToPublicUsers, i++ % 2 == 0);
+
+				app.create(source, target, SixOneManyToMany.class);
+			}
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			logger.warn("", fex);
+			fail("Unexpected exception");
+		}
+
+		final App anonymousApp = StructrApp.getInstance(SecurityContext.getInstance(null, AccessMode.Frontend));
+
+		try (final Tx tx = anonymousApp.tx()) {
+
+			final List<SixOneManyToMany> rels = anonymousApp.relationshipQuery(SixOneManyToMany.class).sort(computedKey).getAsList();
+
+			assertEquals("Relationships to invisible nodes must not be returned", 2, rels.size());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			logger.warn("", fex);
+			fail("Unexpected exception");
+		}
+	}
+
 	// ----- private methods -----
 	private void testPaging(final Class type, final int pageSize, final int page, final int number, final int offset, final boolean includeHidden, final boolean publicOnly, final PropertyKey sortKey, final boolean sortDesc) throws FrameworkException {
 
@@ -0,0 +1,135 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.common;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.app.StructrApp;
+import org.structr.core.entity.Principal;
+import org.structr.core.entity.SessionDataNode;
+import org.structr.core.graph.Tx;
+import org.structr.core.property.PropertyKey;
+
+/**
+ * Test the session id to principal cache.
+ */
+public class SessionPrincipalCacheTest extends StructrTest {
+
+	private static final Logger logger = LoggerFactory.getLogger(SessionPrincipalCacheTest.class.getName());
+
+	@Test
+	public void testSessionIdModifications() {
+
+		final PropertyKey<String[]> sessionIdsKey = StructrApp.key(Principal.class, "sessionIds");
+		final String sessionId                    = "testSession";
+		Principal user                            = null;
+
+		try (final Tx tx = app.tx()) {
+
+			user = app.create(Principal.class, "user1");
+
+			// lookup of an unknown session id must not return a principal (and is cached)
+			assertNull("Invalid session lookup result", SessionPrincipalCache.getPrincipalForSessionId(sessionId, false));
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			logger.warn("", fex);
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			user.addSessionId(sessionId);
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			logger.warn("", fex);
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			assertEquals("Invalid session lookup result", user, SessionPrincipalCache.getPrincipalForSessionId(sessionId, false));
+			assertEquals("Invalid session lookup result", user, SessionPrincipalCache.getPrincipalForSessionId(sessionId, false));
+
+			// the mapping is stored in the session node with the same id
+			final SessionDataNode node = app.nodeQuery(SessionDataNode.class).and(SessionDataNode.sessionId, sessionId).getFirst();
+
+			assertNotNull("Session node was not created", node);
+			assertEquals("Invalid principal id in session node", user.getUuid(), node.getProperty(SessionDataNode.principalId));
+
+			// lookups that miss the cache must use the session node
+			SessionPrincipalCache.invalidate();
+
+			assertEquals("Invalid session lookup result", user, SessionPrincipalCache.getPrincipalForSessionId(sessionId, false));
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			logger.warn("", fex);
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			// modify session ids directly
+			user.setProperty(sessionIdsKey, new String[] { "otherSession" });
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			logger.warn("", fex);
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			assertNull("Invalid session lookup result", SessionPrincipalCache.getPrincipalForSessionId(sessionId, false));
+			assertEquals("Invalid session lookup result", user, SessionPrincipalCache.getPrincipalForSessionId("otherSession", false));
+
+			final SessionDataNode node = app.nodeQuery(SessionDataNode.class).and(SessionDataNode.sessionId, sessionId).getFirst();
+
+			assertNull("Principal id of removed session was not cleared", node.getProperty(SessionDataNode.principalId));
+
+			SessionPrincipalCache.invalidate();
+
+			assertNull("Invalid session lookup result", SessionPrincipalCache.getPrincipalForSessionId(sessionId, false));
+			assertEquals("Invalid session lookup result", user, SessionPrincipalCache.getPrincipalForSessionId("otherSession", false));
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			logger.warn("", fex);
+			fail("Unexpected exception.");
+		}
+	}
+}
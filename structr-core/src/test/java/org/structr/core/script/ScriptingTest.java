@@ -483,6 +483,73 @@ public class ScriptingTest extends StructrTest {
 		}
 	}
 
+	@Test
+	public void testCachedExpressionEvaluation() {
+
+		// setup phase
+		try (final Tx tx = app.tx()) {
+
+			final ActionContext actionContext = new ActionContext(securityContext);
+			final TestOne test1               = app.create(TestOne.class, "test1");
+			final TestOne test2               = app.create(TestOne.class, "test2");
+
+			// the same expression must yield the entity-specific result when evaluated repeatedly
+			for (int i=0; i<3; i++) {
+
+				assertEquals("Invalid cached expression result", "test1", Scripting.replaceVariables(actionContext, test1, "${this.name}"));
+				assertEquals("Invalid cached expression result", "test2", Scripting.replaceVariables(actionContext, test2, "${this.name}"));
+				assertEquals("Invalid cached expression result", "test1test2", Scripting.replaceVariables(actionContext, test1, "${concat(this.name, 'test2')}"));
+			}
+
+			// invalid expressions must fail on every evaluation
+			for (int i=0; i<2; i++) {
+
+				try {
+
+					Scripting.evaluate(actionContext, test1, "${concat(this.name, 'test2'}", "test");
+					fail("Invalid expression should throw an exception.");
+
+				} catch (FrameworkException fex) {
+					assertEquals("Invalid expression error code", 422, fex.getStatus());
+				}
+			}
+
+			tx.success();
+
+		} catch(UnlicensedScriptException |FrameworkException fex) {
+
+			logger.warn("", fex);
+			fail("Unexpected exception.");
+		}
+	}
+
+	@Test
+	public void testCompiledScriptCache() {
+
+		try (final Tx tx = app.tx()) {
+
+			final ActionContext actionContext = new ActionContext(securityContext);
+			final TestOne context             = app.create(TestOne.class);
+			final String script               = "${{ return 'compiled' + " + System.currentTimeMillis() + "; }}";
+
+			final long compilationCount = (Long)Scripting.getCompilationStatistics().get("compilationCount");
+
+			for (int i=0; i<5; i++) {
+
+				assertTrue("Invalid cached script result", Scripting.evaluate(actionContext, context, script, "test").toString().startsWith("compiled"));
+			}
+
+			assertEquals("Javascript source should only be compiled once", compilationCount + 1, Scripting.getCompilationStatistics().get("compilationCount"));
+
+			tx.success();
+
+		} catch(UnlicensedScriptException |FrameworkException fex) {
+
+			logger.warn("", fex);
+			fail("Unexpected exception.");
+		}
+	}
+
 	@Test
 	public void testCollectionOperations() {
 
@@ -0,0 +1,98 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.cron;
+
+import java.util.List;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.structr.api.config.Settings;
+import org.structr.common.StructrTest;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.entity.SchemaMethod;
+import org.structr.core.graph.NodeAttribute;
+import org.structr.core.graph.Tx;
+
+/**
+ *
+ */
+public class CronServiceTest extends StructrTest {
+
+	@Test
+	public void testSlowTaskDoesNotDelayOtherTasks() {
+
+		try (final Tx tx = app.tx()) {
+
+			app.create(SchemaMethod.class,
+				new NodeAttribute<>(SchemaMethod.name,   "slowCronTask"),
+				new NodeAttribute<>(SchemaMethod.source, "{ var start = Date.now(); while (Date.now() - start < 3500) {} }")
+			);
+
+			app.create(SchemaMethod.class,
+				new NodeAttribute<>(SchemaMethod.name,   "fastCronTask"),
+				new NodeAttribute<>(SchemaMethod.source, "{ return 1; }")
+			);
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		Settings.CronTasks.setValue("slowCronTask fastCronTask");
+		Settings.getOrCreateStringSetting("slowCronTask", CronService.EXPRESSION_SUFFIX).setValue("* * * * * *");
+		Settings.getOrCreateStringSetting("fastCronTask", CronService.EXPRESSION_SUFFIX).setValue("* * * * * *");
+
+		final CronService service = new CronService();
+
+		try {
+
+			service.initialize(null);
+			service.startService();
+
+			// service waits 5 seconds before the first run
+			try { Thread.sleep(12000); } catch (InterruptedException ignore) {}
+
+		} catch (Exception ex) {
+
+			ex.printStackTrace();
+			fail("Unexpected exception.");
+
+		} finally {
+
+			service.stopService();
+			Settings.CronTasks.setValue("");
+		}
+
+		final List<Map<String, Object>> status = service.getStatus();
+		final Map<String, Object> slow         = status.get(0);
+		final Map<String, Object> fast         = status.get(1);
+
+		assertEquals("slowCronTask", slow.get("name"));
+		assertEquals("skip",         slow.get("overlapPolicy"));
+		assertEquals("fastCronTask", fast.get("name"));
+
+		assertTrue("Overlapping executions of slow task should be skipped", (Long)slow.get("skipped") > 0L);
+		assertTrue("Fast task should not be delayed by slow task", (Long)fast.get("executions") > (Long)slow.get("executions") + 2L);
+		assertEquals("success", fast.get("lastStatus"));
+	}
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.cron;
+
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Test;
+import org.structr.cron.CronTaskStatus.OverlapPolicy;
+
+/**
+ *
+ */
+public class CronTaskStatusTest {
+
+	@Test
+	public void testSkipPolicy() {
+
+		final CronTaskStatus status = new CronTaskStatus();
+
+		assertTrue("First execution must be started", status.schedule(OverlapPolicy.skip));
+		assertFalse("Overlapping execution must be skipped", status.schedule(OverlapPolicy.skip));
+		assertFalse("Skip policy must not defer executions", status.finished(5L, null));
+
+		assertEquals(0, status.getRunning());
+		assertEquals(1, status.getSkipped());
+		assertEquals(1, status.getExecutions());
+		assertTrue("Next execution must be started", status.schedule(OverlapPolicy.skip));
+	}
+
+	@Test
+	public void testQueuePolicy() {
+
+		final CronTaskStatus status = new CronTaskStatus();
+
+		assertTrue(status.schedule(OverlapPolicy.queue));
+		assertFalse(status.schedule(OverlapPolicy.queue));
+		assertFalse(status.schedule(OverlapPolicy.queue));
+		assertTrue("Queued executions must be coalesced", status.isPending());
+
+		assertTrue("Deferred execution must be started after the running one", status.finished(5L, null));
+		assertEquals(1, status.getRunning());
+		assertFalse(status.isPending());
+
+		assertFalse(status.finished(5L, null));
+		assertEquals(0, status.getRunning());
+		assertEquals(2, status.getExecutions());
+	}
+
+	@Test
+	public void testConcurrentPolicy() {
+
+		final CronTaskStatus status = new CronTaskStatus();
+
+		assertTrue(status.schedule(OverlapPolicy.concurrent));
+		assertTrue(status.schedule(OverlapPolicy.concurrent));
+		assertEquals(2, status.getRunning());
+
+		status.finished(5L, null);
+		status.finished(5L, null);
+
+		assertEquals(0, status.getRunning());
+	}
+
+	@Test
+	public void testStatistics() {
+
+		final CronTaskStatus status = new CronTaskStatus();
+
+		status.schedule(OverlapPolicy.skip);
+		status.finished(50L, null);
+
+		status.schedule(OverlapPolicy.skip);
+		status.finished(2000L, new RuntimeException("failure"));
+
+		status.schedule(OverlapPolicy.skip);
+		status.rejected();
+
+		final Map<String, Object> data    = status.toMap();
+		final Map<String, Long> histogram = (Map<String, Long>)data.get("histogram");
+
+		assertEquals(2L,         data.get("executions"));
+		assertEquals(1L,         data.get("failures"));
+		assertEquals(1L,         data.get("rejected"));
+		assertEquals("rejected", data.get("lastStatus"));
+		assertEquals("failure",  data.get("lastError"));
+		assertEquals(1025L,      data.get("averageDuration"));
+		assertEquals(2000L,      data.get("maxDuration"));
+		assertEquals(1L,         (long)histogram.get("< 100ms"));
+		assertEquals(1L,         (long)histogram.get("< 10s"));
+		assertEquals(0L,         (long)histogram.get("< 10ms"));
+	}
+}
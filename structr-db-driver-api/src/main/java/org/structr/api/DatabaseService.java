@@ -20,9 +20,11 @@ package org.structr.api;
 
 import java.util.Map;
 import java.util.Set;
+import org.structr.api.graph.Direction;
 import org.structr.api.graph.GraphProperties;
 import org.structr.api.graph.Node;
 import org.structr.api.graph.Relationship;
+import org.structr.api.graph.RelationshipType;
 import org.structr.api.index.Index;
 
 /**
@@ -56,6 +58,18 @@ public interface DatabaseService {
 	QueryResult<Relationship> getAllRelationships();
 	QueryResult<Relationship> getRelationshipsByType(final String type);
 
+	/**
+	 * Loads the relationships with the given direction and type of all
+	 * given nodes with a single query, so that subsequent calls to
+	 * {@link Node#getRelationships(Direction, RelationshipType)} in the
+	 * current transaction do not need to access the database.
+	 *
+	 * @param nodes
+	 * @param direction
+	 * @param relationshipType the relationship type, can be null
+	 */
+	void prefetchRelationships(final Iterable<Node> nodes, final Direction direction, final RelationshipType relationshipType);
+
 	GraphProperties getGlobalProperties();
 
 	String getTenantIdentifier();
@@ -67,6 +67,7 @@ public class Settings {
 	public static final Setting<String> SnapshotsPath         = new StringSetting(generalGroup,   "Paths",       "snapshot.path",              "snapshots" + File.separator, "IMPORTANT: Path is relative to base.path");
 	public static final Setting<String> LayoutsPath           = new StringSetting(generalGroup,   "Paths",       "layouts.path",               "layouts" + File.separator, "IMPORTANT: Path is relative to base.path");
 	public static final Setting<String> WebDataPath           = new StringSetting(generalGroup,   "Paths",       "data.webapp.path",           "webapp-data" + File.separator, "IMPORTANT: Path is relative to base.path");
+	public static final Setting<String> LogEventsPath         = new StringSetting(generalGroup,   "Paths",       "log.events.path",            "logevents" + File.separator, "Storage location of the log event store used by the log resource. IMPORTANT: Path is relative to base.path");
 	public static final Setting<Boolean> LogSchemaOutput      = new BooleanSetting(generalGroup,  "Logging",     "NodeExtender.log",           false);
 	public static final Setting<Boolean> RequestLogging       = new BooleanSetting(generalGroup,  "Logging",     "log.requests",               false);
 	public static final Setting<String> LogPrefix             = new StringSetting(generalGroup,   "Logging",     "log.prefix",                 "structr");
@@ -101,6 +102,8 @@ public class Settings {
 	public static final Setting<Boolean> HtmlIndentation      = new BooleanSetting(serverGroup, "HTTP Settings", "html.indentation",                true);
 	public static final Setting<Boolean> WsIndentation        = new BooleanSetting(serverGroup, "HTTP Settings", "ws.indentation",                  true);
 	public static final Setting<Integer> SessionTimeout       = new IntegerSetting(serverGroup, "HTTP Settings", "application.session.timeout",     1800);
+	public static final Setting<Integer> SessionCacheSize     = new IntegerSetting(serverGroup, "HTTP Settings", "application.session.cache.size",  100000, "Maximum number of session ids for which the authenticated principal is kept in memory.");
+	public static final Setting<Integer> AnonSessionCacheSize = new IntegerSetting(serverGroup, "HTTP Settings", "application.session.anon.cache.size", 100000, "Maximum number of anonymous sessions whose data is kept in memory.");
 
 	public static final Setting<String> AccessControlMaxAge           = new StringSetting(serverGroup, "CORS Settings", "access.control.max.age",           "3600");
 	public static final Setting<String> AccessControlAllowMethods     = new StringSetting(serverGroup, "CORS Settings", "access.control.allow.methods",     "");
@@ -125,6 +128,7 @@ public class Settings {
 	public static final Setting<Integer> NodeCacheSize          = new IntegerSetting(databaseGroup, "Caching",             "database.cache.node.size",         100000);
 	public static final Setting<Integer> UuidCacheSize          = new IntegerSetting(databaseGroup, "Caching",             "database.cache.uuid.size",         1000000);
 	public static final Setting<Integer> QueryCacheSize         = new IntegerSetting(databaseGroup, "Caching",             "database.cache.query.size",        1000);
+	public static final Setting<Integer> AccessPathCacheSize    = new IntegerSetting(databaseGroup, "Caching",             "database.cache.accesspath.size",   10000);
 	public static final Setting<Boolean> CypherDebugLogging     = new BooleanSetting(databaseGroup, "Debugging",           "log.cypher.debug",                 false, "Turns on debug logging for the generated Cypher queries");
 	public static final Setting<Boolean> CypherDebugLoggingPing = new BooleanSetting(databaseGroup, "Debugging",           "log.cypher.debug.ping",            false, "Turns on debug logging for the generated Cypher queries of the websocket PING command. Can only be used in conjunction with log.cypher.debug");
 	public static final Setting<Boolean> SyncDebugging          = new BooleanSetting(databaseGroup, "Sync debugging",      "sync.debug",                       false);
@@ -140,12 +144,30 @@ public class Settings {
 	public static final Setting<Integer> IndexingMaxLength        = new IntegerSetting(applicationGroup, "Filesystem",   "application.filesystem.indexing.maxlength",   30);
 	public static final Setting<Boolean> FollowSymlinks           = new BooleanSetting(applicationGroup, "Filesystem",   "application.filesystem.mount.followSymlinks", true);
 	public static final Setting<String> DefaultUploadFolder       = new StringSetting(applicationGroup,  "Filesystem",   "application.uploads.folder",                  "");
+	public static final Setting<Boolean> ThumbnailsAsync          = new BooleanSetting(applicationGroup, "Images",       "application.images.thumbnails.async",         true,  "Creates missing thumbnails in a background worker pool and returns the original image until the thumbnail is available.");
+	public static final Setting<Boolean> ThumbnailPregeneration   = new BooleanSetting(applicationGroup, "Images",       "application.images.thumbnails.pregenerate",   true,  "Creates all thumbnails defined in the schema of an image type in the background when an image is uploaded.");
+	public static final Setting<Integer> ThumbnailThreads         = new IntegerSetting(applicationGroup, "Images",       "application.images.thumbnails.threads",       2,     "Number of worker threads that create thumbnails in the background.");
+	public static final Setting<Integer> ThumbnailQueueSize       = new IntegerSetting(applicationGroup, "Images",       "application.images.thumbnails.queuesize",     1000,  "Maximum number of thumbnails waiting to be created in the background.");
+	public static final Setting<Integer> FragmentCacheSize        = new IntegerSetting(applicationGroup, "Rendering",    "application.rendering.fragmentcache.size",    10000, "Maximum number of rendered static page fragments that are kept in memory for anonymous requests, 0 disables the cache.");
+	public static final Setting<Integer> RenderThreads            = new IntegerSetting(applicationGroup, "Rendering",    "application.rendering.threads",               50,    "Maximum number of pages that are rendered concurrently for asynchronous HTTP requests.");
+	public static final Setting<Integer> RenderQueueSize          = new IntegerSetting(applicationGroup, "Rendering",    "application.rendering.queuesize",             1000,  "Maximum number of asynchronous page requests waiting for a render thread, additional requests are rejected with status 503.");
+	public static final Setting<Integer> RenderChunkSize          = new IntegerSetting(applicationGroup, "Rendering",    "application.rendering.chunksize",             8192,  "Size in bytes of the output chunks that are passed from the render thread to the client connection.");
+	public static final Setting<Integer> RenderMaxChunks          = new IntegerSetting(applicationGroup, "Rendering",    "application.rendering.maxchunks",             64,    "Maximum number of output chunks buffered per request before rendering pauses until the client has received more data.");
+	public static final Setting<Integer> RenderWriteTimeout       = new IntegerSetting(applicationGroup, "Rendering",    "application.rendering.writetimeout",          60,    "Number of seconds a paused render thread waits for a slow client before the request is aborted.");
+	public static final Setting<Integer> CsvImportThreads         = new IntegerSetting(applicationGroup, "Import",       "application.import.csv.threads",              4,     "Number of threads that write the objects of a CSV import concurrently, can be overridden by the 'threads' parameter of an import.");
+	public static final Setting<Integer> XmlImportTransactionTime = new IntegerSetting(applicationGroup, "Import",       "application.import.xml.transactiontime",      2000,  "Target duration in milliseconds of a single XML import transaction, elements are committed in batches of adaptive size.");
+	public static final Setting<Integer> XmlImportMaxChanges      = new IntegerSetting(applicationGroup, "Import",       "application.import.xml.maxmodifications",     20000, "Maximum number of objects modified in a single XML import transaction before it is committed.");
+	public static final Setting<Integer> ImportMaxConcurrentJobs  = new IntegerSetting(applicationGroup, "Import",       "application.import.maxconcurrentjobs",        1,     "Maximum number of import jobs that run concurrently, additional jobs are queued.");
+	public static final Setting<Integer> AgentMaxAgents           = new IntegerSetting(applicationGroup, "Agents",       "application.agents.maxagents",                10,    "Maximum number of agents that process tasks of the same type concurrently, can be overridden per task type with <TaskClassName>.maxagents.");
+	public static final Setting<Integer> FlowForkThreads          = new IntegerSetting(applicationGroup, "Flows",        "application.flows.fork.threads",              8,     "Number of threads that execute the bodies of fork elements in flows.");
+	public static final Setting<Integer> FlowForkQueueSize        = new IntegerSetting(applicationGroup, "Flows",        "application.flows.fork.queuesize",            1000,  "Maximum number of fork bodies waiting for a free thread, additional forks are executed by the calling thread.");
 	public static final Setting<String> HttpProxyUrl              = new StringSetting(applicationGroup,  "Proxy",        "application.proxy.http.url",                  "");
 	public static final Setting<String> HttpProxyUser             = new StringSetting(applicationGroup,  "Proxy",        "application.proxy.http.username",             "");
 	public static final Setting<String> HttpProxyPassword         = new StringSetting(applicationGroup,  "Proxy",        "application.proxy.http.password",             "");
 	public static final Setting<Boolean> SchemAutoMigration       = new BooleanSetting(applicationGroup, "Schema",       "application.schema.automigration",            false);
 	public static final Setting<Boolean> AllowUnknownPropertyKeys = new BooleanSetting(applicationGroup, "Schema",       "application.schema.allowUnknownKeys",         false, "Enables get() and set() built-in functions to use property keys that are not defined in the schema.");
 	public static final Setting<Boolean> logMissingLocalizations  = new BooleanSetting(applicationGroup, "Localization", "application.localization.logMissing",         false, "Turns on logging for requested but non-existing localizations.");
+	public static final Setting<Integer> ExpressionCacheSize      = new IntegerSetting(applicationGroup, "Scripting",    "application.scripting.expressioncache.size",  10000, "Maximum number of parsed StructrScript expressions that are kept in memory.");
 
 	// mail settings
 	public static final Setting<String> SmtpHost              = new StringSetting(smtpGroup,  "SMTP Settings", "smtp.host",         "localhost");
@@ -245,6 +267,7 @@ public class Settings {
 	public static final Setting<String> GraphQLResourceProvider  = new StringSetting(servletsGroup,  "GraphQLServlet", "GraphQLServlet.resourceprovider",      "org.structr.web.common.UiResourceProvider");
 	public static final Setting<String> GraphQLDefaultView       = new StringSetting(servletsGroup,  "GraphQLServlet", "GraphQLServlet.defaultview",           "public");
 	public static final Setting<Integer> GraphQLOutputDepth      = new IntegerSetting(servletsGroup, "GraphQLServlet", "GraphQLServlet.outputdepth",	   3);
+	public static final Setting<Integer> GraphQLDocumentCacheSize = new IntegerSetting(servletsGroup, "GraphQLServlet", "GraphQLServlet.documentcachesize",     1000, "Maximum number of parsed and validated GraphQL queries that are kept in memory.");
 
 	public static final Setting<String> DeploymentServletPath                = new StringSetting(servletsGroup,  "DeploymentServlet", "DeploymentServlet.path",                      "/structr/deploy");
 	public static final Setting<String> DeploymentServletClass               = new StringSetting(servletsGroup,  "DeploymentServlet", "DeploymentServlet.class",                     "org.structr.web.servlet.DeploymentServlet");
@@ -273,12 +296,15 @@ public class Settings {
 
 	// cron settings
 	public static final Setting<String> CronTasks              = new StringSetting(cronGroup,  "CronService.tasks", "");
+	public static final Setting<Integer> CronThreads           = new IntegerSetting(cronGroup, null, "CronService.threads",   4,   "Number of threads that execute cron tasks concurrently.");
+	public static final Setting<Integer> CronQueueSize         = new IntegerSetting(cronGroup, null, "CronService.queuesize", 100, "Maximum number of due cron tasks waiting for a free thread, additional executions are rejected.");
 
 	//security settings
 	public static final Setting<String> SuperUserName                  = new StringSetting(securityGroup,     "Superuser",            "superuser.username",                    "superadmin");
 	public static final Setting<String> SuperUserPassword              = new PasswordSetting(securityGroup,   "Superuser",            "superuser.password",                    RandomStringUtils.randomAlphanumeric(12));
 	public static final Setting<Integer> ResolutionDepth               = new IntegerSetting(applicationGroup, "Application Security", "application.security.resolution.depth", 5);
 	public static final Setting<String> OwnerlessNodes                 = new StringSetting(applicationGroup,  "Application Security", "application.security.ownerless.nodes",  "read");
+	public static final Setting<Integer> PermissionCacheSize           = new IntegerSetting(applicationGroup, "Application Security", "application.security.permissioncache.size", 100000, "Maximum number of nodes for which resolved permissions are kept in memory.");
 
 	public static final Setting<Integer> TwoFactorLevel                = new IntegerChoiceSetting(securityGroup, "Two Factor Authentication", "security.twofactorauthentication.level",                1,             Settings.getTwoFactorSettingOptions());
 	public static final Setting<String> TwoFactorIssuer                = new StringSetting(securityGroup,        "Two Factor Authentication", "security.twofactorauthentication.issuer",               "Structr",     "Must be URL-compliant in order to scan the created QR code");
@@ -19,8 +19,13 @@
 package org.structr.api.util;
 
 import java.util.Collection;
-import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import org.apache.commons.collections4.map.LRUMap;
 
 /**
@@ -29,55 +34,297 @@ import org.apache.commons.collections4.map.LRUMap;
  * a new entry causes the map to exceed the specified maximum
  * size.
  *
+ * Large caches are split into independently locked segments
+ * so that concurrent lookups of different keys do not contend
+ * for a single monitor. Each segment evicts its own least
+ * recently used entry, so the LRU order is only exact within a
+ * segment. Caches with less than 2000 entries use a single
+ * segment.
+ *
  * @param <K>
  * @param <V>
  */
 public class FixedSizeCache<K, V> {
 
-	private Map<K, V> cache  = null;
+	private static final int MIN_SEGMENT_SIZE = 1000;
+	private static final int MAX_SEGMENTS     = 16;
+
+	private final LongAdder hits                = new LongAdder();
+	private final LongAdder misses              = new LongAdder();
+	private final LongAdder evictions           = new LongAdder();
+	private InvalidatingLRUMap<K, V>[] segments = null;
+	private int maxSize                         = 0;
 
+	@SuppressWarnings("unchecked")
 	public FixedSizeCache(final int maxSize) {
-		this.cache   = Collections.synchronizedMap(new InvalidatingLRUMap<>(maxSize));
+
+		int count = 1;
+
+		// number of segments must be a power of two
+		while (count < MAX_SEGMENTS && count * 2 * MIN_SEGMENT_SIZE <= maxSize) {
+			count *= 2;
+		}
+
+		this.segments = new InvalidatingLRUMap[count];
+		this.maxSize  = maxSize;
+
+		for (int i=0; i<count; i++) {
+
+			// distribute the remainder over the first segments
+			final int segmentSize = maxSize / count + (i < maxSize % count ? 1 : 0);
+
+			segments[i] = new InvalidatingLRUMap<>(Math.max(1, segmentSize), evictions);
+		}
+	}
+
+	public void put(final K key, final V value) {
+
+		final InvalidatingLRUMap<K, V> segment = segmentFor(key);
+
+		synchronized (segment) {
+			segment.put(key, value);
+		}
+	}
+
+	/**
+	 * Stores the given value if the cache does not already contain
+	 * a value for the given key.
+	 *
+	 * @param key
+	 * @param value
+	 *
+	 * @return the existing value, or null if the given value was stored
+	 */
+	public V putIfAbsent(final K key, final V value) {
+
+		final InvalidatingLRUMap<K, V> segment = segmentFor(key);
+
+		synchronized (segment) {
+
+			final V existing = segment.get(key);
+			if (existing != null) {
+
+				return existing;
+			}
+
+			segment.put(key, value);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the value for the given key, or creates, stores and
+	 * returns a new value if the cache does not contain a value for
+	 * the given key or the existing value is rejected by the given
+	 * predicate. Concurrent calls for the same key return the same
+	 * instance.
+	 *
+	 * @param key
+	 * @param isValid predicate that decides whether an existing value can be returned
+	 * @param factory function that creates the new value, called while the segment is locked
+	 *
+	 * @return the existing or the newly created value
+	 */
+	public V getOrCreate(final K key, final Predicate<V> isValid, final Function<K, V> factory) {
+
+		final InvalidatingLRUMap<K, V> segment = segmentFor(key);
+
+		synchronized (segment) {
+
+			V value = segment.get(key);
+			if (value == null || !isValid.test(value)) {
+
+				misses.increment();
+
+				value = factory.apply(key);
+				segment.put(key, value);
+
+			} else {
+
+				hits.increment();
+			}
+
+			return value;
+		}
+	}
+
+	public V get(final K key) {
+
+		final InvalidatingLRUMap<K, V> segment = segmentFor(key);
+		final V value;
+
+		synchronized (segment) {
+			value = segment.get(key);
+		}
+
+		if (value != null) {
+
+			hits.increment();
+
+		} else {
+
+			misses.increment();
+		}
+
+		return value;
 	}
 
-	public synchronized void put(final K key, final V value) {
-		cache.put(key, value);
+	@SuppressWarnings("unchecked")
+	public void removeAll(final Collection<K> keys) {
+
+		final List<K>[] keysPerSegment = new List[segments.length];
+
+		for (final K key : keys) {
+
+			final int index = indexFor(key);
+
+			if (keysPerSegment[index] == null) {
+				keysPerSegment[index] = new LinkedList<>();
+			}
+
+			keysPerSegment[index].add(key);
+		}
+
+		for (int i=0; i<segments.length; i++) {
+
+			if (keysPerSegment[i] != null) {
+
+				synchronized (segments[i]) {
+					segments[i].keySet().removeAll(keysPerSegment[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes the value for the given key.
+	 *
+	 * @param key
+	 *
+	 * @return the removed value, or null if there was no value for the given key
+	 */
+	public V remove(final K key) {
+
+		final InvalidatingLRUMap<K, V> segment = segmentFor(key);
+
+		synchronized (segment) {
+			return segment.remove(key);
+		}
+	}
+
+	public void clear() {
+
+		for (final InvalidatingLRUMap<K, V> segment : segments) {
+
+			synchronized (segment) {
+				segment.clear();
+			}
+		}
+	}
+
+	public int size() {
+
+		int size = 0;
+
+		for (final InvalidatingLRUMap<K, V> segment : segments) {
+
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * Returns a copy of all entries of this cache, without changing
+	 * the order in which they are evicted.
+	 *
+	 * @return a map with all keys and values
+	 */
+	public Map<K, V> toMap() {
+
+		final Map<K, V> map = new LinkedHashMap<>();
+
+		for (final InvalidatingLRUMap<K, V> segment : segments) {
+
+			synchronized (segment) {
+				map.putAll(segment);
+			}
+		}
+
+		return map;
 	}
 
-	public synchronized V get(final K key) {
-		return cache.get(key);
+	public int getMaxSize() {
+		return maxSize;
 	}
 
-	public synchronized void removeAll(final Collection<K> keys) {
-		cache.keySet().removeAll(keys);
+	/**
+	 * Returns the number of lookups that returned a value.
+	 *
+	 * @return the number of cache hits
+	 */
+	public long getHitCount() {
+		return hits.sum();
 	}
 
-	public synchronized void remove(final K key) {
-		cache.remove(key);
+	/**
+	 * Returns the number of lookups that did not return a value.
+	 *
+	 * @return the number of cache misses
+	 */
+	public long getMissCount() {
+		return misses.sum();
 	}
 
-	public synchronized void clear() {
-		cache.clear();
+	/**
+	 * Returns the number of entries that were removed because
+	 * the cache exceeded its maximum size.
+	 *
+	 * @return the number of evictions
+	 */
+	public long getEvictionCount() {
+		return evictions.sum();
 	}
 
-	public synchronized int size() {
-		return cache.size();
+	// ----- private methods -----
+	private InvalidatingLRUMap<K, V> segmentFor(final K key) {
+		return segments[indexFor(key)];
 	}
 
-	public synchronized boolean isEmpty() {
-		return cache.isEmpty();
+	private int indexFor(final K key) {
+
+		final int hash = key != null ? key.hashCode() : 0;
+
+		// spread higher bits, segments.length is a power of two
+		return (hash ^ (hash >>> 16)) & (segments.length - 1);
 	}
 
+	// ----- nested classes -----
 	private static class InvalidatingLRUMap<K, V> extends LRUMap<K, V> {
 
-		public InvalidatingLRUMap(final int maxSize) {
+		private LongAdder evictions = null;
+
+		public InvalidatingLRUMap(final int maxSize, final LongAdder evictions) {
+
 			super(maxSize, true);
+
+			this.evictions = evictions;
 		}
 
 		@Override
 		protected boolean removeLRU(final LinkEntry<K, V> entry) {
 
 			final V value = entry.getValue();
+
+			evictions.increment();
+
 			if (value != null && value instanceof Cachable) {
 
 				((Cachable)value).onRemoveFromCache();
@@ -18,6 +18,13 @@
  */
 package org.structr.api.util;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Assert;
 
 /**
@@ -40,6 +47,7 @@ public class FixedSizeCacheTest {
 		}
 
 		Assert.assertEquals("Invalid FixedSizeCache size", 10, test.size());
+		Assert.assertEquals("Invalid FixedSizeCache eviction count", 90, test.getEvictionCount());
 
 		// check that only the eldest entries are kept
 		for (int i=0; i<90; i++) {
@@ -56,4 +64,114 @@ public class FixedSizeCacheTest {
 		}
 
 	}
+
+	@org.junit.Test
+	public void testSegmentedFixedSizeCache() {
+
+		final FixedSizeCache<Long, Long> test = new FixedSizeCache<>(100000);
+
+		for (int i=0; i<200000; i++) {
+
+			final Long value = Long.valueOf(i);
+			test.put(value, value);
+		}
+
+		Assert.assertEquals("Invalid FixedSizeCache size", 100000, test.size());
+
+		// check that the most recently added entries are kept
+		for (int i=199000; i<200000; i++) {
+
+			final Long value = Long.valueOf(i);
+			Assert.assertEquals("Invalid FixedSizeCache contents", test.get(value), value);
+		}
+
+		Assert.assertNull("Invalid FixedSizeCache contents", test.get(0L));
+
+		Assert.assertEquals("Invalid FixedSizeCache hit count", 1000, test.getHitCount());
+		Assert.assertEquals("Invalid FixedSizeCache miss count", 1, test.getMissCount());
+	}
+
+	@org.junit.Test
+	public void testFixedSizeCacheInvalidation() {
+
+		final FixedSizeCache<Long, TestCachable> test = new FixedSizeCache<>(10);
+		final TestCachable first                      = new TestCachable();
+
+		test.put(0L, first);
+
+		for (int i=1; i<=10; i++) {
+
+			test.put(Long.valueOf(i), new TestCachable());
+		}
+
+		Assert.assertTrue("Evicted FixedSizeCache entry was not notified", first.removed);
+	}
+
+	@org.junit.Test
+	public void testConcurrentGetOrCreate() throws Exception {
+
+		final FixedSizeCache<Long, TestCachable> test = new FixedSizeCache<>(100000);
+		final ExecutorService executor                = Executors.newFixedThreadPool(8);
+		final AtomicInteger created                   = new AtomicInteger();
+
+		try {
+
+			for (int run=0; run<100; run++) {
+
+				final Long key                           = Long.valueOf(run);
+				final CountDownLatch start               = new CountDownLatch(1);
+				final List<Future<TestCachable>> results = new ArrayList<>();
+
+				created.set(0);
+
+				for (int i=0; i<8; i++) {
+
+					results.add(executor.submit(() -> {
+
+						start.await();
+
+						return test.getOrCreate(key, v -> !v.removed, k -> {
+
+							created.incrementAndGet();
+							return new TestCachable();
+						});
+					}));
+				}
+
+				start.countDown();
+
+				final TestCachable first = results.get(0).get();
+
+				for (final Future<TestCachable> result : results) {
+
+					Assert.assertSame("Concurrent FixedSizeCache lookups returned different instances", first, result.get());
+				}
+
+				Assert.assertEquals("FixedSizeCache created more than one value for a key", 1, created.get());
+
+				// an invalid value must be replaced
+				first.removed = true;
+
+				final TestCachable replaced = test.getOrCreate(key, v -> !v.removed, k -> new TestCachable());
+
+				Assert.assertNotSame("Invalid FixedSizeCache value was not replaced", first, replaced);
+				Assert.assertSame("Replaced FixedSizeCache value was not stored", replaced, test.get(key));
+			}
+
+		} finally {
+
+			executor.shutdownNow();
+		}
+	}
+
+	// ----- nested classes -----
+	private static class TestCachable implements Cachable {
+
+		private volatile boolean removed = false;
+
+		@Override
+		public void onRemoveFromCache() {
+			removed = true;
+		}
+	}
 }
@@ -28,7 +28,7 @@ public class AggregationHandler implements FlowHandler<Aggregation> {
 	public FlowElement handle(Context context, Aggregation flowElement) throws FlowException {
 
 		flowElement.aggregate(context);
-		return flowElement.next();
+		return context.getPlan().next(flowElement);
 
 	}
 }
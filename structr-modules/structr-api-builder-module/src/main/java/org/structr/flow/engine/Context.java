@@ -41,6 +41,7 @@ public class Context {
 	private Map<String,Object> parameters 		= new HashMap<>();
 	private Map<String,Object> currentData 		= new HashMap<>();
 	private Queue<Future> forkPromises			= new ConcurrentLinkedQueue<>();
+	private FlowPlan.Binding plan				= FlowPlan.unbound();
 	private GraphObject thisObject   			= null;
 	private Object result            			= null;
 	private FlowError error          			= null;
@@ -54,6 +55,7 @@ public class Context {
 		this.parameters = deepCopyMap(context.parameters);
 		this.currentData = deepCopyMap(context.currentData);
 		this.forkPromises = deepCopyQueue(context.forkPromises);
+		this.plan = context.plan;
 	}
 
 	public Context(final GraphObject thisObject) {
@@ -133,6 +135,14 @@ public class Context {
 		return this.forkPromises;
 	}
 
+	public FlowPlan.Binding getPlan() {
+		return plan;
+	}
+
+	public void setPlan(final FlowPlan.Binding plan) {
+		this.plan = plan;
+	}
+
 	public ActionContext getActionContext(final SecurityContext securityContext, final FlowBaseNode node) {
 		ActionContext ctx = new ActionContext(securityContext);
 
@@ -156,6 +166,7 @@ public class Context {
 		this.result = context.result;
 		this.error = context.error;
 		this.forkPromises = deepCopyQueue(context.forkPromises);
+		this.plan = context.plan;
 	}
 
 	private <Q> Queue<Q> deepCopyQueue(Queue<Q> q) {
@@ -36,11 +36,11 @@ public class DecisionHandler implements FlowHandler<Decision> {
 
 		if (isTrue(value)) {
 
-			return flowElement.getTrueElement();
+			return context.getPlan().getTrueElement(flowElement);
 
 		} else {
 
-			return flowElement.getFalseElement();
+			return context.getPlan().getFalseElement(flowElement);
 		}
 	}
 
@@ -29,7 +29,7 @@ public class ExceptionHandler implements FlowHandler<Exception> {
 
 		flowElement.handleException(context);
 
-		return flowElement.next();
+		return context.getPlan().next(flowElement);
 
 	}
 }
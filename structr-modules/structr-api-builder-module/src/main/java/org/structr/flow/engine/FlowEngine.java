@@ -21,16 +21,28 @@ package org.structr.flow.engine;
 import org.structr.flow.api.*;
 
 import java.util.EnumMap;
-import java.util.List;
 import java.util.Map;
 import org.structr.core.GraphObject;
-import org.structr.flow.impl.FlowBaseNode;
 import org.structr.flow.impl.FlowContainer;
 import org.structr.flow.impl.FlowExceptionHandler;
 
 public class FlowEngine {
-	private final Map<FlowType, FlowHandler> handlers 	= new EnumMap<>(FlowType.class);
-	private Context context                           	= null;
+
+	private static final Map<FlowType, FlowHandler> handlers = new EnumMap<>(FlowType.class);
+	private Context context                                  = null;
+
+	static {
+
+		handlers.put(FlowType.Action,      new ActionHandler());
+		handlers.put(FlowType.Decision,    new DecisionHandler());
+		handlers.put(FlowType.Return,      new ReturnHandler());
+		handlers.put(FlowType.ForEach,     new ForEachHandler());
+		handlers.put(FlowType.Store,       new StoreHandler());
+		handlers.put(FlowType.Aggregation, new AggregationHandler());
+		handlers.put(FlowType.Exception,   new ExceptionHandler());
+		handlers.put(FlowType.Filter,      new FilterHandler());
+		handlers.put(FlowType.Fork,        new ForkHandler());
+	}
 
 	public FlowEngine() {
 		this((GraphObject)null);
@@ -41,9 +53,6 @@ public class FlowEngine {
 	}
 
 	public FlowEngine(final Context context) {
-
-		init();
-
 		this.context = context;
 	}
 
@@ -53,7 +62,7 @@ public class FlowEngine {
 
 	public FlowResult execute(final Context context, final FlowElement step) {
 
-		FlowElement current = step;
+		FlowElement current = bind(context, step);
 
 		while (current != null) {
 
@@ -100,60 +109,44 @@ public class FlowEngine {
 	}
 
 	// ----- private methods -----
-	private void init() {
-
-		handlers.put(FlowType.Action,   	new ActionHandler());
-		handlers.put(FlowType.Decision, 	new DecisionHandler());
-		handlers.put(FlowType.Return,   	new ReturnHandler());
-		handlers.put(FlowType.ForEach,  	new ForEachHandler());
-		handlers.put(FlowType.Store, 		new StoreHandler());
-		handlers.put(FlowType.Aggregation,  new AggregationHandler());
-		handlers.put(FlowType.Exception, 	new ExceptionHandler());
-		handlers.put(FlowType.Filter,		new FilterHandler());
-		handlers.put(FlowType.Fork,			new ForkHandler());
-	}
-
-	private FlowResult handleException(final Context context, final FlowException exception, final FlowElement current) {
-		// Check if current element has a linked FlowExceptionHandler or if there is a global one
-		if (current instanceof ThrowingElement) {
-
-			FlowExceptionHandler exceptionHandler = ((ThrowingElement)current).getExceptionHandler(context);
-
-			if (exceptionHandler != null) {
-
-				context.setData(exceptionHandler.getUuid(), exception);
-				return this.execute(context, exceptionHandler);
-
-			}
+	private FlowElement bind(final Context context, final FlowElement step) {
 
+		if (step == null) {
+			return null;
 		}
 
-		// No linked FlowExceptionHandler was found, try to find an eligible global one
-		FlowContainer container = current.getFlowContainer();
-
-		List<FlowBaseNode> flowNodes = container.getProperty(FlowContainer.flowNodes);
+		FlowPlan.Binding plan = context.getPlan();
 
-		if (flowNodes != null && flowNodes.size() > 0) {
+		if (!plan.contains(step)) {
 
-			for (FlowBaseNode node : flowNodes) {
+			// bind the execution plan of the container once per execution
+			final FlowContainer container = step.getFlowContainer();
+			if (container != null) {
 
-				if (node instanceof FlowExceptionHandler) {
+				plan = FlowPlan.get(container).bind(container);
 
-					FlowExceptionHandler exceptionHandler = (FlowExceptionHandler)node;
+				context.setPlan(plan);
+			}
+		}
 
-					List<FlowBaseNode> handledNodes = exceptionHandler.getProperty(FlowExceptionHandler.handledNodes);
+		return plan.resolve(step);
+	}
 
-					if (handledNodes == null || handledNodes.size() == 0) {
+	private FlowResult handleException(final Context context, final FlowException exception, final FlowElement current) {
 
-						context.setData(exceptionHandler.getUuid(), exception);
-						return this.execute(context, exceptionHandler);
+		// Check if current element has a linked FlowExceptionHandler
+		FlowExceptionHandler exceptionHandler = context.getPlan().getExceptionHandler(context, current);
 
-					}
+		if (exceptionHandler == null) {
 
-				}
+			// No linked FlowExceptionHandler was found, try to find an eligible global one
+			exceptionHandler = context.getPlan().getGlobalExceptionHandler(current);
+		}
 
-			}
+		if (exceptionHandler != null) {
 
+			context.setData(exceptionHandler.getUuid(), exception);
+			return this.execute(context, exceptionHandler);
 		}
 
 		// In case no handler is present at all, print the stack trace and return the intermediate result
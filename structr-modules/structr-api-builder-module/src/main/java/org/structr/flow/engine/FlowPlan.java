@@ -0,0 +1,452 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.flow.engine;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.structr.flow.api.Decision;
+import org.structr.flow.api.FlowElement;
+import org.structr.flow.api.ForEach;
+import org.structr.flow.api.Fork;
+import org.structr.flow.api.ThrowingElement;
+import org.structr.flow.impl.FlowBaseNode;
+import org.structr.flow.impl.FlowContainer;
+import org.structr.flow.impl.FlowExceptionHandler;
+
+/**
+ * Compiled execution plan of a flow container.
+ *
+ * A plan contains the control flow of a flow, i.e. the successors,
+ * branches, bodies and exception handlers of its elements, so the engine
+ * can navigate the flow without traversing relationships. Plans only
+ * store UUIDs and are cached until a flow element is modified. The
+ * element instances of a single execution are obtained with a single
+ * traversal when the plan is bound, see {@link #bind}.
+ */
+public class FlowPlan {
+
+	private static final Map<String, FlowPlan> cache = new ConcurrentHashMap<>();
+	private static final Binding unbound             = new Binding(null, null);
+	private static long generation                   = 0L;
+
+	private final Map<String, Step> steps = new HashMap<>();
+	private String globalExceptionHandler = null;
+
+	private FlowPlan(final FlowContainer container) {
+
+		final List<FlowBaseNode> nodes = container.getProperty(FlowContainer.flowNodes);
+		if (nodes != null) {
+
+			for (final FlowBaseNode node : nodes) {
+
+				if (node instanceof FlowElement) {
+
+					steps.put(node.getUuid(), new Step((FlowElement)node));
+				}
+
+				if (globalExceptionHandler == null && node instanceof FlowExceptionHandler) {
+
+					final List<FlowBaseNode> handledNodes = node.getProperty(FlowExceptionHandler.handledNodes);
+					if (handledNodes == null || handledNodes.isEmpty()) {
+
+						globalExceptionHandler = node.getUuid();
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the cached execution plan of the given container, the plan
+	 * is compiled if necessary.
+	 *
+	 * @param container
+	 * @return the execution plan
+	 */
+	public static FlowPlan get(final FlowContainer container) {
+
+		final String uuid = container.getUuid();
+		FlowPlan plan     = cache.get(uuid);
+
+		if (plan == null) {
+
+			final long current = getGeneration();
+
+			plan = new FlowPlan(container);
+
+			synchronized (FlowPlan.class) {
+
+				// do not cache a plan that was compiled while a flow was modified
+				if (current == generation) {
+					cache.put(uuid, plan);
+				}
+			}
+		}
+
+		return plan;
+	}
+
+	/**
+	 * Discards all cached execution plans, must be called when an element
+	 * of any flow is created, modified or deleted.
+	 */
+	public static synchronized void invalidate() {
+
+		generation++;
+		cache.clear();
+	}
+
+	/**
+	 * @return a binding without elements that resolves everything by relationship traversal
+	 */
+	public static Binding unbound() {
+		return unbound;
+	}
+
+	/**
+	 * Binds this plan to the element instances of the given container, which
+	 * are used for the duration of a single execution.
+	 *
+	 * @param container
+	 * @return the bound plan
+	 */
+	public Binding bind(final FlowContainer container) {
+		return new Binding(this, container);
+	}
+
+	// ----- private methods -----
+	private static synchronized long getGeneration() {
+		return generation;
+	}
+
+	private static String getUuid(final Object element) {
+
+		if (element instanceof FlowBaseNode) {
+			return ((FlowBaseNode)element).getUuid();
+		}
+
+		return null;
+	}
+
+	// ----- nested classes -----
+	/**
+	 * The control flow of a single element.
+	 */
+	private static class Step {
+
+		private String next             = null;
+		private String trueElement      = null;
+		private String falseElement     = null;
+		private String body             = null;
+		private String exceptionHandler = null;
+
+		Step(final FlowElement element) {
+
+			next = getUuid(element.next());
+
+			if (element instanceof Decision) {
+
+				trueElement  = getUuid(((Decision)element).getTrueElement());
+				falseElement = getUuid(((Decision)element).getFalseElement());
+			}
+
+			if (element instanceof ForEach) {
+				body = getUuid(((ForEach)element).getLoopBody());
+			}
+
+			if (element instanceof Fork) {
+				body = getUuid(((Fork)element).getForkBody());
+			}
+
+			if (element instanceof ThrowingElement) {
+				exceptionHandler = getUuid(((ThrowingElement)element).getExceptionHandler(null));
+			}
+		}
+	}
+
+	/**
+	 * The control flow of a single element, resolved to the element
+	 * instances of an execution.
+	 */
+	private static class BoundStep {
+
+		private FlowExceptionHandler exceptionHandler = null;
+		private FlowElement next                      = null;
+		private FlowElement trueElement               = null;
+		private FlowElement falseElement              = null;
+		private FlowElement body                      = null;
+		private boolean complete                      = true;
+
+		BoundStep(final Step step, final Map<String, FlowElement> elements) {
+
+			next             = resolve(step.next, elements);
+			trueElement      = resolve(step.trueElement, elements);
+			falseElement     = resolve(step.falseElement, elements);
+			body             = resolve(step.body, elements);
+
+			final FlowElement handler = resolve(step.exceptionHandler, elements);
+			if (handler instanceof FlowExceptionHandler) {
+
+				exceptionHandler = (FlowExceptionHandler)handler;
+
+			} else if (handler != null) {
+
+				complete = false;
+			}
+		}
+
+		private FlowElement resolve(final String uuid, final Map<String, FlowElement> elements) {
+
+			if (uuid != null) {
+
+				final FlowElement element = elements.get(uuid);
+				if (element == null) {
+
+					// element is not part of this container, use traversal
+					complete = false;
+				}
+
+				return element;
+			}
+
+			return null;
+		}
+	}
+
+	/**
+	 * An execution plan bound to the element instances of a single
+	 * execution. Elements that are not part of the plan are navigated
+	 * by relationship traversal.
+	 */
+	public static class Binding {
+
+		private final Map<FlowElement, BoundStep> boundSteps = new IdentityHashMap<>();
+		private final Map<String, FlowElement> elements      = new HashMap<>();
+		private final FlowPlan plan;
+		private FlowExceptionHandler globalExceptionHandler  = null;
+
+		private Binding(final FlowPlan plan, final FlowContainer container) {
+
+			this.plan = plan;
+
+			if (plan != null && container != null) {
+
+				final List<FlowBaseNode> nodes = container.getProperty(FlowContainer.flowNodes);
+				if (nodes != null) {
+
+					for (final FlowBaseNode node : nodes) {
+
+						if (node instanceof FlowElement) {
+							elements.put(node.getUuid(), (FlowElement)node);
+						}
+					}
+				}
+
+				for (final FlowElement element : elements.values()) {
+
+					final Step step      = plan.steps.get(((FlowBaseNode)element).getUuid());
+					BoundStep boundStep  = null;
+
+					if (step != null) {
+
+						boundStep = new BoundStep(step, elements);
+						if (!boundStep.complete) {
+
+							boundStep = null;
+						}
+					}
+
+					// elements without a complete step are navigated by traversal
+					boundSteps.put(element, boundStep);
+				}
+
+				if (plan.globalExceptionHandler != null) {
+
+					final FlowElement handler = elements.get(plan.globalExceptionHandler);
+					if (handler instanceof FlowExceptionHandler) {
+
+						globalExceptionHandler = (FlowExceptionHandler)handler;
+					}
+				}
+			}
+		}
+
+		/**
+		 * @param element
+		 * @return true if the given element is part of this binding
+		 */
+		public boolean contains(final FlowElement element) {
+			return plan != null && element != null && (boundSteps.containsKey(element) || elements.containsKey(getUuid(element)));
+		}
+
+		/**
+		 * Returns the instance of the given element that is bound to this
+		 * execution, or the element itself if it is not part of the plan.
+		 *
+		 * @param element
+		 * @return the bound element
+		 */
+		public FlowElement resolve(final FlowElement element) {
+
+			if (plan != null && element != null && !boundSteps.containsKey(element)) {
+
+				final FlowElement bound = elements.get(getUuid(element));
+				if (bound != null) {
+
+					return bound;
+				}
+			}
+
+			return element;
+		}
+
+		public FlowElement next(final FlowElement element) {
+
+			final BoundStep step = getStep(element);
+			if (step != null) {
+
+				return step.next;
+			}
+
+			return element.next();
+		}
+
+		public FlowElement getTrueElement(final Decision element) {
+
+			final BoundStep step = getStep(element);
+			if (step != null) {
+
+				return step.trueElement;
+			}
+
+			return element.getTrueElement();
+		}
+
+		public FlowElement getFalseElement(final Decision element) {
+
+			final BoundStep step = getStep(element);
+			if (step != null) {
+
+				return step.falseElement;
+			}
+
+			return element.getFalseElement();
+		}
+
+		public FlowElement getLoopBody(final ForEach element) {
+
+			final BoundStep step = getStep(element);
+			if (step != null) {
+
+				return step.body;
+			}
+
+			return element.getLoopBody();
+		}
+
+		public FlowElement getForkBody(final Fork element) {
+
+			final BoundStep step = getStep(element);
+			if (step != null) {
+
+				return step.body;
+			}
+
+			return element.getForkBody();
+		}
+
+		public FlowExceptionHandler getExceptionHandler(final Context context, final FlowElement element) {
+
+			final BoundStep step = getStep(element);
+			if (step != null) {
+
+				return step.exceptionHandler;
+			}
+
+			if (element instanceof ThrowingElement) {
+
+				return ((ThrowingElement)element).getExceptionHandler(context);
+			}
+
+			return null;
+		}
+
+		/**
+		 * Returns the exception handler of the container of the given element
+		 * that handles exceptions of all elements.
+		 *
+		 * @param element
+		 * @return the global exception handler or null
+		 */
+		public FlowExceptionHandler getGlobalExceptionHandler(final FlowElement element) {
+
+			if (contains(element)) {
+
+				return globalExceptionHandler;
+			}
+
+			final FlowContainer container = element.getFlowContainer();
+			if (container != null) {
+
+				final List<FlowBaseNode> flowNodes = container.getProperty(FlowContainer.flowNodes);
+				if (flowNodes != null) {
+
+					for (final FlowBaseNode node : flowNodes) {
+
+						if (node instanceof FlowExceptionHandler) {
+
+							final List<FlowBaseNode> handledNodes = node.getProperty(FlowExceptionHandler.handledNodes);
+							if (handledNodes == null || handledNodes.isEmpty()) {
+
+								return (FlowExceptionHandler)node;
+							}
+						}
+					}
+				}
+			}
+
+			return null;
+		}
+
+		// ----- private methods -----
+		private BoundStep getStep(final FlowElement element) {
+
+			if (plan == null || element == null) {
+				return null;
+			}
+
+			if (boundSteps.containsKey(element)) {
+
+				return boundSteps.get(element);
+			}
+
+			// element instance was loaded outside of this execution
+			final FlowElement bound = elements.get(getUuid(element));
+			if (bound != null) {
+
+				return boundSteps.get(bound);
+			}
+
+			return null;
+		}
+	}
+}
@@ -22,7 +22,6 @@ import java.util.Collection;
 
 import org.structr.flow.api.*;
 import org.structr.flow.impl.FlowForEach;
-import org.structr.flow.impl.FlowNode;
 
 /**
  *
@@ -37,7 +36,7 @@ public class ForEachHandler implements FlowHandler<FlowForEach> {
 		if (dataSource != null) {
 
 			final FlowEngine engine = new FlowEngine(context);
-			final FlowNode loopBody = flowElement.getLoopBody();
+			final FlowElement loopBody = context.getPlan().getLoopBody(flowElement);
 
 			if (loopBody != null) {
 
@@ -73,7 +72,7 @@ public class ForEachHandler implements FlowHandler<FlowForEach> {
 
 		}
 
-		return flowElement.next();
+		return context.getPlan().next(flowElement);
 	}
 
 }
@@ -18,51 +18,70 @@
  */
 package org.structr.flow.engine;
 
+import org.structr.api.config.Settings;
 import org.structr.core.graph.Tx;
 import org.structr.flow.api.FlowElement;
 import org.structr.flow.api.FlowHandler;
 import org.structr.flow.api.Fork;
-import org.structr.flow.impl.FlowNode;
 
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Callable;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- *
+ * Executes the body of a fork element in a thread pool that is shared
+ * by all flows. When all threads are busy and the queue is full, the
+ * body is executed by the calling thread.
  */
 public class ForkHandler implements FlowHandler<Fork> {
 
+	private static ThreadPoolExecutor executor = null;
+
 	@Override
 	public FlowElement handle(Context context, Fork flowElement) throws FlowException {
 
-		FlowNode forkBody = flowElement.getForkBody();
+		final FlowElement forkBody = context.getPlan().getForkBody(flowElement);
 
 		if (forkBody != null) {
 
-			ExecutorService threadExecutor = Executors.newSingleThreadExecutor();
-
 			ForkTask task = new ForkTask(context, forkBody, flowElement);
 
 			// Could be written into context for future additions like a FlowJoin element
-			Future<Object> future = threadExecutor.submit(task);
+			Future<Object> future = getExecutor().submit(task);
 			context.queueForkFuture(future);
 
 		}
 
-		return flowElement.next();
+		return context.getPlan().next(flowElement);
 	}
 
+	// ----- private methods -----
+	private static synchronized ThreadPoolExecutor getExecutor() {
+
+		if (executor == null) {
+
+			final int threads = Math.max(1, Settings.FlowForkThreads.getValue());
+
+			executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(Math.max(1, Settings.FlowForkQueueSize.getValue())), new ForkThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+			executor.allowCoreThreadTimeOut(true);
+		}
+
+		return executor;
+	}
 
-	private class ForkTask implements Callable<Object> {
+	// ----- nested classes -----
+	private static class ForkTask implements Callable<Object> {
 		private final Fork fork;
-		private final FlowNode startNode;
+		private final FlowElement startNode;
 		private final Context context;
 
-		ForkTask(final Context context, final FlowNode startNode, final Fork fork) {
+		ForkTask(final Context context, final FlowElement startNode, final Fork fork) {
 			this.startNode = startNode;
-			this.context = context;
+			this.context = new Context(context);
 			this.fork = fork;
 		}
 
@@ -75,10 +94,9 @@ public class ForkHandler implements FlowHandler<Fork> {
 
 				try (final Tx tx = this.fork.createTransaction()) {
 
-					Context forkContext = new Context(context);
-					final FlowEngine engine = new FlowEngine(forkContext);
+					final FlowEngine engine = new FlowEngine(context);
 
-					result = engine.execute(forkContext, startNode);
+					result = engine.execute(context, startNode);
 
 					tx.success();
 				}
@@ -92,4 +110,18 @@ public class ForkHandler implements FlowHandler<Fork> {
 		}
 	}
 
+	private static class ForkThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(final Runnable r) {
+
+			final Thread thread = new Thread(r, "FlowFork-" + count.incrementAndGet());
+
+			thread.setDaemon(true);
+
+			return thread;
+		}
+	}
 }
@@ -29,6 +29,6 @@ public class StoreHandler implements FlowHandler<Store> {
 	public FlowElement handle(Context context, Store flowElement) throws FlowException {
 
 		flowElement.handleStorage(context);
-		return flowElement.next();
+		return context.getPlan().next(flowElement);
 	}
 }
@@ -24,8 +24,10 @@ import org.structr.common.View;
 import org.structr.common.error.ErrorBuffer;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.entity.AbstractNode;
+import org.structr.core.graph.ModificationQueue;
 import org.structr.core.property.Property;
 import org.structr.core.property.StartNode;
+import org.structr.flow.engine.FlowPlan;
 import org.structr.flow.impl.rels.FlowContainerBaseNode;
 import org.structr.module.api.DeployableEntity;
 
@@ -44,5 +46,29 @@ public abstract class FlowBaseNode extends AbstractNode implements DeployableEnt
 
 		this.setProperty(visibleToAuthenticatedUsers, true);
 		this.setProperty(visibleToPublicUsers, true);
+
+		FlowPlan.invalidate();
+	}
+
+	@Override
+	public void onModification(SecurityContext securityContext, ErrorBuffer errorBuffer, final ModificationQueue modificationQueue) throws FrameworkException {
+		super.onModification(securityContext, errorBuffer, modificationQueue);
+
+		FlowPlan.invalidate();
+	}
+
+	@Override
+	public void afterModification(SecurityContext securityContext) {
+		super.afterModification(securityContext);
+
+		// plans compiled before the modification was committed are stale
+		FlowPlan.invalidate();
+	}
+
+	@Override
+	public void onNodeDeletion() {
+		super.onNodeDeletion();
+
+		FlowPlan.invalidate();
 	}
 }
@@ -36,6 +36,7 @@ import org.structr.core.property.*;
 import org.structr.flow.api.FlowResult;
 import org.structr.flow.engine.Context;
 import org.structr.flow.engine.FlowEngine;
+import org.structr.flow.engine.FlowPlan;
 import org.structr.flow.impl.rels.DOMNodeFLOWFlowContainer;
 import org.structr.flow.impl.rels.FlowContainerBaseNode;
 import org.structr.flow.impl.rels.FlowContainerConfigurationFlow;
@@ -103,11 +104,22 @@ public class FlowContainer extends AbstractNode implements DeployableEntity {
 	public void onModification(SecurityContext securityContext, ErrorBuffer errorBuffer, final ModificationQueue modificationQueue) throws FrameworkException {
 		super.onModification(securityContext, errorBuffer, modificationQueue);
 		setProperty(scheduledForIndexing, false);
+
+		FlowPlan.invalidate();
+	}
+
+	@Override
+	public void afterModification(SecurityContext securityContext) {
+		super.afterModification(securityContext);
+
+		FlowPlan.invalidate();
 	}
 
 	@Override
 	public void onNodeDeletion() {
 		deleteChildren();
+
+		FlowPlan.invalidate();
 	}
 
 	private void deleteChildren() {
@@ -26,7 +26,11 @@ import com.jayway.restassured.filter.log.ResponseLoggingFilter;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.junit.Test;
 import org.structr.common.error.FrameworkException;
@@ -546,4 +550,224 @@ public class CsvImportTest extends StructrApiModuleTest {
 		}
 
 	}
+
+	@Test
+	public void testCsvFileImportMultipleChunksAndWriters() {
+
+		final int rowCount = 1000;
+		String newFileId   = null;
+
+		// test setup
+		try (final Tx tx = app.tx()) {
+
+			final StringBuilder csvData = new StringBuilder("id;name;value\n");
+
+			for (int i=0; i<rowCount; i++) {
+				csvData.append(i).append(";name").append(i).append(";").append(i * 2).append("\n");
+			}
+
+			final byte[] fileData = csvData.toString().getBytes("utf-8");
+			final File file       = FileHelper.createFile(securityContext, fileData, "text/csv", File.class, "test.csv");
+
+			// extract UUID for later use
+			newFileId = file.getUuid();
+
+			// create new type
+			final JsonSchema schema = StructrSchema.createEmptySchema();
+			final JsonType newType  = schema.addType("Item");
+
+			newType.addStringProperty("name");
+			newType.addIntegerProperty("originId").isIndexed();
+			newType.addIntegerProperty("value");
+
+			StructrSchema.extendDatabaseSchema(app, schema);
+
+			// create test user
+			app.create(User.class,
+				new NodeAttribute<>(StructrApp.key(User.class, "name"),     "admin"),
+				new NodeAttribute<>(StructrApp.key(User.class, "password"), "admin"),
+				new NodeAttribute<>(StructrApp.key(User.class, "isAdmin"),  true)
+			);
+
+			tx.success();
+
+		} catch (Throwable t) {
+			t.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		final Gson gson                    = new GsonBuilder().setPrettyPrinting().create();
+		final Map<String, Object> params   = new LinkedHashMap<>();
+		final Map<String, Object> mappings = new LinkedHashMap<>();
+
+		// import parameters
+		params.put("targetType",     "Item");
+		params.put("quoteChar",      "");
+		params.put("delimiter",      ";");
+		params.put("commitInterval", 37);
+		params.put("threads",        4);
+		params.put("mappings",       mappings);
+
+		// property mapping
+		mappings.put("originId", "id");
+		mappings.put("name",     "name");
+		mappings.put("value",    "value");
+
+		RestAssured.given()
+			.contentType("application/json; charset=UTF-8")
+			.header("X-User",     "admin")
+			.header("X-Password", "admin")
+			.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(400))
+			.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(422))
+			.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(500))
+			.body(gson.toJson(params))
+			.expect().statusCode(200).when().post("/File/" + newFileId + "/doCSVImport");
+
+		// wait for result (import is async.)
+		try { Thread.sleep(5000); } catch (Throwable t) {}
+
+		// check imported data for correct import
+		try (final Tx tx = app.tx()) {
+
+			final ConfigurationProvider conf = StructrApp.getConfiguration();
+			final Class type                 = conf.getNodeEntityClass("Item");
+			final List<NodeInterface> items  = app.nodeQuery(type).sort(conf.getPropertyKeyForJSONName(type, "originId")).getAsList();
+
+			assertEquals("Invalid CSV import result, expected all items to be created from CSV import. ", rowCount, items.size());
+
+			for (int i=0; i<rowCount; i++) {
+
+				final NodeInterface item = items.get(i);
+
+				assertEquals("Invalid CSV mapping result", i,          item.getProperty(conf.getPropertyKeyForJSONName(type, "originId")));
+				assertEquals("Invalid CSV mapping result", "name" + i, item.getProperty(conf.getPropertyKeyForJSONName(type, "name")));
+				assertEquals("Invalid CSV mapping result", i * 2,      item.getProperty(conf.getPropertyKeyForJSONName(type, "value")));
+			}
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+	}
+
+	@Test
+	public void testCsvFileImportWithCountersInTransforms() {
+
+		final int rowCount = 1000;
+		final int threads  = 4;
+		String newFileId   = null;
+
+		// test setup
+		try (final Tx tx = app.tx()) {
+
+			final StringBuilder csvData = new StringBuilder("id;counter\n");
+
+			for (int i=0; i<rowCount; i++) {
+				csvData.append(i).append(";").append(i).append("\n");
+			}
+
+			final byte[] fileData = csvData.toString().getBytes("utf-8");
+			final File file       = FileHelper.createFile(securityContext, fileData, "text/csv", File.class, "test.csv");
+
+			// extract UUID for later use
+			newFileId = file.getUuid();
+
+			// create new type
+			final JsonSchema schema = StructrSchema.createEmptySchema();
+			final JsonType newType  = schema.addType("Item");
+
+			newType.addIntegerProperty("originId").isIndexed();
+			newType.addStringProperty("counter");
+
+			StructrSchema.extendDatabaseSchema(app, schema);
+
+			// create test user
+			app.create(User.class,
+				new NodeAttribute<>(StructrApp.key(User.class, "name"),     "admin"),
+				new NodeAttribute<>(StructrApp.key(User.class, "password"), "admin"),
+				new NodeAttribute<>(StructrApp.key(User.class, "isAdmin"),  true)
+			);
+
+			tx.success();
+
+		} catch (Throwable t) {
+			t.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		final Gson gson                      = new GsonBuilder().setPrettyPrinting().create();
+		final Map<String, Object> params     = new LinkedHashMap<>();
+		final Map<String, Object> mappings   = new LinkedHashMap<>();
+		final Map<String, Object> transforms = new LinkedHashMap<>();
+
+		// import parameters
+		params.put("targetType",     "Item");
+		params.put("quoteChar",      "");
+		params.put("delimiter",      ";");
+		params.put("commitInterval", 37);
+		params.put("threads",        threads);
+		params.put("mappings",       mappings);
+		params.put("transforms",     transforms);
+
+		// property mapping
+		mappings.put("originId", "id");
+		mappings.put("counter",  "counter");
+
+		// counter is incremented once per line
+		transforms.put("counter", "concat(inc_counter(1), get_counter(1))");
+
+		RestAssured.given()
+			.contentType("application/json; charset=UTF-8")
+			.header("X-User",     "admin")
+			.header("X-Password", "admin")
+			.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(400))
+			.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(422))
+			.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(500))
+			.body(gson.toJson(params))
+			.expect().statusCode(200).when().post("/File/" + newFileId + "/doCSVImport");
+
+		// wait for result (import is async.)
+		try { Thread.sleep(5000); } catch (Throwable t) {}
+
+		// check imported data for correct import
+		try (final Tx tx = app.tx()) {
+
+			final ConfigurationProvider conf   = StructrApp.getConfiguration();
+			final Class type                   = conf.getNodeEntityClass("Item");
+			final List<NodeInterface> items    = app.nodeQuery(type).getAsList();
+			final Map<Integer, Integer> counts = new TreeMap<>();
+
+			assertEquals("Invalid CSV import result, expected all items to be created from CSV import. ", rowCount, items.size());
+
+			for (final NodeInterface item : items) {
+
+				final String value = (String)item.getProperty(conf.getPropertyKeyForJSONName(type, "counter"));
+
+				assertNotNull("Invalid CSV transformation result, counter value is missing", value);
+
+				counts.merge(Integer.valueOf(value), 1, Integer::sum);
+			}
+
+			// each writer counts the lines it has written, across all of its chunks
+			final int writers = counts.get(1);
+
+			assertTrue("Invalid CSV transformation result, counters must not be reset between chunks", writers >= 1 && writers <= threads);
+
+			int previous = writers;
+
+			for (final Entry<Integer, Integer> entry : counts.entrySet()) {
+
+				assertTrue("Invalid CSV transformation result, counter values must be consecutive for each writer", entry.getValue() <= previous);
+				previous = entry.getValue();
+			}
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+	}
 }
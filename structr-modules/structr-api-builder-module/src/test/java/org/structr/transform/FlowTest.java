@@ -0,0 +1,176 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.transform;
+
+import java.util.HashMap;
+import java.util.Map;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.entity.Group;
+import org.structr.core.graph.NodeAttribute;
+import org.structr.core.graph.Tx;
+import org.structr.flow.impl.FlowAction;
+import org.structr.flow.impl.FlowBaseNode;
+import org.structr.flow.impl.FlowContainer;
+import org.structr.flow.impl.FlowFork;
+import org.structr.flow.impl.FlowForkJoin;
+import org.structr.flow.impl.FlowNode;
+import org.structr.flow.impl.FlowReturn;
+
+/**
+ */
+public class FlowTest extends StructrApiModuleTest {
+
+	@Test
+	public void testModifiedFlowIsRecompiled() {
+
+		String containerId = null;
+		String actionId    = null;
+
+		try (final Tx tx = app.tx()) {
+
+			final FlowContainer container = app.create(FlowContainer.class, "test");
+			final FlowAction action       = createElement(FlowAction.class, container);
+			final FlowReturn result       = createElement(FlowReturn.class, container);
+
+			action.setProperty(FlowAction.script, "'hello'");
+			action.setProperty(FlowNode.next, result);
+			result.setProperty(FlowReturn.dataSource, action);
+			container.setProperty(FlowContainer.startNode, action);
+
+			containerId = container.getUuid();
+			actionId    = action.getUuid();
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		assertEquals("Invalid flow result", "hello", evaluate(containerId));
+		assertEquals("Invalid flow result", "hello", evaluate(containerId));
+
+		// modify a property of an element
+		try (final Tx tx = app.tx()) {
+
+			app.get(FlowAction.class, actionId).setProperty(FlowAction.script, "'world'");
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		assertEquals("Flow was not recompiled after modification", "world", evaluate(containerId));
+
+		// connect the action to a different return element
+		try (final Tx tx = app.tx()) {
+
+			final FlowContainer container = app.get(FlowContainer.class, containerId);
+			final FlowReturn result       = createElement(FlowReturn.class, container);
+
+			result.setProperty(FlowReturn.result, "'other'");
+			app.get(FlowAction.class, actionId).setProperty(FlowNode.next, result);
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		assertEquals("Flow was not recompiled after modification", "other", evaluate(containerId));
+	}
+
+	@Test
+	public void testForkAndJoin() {
+
+		String containerId = null;
+
+		try (final Tx tx = app.tx()) {
+
+			final FlowContainer container = app.create(FlowContainer.class, "fork");
+			final FlowFork fork           = createElement(FlowFork.class, container);
+			final FlowAction body         = createElement(FlowAction.class, container);
+			final FlowForkJoin join       = createElement(FlowForkJoin.class, container);
+			final FlowReturn result       = createElement(FlowReturn.class, container);
+
+			body.setProperty(FlowAction.script, "create('Group', 'name', 'forked')");
+			fork.setProperty(FlowFork.forkBody, body);
+			fork.setProperty(FlowNode.next, join);
+			join.setProperty(FlowNode.next, result);
+			result.setProperty(FlowReturn.result, "'done'");
+			container.setProperty(FlowContainer.startNode, fork);
+
+			containerId = container.getUuid();
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		for (int i=0; i<3; i++) {
+			assertEquals("Invalid flow result", "done", evaluate(containerId));
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			assertEquals("Fork body was not executed", 3, app.nodeQuery(Group.class).andName("forked").getAsList().size());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+	}
+
+	// ----- private methods -----
+	private <T extends FlowBaseNode> T createElement(final Class<T> type, final FlowContainer container) throws FrameworkException {
+		return app.create(type, new NodeAttribute<>(FlowBaseNode.flowContainer, container));
+	}
+
+	private Object evaluate(final String containerId) {
+
+		try (final Tx tx = app.tx()) {
+
+			final FlowContainer container    = app.get(FlowContainer.class, containerId);
+			final Map<String, Object> result = container.evaluate(new HashMap<>());
+
+			assertNotNull("Flow result should not be null", result);
+
+			tx.success();
+
+			return result.get("result");
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		return null;
+	}
+}
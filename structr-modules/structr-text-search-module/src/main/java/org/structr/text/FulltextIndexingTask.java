@@ -25,7 +25,17 @@ import org.structr.agent.AbstractTask;
  */
 public class FulltextIndexingTask extends AbstractTask<String> {
 
+	private String indexableId = null;
+
 	public FulltextIndexingTask(final String indexableId) {
+
 		super(FulltextIndexingAgent.TASK_NAME, null, indexableId);
+
+		this.indexableId = indexableId;
+	}
+
+	@Override
+	public Object getDeduplicationKey() {
+		return indexableId;
 	}
 }
@@ -204,4 +204,135 @@ public class XmlImportTest extends StructrUiTest {
 		}
 
 	}
+
+	@Test
+	public void testXmlFileImportWithMergeKey() {
+
+		String newFileId = null;
+
+		// test setup
+		try (final Tx tx = app.tx()) {
+
+			final String xmlData =
+				"<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n" +
+				"<items>\n"
+				+ "	<item id=\"0\" name=\"name: zero\"><test1>1</test1></item>\n"
+				+ "	<item id=\"1\" name=\"name: one\"><test1>2</test1></item>\n"
+				+ "	<item id=\"2\" name=\"name: two\"><test1>3</test1></item>\n"
+				+ "	<item id=\"2\" name=\"name: two again\"><test1>4</test1></item>\n"
+				+ "</items>\n";
+
+			final byte[] fileData = xmlData.getBytes("utf-8");
+			final File file       = FileHelper.createFile(securityContext, fileData, "application/xml", File.class, "test.xml");
+
+			// extract UUID for later use
+			newFileId = file.getUuid();
+
+			// create new type
+			final JsonSchema schema = StructrSchema.createEmptySchema();
+			final JsonType newType  = schema.addType("Item");
+
+			newType.addStringProperty("name");
+			newType.addIntegerProperty("originId").isIndexed();
+			newType.addIntegerProperty("test1");
+
+			StructrSchema.extendDatabaseSchema(app, schema);
+
+			// create test user
+			app.create(User.class,
+				new NodeAttribute<>(StructrApp.key(User.class, "name"),     "admin"),
+				new NodeAttribute<>(StructrApp.key(User.class, "password"), "admin"),
+				new NodeAttribute<>(StructrApp.key(User.class, "isAdmin"),  true)
+			);
+
+			tx.success();
+
+		} catch (Throwable t) {
+			t.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		final ConfigurationProvider conf = StructrApp.getConfiguration();
+		final Class type                 = conf.getNodeEntityClass("Item");
+
+		// create existing node that must be updated by the import
+		try (final Tx tx = app.tx()) {
+
+			app.create(type,
+				new NodeAttribute<>(conf.getPropertyKeyForJSONName(type, "originId"), 1),
+				new NodeAttribute<>(conf.getPropertyKeyForJSONName(type, "name"),     "existing")
+			);
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		final Gson gson                          = new GsonBuilder().setPrettyPrinting().create();
+		final Map<String, Object> params         = new LinkedHashMap<>();
+		final Map<String, Object> itemConfig     = new LinkedHashMap<>();
+		final Map<String, Object> itemProperties = new LinkedHashMap<>();
+		final Map<String, Object> test1Config    = new LinkedHashMap<>();
+
+		params.put("/items/item", itemConfig);
+		params.put("/items/item/test1", test1Config);
+
+		// import parameters
+		itemConfig.put("action", "createNode");
+		itemConfig.put("isRoot",  true);
+		itemConfig.put("type",  "Item");
+		itemConfig.put("mergeKey",  "originId");
+		itemConfig.put("properties",   itemProperties);
+
+		// property mapping
+		itemProperties.put("id", "originId");
+		itemProperties.put("name", "name");
+
+		test1Config.put("action", "setProperty");
+		test1Config.put("propertyName",  "test1");
+
+		RestAssured.given()
+			.contentType("application/json; charset=UTF-8")
+			.header("X-User",     "admin")
+			.header("X-Password", "admin")
+			.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(400))
+			.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(401))
+			.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(403))
+			.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(404))
+			.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(422))
+			.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(500))
+			.body(gson.toJson(params))
+			.expect().statusCode(200).when().post("/File/" + newFileId + "/doXMLImport");
+
+		// wait for result (import is async.)
+		try { Thread.sleep(1000); } catch (Throwable t) {}
+
+		// check that existing and duplicate elements were merged
+		try (final Tx tx = app.tx()) {
+
+			final List<NodeInterface> items  = app.nodeQuery(type).sort(conf.getPropertyKeyForJSONName(type, "originId")).getAsList();
+
+			assertEquals("Invalid XML import result, expected 3 items after merging. ", 3, items.size());
+
+			final NodeInterface zero = items.get(0);
+			final NodeInterface one  = items.get(1);
+			final NodeInterface two  = items.get(2);
+
+			assertEquals("Invalid XML merge result", "name: zero",      zero.getProperty(conf.getPropertyKeyForJSONName(type, "name")));
+			assertEquals("Invalid XML merge result", "name: one",       one.getProperty(conf.getPropertyKeyForJSONName(type, "name")));
+			assertEquals("Invalid XML merge result", "name: two again", two.getProperty(conf.getPropertyKeyForJSONName(type, "name")));
+
+			assertEquals("Invalid XML merge result", 1, zero.getProperty(conf.getPropertyKeyForJSONName(type, "test1")));
+			assertEquals("Invalid XML merge result", 2,  one.getProperty(conf.getPropertyKeyForJSONName(type, "test1")));
+			assertEquals("Invalid XML merge result", 4,  two.getProperty(conf.getPropertyKeyForJSONName(type, "test1")));
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+	}
 }
@@ -27,12 +27,14 @@ import java.io.Writer;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 import org.apache.commons.lang.StringUtils;
 import org.neo4j.driver.v1.AuthTokens;
 import org.neo4j.driver.v1.Config;
@@ -55,6 +57,7 @@ import org.structr.api.NotInTransactionException;
 import org.structr.api.QueryResult;
 import org.structr.api.Transaction;
 import org.structr.api.config.Settings;
+import org.structr.api.graph.Direction;
 import org.structr.api.graph.GraphProperties;
 import org.structr.api.graph.Label;
 import org.structr.api.graph.Node;
@@ -82,6 +85,7 @@ public class BoltDatabaseService implements DatabaseService, GraphProperties {
 	private static final Map<String, Label> labelCache                = new ConcurrentHashMap<>();
 	private static final ThreadLocal<SessionTransaction> sessions     = new ThreadLocal<>();
 	private static final long nanoEpoch                               = System.nanoTime();
+	private static final Pattern WRITE_CLAUSE                         = Pattern.compile("\\b(CREATE|MERGE|SET|DELETE|REMOVE|CALL|LOAD)\\b", Pattern.CASE_INSENSITIVE);
 	private Properties globalGraphProperties                          = null;
 	private CypherRelationshipIndex relationshipIndex                 = null;
 	private CypherNodeIndex nodeIndex                                 = null;
@@ -245,7 +249,13 @@ public class BoltDatabaseService implements DatabaseService, GraphProperties {
 		// make properties available to Cypher statement
 		map.put("properties", properties);
 
-		return NodeWrapper.newInstance(this, getCurrentTransaction().getNode(buf.toString(), map));
+		final NodeWrapper node = NodeWrapper.newInstance(this, getCurrentTransaction().getNode(buf.toString(), map));
+
+		// the new node is locked by the current transaction,
+		// so subsequent updates can be buffered
+		node.setModified();
+
+		return node;
 	}
 
 	@Override
@@ -296,9 +306,9 @@ public class BoltDatabaseService implements DatabaseService, GraphProperties {
 			buf.append(tenantId);
 		}
 
-		buf.append(") RETURN n");
+		buf.append(")");
 
-		return QueryUtils.map(new NodeNodeMapper(this), new NodeResultStream(this, new SimpleCypherQuery(buf.toString())));
+		return QueryUtils.map(new NodeNodeMapper(this), new NodeResultStream(this, new SimpleCypherQuery(buf.toString(), null, "n")));
 	}
 
 	@Override
@@ -319,9 +329,9 @@ public class BoltDatabaseService implements DatabaseService, GraphProperties {
 
 		buf.append(":");
 		buf.append(type);
-		buf.append(") RETURN n");
+		buf.append(")");
 
-		return QueryUtils.map(new NodeNodeMapper(this), new NodeResultStream(this, new SimpleCypherQuery(buf.toString())));
+		return QueryUtils.map(new NodeNodeMapper(this), new NodeResultStream(this, new SimpleCypherQuery(buf.toString(), null, "n")));
 	}
 
 	@Override
@@ -340,9 +350,9 @@ public class BoltDatabaseService implements DatabaseService, GraphProperties {
 			buf.append(tenantId);
 		}
 
-		buf.append(") WHERE n.type = {type} RETURN n");
+		buf.append(")");
 
-		final SimpleCypherQuery query = new SimpleCypherQuery(buf.toString());
+		final SimpleCypherQuery query = new SimpleCypherQuery(buf.toString(), "n.type = {type}", "n");
 
 		query.getParameters().put("type", type);
 
@@ -369,9 +379,9 @@ public class BoltDatabaseService implements DatabaseService, GraphProperties {
 			buf.append(tenantId);
 		}
 
-		buf.append(") RETURN r");
+		buf.append(")");
 
-		return QueryUtils.map(new RelationshipRelationshipMapper(this), new RelationshipResultStream(this, new SimpleCypherQuery(buf.toString())));
+		return QueryUtils.map(new RelationshipRelationshipMapper(this), new RelationshipResultStream(this, new SimpleCypherQuery(buf.toString(), null, "r")));
 	}
 
 	@Override
@@ -399,9 +409,79 @@ public class BoltDatabaseService implements DatabaseService, GraphProperties {
 			buf.append(tenantId);
 		}
 
-		buf.append(") RETURN r");
+		buf.append(")");
+
+		return QueryUtils.map(new RelationshipRelationshipMapper(this), new RelationshipResultStream(this, new SimpleCypherQuery(buf.toString(), null, "r")));
+	}
+
+	@Override
+	public void prefetchRelationships(final Iterable<Node> nodes, final Direction direction, final RelationshipType relationshipType) {
+
+		final Map<Long, NodeWrapper> wrappers = new LinkedHashMap<>();
+
+		for (final Node node : nodes) {
+
+			final NodeWrapper wrapper = (NodeWrapper)node;
+			if (!wrapper.hasCachedRelationships(direction, relationshipType)) {
+
+				wrappers.put(wrapper.getId(), wrapper);
+			}
+		}
+
+		if (!wrappers.isEmpty()) {
+
+			final Map<Long, List<Relationship>> relationships = new HashMap<>();
+			final Map<String, Object> map                     = new HashMap<>();
+			final StringBuilder buf                           = new StringBuilder();
+
+			buf.append("MATCH (n");
+
+			if (tenantId != null) {
+				buf.append(":");
+				buf.append(tenantId);
+			}
+
+			buf.append(Direction.INCOMING.equals(direction) ? ")<-[r" : ")-[r");
+
+			if (relationshipType != null) {
+				buf.append(":");
+				buf.append(relationshipType.name());
+			}
+
+			buf.append(Direction.OUTGOING.equals(direction) ? "]->(m)" : "]-(m)");
+			buf.append(" WHERE ID(n) IN {ids} RETURN ID(n) AS id, r, m");
 
-		return QueryUtils.map(new RelationshipRelationshipMapper(this), new RelationshipResultStream(this, new SimpleCypherQuery(buf.toString())));
+			map.put("ids", new LinkedList<>(wrappers.keySet()));
+
+			try (final NativeResult<Map<String, Object>> result = getCurrentTransaction().run(buf.toString(), map)) {
+
+				while (result.hasNext()) {
+
+					final Map<String, Object> row = result.next();
+					final Long id                 = ((Number)row.get("id")).longValue();
+					List<Relationship> list       = relationships.get(id);
+
+					if (list == null) {
+
+						list = new LinkedList<>();
+						relationships.put(id, list);
+					}
+
+					list.add((Relationship)row.get("r"));
+
+					// puts the other node into the node cache
+					row.get("m");
+				}
+			}
+
+			// nodes without relationships are cached as well
+			for (final Map.Entry<Long, NodeWrapper> entry : wrappers.entrySet()) {
+
+				final List<Relationship> list = relationships.get(entry.getKey());
+
+				entry.getValue().setCachedRelationships(direction, relationshipType, list != null ? list : Collections.emptyList());
+			}
+		}
 	}
 
 	@Override
@@ -587,7 +667,15 @@ public class BoltDatabaseService implements DatabaseService, GraphProperties {
 
 	@Override
 	public NativeResult execute(final String nativeQuery, final Map<String, Object> parameters) {
-		return getCurrentTransaction().run(nativeQuery, parameters);
+
+		final SessionTransaction tx = getCurrentTransaction();
+
+		// the nodes affected by a native write query are unknown
+		if (WRITE_CLAUSE.matcher(nativeQuery).find()) {
+			tx.modifiedUnknown();
+		}
+
+		return tx.run(nativeQuery, parameters);
 	}
 
 	@Override
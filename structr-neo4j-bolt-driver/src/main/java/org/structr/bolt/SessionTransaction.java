@@ -19,10 +19,14 @@
 package org.structr.bolt;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import org.apache.commons.lang.StringUtils;
 import org.neo4j.driver.v1.Record;
@@ -47,6 +51,7 @@ import org.structr.api.NotFoundException;
 import org.structr.api.QueryResult;
 import org.structr.api.RetryException;
 import org.structr.api.util.QueryUtils;
+import org.structr.bolt.index.QueryResultCache;
 import org.structr.bolt.mapper.RecordNodeMapper;
 import org.structr.bolt.mapper.RecordNodeIdMapper;
 import org.structr.bolt.mapper.RecordRelationshipMapper;
@@ -61,15 +66,21 @@ import org.structr.bolt.wrapper.StatementResultWrapper;
  */
 public class SessionTransaction implements org.structr.api.Transaction {
 
-	private final Set<EntityWrapper> modifiedEntities = new HashSet<>();
-	private final Set<Long> deletedNodes              = new HashSet<>();
-	private final Set<Long> deletedRels               = new HashSet<>();
+	private static final int MAX_PENDING_ENTITIES                         = 1000;
+	private final Map<String, Map<Long, Map<String, Object>>> pendingData = new LinkedHashMap<>();
+	private final Map<String, Set<Long>> pendingLabels                    = new LinkedHashMap<>();
+	private final Set<EntityWrapper> modifiedEntities                     = new HashSet<>();
+	private final Set<Long> deletedNodes                                  = new HashSet<>();
+	private final Set<Long> deletedRels                                   = new HashSet<>();
+	private final Set<String> modifiedLabels                              = new HashSet<>();
+	private int pendingEntityCount                                        = 0;
 	private BoltDatabaseService db                    = null;
 	private Session session                           = null;
 	private Transaction tx                            = null;
 	private boolean closed                            = false;
 	private boolean success                           = false;
 	private boolean isPing                            = false;
+	private boolean unknownModifications              = false;
 
 	public SessionTransaction(final BoltDatabaseService db, final Session session) {
 
@@ -95,6 +106,24 @@ public class SessionTransaction implements org.structr.api.Transaction {
 	@Override
 	public void close() {
 
+		RuntimeException flushException = null;
+
+		if (success) {
+
+			try {
+
+				// write pending changes before committing
+				flush();
+
+			} catch (RuntimeException rex) {
+
+				tx.failure();
+
+				success        = false;
+				flushException = rex;
+			}
+		}
+
 		if (!success) {
 
 			// We need to invalidate all existing references because we cannot
@@ -148,6 +177,23 @@ public class SessionTransaction implements org.structr.api.Transaction {
 				session.close();
 			}
 		}
+
+		// invalidate cached query results now that the changes are visible to other transactions
+		if (success) {
+
+			if (unknownModifications) {
+
+				QueryResultCache.invalidate();
+
+			} else if (!modifiedLabels.isEmpty()) {
+
+				QueryResultCache.invalidate(modifiedLabels);
+			}
+		}
+
+		if (flushException != null) {
+			throw flushException;
+		}
 	}
 
 	public boolean isClosed() {
@@ -184,6 +230,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 		try {
 
+			flush();
+
 			return tx.run(statement, map).next().get(0).asBoolean();
 
 		} catch (TransientException tex) {
@@ -224,6 +272,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 		try {
 
+			flush();
+
 			return tx.run(statement, map).next().get(0).asLong();
 
 		} catch (TransientException tex) {
@@ -244,6 +294,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 		try {
 
+			flush();
+
 			final StatementResult result = tx.run(statement, map);
 			if (result.hasNext()) {
 
@@ -270,6 +322,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 		try {
 
+			flush();
+
 			return tx.run(statement, map).next().get(0).asEntity();
 
 		} catch (TransientException tex) {
@@ -290,6 +344,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 		try {
 
+			flush();
+
 			return tx.run(statement, map).next().get(0).asNode();
 
 		} catch (TransientException tex) {
@@ -310,6 +366,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 		try {
 
+			flush();
+
 			return tx.run(statement, map).next().get(0).asRelationship();
 
 		} catch (TransientException tex) {
@@ -325,12 +383,20 @@ public class SessionTransaction implements org.structr.api.Transaction {
 	}
 
 	public QueryResult<Node> getNodes(final String statement, final Map<String, Object> map) {
+		return getNodes(statement, map, false);
+	}
+
+	public QueryResult<Node> getNodes(final String statement, final Map<String, Object> map, final boolean stream) {
 
 		final long t0 = System.currentTimeMillis();
 
 		try {
 
-			return QueryUtils.map(new RecordNodeMapper(), new StatementIterable(tx.run(statement, map)));
+			flush();
+
+			final StatementResult result = tx.run(statement, map);
+
+			return QueryUtils.map(new RecordNodeMapper(), stream ? new StatementStream(result) : new StatementIterable(result));
 
 		} catch (TransientException tex) {
 			closed = true;
@@ -345,12 +411,20 @@ public class SessionTransaction implements org.structr.api.Transaction {
 	}
 
 	public QueryResult<Relationship> getRelationships(final String statement, final Map<String, Object> map) {
+		return getRelationships(statement, map, false);
+	}
+
+	public QueryResult<Relationship> getRelationships(final String statement, final Map<String, Object> map, final boolean stream) {
 
 		final long t0 = System.currentTimeMillis();
 
 		try {
 
-			return QueryUtils.map(new RecordRelationshipMapper(), new StatementIterable(tx.run(statement, map)));
+			flush();
+
+			final StatementResult result = tx.run(statement, map);
+
+			return QueryUtils.map(new RecordRelationshipMapper(), stream ? new StatementStream(result) : new StatementIterable(result));
 
 		} catch (TransientException tex) {
 			closed = true;
@@ -365,12 +439,20 @@ public class SessionTransaction implements org.structr.api.Transaction {
 	}
 
 	public QueryResult<NodeId> getNodeIds(final String statement, final Map<String, Object> map) {
+		return getNodeIds(statement, map, false);
+	}
+
+	public QueryResult<NodeId> getNodeIds(final String statement, final Map<String, Object> map, final boolean stream) {
 
 		final long t0 = System.currentTimeMillis();
 
 		try {
 
-			return QueryUtils.map(new RecordNodeIdMapper(), new StatementIterable(tx.run(statement, map)));
+			flush();
+
+			final StatementResult result = tx.run(statement, map);
+
+			return QueryUtils.map(new RecordNodeIdMapper(), stream ? new StatementStream(result) : new StatementIterable(result));
 
 		} catch (TransientException tex) {
 			closed = true;
@@ -390,6 +472,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 		try {
 
+			flush();
+
 			final StatementResult result = tx.run(statement, map);
 			final Record record = result.next();
 			final Value value = record.get(0);
@@ -425,6 +509,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 		try {
 
+			flush();
+
 			return new StatementResultWrapper(db, tx.run(statement, map));
 
 		} catch (TransientException tex) {
@@ -449,6 +535,8 @@ public class SessionTransaction implements org.structr.api.Transaction {
 
 		try {
 
+			flush();
+
 			tx.run(statement, map).consume();
 
 		} catch (TransientException tex) {
@@ -467,6 +555,122 @@ public class SessionTransaction implements org.structr.api.Transaction {
 		}
 	}
 
+	/**
+	 * Writes the given property values for the given entity. The first
+	 * write to an entity in this transaction is executed immediately so
+	 * that the database lock on the entity is acquired, later writes are
+	 * buffered until the next statement is executed in this transaction
+	 * or the transaction is committed. A null value removes the property.
+	 *
+	 * @param entity
+	 * @param prefix the MATCH clause that identifies the entity as "n"
+	 * @param properties
+	 */
+	public void setProperties(final EntityWrapper entity, final String prefix, final Map<String, Object> properties) {
+
+		final long id = entity.getId();
+
+		if (acquireLock(entity)) {
+
+			final Map<String, Object> map = new HashMap<>();
+
+			map.put("id", id);
+			map.put("properties", properties);
+
+			set(prefix + " WHERE ID(n) = {id} SET n += {properties}", map);
+
+			return;
+		}
+
+		Map<Long, Map<String, Object>> entities = pendingData.get(prefix);
+		if (entities == null) {
+
+			entities = new LinkedHashMap<>();
+			pendingData.put(prefix, entities);
+		}
+
+		Map<String, Object> data = entities.get(id);
+		if (data == null) {
+
+			data = new HashMap<>();
+			entities.put(id, data);
+
+			pendingEntityCount++;
+		}
+
+		data.putAll(properties);
+
+		flushIfNecessary();
+	}
+
+	/**
+	 * Adds the given label to the given node, see {@link #setProperties}
+	 * for details about buffering.
+	 *
+	 * @param node
+	 * @param prefix the MATCH clause that identifies the node as "n"
+	 * @param label
+	 */
+	public void addLabel(final EntityWrapper node, final String prefix, final String label) {
+		updateLabel(node, prefix + " WHERE ID(n) IN {ids} SET n:" + label, prefix + " WHERE ID(n) IN {ids} REMOVE n:" + label);
+	}
+
+	/**
+	 * Removes the given label from the given node, see {@link #setProperties}
+	 * for details about buffering.
+	 *
+	 * @param node
+	 * @param prefix the MATCH clause that identifies the node as "n"
+	 * @param label
+	 */
+	public void removeLabel(final EntityWrapper node, final String prefix, final String label) {
+		updateLabel(node, prefix + " WHERE ID(n) IN {ids} REMOVE n:" + label, prefix + " WHERE ID(n) IN {ids} SET n:" + label);
+	}
+
+	/**
+	 * Writes all pending property and label changes to the database, using
+	 * one statement per entity type and label instead of one per change.
+	 */
+	public void flush() {
+
+		if (pendingData.isEmpty() && pendingLabels.isEmpty()) {
+			return;
+		}
+
+		final Map<String, Map<Long, Map<String, Object>>> data = new LinkedHashMap<>(pendingData);
+		final Map<String, Set<Long>> labels                    = new LinkedHashMap<>(pendingLabels);
+
+		pendingData.clear();
+		pendingLabels.clear();
+		pendingEntityCount = 0;
+
+		for (final Entry<String, Map<Long, Map<String, Object>>> entry : data.entrySet()) {
+
+			final Map<String, Map<String, Object>> batch = new HashMap<>();
+			final Map<String, Object> map                = new HashMap<>();
+
+			for (final Entry<Long, Map<String, Object>> entity : entry.getValue().entrySet()) {
+
+				batch.put(entity.getKey().toString(), entity.getValue());
+			}
+
+			map.put("ids", entry.getValue().keySet());
+			map.put("batch", batch);
+
+			// match by a list of IDs so the planner can use an ID seek, a
+			// lookup by ID from an UNWIND variable results in a full scan
+			runBatch(entry.getKey() + " WHERE ID(n) IN {ids} SET n += {batch}[toString(ID(n))]", map);
+		}
+
+		for (final Entry<String, Set<Long>> entry : labels.entrySet()) {
+
+			if (!entry.getValue().isEmpty()) {
+
+				runBatch(entry.getKey(), Collections.singletonMap("ids", entry.getValue()));
+			}
+		}
+	}
+
 	public void logQuery(final String statement, final long t0) {
 		logQuery(statement, null, t0);
 	}
@@ -506,13 +710,105 @@ public class SessionTransaction implements org.structr.api.Transaction {
 	}
 
 	public void modified(final EntityWrapper wrapper) {
+
 		modifiedEntities.add(wrapper);
+
+		if (wrapper instanceof NodeWrapper) {
+			modifiedLabels.addAll(((NodeWrapper)wrapper).getCachedLabels());
+		}
+	}
+
+	/**
+	 * Notifies this transaction that it contains modifications that
+	 * can not be attributed to specific nodes, e.g. from a native query.
+	 */
+	public void modifiedUnknown() {
+		unknownModifications = true;
+	}
+
+	public boolean hasModifications() {
+		return unknownModifications || !modifiedEntities.isEmpty();
 	}
 
 	public void setIsPing(final boolean isPing) {
 		this.isPing = isPing;
 	}
 
+	// ----- private methods -----
+	private void updateLabel(final EntityWrapper node, final String statement, final String inverseStatement) {
+
+		final long id = node.getId();
+
+		if (acquireLock(node)) {
+
+			set(statement, Collections.singletonMap("ids", Collections.singleton(id)));
+
+			return;
+		}
+
+		// the last change for a given node and label wins
+		final Set<Long> inverse = pendingLabels.get(inverseStatement);
+		if (inverse != null) {
+
+			inverse.remove(id);
+		}
+
+		Set<Long> ids = pendingLabels.get(statement);
+		if (ids == null) {
+
+			ids = new LinkedHashSet<>();
+			pendingLabels.put(statement, ids);
+		}
+
+		if (ids.add(id)) {
+
+			pendingEntityCount++;
+		}
+
+		flushIfNecessary();
+	}
+
+	private boolean acquireLock(final EntityWrapper entity) {
+
+		// entities that were created or modified in this transaction are
+		// already locked, all other entities need an immediate write so
+		// that concurrent transactions wait for this one, because they
+		// share the state of the cached wrapper instances
+		return modifiedEntities.add(entity);
+	}
+
+	private void runBatch(final String statement, final Map<String, Object> map) {
+
+		final long t0 = System.currentTimeMillis();
+
+		try {
+
+			tx.run(statement, map).consume();
+
+		} catch (TransientException tex) {
+			closed = true;
+			throw new RetryException(tex);
+		} catch (NoSuchRecordException nex) {
+			throw new NotFoundException(nex);
+		} catch (ServiceUnavailableException ex) {
+			throw new NetworkException(ex.getMessage(), ex);
+		} catch (DatabaseException dex) {
+			throw SessionTransaction.translateDatabaseException(dex);
+		} catch (ClientException cex) {
+			throw SessionTransaction.translateClientException(cex);
+		} finally {
+			logQuery(statement, map, t0);
+		}
+	}
+
+	private void flushIfNecessary() {
+
+		// limit the amount of memory that is used by large transactions
+		if (pendingEntityCount >= MAX_PENDING_ENTITIES) {
+			flush();
+		}
+	}
+
 	// ----- public static methods -----
 	public static RuntimeException translateClientException(final ClientException cex) {
 
@@ -560,4 +856,54 @@ public class SessionTransaction implements org.structr.api.Transaction {
 			return result.iterator();
 		}
 	}
+	/**
+	 * Returns the records of a result while they are received, the
+	 * driver stops reading from the connection while the consumer
+	 * is behind.
+	 */
+	private class StatementStream implements QueryResult<Record> {
+
+		private StatementResult result = null;
+
+		public StatementStream(final StatementResult result) {
+			this.result = result;
+		}
+
+		@Override
+		public void close() {
+
+			// discard the remaining records
+			result.consume();
+		}
+
+		@Override
+		public Iterator<Record> iterator() {
+
+			return new Iterator<Record>() {
+
+				@Override
+				public boolean hasNext() {
+
+					try {
+						return result.hasNext();
+
+					} catch (TransientException tex) {
+						closed = true;
+						throw new RetryException(tex);
+					} catch (ServiceUnavailableException ex) {
+						throw new NetworkException(ex.getMessage(), ex);
+					} catch (DatabaseException dex) {
+						throw SessionTransaction.translateDatabaseException(dex);
+					} catch (ClientException cex) {
+						throw SessionTransaction.translateClientException(cex);
+					}
+				}
+
+				@Override
+				public Record next() {
+					return result.next();
+				}
+			};
+		}
+	}
 }
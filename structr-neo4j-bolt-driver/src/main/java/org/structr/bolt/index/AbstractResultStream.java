@@ -97,7 +97,12 @@ public abstract class AbstractResultStream<T> implements QueryResult<T> {
 
 			@Override
 			public T next() {
-				remaining--;
+
+				// results of queries that are not paged are read from a single stream
+				if (query.isPaged()) {
+					remaining--;
+				}
+
 				return current.next();
 			}
 		};
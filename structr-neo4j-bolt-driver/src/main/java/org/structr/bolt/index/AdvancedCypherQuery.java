@@ -18,6 +18,8 @@
  */
 package org.structr.bolt.index;
 
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -25,6 +27,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import org.structr.api.search.QueryContext;
 import org.structr.api.search.SortType;
 
@@ -49,9 +52,13 @@ public class AdvancedCypherQuery implements PageableQuery {
 	private QueryContext queryContext               = null;
 
 	public AdvancedCypherQuery(final QueryContext queryContext, final AbstractCypherIndex<?> index) {
+		this(queryContext, index, 100000);
+	}
+
+	public AdvancedCypherQuery(final QueryContext queryContext, final AbstractCypherIndex<?> index, final int pageSize) {
 		this.queryContext = queryContext;
-		this.pageSize = 100000;
-		this.index    = index;
+		this.pageSize     = pageSize;
+		this.index        = index;
 	}
 
 	@Override
@@ -68,6 +75,20 @@ public class AdvancedCypherQuery implements PageableQuery {
 		page++;
 	}
 
+	/**
+	 * Unsorted queries over at most one type label are executed once
+	 * and streamed, because Neo4j has no index-backed way to continue
+	 * after the last element of a previous page, so every page would
+	 * read all the preceding results again. Sorted, sliced and UNION
+	 * queries keep using SKIP and LIMIT.
+	 *
+	 * @return whether this query is paged
+	 */
+	@Override
+	public boolean isPaged() {
+		return sortKey != null || typeLabels.size() > 1 || queryContext.isSliced();
+	}
+
 	@Override
 	public int pageSize() {
 		return this.pageSize;
@@ -166,7 +187,7 @@ public class AdvancedCypherQuery implements PageableQuery {
 			buf.append(" LIMIT ");
 			buf.append(queryContext.getLimit());
 
-		} else {
+		} else if (isPaged()) {
 
 			buf.append(" SKIP ");
 			buf.append(page * pageSize);
@@ -348,6 +369,68 @@ public class AdvancedCypherQuery implements PageableQuery {
 		return queryContext;
 	}
 
+	/**
+	 * Returns a key that identifies the result of this query independent
+	 * of the current page.
+	 *
+	 * @return the cache key
+	 */
+	public String getCacheKey() {
+
+		final StringBuilder buf = new StringBuilder();
+
+		buf.append(typeLabels);
+		buf.append(sourceTypeLabel);
+		buf.append(targetTypeLabel);
+		buf.append(buffer);
+
+		if (sortKey != null) {
+
+			buf.append(" ORDER BY ");
+			buf.append(sortKey);
+			buf.append(sortType);
+			buf.append(sortDescending);
+		}
+
+		if (queryContext.isSliced()) {
+
+			buf.append(" SKIP ");
+			buf.append(queryContext.getSkip());
+			buf.append(" LIMIT ");
+			buf.append(queryContext.getLimit());
+		}
+
+		for (final Map.Entry<String, Object> entry : new TreeMap<>(parameters).entrySet()) {
+
+			final Object value = entry.getValue();
+
+			buf.append(" ");
+			buf.append(entry.getKey());
+			buf.append("=");
+
+			if (value != null) {
+
+				buf.append(value.getClass().getSimpleName());
+				buf.append(":");
+				buf.append(value instanceof Object[] ? Arrays.deepToString((Object[])value) : value);
+			}
+		}
+
+		return buf.toString();
+	}
+
+	/**
+	 * @return the labels of the nodes whose modification can change the result of this query
+	 */
+	public List<String> getDependentLabels() {
+
+		if (typeLabels.isEmpty()) {
+			return Collections.singletonList("NodeInterface");
+		}
+
+		return typeLabels;
+	}
+
 	@Override
 	public boolean idsOnly() {
 
@@ -389,5 +472,7 @@ public class AdvancedCypherQuery implements PageableQuery {
 		synchronized (alreadyLoaded) {
 			alreadyLoaded.clear();
 		}
+
+		QueryResultCache.invalidate();
 	}
 }
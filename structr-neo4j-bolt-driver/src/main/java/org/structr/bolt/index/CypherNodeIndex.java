@@ -18,12 +18,17 @@
  */
 package org.structr.bolt.index;
 
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import org.structr.api.NotFoundException;
 import org.structr.api.QueryResult;
 import org.structr.api.graph.Node;
 import org.structr.api.util.QueryUtils;
 import org.structr.bolt.BoltDatabaseService;
 import org.structr.bolt.mapper.NodeNodeMapper;
 import org.structr.bolt.mapper.NodeIdNodeMapper;
+import org.structr.bolt.wrapper.NodeWrapper;
 
 /**
  *
@@ -93,6 +98,28 @@ public class CypherNodeIndex extends AbstractCypherIndex<Node> {
 	@Override
 	public QueryResult<Node> getResult(final PageableQuery query) {
 
+		// results are only cached outside of transactions with modifications,
+		// as those would otherwise see outdated results or pollute the cache
+		if (query instanceof AdvancedCypherQuery && QueryResultCache.isEnabled() && !db.getCurrentTransaction().hasModifications()) {
+
+			final AdvancedCypherQuery cypherQuery = (AdvancedCypherQuery)query;
+			final String key                      = cypherQuery.getCacheKey();
+			final long[] ids                      = QueryResultCache.get(key);
+
+			if (ids != null) {
+
+				return new CachedResult(ids);
+			}
+
+			return new CachingResult(key, QueryResultCache.begin(cypherQuery.getDependentLabels()), getDatabaseResult(query));
+		}
+
+		return getDatabaseResult(query);
+	}
+
+	// ----- private methods -----
+	private QueryResult<Node> getDatabaseResult(final PageableQuery query) {
+
 		if (query.idsOnly()) {
 
 			return QueryUtils.map(new NodeIdNodeMapper(db), new NodeIdResultStream(db, query));
@@ -102,4 +129,136 @@ public class CypherNodeIndex extends AbstractCypherIndex<Node> {
 			return QueryUtils.map(new NodeNodeMapper(db), new NodeResultStream(db, query));
 		}
 	}
+
+	// ----- nested classes -----
+	private class CachedResult implements QueryResult<Node> {
+
+		private final long[] ids;
+
+		public CachedResult(final long[] ids) {
+			this.ids = ids;
+		}
+
+		@Override
+		public void close() {
+		}
+
+		@Override
+		public Iterator<Node> iterator() {
+
+			return new Iterator<Node>() {
+
+				private Node next = null;
+				private int index = 0;
+
+				@Override
+				public boolean hasNext() {
+
+					while (next == null && index < ids.length) {
+
+						try {
+
+							next = NodeWrapper.newInstance(db, ids[index++]);
+
+						} catch (NotFoundException nfex) {
+
+							// node was deleted by a transaction that has not invalidated the cache yet
+						}
+					}
+
+					return next != null;
+				}
+
+				@Override
+				public Node next() {
+
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+
+					final Node node = next;
+
+					next = null;
+
+					return node;
+				}
+			};
+		}
+	}
+
+	/**
+	 * Stores the IDs of the nodes returned by the database in the query
+	 * result cache when the result has been read completely.
+	 */
+	private class CachingResult implements QueryResult<Node> {
+
+		private final QueryResult<Node> result;
+		private final QueryResultCache.Entry entry;
+		private final String key;
+
+		public CachingResult(final String key, final QueryResultCache.Entry entry, final QueryResult<Node> result) {
+
+			this.result = result;
+			this.entry  = entry;
+			this.key    = key;
+		}
+
+		@Override
+		public void close() {
+			result.close();
+		}
+
+		@Override
+		public Iterator<Node> iterator() {
+
+			final Iterator<Node> iterator = result.iterator();
+
+			return new Iterator<Node>() {
+
+				private long[] ids = new long[16];
+				private int count  = 0;
+
+				@Override
+				public boolean hasNext() {
+
+					final boolean hasNext = iterator.hasNext();
+
+					if (!hasNext && ids != null) {
+
+						QueryResultCache.store(key, entry, Arrays.copyOf(ids, count));
+
+						// store only once
+						ids = null;
+					}
+
+					return hasNext;
+				}
+
+				@Override
+				public Node next() {
+
+					final Node node = iterator.next();
+
+					if (ids != null) {
+
+						if (count == QueryResultCache.getMaxResultSize()) {
+
+							// result too large to be cached
+							ids = null;
+
+						} else {
+
+							if (count == ids.length) {
+								ids = Arrays.copyOf(ids, ids.length * 2);
+							}
+
+							ids[count++] = node.getId();
+						}
+					}
+
+					return node;
+				}
+			};
+		}
+	}
 }
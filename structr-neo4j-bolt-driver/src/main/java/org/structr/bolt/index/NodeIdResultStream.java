@@ -37,6 +37,6 @@ public class NodeIdResultStream extends AbstractResultStream<NodeId> {
 
 		final SessionTransaction tx = db.getCurrentTransaction();
 		tx.setIsPing(getQuery().getQueryContext().isPing());
-		return tx.getNodeIds(statement, data);
+		return tx.getNodeIds(statement, data, !getQuery().isPaged());
 	}
 }
@@ -37,6 +37,6 @@ public class NodeResultStream extends AbstractResultStream<Node> {
 
 		final SessionTransaction tx = db.getCurrentTransaction();
 		tx.setIsPing(getQuery().getQueryContext().isPing());
-		return tx.getNodes(statement, data);
+		return tx.getNodes(statement, data, !getQuery().isPaged());
 	}
 }
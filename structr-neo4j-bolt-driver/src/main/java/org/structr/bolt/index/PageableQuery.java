@@ -25,6 +25,16 @@ public interface PageableQuery {
 
 	int pageSize();
 	void nextPage();
+
+	/**
+	 * Indicates whether the results of this query are fetched page
+	 * by page. Queries that are not paged are executed once, and
+	 * their results are streamed from a single open result.
+	 *
+	 * @return whether this query is paged
+	 */
+	boolean isPaged();
+
 	String getSortKey();
 	String getStatement();
 	Map<String, Object> getParameters();
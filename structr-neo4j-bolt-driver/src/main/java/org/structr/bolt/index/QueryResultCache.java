@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.bolt.index;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.structr.api.config.Settings;
+import org.structr.api.util.FixedSizeCache;
+
+/**
+ * Bounded, thread-safe cache for the IDs of the nodes returned by a query.
+ *
+ * Every entry depends on the labels of the query, it is valid as long as
+ * no node with one of those labels was modified since the query started.
+ * Modifications are counted per label by the transactions that commit
+ * them, and modifications that can not be attributed to labels (native
+ * write queries) invalidate all entries.
+ */
+public class QueryResultCache {
+
+	private static final FixedSizeCache<String, Entry> cache     = new FixedSizeCache<>(Math.max(1, Settings.QueryCacheSize.getValue()));
+	private static final Map<String, AtomicLong> labelGenerations = new ConcurrentHashMap<>();
+	private static final AtomicLong generation                    = new AtomicLong();
+	private static final int MAX_RESULT_SIZE                      = 10000;
+
+	public static boolean isEnabled() {
+		return Settings.QueryCacheSize.getValue() > 0;
+	}
+
+	/**
+	 * Returns the cached node IDs for the given key, or null if there
+	 * is no valid entry.
+	 *
+	 * @param key
+	 * @return the node IDs or null
+	 */
+	public static long[] get(final String key) {
+
+		final Entry entry = cache.get(key);
+		if (entry != null) {
+
+			if (entry.isValid()) {
+
+				return entry.ids;
+			}
+
+			cache.remove(key);
+		}
+
+		return null;
+	}
+
+	/**
+	 * Creates a new entry for the given labels. Callers should create
+	 * the entry before executing the query and pass it to {@link #store}
+	 * afterwards, so that a result computed during a concurrent
+	 * modification is not cached.
+	 *
+	 * @param labels
+	 * @return the entry
+	 */
+	public static Entry begin(final Collection<String> labels) {
+		return new Entry(labels);
+	}
+
+	public static void store(final String key, final Entry entry, final long[] ids) {
+
+		if (ids.length <= MAX_RESULT_SIZE && entry.isValid()) {
+
+			entry.ids = ids;
+
+			cache.put(key, entry);
+		}
+	}
+
+	public static int getMaxResultSize() {
+		return MAX_RESULT_SIZE;
+	}
+
+	public static FixedSizeCache<String, Entry> getCache() {
+		return cache;
+	}
+
+	/**
+	 * Invalidates all entries that depend on one of the given labels.
+	 *
+	 * @param labels
+	 */
+	public static void invalidate(final Collection<String> labels) {
+
+		for (final String label : labels) {
+			getGeneration(label).incrementAndGet();
+		}
+	}
+
+	public static void invalidate() {
+
+		generation.incrementAndGet();
+		cache.clear();
+	}
+
+	// ----- private methods -----
+	private static AtomicLong getGeneration(final String label) {
+		return labelGenerations.computeIfAbsent(label, k -> new AtomicLong());
+	}
+
+	// ----- nested classes -----
+	public static class Entry {
+
+		private final String[] labels;
+		private final long[] generations;
+		private final long globalGeneration;
+		private long[] ids = null;
+
+		private Entry(final Collection<String> labels) {
+
+			this.labels           = labels.toArray(new String[0]);
+			this.generations      = new long[this.labels.length];
+			this.globalGeneration = generation.get();
+
+			for (int i=0; i<this.labels.length; i++) {
+				generations[i] = getGeneration(this.labels[i]).get();
+			}
+		}
+
+		private boolean isValid() {
+
+			if (globalGeneration != generation.get()) {
+				return false;
+			}
+
+			for (int i=0; i<labels.length; i++) {
+
+				if (generations[i] != getGeneration(labels[i]).get()) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+	}
+}
@@ -35,7 +35,7 @@ public class RelationshipResultStream extends AbstractResultStream<Relationship>
 	@Override
 	protected QueryResult<Relationship> fetchData(final BoltDatabaseService db, final String statement, final Map<String, Object> data) {
 		final SessionTransaction tx = db.getCurrentTransaction();
-		return tx.getRelationships(statement, data);
+		return tx.getRelationships(statement, data, !getQuery().isPaged());
 	}
 }
 
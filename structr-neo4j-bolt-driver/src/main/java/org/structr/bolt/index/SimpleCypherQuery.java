@@ -28,15 +28,38 @@ import org.structr.api.search.QueryContext;
 public class SimpleCypherQuery implements PageableQuery {
 
 	private final Map<String, Object> params = new LinkedHashMap<>();
+	private String identifier                = null;
+	private String condition                 = null;
 	private String base                      = null;
 	private int pageSize                     = 0;
 	private int page                         = 0;
 	private QueryContext queryContext        = new QueryContext();
 
+	/**
+	 * Creates a query that pages through the results of the given
+	 * statement using SKIP and LIMIT.
+	 *
+	 * @param base the complete statement
+	 */
 	public SimpleCypherQuery(final String base) {
+		this(base, null, null);
+	}
+
+	/**
+	 * Creates a query that returns all results of the given MATCH
+	 * clause from a single streamed result, so that large results
+	 * are read only once instead of once per page.
+	 *
+	 * @param base the MATCH clause
+	 * @param condition an optional WHERE condition, or null
+	 * @param identifier the identifier to return
+	 */
+	public SimpleCypherQuery(final String base, final String condition, final String identifier) {
 
-		this.pageSize = 10000;
-		this.base     = base;
+		this.pageSize   = 10000;
+		this.identifier = identifier;
+		this.condition  = condition;
+		this.base       = base;
 	}
 
 	@Override
@@ -44,6 +67,11 @@ public class SimpleCypherQuery implements PageableQuery {
 		page++;
 	}
 
+	@Override
+	public boolean isPaged() {
+		return identifier == null;
+	}
+
 	@Override
 	public int pageSize() {
 		return this.pageSize;
@@ -59,10 +87,24 @@ public class SimpleCypherQuery implements PageableQuery {
 
 		final StringBuilder buf = new StringBuilder(base);
 
-		buf.append(" SKIP ");
-		buf.append(page * pageSize);
-		buf.append(" LIMIT ");
-		buf.append(pageSize);
+		if (identifier != null) {
+
+			if (condition != null) {
+
+				buf.append(" WHERE ");
+				buf.append(condition);
+			}
+
+			buf.append(" RETURN ");
+			buf.append(identifier);
+
+		} else {
+
+			buf.append(" SKIP ");
+			buf.append(page * pageSize);
+			buf.append(" LIMIT ");
+			buf.append(pageSize);
+		}
 
 		return buf.toString();
 	}
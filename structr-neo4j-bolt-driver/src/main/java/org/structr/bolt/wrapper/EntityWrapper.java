@@ -20,6 +20,7 @@ package org.structr.bolt.wrapper;
 
 import java.lang.reflect.Array;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -44,7 +45,7 @@ public abstract class EntityWrapper<T extends Entity> implements PropertyContain
 
 	protected final Map<String, Object> data = new ConcurrentHashMap<>();
 	protected BoltDatabaseService db         = null;
-	protected boolean stale                  = false;
+	protected volatile boolean stale         = false;
 	protected long id                        = -1L;
 
 	public EntityWrapper(final BoltDatabaseService db, final T entity) {
@@ -132,14 +133,8 @@ public abstract class EntityWrapper<T extends Entity> implements PropertyContain
 		// only update values if actually different from what is stored
 		if (needsUpdate(key, value)) {
 
-			final Map<String, Object> map = new HashMap<>();
-			final String query            = getQueryPrefix() + " WHERE ID(n) = {id} SET n.`" + key + "` = {value}";
-
-			map.put("id", id);
-			map.put("value", value);
-
-			// update entity handle
-			tx.set(query, map);
+			// buffered if this entity is already locked by the transaction
+			tx.setProperties(this, getQueryPrefix(), Collections.singletonMap(key, value));
 
 			// update data
 			update(key, value);
@@ -160,16 +155,10 @@ public abstract class EntityWrapper<T extends Entity> implements PropertyContain
 		// only update values if actually different from what is stored
 		if (!values.isEmpty()) {
 
-			final Map<String, Object> map = new HashMap<>();
-			final SessionTransaction tx   = db.getCurrentTransaction();
-			final String query            = getQueryPrefix() + " WHERE ID(n) = {id} SET n += {properties}";
-
-			// overwrite a potential "id" property
-			map.put("id", id);
-			map.put("properties", values);
+			final SessionTransaction tx = db.getCurrentTransaction();
 
-			// execute query
-			tx.set(query, map);
+			// buffered if this entity is already locked by the transaction
+			tx.setProperties(this, getQueryPrefix(), values);
 
 			// update data
 			update(values);
@@ -183,14 +172,10 @@ public abstract class EntityWrapper<T extends Entity> implements PropertyContain
 
 		assertNotStale();
 
-		final SessionTransaction tx   = db.getCurrentTransaction();
-		final Map<String, Object> map = new HashMap<>();
-		final String query            = getQueryPrefix() + " WHERE ID(n) = {id} SET n.`" + key + "` = Null";
-
-		map.put("id", id);
+		final SessionTransaction tx = db.getCurrentTransaction();
 
-		// execute query
-		tx.set(query, map);
+		// buffered if this entity is already locked by the transaction
+		tx.setProperties(this, getQueryPrefix(), Collections.singletonMap(key, null));
 
 		// remove key from data
 		data.remove(key);
@@ -251,33 +236,55 @@ public abstract class EntityWrapper<T extends Entity> implements PropertyContain
 	}
 
 	// ----- protected methods -----
-	protected synchronized void assertNotStale() {
+	/**
+	 * Called after the data of a stale entity has been reloaded.
+	 *
+	 * @param entity the reloaded entity
+	 */
+	protected void reloaded(final Entity entity) {
+	}
+
+	protected void assertNotStale() {
 
 		if (stale) {
 
-			// invalidate caches
-			onRemoveFromCache();
+			// write pending changes of the current transaction before locking
+			// this entity, another transaction may hold a database lock that
+			// these changes need while it is waiting for this monitor
+			db.getCurrentTransaction().flush();
 
-			// if a node/rel was deleted in a previous transaction but the caller keeps a
-			// reference to this entity, we need to make sure that the reference is fresh.
+			synchronized (this) {
 
-			final SessionTransaction tx   = db.getCurrentTransaction();
-			final Map<String, Object> map = new HashMap<>();
+				if (stale) {
 
-			map.put("id", id);
+					// invalidate caches
+					onRemoveFromCache();
 
-			data.clear();
+					// if a node/rel was deleted in a previous transaction but the caller keeps a
+					// reference to this entity, we need to make sure that the reference is fresh.
 
-			try {
+					final SessionTransaction tx   = db.getCurrentTransaction();
+					final Map<String, Object> map = new HashMap<>();
 
-				// update data
-				update(tx.getEntity(getQueryPrefix() + " WHERE ID(n) = {id} RETURN n", map).asMap());
+					map.put("id", id);
 
-			} catch (NoSuchRecordException nex) {
-				throw new NotFoundException(nex);
-			}
+					data.clear();
+
+					try {
+
+						final Entity entity = tx.getEntity(getQueryPrefix() + " WHERE ID(n) = {id} RETURN n", map);
 
-			stale  = false;
+						// update data
+						update(entity.asMap());
+						reloaded(entity);
+
+					} catch (NoSuchRecordException nex) {
+						throw new NotFoundException(nex);
+					}
+
+					stale  = false;
+				}
+			}
 		}
 	}
 
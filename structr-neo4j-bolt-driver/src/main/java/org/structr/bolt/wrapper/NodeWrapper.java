@@ -19,6 +19,7 @@
 package org.structr.bolt.wrapper;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -26,6 +27,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import org.neo4j.driver.v1.types.Entity;
 import org.structr.api.NotFoundException;
 import org.structr.api.QueryResult;
 import org.structr.api.graph.Direction;
@@ -47,9 +49,13 @@ public class NodeWrapper extends EntityWrapper<org.neo4j.driver.v1.types.Node> i
 	private final Map<String, Map<String, Set<Relationship>>> relationshipCache = new HashMap<>();
 	private static FixedSizeCache<Long, NodeWrapper> nodeCache                  = null;
 	private boolean dontUseCache                                                = false;
+	private volatile Set<String> labels                                         = null;
 
 	private NodeWrapper(final BoltDatabaseService db, final org.neo4j.driver.v1.types.Node node) {
+
 		super(db, node);
+
+		this.labels = Iterables.toSet(node.labels());
 	}
 
 	public static void initialize(final int cacheSize) {
@@ -150,13 +156,14 @@ public class NodeWrapper extends EntityWrapper<org.neo4j.driver.v1.types.Node> i
 
 		assertNotStale();
 
-		final SessionTransaction tx   = db.getCurrentTransaction();
-		final Map<String, Object> map = new HashMap<>();
-		final String tenantIdentifier = db.getTenantIdentifier();
+		final SessionTransaction tx = db.getCurrentTransaction();
 
-		map.put("id", id);
+		// buffered if this entity is already locked by the transaction
+		tx.addLabel(this, getQueryPrefix(), label.name());
 
-		tx.set("MATCH (n" + (tenantIdentifier != null ? ":" + tenantIdentifier : "") + ") WHERE ID(n) = {id} SET n :" + label.name(), map);
+		final Set<String> newLabels = new HashSet<>(labels);
+		newLabels.add(label.name());
+		labels = newLabels;
 
 		setModified();
 	}
@@ -166,14 +173,17 @@ public class NodeWrapper extends EntityWrapper<org.neo4j.driver.v1.types.Node> i
 
 		assertNotStale();
 
-		final SessionTransaction tx   = db.getCurrentTransaction();
-		final Map<String, Object> map = new HashMap<>();
-		final String tenantIdentifier = db.getTenantIdentifier();
+		final SessionTransaction tx = db.getCurrentTransaction();
 
-		map.put("id", id);
+		// buffered if this entity is already locked by the transaction
+		tx.removeLabel(this, getQueryPrefix(), label.name());
 
-		tx.set("MATCH (n" + (tenantIdentifier != null ? ":" + tenantIdentifier : "") + ") WHERE ID(n) = {id} REMOVE n:" + label.name(), map);
+		// the transaction records the labels including the removed one
 		setModified();
+
+		final Set<String> newLabels = new HashSet<>(labels);
+		newLabels.remove(label.name());
+		labels = newLabels;
 	}
 
 	@Override
@@ -196,6 +206,16 @@ public class NodeWrapper extends EntityWrapper<org.neo4j.driver.v1.types.Node> i
 		return result;
 	}
 
+	/**
+	 * Returns the labels of this node as known to this wrapper, without
+	 * querying the database.
+	 *
+	 * @return the labels
+	 */
+	public Set<String> getCachedLabels() {
+		return labels;
+	}
+
 	@Override
 	public boolean hasRelationshipTo(final RelationshipType type, final Node targetNode) {
 
@@ -311,7 +331,7 @@ public class NodeWrapper extends EntityWrapper<org.neo4j.driver.v1.types.Node> i
 			switch (direction) {
 
 				case BOTH:
-					list = toSet(Iterables.map(mapper, tx.getRelationships("MATCH (n" + (tenantIdentifier != null ? ":" + tenantIdentifier : "") + ")-[r:" + relationshipType.name() + "]-(o WHERE ID(n) = {id} RETURN DISTINCT r", map)));
+					list = toSet(Iterables.map(mapper, tx.getRelationships("MATCH (n" + (tenantIdentifier != null ? ":" + tenantIdentifier : "") + ")-[r:" + relationshipType.name() + "]-() WHERE ID(n) = {id} RETURN DISTINCT r", map)));
 					break;
 
 				case OUTGOING:
@@ -373,74 +393,78 @@ public class NodeWrapper extends EntityWrapper<org.neo4j.driver.v1.types.Node> i
 		list.add(rel);
 	}
 
+	/**
+	 * @param direction
+	 * @param relationshipType
+	 * @return whether the relationships of the given direction and type are cached
+	 */
+	public boolean hasCachedRelationships(final Direction direction, final RelationshipType relationshipType) {
+		return !dontUseCache && getRelationshipCache(direction, relationshipType) != null;
+	}
+
+	/**
+	 * Stores the given relationships that were loaded by a batch query in
+	 * the relationship cache of this node.
+	 *
+	 * @param direction
+	 * @param relationshipType
+	 * @param relationships
+	 */
+	public void setCachedRelationships(final Direction direction, final RelationshipType relationshipType, final Iterable<Relationship> relationships) {
+		setRelationshipCache(direction, relationshipType, toSet(relationships));
+	}
+
 	// ----- public static methods -----
 	public static FixedSizeCache<Long, NodeWrapper> getCache() {
 		return nodeCache;
 	}
 
 	public static void expunge(final Set<Long> toRemove) {
-
-		synchronized (nodeCache) {
-
-			nodeCache.removeAll(toRemove);
-		}
+		nodeCache.removeAll(toRemove);
 	}
 
 	public static void clearCache() {
-
-		synchronized (nodeCache) {
-
-			nodeCache.clear();
-		}
+		nodeCache.clear();
 	}
 
 	public static NodeWrapper newInstance(final BoltDatabaseService db, final org.neo4j.driver.v1.types.Node node) {
 
-		synchronized (nodeCache) {
-
-			NodeWrapper wrapper = nodeCache.get(node.id());
-			if (wrapper == null || wrapper.stale) {
-
-				wrapper = new NodeWrapper(db, node);
-				nodeCache.put(node.id(), wrapper);
-			}
-
-			return wrapper;
-		}
+		// lookup and creation are atomic, so there is only one wrapper per node
+		return nodeCache.getOrCreate(node.id(), wrapper -> !wrapper.stale, id -> new NodeWrapper(db, node));
 	}
 
 	public static NodeWrapper newInstance(final BoltDatabaseService db, final long id) {
 
-		synchronized (nodeCache) {
-
-			NodeWrapper wrapper = nodeCache.get(id);
-			if (wrapper == null || wrapper.stale) {
+		NodeWrapper wrapper = nodeCache.get(id);
+		if (wrapper == null || wrapper.stale) {
 
-				final SessionTransaction tx   = db.getCurrentTransaction();
-				final Map<String, Object> map = new HashMap<>();
-
-				map.put("id", id);
+			final SessionTransaction tx   = db.getCurrentTransaction();
+			final Map<String, Object> map = new HashMap<>();
 
-				final QueryResult<org.neo4j.driver.v1.types.Node> result = tx.getNodes("MATCH (n) WHERE ID(n) = {id} RETURN DISTINCT n", map);
-				final Iterator<org.neo4j.driver.v1.types.Node> iterator  = result.iterator();
+			map.put("id", id);
 
-				if (iterator.hasNext()) {
+			final QueryResult<org.neo4j.driver.v1.types.Node> result = tx.getNodes("MATCH (n) WHERE ID(n) = {id} RETURN DISTINCT n", map);
+			final Iterator<org.neo4j.driver.v1.types.Node> iterator  = result.iterator();
 
-					wrapper = NodeWrapper.newInstance(db, iterator.next());
+			if (iterator.hasNext()) {
 
-					nodeCache.put(id, wrapper);
+				wrapper = NodeWrapper.newInstance(db, iterator.next());
 
-				} else {
+			} else {
 
-					throw new NotFoundException("Node with ID " + id + " not found.");
-				}
+				throw new NotFoundException("Node with ID " + id + " not found.");
 			}
-
-			return wrapper;
 		}
+
+		return wrapper;
 	}
 
 	// ----- protected methods -----
+	@Override
+	protected void reloaded(final Entity entity) {
+		labels = Iterables.toSet(((org.neo4j.driver.v1.types.Node)entity).labels());
+	}
+
 	@Override
 	protected boolean isNode() {
 		return true;
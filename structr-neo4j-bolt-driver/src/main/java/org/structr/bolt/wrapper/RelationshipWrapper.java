@@ -94,11 +94,7 @@ public class RelationshipWrapper extends EntityWrapper<org.neo4j.driver.v1.types
 	}
 
 	public static void expunge(final Set<Long> toRemove) {
-
-		synchronized (relationshipCache) {
-
-			relationshipCache.removeAll(toRemove);
-		}
+		relationshipCache.removeAll(toRemove);
 	}
 
 	@Override
@@ -191,54 +187,41 @@ public class RelationshipWrapper extends EntityWrapper<org.neo4j.driver.v1.types
 
 	public static RelationshipWrapper newInstance(final BoltDatabaseService db, final org.neo4j.driver.v1.types.Relationship relationship) {
 
-		synchronized (relationshipCache) {
-
-			RelationshipWrapper wrapper = relationshipCache.get(relationship.id());
-			if (wrapper == null || wrapper.stale) {
-
-				wrapper = new RelationshipWrapper(db, relationship);
-				relationshipCache.put(relationship.id(), wrapper);
-			}
-
-			return wrapper;
-		}
+		// lookup and creation are atomic, so there is only one wrapper per relationship
+		return relationshipCache.getOrCreate(relationship.id(), wrapper -> !wrapper.stale, id -> new RelationshipWrapper(db, relationship));
 	}
 
 	public static RelationshipWrapper newInstance(final BoltDatabaseService db, final long id) {
 
-		synchronized (relationshipCache) {
-
-			RelationshipWrapper wrapper = relationshipCache.get(id);
-			if (wrapper == null || wrapper.stale) {
-
-				final SessionTransaction tx   = db.getCurrentTransaction();
-				final Map<String, Object> map = new HashMap<>();
-				final StringBuilder buf       = new StringBuilder();
-				final String tenantIdentifier = db.getTenantIdentifier();
+		RelationshipWrapper wrapper = relationshipCache.get(id);
+		if (wrapper == null || wrapper.stale) {
 
-				map.put("id", id);
+			final SessionTransaction tx   = db.getCurrentTransaction();
+			final Map<String, Object> map = new HashMap<>();
+			final StringBuilder buf       = new StringBuilder();
+			final String tenantIdentifier = db.getTenantIdentifier();
 
-				buf.append("MATCH (");
+			map.put("id", id);
 
-				if (tenantIdentifier != null) {
-					buf.append(":");
-					buf.append(tenantIdentifier);
-				}
+			buf.append("MATCH (");
 
-				buf.append(")-[n]-(");
+			if (tenantIdentifier != null) {
+				buf.append(":");
+				buf.append(tenantIdentifier);
+			}
 
-				if (tenantIdentifier != null) {
-					buf.append(":");
-					buf.append(tenantIdentifier);
-				}
+			buf.append(")-[n]-(");
 
-				buf.append(") WHERE ID(n) = {id} RETURN n");
+			if (tenantIdentifier != null) {
+				buf.append(":");
+				buf.append(tenantIdentifier);
+			}
 
-				wrapper = new RelationshipWrapper(db, tx.getRelationship(buf.toString(), map));
-					relationshipCache.put(id, wrapper);
-				}
+			buf.append(") WHERE ID(n) = {id} RETURN n");
 
-			return wrapper;
+			wrapper = RelationshipWrapper.newInstance(db, tx.getRelationship(buf.toString(), map));
 		}
+
+		return wrapper;
 	}
 }
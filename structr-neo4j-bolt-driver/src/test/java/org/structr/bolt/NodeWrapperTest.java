@@ -20,19 +20,29 @@ package org.structr.bolt;
 
 import java.io.IOException;
 import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.junit.Assert;
 import static org.junit.Assert.fail;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.api.NativeResult;
 import org.structr.api.Transaction;
 import org.structr.api.config.Settings;
+import org.structr.api.graph.Label;
 import org.structr.api.graph.Node;
 import org.structr.api.graph.Relationship;
 import org.structr.api.graph.RelationshipType;
 import org.structr.api.util.Iterables;
+import org.structr.bolt.wrapper.NodeWrapper;
+import org.structr.bolt.wrapper.RelationshipWrapper;
 
 public class NodeWrapperTest {
 
@@ -168,4 +178,185 @@ public class NodeWrapperTest {
 		s.shutdown();
 	}
 
+	@Test
+	public void testBufferedUpdates() {
+
+		try {
+
+			Settings.DatabasePath.setValue(Files.createTempDirectory("structr-test").toFile().getAbsolutePath());
+			Settings.ConnectionUrl.setValue(Settings.TestingConnectionUrl.getValue());
+
+		} catch (IOException ioex) {
+			logger.warn("", ioex);
+		}
+
+		final BoltDatabaseService s = new BoltDatabaseService();
+		s.initialize();
+
+		long id = 0L;
+
+		// buffered changes must be visible to queries in the same transaction
+		try (final Transaction tx = s.beginTx()) {
+
+			final Node node = s.createNode(Collections.EMPTY_SET, Collections.EMPTY_MAP);
+
+			id = node.getId();
+
+			for (int i=0; i<20; i++) {
+				node.setProperty("key" + i, i);
+			}
+
+			node.removeProperty("key0");
+			node.addLabel(s.forName(Label.class, "Test"));
+			node.addLabel(s.forName(Label.class, "Removed"));
+			node.removeLabel(s.forName(Label.class, "Removed"));
+
+			final Map<String, Object> params = Collections.singletonMap("id", id);
+
+			try (final NativeResult<Map<String, Object>> result = s.execute("MATCH (n:Test) WHERE ID(n) = {id} RETURN n.key19 AS value, exists(n.key0) AS removed, n:Removed AS label", params)) {
+
+				final Map<String, Object> row = result.next();
+
+				Assert.assertEquals("Invalid buffered setProperty result", 19L, row.get("value"));
+				Assert.assertEquals("Invalid buffered removeProperty result", false, row.get("removed"));
+				Assert.assertEquals("Invalid buffered removeLabel result", false, row.get("label"));
+			}
+
+			node.setProperty("name", "Test");
+
+			tx.success();
+		}
+
+		// buffered changes must be written on commit
+		try (final Transaction tx = s.beginTx()) {
+
+			final Map<String, Object> params = Collections.singletonMap("id", id);
+
+			try (final NativeResult<Map<String, Object>> result = s.execute("MATCH (n) WHERE ID(n) = {id} RETURN n.name AS name", params)) {
+
+				Assert.assertEquals("Invalid buffered setProperty result", "Test", result.next().get("name"));
+			}
+
+			// update existing node, the first write is executed immediately
+			final Node node = s.getNodeById(id);
+
+			node.setProperty("name", "Test2");
+			node.setProperty("key1", 100);
+
+			tx.success();
+		}
+
+		try (final Transaction tx = s.beginTx()) {
+
+			final Map<String, Object> params = Collections.singletonMap("id", id);
+
+			try (final NativeResult<Map<String, Object>> result = s.execute("MATCH (n) WHERE ID(n) = {id} RETURN n.name AS name, n.key1 AS value", params)) {
+
+				final Map<String, Object> row = result.next();
+
+				Assert.assertEquals("Invalid setProperty result", "Test2", row.get("name"));
+				Assert.assertEquals("Invalid buffered setProperty result", 100L, row.get("value"));
+			}
+
+			tx.success();
+		}
+
+		s.shutdown();
+	}
+
+	@Test
+	public void testConcurrentWrapperLookups() throws Exception {
+
+		try {
+
+			Settings.DatabasePath.setValue(Files.createTempDirectory("structr-test").toFile().getAbsolutePath());
+			Settings.ConnectionUrl.setValue(Settings.TestingConnectionUrl.getValue());
+
+		} catch (IOException ioex) {
+			logger.warn("", ioex);
+		}
+
+		final BoltDatabaseService s    = new BoltDatabaseService();
+		final ExecutorService executor = Executors.newFixedThreadPool(8);
+		final List<Long> nodeIds       = new ArrayList<>();
+		final List<Long> relIds        = new ArrayList<>();
+
+		s.initialize();
+
+		try (final Transaction tx = s.beginTx()) {
+
+			Node previous = s.createNode(Collections.EMPTY_SET, Collections.EMPTY_MAP);
+			nodeIds.add(previous.getId());
+
+			for (int i=0; i<20; i++) {
+
+				final Node node = s.createNode(Collections.EMPTY_SET, Collections.EMPTY_MAP);
+
+				relIds.add(previous.createRelationshipTo(node, s.forName(RelationshipType.class, "TEST")).getId());
+				nodeIds.add(node.getId());
+
+				previous = node;
+			}
+
+			tx.success();
+		}
+
+		try {
+
+			for (int run=0; run<10; run++) {
+
+				// all threads race for the creation of the wrappers
+				NodeWrapper.clearCache();
+				RelationshipWrapper.clearCache();
+
+				final List<Future<List<Object>>> results = new ArrayList<>();
+				final CountDownLatch start               = new CountDownLatch(1);
+
+				for (int i=0; i<8; i++) {
+
+					results.add(executor.submit(() -> {
+
+						final List<Object> wrappers = new ArrayList<>();
+
+						start.await();
+
+						try (final Transaction tx = s.beginTx()) {
+
+							for (final Long id : nodeIds) {
+								wrappers.add(s.getNodeById(id));
+							}
+
+							for (final Long id : relIds) {
+								wrappers.add(s.getRelationshipById(id));
+							}
+
+							tx.success();
+						}
+
+						return wrappers;
+					}));
+				}
+
+				start.countDown();
+
+				final List<Object> expected = results.get(0).get();
+
+				for (final Future<List<Object>> result : results) {
+
+					final List<Object> actual = result.get();
+
+					for (int i=0; i<expected.size(); i++) {
+
+						Assert.assertSame("Concurrent lookups returned different wrappers for the same entity", expected.get(i), actual.get(i));
+					}
+				}
+			}
+
+		} finally {
+
+			executor.shutdownNow();
+		}
+
+		s.shutdown();
+	}
 }
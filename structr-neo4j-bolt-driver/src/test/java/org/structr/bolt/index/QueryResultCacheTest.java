@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.bolt.index;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.structr.api.Transaction;
+import org.structr.api.config.Settings;
+import org.structr.api.graph.Node;
+import org.structr.api.search.QueryContext;
+import org.structr.bolt.BoltDatabaseService;
+
+public class QueryResultCacheTest {
+
+	private static final Logger logger = LoggerFactory.getLogger(QueryResultCacheTest.class.getName());
+
+	@Test
+	public void testQueryResultCacheInvalidation() {
+
+		try {
+
+			Settings.DatabasePath.setValue(Files.createTempDirectory("structr-test").toFile().getAbsolutePath());
+			Settings.ConnectionUrl.setValue(Settings.TestingConnectionUrl.getValue());
+
+		} catch (IOException ioex) {
+			logger.warn("", ioex);
+		}
+
+		final BoltDatabaseService s = new BoltDatabaseService();
+		s.initialize();
+
+		final Set<String> testLabels  = new HashSet<>(Arrays.asList("NodeInterface", "CacheTest"));
+		final Set<String> otherLabels = new HashSet<>(Arrays.asList("NodeInterface", "CacheOther"));
+		Node other                    = null;
+
+		try (final Transaction tx = s.beginTx()) {
+
+			for (int i=0; i<10; i++) {
+				s.createNode(testLabels, Collections.singletonMap("index", i));
+			}
+
+			other = s.createNode(otherLabels, Collections.singletonMap("index", 0));
+
+			tx.success();
+		}
+
+		try (final Transaction tx = s.beginTx()) {
+
+			Assert.assertEquals("Invalid number of nodes returned", 10, count(s, "CacheTest"));
+			Assert.assertNotNull("Complete query result should be cached", QueryResultCache.get(query(s, "CacheTest").getCacheKey()));
+
+			// cached result
+			Assert.assertEquals("Invalid number of nodes returned", 10, count(s, "CacheTest"));
+
+			tx.success();
+		}
+
+		try (final Transaction tx = s.beginTx()) {
+
+			s.createNode(testLabels, Collections.singletonMap("index", 10));
+
+			// modifications of the current transaction must be visible
+			Assert.assertEquals("Invalid number of nodes returned", 11, count(s, "CacheTest"));
+
+			tx.success();
+		}
+
+		try (final Transaction tx = s.beginTx()) {
+
+			Assert.assertEquals("Cached query result was not invalidated", 11, count(s, "CacheTest"));
+
+			tx.success();
+		}
+
+		try (final Transaction tx = s.beginTx()) {
+
+			other.setProperty("index", 1);
+
+			tx.success();
+		}
+
+		Assert.assertNotNull("Modification of an unrelated label should not invalidate the query result", QueryResultCache.get(query(s, "CacheTest").getCacheKey()));
+
+		try (final Transaction tx = s.beginTx()) {
+
+			s.execute("MATCH (n:CacheTest) DELETE n").close();
+
+			tx.success();
+		}
+
+		try (final Transaction tx = s.beginTx()) {
+
+			Assert.assertEquals("Native write query did not invalidate the query result", 0, count(s, "CacheTest"));
+
+			tx.success();
+		}
+
+		s.shutdown();
+	}
+
+	// ----- private methods -----
+	private AdvancedCypherQuery query(final BoltDatabaseService s, final String label) {
+
+		final AdvancedCypherQuery query = new AdvancedCypherQuery(new QueryContext(), (CypherNodeIndex)s.nodeIndex());
+
+		query.typeLabel(label);
+
+		return query;
+	}
+
+	private int count(final BoltDatabaseService s, final String label) {
+
+		int count = 0;
+
+		for (final Node node : ((CypherNodeIndex)s.nodeIndex()).getResult(query(s, label))) {
+			count++;
+		}
+
+		return count;
+	}
+}
@@ -0,0 +1,210 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.bolt.index;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.structr.api.Transaction;
+import org.structr.api.config.Settings;
+import org.structr.api.graph.Node;
+import org.structr.api.search.QueryContext;
+import org.structr.api.search.SortType;
+import org.structr.bolt.BoltDatabaseService;
+import org.structr.bolt.mapper.NodeId;
+
+public class ResultStreamTest {
+
+	private static final Logger logger = LoggerFactory.getLogger(ResultStreamTest.class.getName());
+
+	@Test
+	public void testStreamedResults() {
+
+		final BoltDatabaseService s = createDatabase();
+
+		try (final Transaction tx = s.beginTx()) {
+
+			final Set<Long> ids = new HashSet<>();
+			int count           = 0;
+
+			for (final Node node : s.getNodesByLabel("Test")) {
+
+				ids.add(node.getId());
+
+				// other statements must not interrupt the open result
+				if (++count % 1000 == 0) {
+					Assert.assertEquals("Invalid node returned by interleaved query", node.getId(), s.getNodeById(node.getId()).getId());
+				}
+			}
+
+			Assert.assertEquals("Invalid number of nodes returned", 25000, count);
+			Assert.assertEquals("Streamed result should not return duplicates", 25000, ids.size());
+
+			Assert.assertEquals("Invalid number of nodes returned", 25010, count(s.getAllNodes()));
+
+			tx.success();
+		}
+
+		s.shutdown();
+	}
+
+	@Test
+	public void testAdvancedCypherQuery() {
+
+		final BoltDatabaseService s = createDatabase();
+		final CypherNodeIndex index = (CypherNodeIndex)s.nodeIndex();
+
+		AdvancedCypherQuery.flushCaches();
+
+		try (final Transaction tx = s.beginTx()) {
+
+			// unsorted queries are streamed
+			final AdvancedCypherQuery unsorted = new AdvancedCypherQuery(new QueryContext(), index, 10000);
+
+			unsorted.typeLabel("Test");
+
+			Assert.assertFalse("Unsorted query should not be paged", unsorted.isPaged());
+			Assert.assertFalse("Streamed query must not contain SKIP or LIMIT", unsorted.getStatement().contains("LIMIT"));
+			Assert.assertEquals("Invalid number of nodes returned", 25000, count(new NodeResultStream(s, unsorted)));
+
+			AdvancedCypherQuery.flushCaches();
+
+			// sorted queries are paged
+			final AdvancedCypherQuery sorted = new AdvancedCypherQuery(new QueryContext(), index, 10000);
+			long lastIndex                   = 0L;
+			int count                        = 0;
+
+			sorted.typeLabel("Test");
+			sorted.sort(SortType.Long, "index", false);
+
+			Assert.assertTrue("Sorted query should be paged", sorted.isPaged());
+
+			for (final org.neo4j.driver.v1.types.Node node : new NodeResultStream(s, sorted)) {
+
+				final long value = node.get("index").asLong();
+
+				Assert.assertTrue("Paged query should return nodes in sort order", value > lastIndex);
+
+				lastIndex = value;
+				count++;
+			}
+
+			Assert.assertEquals("Invalid number of nodes returned", 25000, count);
+			Assert.assertEquals("Paged query should return all nodes", 25000L, lastIndex);
+
+			tx.success();
+		}
+
+		s.shutdown();
+	}
+
+	@Test
+	public void testIdsOnlyQueries() {
+
+		final BoltDatabaseService s = createDatabase();
+		final CypherNodeIndex index = (CypherNodeIndex)s.nodeIndex();
+
+		AdvancedCypherQuery.flushCaches();
+
+		try (final Transaction tx = s.beginTx()) {
+
+			for (final boolean sorted : new boolean[] { false, true }) {
+
+				// the second identical query returns IDs only
+				for (int i=0; i<2; i++) {
+
+					final AdvancedCypherQuery query = new AdvancedCypherQuery(new QueryContext(), index, 10000);
+					final Set<Long> ids             = new HashSet<>();
+
+					query.typeLabel("Test");
+
+					if (sorted) {
+						query.sort(SortType.Long, "index", false);
+					}
+
+					Assert.assertEquals("Invalid idsOnly() result for query " + i, i == 1, query.idsOnly());
+
+					if (query.idsOnly()) {
+
+						for (final NodeId id : new NodeIdResultStream(s, query)) {
+							ids.add(id.getNode());
+						}
+
+					} else {
+
+						for (final org.neo4j.driver.v1.types.Node node : new NodeResultStream(s, query)) {
+							ids.add(node.id());
+						}
+					}
+
+					Assert.assertEquals("Invalid number of nodes returned", 25000, ids.size());
+				}
+
+				AdvancedCypherQuery.flushCaches();
+			}
+
+			tx.success();
+		}
+
+		s.shutdown();
+	}
+
+	// ----- private methods -----
+	private BoltDatabaseService createDatabase() {
+
+		try {
+
+			Settings.DatabasePath.setValue(Files.createTempDirectory("structr-test").toFile().getAbsolutePath());
+			Settings.ConnectionUrl.setValue(Settings.TestingConnectionUrl.getValue());
+
+		} catch (IOException ioex) {
+			logger.warn("", ioex);
+		}
+
+		final BoltDatabaseService s = new BoltDatabaseService();
+		s.initialize();
+
+		// create more nodes than fit on a single page
+		try (final Transaction tx = s.beginTx()) {
+
+			s.execute("UNWIND range(1, 25000) AS i CREATE (:NodeInterface:Test { index: i })").close();
+			s.execute("UNWIND range(1, 10) AS i CREATE (:Other { index: i })").close();
+
+			tx.success();
+		}
+
+		return s;
+	}
+
+	private int count(final Iterable<?> elements) {
+
+		int count = 0;
+
+		for (final Object element : elements) {
+			count++;
+		}
+
+		return count;
+	}
+}
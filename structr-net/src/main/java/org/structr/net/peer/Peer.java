@@ -19,9 +19,17 @@
 package org.structr.net.peer;
 
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.charset.Charset;
 import java.security.KeyPair;
 import java.security.MessageDigest;
@@ -38,11 +46,16 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.structr.net.PeerListener;
@@ -66,18 +79,22 @@ import org.structr.net.repository.RepositoryObject;
 
 /**
  * The main class of this peer-to-peer implementation. This class will
- * start three individual threads. Two that handle inbound and outbound
- * traffic and another one that acts on the protocol messages it receives.
+ * start two individual threads. One that handles inbound and outbound
+ * traffic in a non-blocking selector loop, and another one that acts on
+ * the protocol messages it receives.
  */
 public final class Peer implements Runnable, Clock, InternalChangeListener {
 
 	public static final int START_PORT = 5757;
 
-	private static final Logger logger = LoggerFactory.getLogger(Peer.class.getName());
+	private static final Logger logger          = LoggerFactory.getLogger(Peer.class.getName());
+	private static final int MAX_PACKET_SIZE    = 65507;
+	private static final int MAX_INPUT_QUEUE    = 10000;
+	private static final int BATCH_SIZE         = 64;
 
 	private final Queue<Envelope> outputQueue         = new ConcurrentLinkedQueue<>();
-	private final Queue<Envelope> inputQueue          = new ConcurrentLinkedQueue<>();
-	private final ExecutorService executorService     = Executors.newCachedThreadPool();
+	private final BlockingQueue<Envelope> inputQueue  = new LinkedBlockingQueue<>();
+	private final ExecutorService executorService     = Executors.newFixedThreadPool(2, new PeerThreadFactory());
 	private final Map<String, PeerInfo> peers         = new ConcurrentHashMap<>();
 	private final Map<String, Callback> callbacks     = new ConcurrentHashMap<>();
 	private final Charset utf8                        = Charset.forName("utf-8");
@@ -91,12 +108,13 @@ public final class Peer implements Runnable, Clock, InternalChangeListener {
 	private boolean initialized                       = false;
 	private String initialPeer                        = null;
 	private String bindAddress                        = null;
-	private DatagramSocket serverSocket               = null;
+	private DatagramChannel channel                   = null;
+	private Selector selector                         = null;
 	private long timeOffset                           = 0L;
 	private int localPort                             = START_PORT;
 	private int sent                                  = 0;
 	private int received                              = 0;
-	private boolean running                           = true;
+	private volatile boolean running                  = true;
 	private boolean verbose                           = false;
 	private int discoveryInterval                     = 1000;
 	private int discoveryIntervalStep                 = 1000;
@@ -138,34 +156,43 @@ public final class Peer implements Runnable, Clock, InternalChangeListener {
 			try {
 				currentTime = System.currentTimeMillis();
 
+				// wait for messages until the next periodic task is due
+				final long nextTask = Math.min(lastDiscovery + discoveryInterval, lastCleanup + discoveryIntervalStep);
+				Envelope envelope   = inputQueue.poll(Math.max(1L, nextTask - currentTime), TimeUnit.MILLISECONDS);
+
 				// work on input queue, but interrupt for other tasks
-				while (!inputQueue.isEmpty() && currentTime < lastDiscovery + discoveryInterval && currentTime < lastCleanup + discoveryIntervalStep) {
+				while (envelope != null) {
 
-					currentTime = System.currentTimeMillis();
+					final AbstractMessage message = envelope.getMessage();
 
-					final Envelope envelope = inputQueue.poll();
-					if (envelope != null) {
+					// notify listeners
+					onMessage(message);
 
-						final AbstractMessage message = envelope.getMessage();
+					// re-broadcast to other peers
+					final String ackKey = message.getId() + "-ack";
 
-						// notify listeners
-						onMessage(message);
+					// re-broadcast message if UUID was not seen before
+					// (this causes the "wave" effect so that all peers
+					// see the message, even if not connected directly)
+					if (getData(ackKey) == null) {
 
-						// re-broadcast to other peers
-						final String ackKey = message.getId() + "-ack";
+						// process message
+						message.onMessage(this, envelope.getPeer());
 
-						// re-broadcast message if UUID was not seen before
-						// (this causes the "wave" effect so that all peers
-						// see the message, even if not connected directly)
-						if (getData(ackKey) == null) {
+						// send message to other peers
+						broadcast(message);
+						setData(ackKey, true);
+					}
 
-							// process message
-							message.onMessage(this, envelope.getPeer());
+					currentTime = System.currentTimeMillis();
 
-							// send message to other peers
-							broadcast(message);
-							setData(ackKey, true);
-						}
+					if (currentTime < lastDiscovery + discoveryInterval && currentTime < lastCleanup + discoveryIntervalStep) {
+
+						envelope = inputQueue.poll();
+
+					} else {
+
+						envelope = null;
 					}
 				}
 
@@ -203,7 +230,9 @@ public final class Peer implements Runnable, Clock, InternalChangeListener {
 					}
 				}
 
-				Thread.sleep(10L);
+			} catch (InterruptedException iex) {
+
+				// peer is stopping
 
 			} catch (Throwable t) {
 				logger.warn("", t);
@@ -222,8 +251,7 @@ public final class Peer implements Runnable, Clock, InternalChangeListener {
 
 		try {
 
-			executorService.submit(new InputHandler());
-			executorService.submit(new OutputHandler());
+			executorService.submit(new Transport());
 			executorService.submit(this);
 
 		} catch (RejectedExecutionException rex) {
@@ -239,13 +267,27 @@ public final class Peer implements Runnable, Clock, InternalChangeListener {
 
 		while (!success && localPort < START_PORT + 10) {
 
+			DatagramChannel newChannel = null;
+
 			try {
 
-				serverSocket = new DatagramSocket(localPort, InetAddress.getByName(bindAddress));
+				newChannel = DatagramChannel.open();
+				newChannel.setOption(StandardSocketOptions.SO_BROADCAST, true);
+				newChannel.bind(new InetSocketAddress(InetAddress.getByName(bindAddress), localPort));
+				newChannel.configureBlocking(false);
+
+				selector = Selector.open();
+				channel  = newChannel;
+
+				channel.register(selector, SelectionKey.OP_READ);
+
 				success = true;
 
 			} catch (IOException ioex) {
+
+				close(newChannel);
 				localPort++;
+
 			} catch (Throwable t) {
 				logger.warn("", t);
 			}
@@ -268,7 +310,13 @@ public final class Peer implements Runnable, Clock, InternalChangeListener {
 
 		running = false;
 
-		serverSocket.close();
+		if (selector != null) {
+			selector.wakeup();
+		}
+
+		executorService.shutdownNow();
+
+		close(channel);
 	}
 
 	public String getUuid() {
@@ -296,7 +344,13 @@ public final class Peer implements Runnable, Clock, InternalChangeListener {
 	}
 
 	public void send(final PeerInfo recipient, final AbstractMessage message) {
+
 		outputQueue.add(new Envelope(recipient, message));
+
+		// wake up transport thread
+		if (selector != null) {
+			selector.wakeup();
+		}
 	}
 
 	public void onPeerDiscovery(final PeerInfo newPeer, final byte[] hash) {
@@ -354,7 +408,7 @@ public final class Peer implements Runnable, Clock, InternalChangeListener {
 	public synchronized void printInfo() {
 
 		System.out.println("#########################################");
-		System.out.println("Peer " + serverSocket.getLocalAddress() + ":" + localPort);
+		System.out.println("Peer " + channel.socket().getLocalAddress() + ":" + localPort);
 		System.out.println("UUID: " + getUuid());
 		System.out.println("Time offset: " + timeOffset);
 		System.out.println(received + " messages received, " + sent + " messages sent");
@@ -622,6 +676,14 @@ public final class Peer implements Runnable, Clock, InternalChangeListener {
 
 
 	// ----- private methods -----
+	private void close(final DatagramChannel toClose) {
+
+		if (toClose != null) {
+
+			try { toClose.close(); } catch (IOException ignore) {}
+		}
+	}
+
 	private String printHash(final byte[] array) {
 
 
@@ -642,22 +704,86 @@ public final class Peer implements Runnable, Clock, InternalChangeListener {
 	}
 
 	// ----- nested classes -----
-	private class InputHandler implements Runnable {
-
-		private final byte[] buffer = new byte[2048];
+	/**
+	 * Non-blocking transport that receives and sends datagrams in batches.
+	 * Outgoing messages are encoded directly into a direct buffer, incoming
+	 * datagrams are copied through a direct buffer. Both are allocated once.
+	 */
+	private class Transport implements Runnable {
+
+		private final ByteBuffer receiveBuffer = ByteBuffer.allocateDirect(MAX_PACKET_SIZE);
+		private final ByteBuffer sendBuffer    = ByteBuffer.allocateDirect(MAX_PACKET_SIZE);
+		private final byte[] data              = new byte[MAX_PACKET_SIZE];
+		private SocketAddress target           = null;
+		private boolean sendPending            = false;
 
 		@Override
 		public void run() {
 
+			final SelectionKey key = channel.keyFor(selector);
+
 			while (running) {
 
 				try {
 
-					final DatagramPacket packet = new DatagramPacket(buffer, 2048);
+					// block until a datagram arrives, the socket becomes writable
+					// again or a new message is queued for sending
+					if (sendPending || outputQueue.isEmpty()) {
+
+						selector.select();
+
+					} else {
+
+						selector.selectNow();
+					}
+
+					selector.selectedKeys().clear();
+
+					receive();
+					send();
+
+					// only wait for the socket to become writable when its buffer is full
+					key.interestOps(sendPending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+
+				} catch (ClosedSelectorException | ClosedChannelException cex) {
+
+					break;
+
+				} catch (Throwable t) {
+					logger.warn("", t);
+				}
+			}
+
+			try { selector.close(); } catch (IOException ignore) {}
+		}
+
+		private void receive() throws IOException {
 
-					serverSocket.receive(packet);
+			for (int i=0; i<BATCH_SIZE; i++) {
 
-					final Envelope envelope = AbstractMessage.receive(Peer.this, packet);
+				receiveBuffer.clear();
+
+				final InetSocketAddress sender = (InetSocketAddress)channel.receive(receiveBuffer);
+				if (sender == null) {
+
+					// no more datagrams available
+					return;
+				}
+
+				receiveBuffer.flip();
+
+				final int length = receiveBuffer.remaining();
+				receiveBuffer.get(data, 0, length);
+
+				if (inputQueue.size() >= MAX_INPUT_QUEUE) {
+
+					logger.warn("Input queue full, dropping datagram from {}", sender);
+					continue;
+				}
+
+				try {
+
+					final Envelope envelope = AbstractMessage.receive(Peer.this, data, length, sender.getAddress().getHostAddress(), sender.getPort());
 					if (envelope != null) {
 
 						final AbstractMessage msg  = envelope.getMessage();
@@ -677,7 +803,6 @@ public final class Peer implements Runnable, Clock, InternalChangeListener {
 						inputQueue.add(envelope);
 
 						received++;
-
 					}
 
 				} catch (Throwable t) {
@@ -685,42 +810,90 @@ public final class Peer implements Runnable, Clock, InternalChangeListener {
 				}
 			}
 		}
-	}
 
-	private class OutputHandler implements Runnable {
+		private void send() throws IOException {
 
-		@Override
-		public void run() {
+			for (int i=0; i<BATCH_SIZE; i++) {
 
-			while (running) {
+				if (!sendPending && !prepareNextDatagram()) {
+
+					// output queue is empty
+					return;
+				}
 
 				try {
 
-					while (!outputQueue.isEmpty()) {
+					if (channel.send(sendBuffer, target) == 0) {
 
-						final Envelope envelope = outputQueue.poll();
-						if (envelope != null) {
+						// socket buffer is full, wait until it becomes writable
+						return;
+					}
 
-							final AbstractMessage message = envelope.getMessage();
-							final PeerInfo recipient      = envelope.getPeer();
+					sent++;
 
-							message.setSenderTimestamp(System.currentTimeMillis() + timeOffset);
-							message.onSend(Peer.this);
+				} catch (ClosedChannelException cex) {
 
-							serverSocket.send(AbstractMessage.forSending(Peer.this.getUuid(), recipient, message));
+					throw cex;
 
-							sent++;
-						}
+				} catch (IOException ioex) {
+
+					// datagram could not be sent, drop it
+					logger.debug("Unable to send datagram to {}: {}", target, ioex.getMessage());
+				}
+
+				sendPending = false;
+			}
+		}
+
+		private boolean prepareNextDatagram() {
+
+			Envelope envelope = outputQueue.poll();
+			while (envelope != null) {
+
+				final AbstractMessage message = envelope.getMessage();
+				final PeerInfo recipient      = envelope.getPeer();
+
+				try {
+
+					message.setSenderTimestamp(System.currentTimeMillis() + timeOffset);
+					message.onSend(Peer.this);
+
+					sendBuffer.clear();
+
+					// serialize and encrypt the message directly into the send buffer
+					if (AbstractMessage.encode(Peer.this.getUuid(), recipient, message, sendBuffer)) {
+
+						sendBuffer.flip();
+
+						target      = new InetSocketAddress(InetAddress.getByName(recipient.getAddress()), recipient.getPort());
+						sendPending = true;
+
+						return true;
 					}
 
-					Thread.sleep(10L);
+				} catch (BufferOverflowException boex) {
+
+					logger.warn("Message {} is larger than {} bytes, dropping it", message, MAX_PACKET_SIZE);
 
-				} catch (IOException ignore1) {
-				} catch (InterruptedException ignore2) {
 				} catch (Throwable t) {
 					logger.warn("", t);
 				}
+
+				envelope = outputQueue.poll();
 			}
+
+			return false;
+		}
+	}
+
+	private static class PeerThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(final Runnable r) {
+
+			return new Thread(r, "Peer-" + count.incrementAndGet());
 		}
 	}
 
@@ -23,9 +23,10 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
-import java.net.DatagramPacket;
-import java.net.InetAddress;
-import java.net.UnknownHostException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
@@ -40,8 +41,8 @@ import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 import javax.crypto.Cipher;
 import javax.crypto.CipherInputStream;
-import javax.crypto.CipherOutputStream;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.ShortBufferException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.structr.net.peer.Peer;
@@ -56,6 +57,7 @@ public abstract class AbstractMessage {
 
 	private static final Map<Integer, Class<? extends AbstractMessage>> CommandMap = new HashMap<>();
 	private static final Map<Class, Integer> TypeMap                               = new HashMap<>();
+	private static final ThreadLocal<Cipher> ciphers                               = new ThreadLocal<>();
 
 	static {
 
@@ -134,7 +136,17 @@ public abstract class AbstractMessage {
 		this.timestamp = senderTimestamp;
 	}
 
-	public static Envelope receive(final Peer peer, final DatagramPacket packet) throws IOException, InvalidKeyException, NoSuchAlgorithmException, NoSuchPaddingException {
+	/**
+	 * Decrypts and deserializes a received datagram.
+	 *
+	 * @param peer the receiving peer
+	 * @param packet the datagram content
+	 * @param length the length of the datagram
+	 * @param address the address of the sender
+	 * @param port the port of the sender
+	 * @return the envelope, or null if the datagram could not be decoded
+	 */
+	public static Envelope receive(final Peer peer, final byte[] packet, final int length, final String address, final int port) throws IOException, InvalidKeyException, NoSuchAlgorithmException, NoSuchPaddingException {
 
 		final PrivateKey privateKey = peer.getPrivateKey();
 		if (privateKey != null) {
@@ -142,11 +154,11 @@ public abstract class AbstractMessage {
 			final Cipher cipher = AbstractMessage.getCipher();
 			cipher.init(Cipher.DECRYPT_MODE, peer.getPrivateKey());
 
-			final byte[] data = decryptBlocks(packet.getData(), cipher, 256, 245);
+			final byte[] data = decryptBlocks(packet, length, cipher, 256, 245);
 
 			if (data.length == 0) {
 
-				System.out.println("Decryption failed");
+				logger.warn("Decryption failed");
 
 			} else {
 
@@ -171,7 +183,7 @@ public abstract class AbstractMessage {
 						msg.deserialize(dis);
 
 						// create envelope
-						return new Envelope(new PeerInfo(peer.getPublicKey(), peerId, packet.getAddress().getHostAddress(), packet.getPort()), msg);
+						return new Envelope(new PeerInfo(peer.getPublicKey(), peerId, address, port), msg);
 
 					} catch (Throwable t) {
 						logger.warn("", t);
@@ -179,35 +191,32 @@ public abstract class AbstractMessage {
 
 				} else {
 
-					System.out.println("Unknown command " + command);
+					logger.warn("Unknown command {}", command);
 				}
 			}
 
 		} else {
 
-			System.out.println("Unable to decrypt packet, aborting");
+			logger.warn("Unable to decrypt packet, aborting");
 		}
 
 		return null;
 	}
 
-	public static DatagramPacket forSending(final String peerId, final PeerInfo recipient, final AbstractMessage message) throws UnknownHostException, IOException, InvalidKeyException, NoSuchAlgorithmException, NoSuchPaddingException {
-
-		final ByteArrayOutputStream finalBuffer = new ByteArrayOutputStream();
-		final GZIPOutputStream zos              = new GZIPOutputStream(finalBuffer, 1024);
-		final DataOutputStream dos              = new DataOutputStream(zos);
-
-		dos.writeInt(message.getCommand());		// Command
-		serializeUUID(dos, message.getId());		// UUID
-		serializeUUID(dos, peerId);			// peer UUID
-		dos.writeLong(message.getSenderTimestamp());	// timestamp
-
-		// let message do the rest
-		message.serialize(dos);
-
-		// flush and close
-		dos.flush();
-		dos.close();
+	/**
+	 * Serializes and encrypts the given message for the given recipient
+	 * directly into the given buffer, starting at its current position.
+	 * The compressed message is encrypted block by block while it is
+	 * written, so no intermediate copy of the message is created.
+	 *
+	 * @param peerId the UUID of the sending peer
+	 * @param recipient the recipient
+	 * @param message the message
+	 * @param buffer the buffer to write the datagram content to
+	 * @return false if the message could not be encrypted
+	 * @throws BufferOverflowException if the message does not fit into the buffer
+	 */
+	public static boolean encode(final String peerId, final PeerInfo recipient, final AbstractMessage message, final ByteBuffer buffer) throws IOException, InvalidKeyException, NoSuchAlgorithmException, NoSuchPaddingException {
 
 		final PublicKey publicKey = recipient.getPublicKey();
 		if (publicKey != null) {
@@ -216,18 +225,16 @@ public abstract class AbstractMessage {
 			final Cipher cipher = getCipher();
 			cipher.init(Cipher.ENCRYPT_MODE, publicKey);
 
-			final byte[] data    = encryptBlocks(finalBuffer.toByteArray(), cipher, 245);
-			final String address = recipient.getAddress();
-			final int port       = recipient.getPort();
+			writeCompressed(new BlockCipherOutputStream(cipher, buffer, 245), peerId, message);
 
-			return new DatagramPacket(data, data.length, InetAddress.getByName(address), port);
+			return true;
 
 		} else {
 
-			System.out.println("Unable to encrypt packet, aborting.");
+			logger.warn("Unable to encrypt packet, aborting.");
 		}
 
-		return null;
+		return false;
 	}
 
 	// ----- protected methods -----
@@ -356,50 +363,55 @@ public abstract class AbstractMessage {
 	}
 
 	private static Cipher getCipher() throws NoSuchAlgorithmException, NoSuchPaddingException {
-		return Cipher.getInstance("RSA/ECB/PKCS1Padding");
-	}
 
-	private static UUID toUUID(final String id) {
-
-		final StringBuilder buf = new StringBuilder(id);
+		// cipher instances are expensive to create and not thread-safe,
+		// so every thread keeps its own
+		Cipher cipher = ciphers.get();
+		if (cipher == null) {
 
-		buf.insert(20, "-");
-		buf.insert(16, "-");
-		buf.insert(12, "-");
-		buf.insert( 8, "-");
+			cipher = Cipher.getInstance("RSA/ECB/PKCS1Padding");
+			ciphers.set(cipher);
+		}
 
-		return UUID.fromString(buf.toString());
+		return cipher;
 	}
 
-	private static byte[] encryptBlocks(final byte[] data, final Cipher cipher, final int dataSize) throws IOException {
+	private static void writeCompressed(final OutputStream out, final String peerId, final AbstractMessage message) throws IOException {
 
-		final ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length);
-		final int count                 = (data.length / dataSize) + 1;
-		int remaining                   = data.length;
+		final GZIPOutputStream zos = new GZIPOutputStream(out, 1024);
+		final DataOutputStream dos = new DataOutputStream(zos);
 
-		for (int i=0; i<count; i++) {
+		dos.writeInt(message.getCommand());		// Command
+		serializeUUID(dos, message.getId());		// UUID
+		serializeUUID(dos, peerId);			// peer UUID
+		dos.writeLong(message.getSenderTimestamp());	// timestamp
 
-			final int offset = i*dataSize;
-			final int length = Math.min(dataSize, remaining);
+		// let message do the rest
+		message.serialize(dos);
 
-			final CipherOutputStream cos = new CipherOutputStream(bos, cipher);
+		// flush and close
+		dos.flush();
+		dos.close();
+	}
 
-			cos.write(data, offset, length);
-			cos.flush();
-			cos.close();
+	private static UUID toUUID(final String id) {
 
-			remaining -= length;
-		}
+		final StringBuilder buf = new StringBuilder(id);
 
-		return bos.toByteArray();
+		buf.insert(20, "-");
+		buf.insert(16, "-");
+		buf.insert(12, "-");
+		buf.insert( 8, "-");
+
+		return UUID.fromString(buf.toString());
 	}
 
-	private static byte[] decryptBlocks(final byte[] data, final Cipher cipher, final int blockSize, final int dataSize) throws IOException {
+	private static byte[] decryptBlocks(final byte[] data, final int dataLength, final Cipher cipher, final int blockSize, final int dataSize) throws IOException {
 
-		final ByteArrayOutputStream bos = new ByteArrayOutputStream(data.length);
-		final int count                 = (data.length / dataSize);
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream(dataLength);
+		final int count                 = (dataLength / dataSize);
 		final byte[] buffer             = new byte[dataSize];
-		int remaining                   = data.length;
+		int remaining                   = dataLength;
 
 		for (int i=0; i<count; i++) {
 
@@ -427,4 +439,87 @@ public abstract class AbstractMessage {
 
 		return bos.toByteArray();
 	}
-}
\ No newline at end of file
+
+	// ----- nested classes -----
+	/**
+	 * Encrypts everything written to it in blocks of the given size and
+	 * writes the encrypted blocks to a buffer.
+	 */
+	private static class BlockCipherOutputStream extends OutputStream {
+
+		private ByteBuffer target  = null;
+		private ByteBuffer input   = null;
+		private Cipher cipher      = null;
+		private byte[] block       = null;
+		private int count          = 0;
+
+		public BlockCipherOutputStream(final Cipher cipher, final ByteBuffer target, final int dataSize) {
+
+			this.block  = new byte[dataSize];
+			this.input  = ByteBuffer.wrap(block);
+			this.cipher = cipher;
+			this.target = target;
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+
+			block[count++] = (byte)b;
+
+			if (count == block.length) {
+				encryptBlock();
+			}
+		}
+
+		@Override
+		public void write(final byte[] data, final int offset, final int length) throws IOException {
+
+			int position = offset;
+			final int end = offset + length;
+
+			while (position < end) {
+
+				final int chunk = Math.min(end - position, block.length - count);
+
+				System.arraycopy(data, position, block, count, chunk);
+
+				position += chunk;
+				count    += chunk;
+
+				if (count == block.length) {
+					encryptBlock();
+				}
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+
+			if (count > 0) {
+				encryptBlock();
+			}
+		}
+
+		// ----- private methods -----
+		private void encryptBlock() throws IOException {
+
+			input.clear();
+			input.limit(count);
+
+			try {
+
+				cipher.doFinal(input, target);
+
+			} catch (ShortBufferException sbex) {
+
+				throw new BufferOverflowException();
+
+			} catch (GeneralSecurityException gex) {
+
+				throw new IOException(gex);
+			}
+
+			count = 0;
+		}
+	}
+}
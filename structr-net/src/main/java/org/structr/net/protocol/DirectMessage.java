@@ -78,4 +78,8 @@ public class DirectMessage extends Message {
 	public void setRecipient(String recipient) {
 		this.recipient = recipient;
 	}
+
+	public String getText() {
+		return text;
+	}
 }
@@ -0,0 +1,146 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.net.peer;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import org.junit.Test;
+import org.structr.net.PeerListener;
+import org.structr.net.protocol.AbstractMessage;
+import org.structr.net.protocol.DirectMessage;
+import org.structr.net.repository.DefaultRepository;
+
+/**
+ * Test sending and receiving messages through the datagram transport.
+ */
+public class PeerTest {
+
+	private static final String LOOPBACK = "127.0.0.1";
+
+	@Test
+	public void testLoopbackTransport() throws Exception {
+
+		final Map<String, DirectMessage> messages = new ConcurrentHashMap<>();
+		final KeyPairGenerator generator          = KeyPairGenerator.getInstance("RSA");
+
+		generator.initialize(2048);
+
+		// peers of a network share the same key pair
+		final KeyPair keyPair = generator.generateKeyPair();
+		final Peer receiver   = new Peer(keyPair, new DefaultRepository(newUuid()), LOOPBACK, LOOPBACK);
+		final Peer sender     = new Peer(keyPair, new DefaultRepository(newUuid()), LOOPBACK, LOOPBACK);
+
+		receiver.addListener(new PeerListener() {
+
+			@Override
+			public void onMessage(final AbstractMessage message) {
+
+				if (message instanceof DirectMessage) {
+					messages.put(message.getId(), (DirectMessage)message);
+				}
+			}
+
+			@Override
+			public void onAddPeer(final PeerInfo peer) {
+			}
+
+			@Override
+			public void onRemovePeer(final PeerInfo peer) {
+			}
+		});
+
+		receiver.initializeServer();
+		sender.initializeServer();
+
+		receiver.start();
+		sender.start();
+
+		try {
+
+			final PeerInfo recipient = new PeerInfo(receiver.getPublicKey(), receiver.getUuid(), LOOPBACK, receiver.getLocalPort());
+			final int batches        = 10;
+			final int batchSize      = 10;
+
+			// bursts of small messages are sent and received in batches, datagrams
+			// are not acknowledged, so each burst must fit into the socket buffers
+			for (int i=0; i<batches; i++) {
+
+				for (int j=0; j<batchSize; j++) {
+					sender.send(recipient, new DirectMessage(sender.getUuid(), receiver.getUuid(), "Message " + (i * batchSize + j)));
+				}
+
+				waitForMessages(messages, (i + 1) * batchSize);
+			}
+
+			assertEquals("Invalid number of received messages", batches * batchSize, messages.size());
+
+			// a message that spans many cipher blocks and datagrams
+			final String text         = randomText(20000);
+			final DirectMessage large = new DirectMessage(sender.getUuid(), receiver.getUuid(), text);
+
+			sender.send(recipient, large);
+
+			waitForMessages(messages, batches * batchSize + 1);
+
+			final DirectMessage received = messages.get(large.getId());
+
+			assertNotNull("Large message was not received", received);
+			assertEquals("Invalid content of large message", text, received.getText());
+			assertEquals("Invalid sender of large message", sender.getUuid(), received.getSender());
+
+		} finally {
+
+			sender.stop();
+			receiver.stop();
+		}
+	}
+
+	// ----- private methods -----
+	private void waitForMessages(final Map<String, DirectMessage> messages, final int count) throws InterruptedException {
+
+		final long timeout = System.currentTimeMillis() + 10000;
+
+		while (messages.size() < count && System.currentTimeMillis() < timeout) {
+			Thread.sleep(10);
+		}
+	}
+
+	private String newUuid() {
+		return UUID.randomUUID().toString().replaceAll("\\-", "");
+	}
+
+	private String randomText(final int length) {
+
+		final String chars        = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+		final StringBuilder buf   = new StringBuilder(length);
+		final Random random       = new Random(42L);
+
+		for (int i=0; i<length; i++) {
+			buf.append(chars.charAt(random.nextInt(chars.length())));
+		}
+
+		return buf.toString();
+	}
+}
@@ -28,6 +28,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.structr.api.config.Settings;
+import org.structr.common.SessionPrincipalCache;
 import org.structr.common.error.FrameworkException;
 import org.structr.common.error.UnlicensedScriptException;
 import org.structr.core.app.App;
@@ -190,7 +191,19 @@ public class AuthHelper {
 
 	public static Principal getPrincipalForSessionId(final String sessionId, final boolean isPing) {
 
-		return getPrincipalForCredential(StructrApp.key(Principal.class, "sessionIds"), new String[]{ sessionId }, isPing);
+		if (sessionId != null) {
+
+			try {
+
+				return SessionPrincipalCache.getPrincipalForSessionId(sessionId, isPing);
+
+			} catch (FrameworkException fex) {
+
+				logger.warn("Error while searching for principal: {}", fex.getMessage());
+			}
+		}
+
+		return null;
 
 	}
 
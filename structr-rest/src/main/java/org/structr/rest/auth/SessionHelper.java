@@ -27,10 +27,9 @@ import org.eclipse.jetty.server.session.SessionCache;
 import org.eclipse.jetty.websocket.servlet.UpgradeHttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.common.SessionPrincipalCache;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.Services;
-import org.structr.core.app.App;
-import org.structr.core.app.Query;
 import org.structr.core.app.StructrApp;
 import org.structr.core.entity.Principal;
 import org.structr.core.property.PropertyKey;
@@ -119,12 +118,11 @@ public class SessionHelper {
 			return;
 		}
 
-		final App app                            = StructrApp.getInstance();
-		final PropertyKey<String[]> sessionIdKey = StructrApp.key(Principal.class, "sessionIds");
-		final Query<Principal> query             = app.nodeQuery(Principal.class).and(sessionIdKey, new String[]{sessionId}).disableSorting();
-
 		try {
-			for (final Principal p : query.getAsList()) {
+
+			// session ids are unique, a session can only be assigned to a single principal
+			final Principal p = SessionPrincipalCache.getPrincipalForSessionId(sessionId, false);
+			if (p != null) {
 
 				p.removeSessionId(sessionId);
 			}
@@ -162,8 +160,9 @@ public class SessionHelper {
 					logger.warn("Unable to retrieve session " + sessionId + " from session cache:", ex);
 				}
 
+				// the session node that maps the session id to the user may already be deleted
 				if (session == null || SessionHelper.isSessionTimedOut(session)) {
-					SessionHelper.clearSession(sessionId);
+					user.removeSessionId(sessionId);
 				}
 			}
 		}
@@ -0,0 +1,871 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.logging;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.structr.api.config.Settings;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.GraphObjectMap;
+import org.structr.core.app.App;
+import org.structr.core.app.StructrApp;
+import org.structr.core.graph.Tx;
+import org.structr.rest.logging.entity.LogEvent;
+
+/**
+ * Append-only, time-partitioned column store for log events.
+ *
+ * Events are stored in one directory per UTC day, with one file per
+ * column. Each partition keeps a summary with the number of events, the
+ * time range and the number of events per action, so overview queries
+ * don't need to read any columns, and scans skip partitions that cannot
+ * contain matching events. Only the summaries are held in memory, all
+ * values are read from the columns.
+ *
+ * Appended events are written to disk in batches, at most one second
+ * after they were appended, or earlier by {@link #flush}. Scans and
+ * statistics always include all appended events.
+ */
+public class LogEventStore {
+
+	private static final Logger logger                    = LoggerFactory.getLogger(LogEventStore.class.getName());
+	private static final Pattern PartitionPattern         = Pattern.compile("[0-9]{4}-[0-9]{2}-[0-9]{2}");
+	private static final DateTimeFormatter DayFormat      = DateTimeFormatter.ISO_LOCAL_DATE.withZone(ZoneOffset.UTC);
+	private static final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(LogEventStore::newFlushThread);
+
+	private static final String NODES_IMPORTED_FILE       = "nodes.imported";
+	private static final String SUMMARY_FILE              = "summary.dat";
+	private static final String TIMESTAMP_COLUMN          = "timestamp.col";
+	private static final String SUBJECT_COLUMN            = "subject.col";
+	private static final String OBJECT_COLUMN             = "object.col";
+	private static final String ACTION_COLUMN             = "action.col";
+	private static final String MESSAGE_COLUMN            = "message.col";
+	private static final int MAX_OPEN_PARTITIONS          = 8;
+	private static final int IMPORT_PAGE_SIZE             = 1000;
+	private static final long FLUSH_DELAY                 = 1000L;
+	private static final int NULL_LENGTH                  = -1;
+
+	private static LogEventStore instance                 = null;
+
+	private final Map<String, Partition> partitions       = new ConcurrentSkipListMap<>();
+	private final Map<String, Partition> openPartitions   = new LinkedHashMap<>(16, 0.75f, true);
+	private boolean dirty                                 = false;
+	private final Path root;
+
+	public LogEventStore(final Path root) throws IOException {
+
+		this.root = root;
+
+		Files.createDirectories(root);
+
+		loadPartitions();
+	}
+
+	public static synchronized LogEventStore getInstance() throws FrameworkException {
+
+		if (instance == null) {
+
+			try {
+
+				final LogEventStore store = new LogEventStore(Paths.get(Settings.getFullSettingPath(Settings.LogEventsPath)));
+
+				store.importLogEventNodes();
+
+				instance = store;
+
+			} catch (IOException ioex) {
+
+				logger.warn("Unable to open log event store: {}", ioex.getMessage());
+				throw new FrameworkException(500, "Unable to open log event store: " + ioex.getMessage());
+			}
+		}
+
+		return instance;
+	}
+
+	/**
+	 * Appends the given event to the partition of its day.
+	 *
+	 * @param event
+	 * @throws FrameworkException
+	 */
+	public synchronized void append(final Event event) throws FrameworkException {
+
+		try {
+
+			final Partition partition = getOpenPartition(DayFormat.format(Instant.ofEpochMilli(event.getTimestamp())));
+			final byte[] subject      = toBytes(event.getSubjectId());
+			final byte[] object       = toBytes(event.getObjectId());
+			final byte[] action       = toBytes(event.getAction());
+			final byte[] message      = toBytes(event.getMessage());
+
+			writeBytes(partition.subject, subject);
+			writeBytes(partition.object,  object);
+			writeBytes(partition.action,  action);
+			writeBytes(partition.message, message);
+
+			// timestamp column is written last, its size determines the number of complete rows
+			partition.timestamp.writeLong(event.getTimestamp());
+
+			partition.pending.add(event.getTimestamp(), event.getAction(), sizeOf(subject), sizeOf(object), sizeOf(action), sizeOf(message));
+
+			if (!dirty) {
+
+				dirty = true;
+
+				// collect all events appended in the meantime into a single write
+				flusher.schedule(this::flushQuietly, FLUSH_DELAY, TimeUnit.MILLISECONDS);
+			}
+
+		} catch (IOException ioex) {
+
+			throw new FrameworkException(500, "Unable to store log event: " + ioex.getMessage());
+		}
+	}
+
+	/**
+	 * Writes all appended events to disk.
+	 *
+	 * @throws FrameworkException
+	 */
+	public synchronized void flush() throws FrameworkException {
+
+		if (!dirty) {
+			return;
+		}
+
+		try {
+
+			for (final Partition partition : openPartitions.values()) {
+
+				partition.flush();
+			}
+
+			dirty = false;
+
+		} catch (IOException ioex) {
+
+			throw new FrameworkException(500, "Unable to store log events: " + ioex.getMessage());
+		}
+	}
+
+	/**
+	 * Streams all events matching the given values and time range to the
+	 * given consumer, in partition order. A value of null matches all
+	 * events.
+	 *
+	 * @param subjectId
+	 * @param objectId
+	 * @param action
+	 * @param from the start of the time range (inclusive)
+	 * @param to the end of the time range (inclusive)
+	 * @param consumer
+	 * @throws FrameworkException
+	 */
+	public void scan(final String subjectId, final String objectId, final String action, final long from, final long to, final Consumer<Event> consumer) throws FrameworkException {
+
+		flush();
+
+		final byte[] subject = toBytes(subjectId);
+		final byte[] object  = toBytes(objectId);
+		final byte[] act     = toBytes(action);
+
+		for (final Partition partition : partitions.values()) {
+
+			final Summary summary = partition.summary;
+
+			if (summary.rows == 0 || summary.maxTimestamp < from || summary.minTimestamp > to || (action != null && !summary.actionCounts.containsKey(action))) {
+				continue;
+			}
+
+			try {
+
+				partition.scan(summary, subject, object, act, from, to, consumer);
+
+			} catch (IOException ioex) {
+
+				throw new FrameworkException(500, "Unable to read log events: " + ioex.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of events per action, and the time range of all
+	 * events, from the partition summaries.
+	 *
+	 * @return the statistics
+	 * @throws FrameworkException
+	 */
+	public Statistics getStatistics() throws FrameworkException {
+
+		flush();
+
+		final Statistics statistics = new Statistics();
+
+		for (final Partition partition : partitions.values()) {
+
+			final Summary summary = partition.summary;
+
+			if (summary.rows > 0) {
+
+				statistics.count         += summary.rows;
+				statistics.firstTimestamp = Math.min(statistics.firstTimestamp, summary.minTimestamp);
+				statistics.lastTimestamp  = Math.max(statistics.lastTimestamp, summary.maxTimestamp);
+
+				for (final Entry<String, Long> entry : summary.actionCounts.entrySet()) {
+
+					final String key = entry.getKey() != null ? entry.getKey() : "null";
+					final Long count = statistics.actionCounts.get(key);
+
+					statistics.actionCounts.put(key, count != null ? count + entry.getValue() : entry.getValue());
+				}
+			}
+		}
+
+		return statistics;
+	}
+
+	/**
+	 * Appends all LogEvent nodes created before log events were moved to
+	 * this store, once. The nodes are left in the database.
+	 *
+	 * @throws FrameworkException
+	 * @throws IOException
+	 */
+	public void importLogEventNodes() throws FrameworkException, IOException {
+
+		final Path marker = root.resolve(NODES_IMPORTED_FILE);
+
+		if (Files.exists(marker)) {
+			return;
+		}
+
+		final App app = StructrApp.getInstance();
+		int count     = 0;
+
+		try (final Tx tx = app.tx()) {
+
+			List<LogEvent> page = null;
+			int pageNumber      = 1;
+
+			do {
+
+				page = app.nodeQuery(LogEvent.class).sort(LogEvent.timestampProperty).pageSize(IMPORT_PAGE_SIZE).page(pageNumber++).getAsList();
+
+				for (final LogEvent node : page) {
+
+					append(new Event(node.getTimestamp(), node.getSubjectId(), node.getObjectId(), node.getAction(), node.getMessage()));
+					count++;
+				}
+
+			} while (page.size() == IMPORT_PAGE_SIZE);
+
+			tx.success();
+		}
+
+		flush();
+
+		Files.createFile(marker);
+
+		if (count > 0) {
+			logger.info("Imported {} existing LogEvent nodes into log event store", count);
+		}
+	}
+
+	// ----- private methods -----
+	private void flushQuietly() {
+
+		try {
+
+			flush();
+
+		} catch (FrameworkException fex) {
+			logger.warn("Unable to flush log event store: {}", fex.getMessage());
+		}
+	}
+
+	private Partition getOpenPartition(final String name) throws IOException {
+
+		Partition partition = openPartitions.get(name);
+		if (partition == null) {
+
+			partition = partitions.get(name);
+			if (partition == null) {
+
+				partition = new Partition(name, root.resolve(name));
+				Files.createDirectories(partition.dir);
+
+				partitions.put(name, partition);
+			}
+
+			if (openPartitions.size() >= MAX_OPEN_PARTITIONS) {
+
+				// make pending events visible before closing the least recently used partition
+				final Iterator<Partition> iterator = openPartitions.values().iterator();
+				final Partition eldest             = iterator.next();
+
+				eldest.flush();
+				eldest.close();
+
+				iterator.remove();
+			}
+
+			partition.open();
+
+			openPartitions.put(name, partition);
+		}
+
+		return partition;
+	}
+
+	private void loadPartitions() throws IOException {
+
+		try (final DirectoryStream<Path> stream = Files.newDirectoryStream(root)) {
+
+			for (final Path dir : stream) {
+
+				final String name = dir.getFileName().toString();
+
+				if (Files.isDirectory(dir) && PartitionPattern.matcher(name).matches()) {
+
+					final Partition partition = new Partition(name, dir);
+
+					partition.load();
+					partitions.put(name, partition);
+				}
+			}
+		}
+	}
+
+	private static Thread newFlushThread(final Runnable runnable) {
+
+		final Thread thread = new Thread(runnable, "LogEventStoreFlusher");
+
+		thread.setDaemon(true);
+
+		return thread;
+	}
+
+	private static DataOutputStream openColumn(final Path dir, final String name) throws IOException {
+		return new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dir.resolve(name), StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+	}
+
+	private static DataInputStream readColumn(final Path dir, final String name) throws IOException {
+		return new DataInputStream(new BufferedInputStream(Files.newInputStream(dir.resolve(name))));
+	}
+
+	private static long size(final Path dir, final String name) throws IOException {
+
+		final Path file = dir.resolve(name);
+
+		return Files.exists(file) ? Files.size(file) : 0L;
+	}
+
+	private static void truncate(final Path file, final long size) throws IOException {
+
+		if (Files.exists(file) && Files.size(file) > size) {
+
+			try (final RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+				raf.setLength(size);
+			}
+		}
+	}
+
+	private static byte[] toBytes(final String value) {
+		return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+	}
+
+	private static String toString(final byte[] bytes) {
+		return bytes != null ? new String(bytes, StandardCharsets.UTF_8) : null;
+	}
+
+	private static long sizeOf(final byte[] bytes) {
+		return 4 + (bytes != null ? bytes.length : 0);
+	}
+
+	private static void writeBytes(final DataOutputStream out, final byte[] bytes) throws IOException {
+
+		if (bytes != null) {
+
+			out.writeInt(bytes.length);
+			out.write(bytes);
+
+		} else {
+
+			out.writeInt(NULL_LENGTH);
+		}
+	}
+
+	private static byte[] readBytes(final DataInputStream in) throws IOException {
+
+		final int length = in.readInt();
+		if (length == NULL_LENGTH) {
+
+			return null;
+		}
+
+		final byte[] bytes = new byte[length];
+
+		in.readFully(bytes);
+
+		return bytes;
+	}
+
+	/**
+	 * Skips a value and returns its size in the column.
+	 */
+	private static long skipBytes(final DataInputStream in) throws IOException {
+
+		final int length = in.readInt();
+		int remaining    = length;
+
+		while (remaining > 0) {
+
+			final int skipped = in.skipBytes(remaining);
+			if (skipped <= 0) {
+
+				throw new EOFException();
+			}
+
+			remaining -= skipped;
+		}
+
+		return 4 + Math.max(0, length);
+	}
+
+	private static boolean matches(final byte[] filter, final byte[] value) {
+		return filter == null || Arrays.equals(filter, value);
+	}
+
+	// ----- nested classes -----
+	/**
+	 * A single log event.
+	 */
+	public static class Event {
+
+		private final long timestamp;
+		private final String subjectId;
+		private final String objectId;
+		private final String action;
+		private final String message;
+
+		public Event(final long timestamp, final String subjectId, final String objectId, final String action, final String message) {
+
+			this.timestamp = timestamp;
+			this.subjectId = subjectId;
+			this.objectId  = objectId;
+			this.action    = action;
+			this.message   = message;
+		}
+
+		public long getTimestamp() {
+			return timestamp;
+		}
+
+		public String getSubjectId() {
+			return subjectId;
+		}
+
+		public String getObjectId() {
+			return objectId;
+		}
+
+		public String getAction() {
+			return action;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		public GraphObjectMap toGraphObject() {
+
+			final GraphObjectMap map = new GraphObjectMap();
+
+			map.put(LogEvent.timestampProperty, new Date(timestamp));
+			map.put(LogEvent.actionProperty,    action);
+			map.put(LogEvent.messageProperty,   message);
+			map.put(LogEvent.subjectProperty,   subjectId);
+			map.put(LogEvent.objectProperty,    objectId);
+
+			return map;
+		}
+	}
+
+	/**
+	 * Number of events per action and time range of all events.
+	 */
+	public static class Statistics {
+
+		private final Map<String, Long> actionCounts = new LinkedHashMap<>();
+		private long firstTimestamp                  = Long.MAX_VALUE;
+		private long lastTimestamp                   = 0L;
+		private long count                           = 0L;
+
+		public Map<String, Long> getActionCounts() {
+			return actionCounts;
+		}
+
+		public long getCount() {
+			return count;
+		}
+
+		public long getFirstTimestamp() {
+			return firstTimestamp;
+		}
+
+		public long getLastTimestamp() {
+			return lastTimestamp;
+		}
+	}
+
+	/**
+	 * Immutable summary of the visible rows of a partition.
+	 */
+	private static class Summary {
+
+		private final Map<String, Long> actionCounts;
+		private final long[] columnBytes;
+		private final long minTimestamp;
+		private final long maxTimestamp;
+		private final long rows;
+
+		public Summary(final long rows, final long[] columnBytes, final long minTimestamp, final long maxTimestamp, final Map<String, Long> actionCounts) {
+
+			this.actionCounts = Collections.unmodifiableMap(new HashMap<>(actionCounts));
+			this.columnBytes  = columnBytes.clone();
+			this.minTimestamp = minTimestamp;
+			this.maxTimestamp = maxTimestamp;
+			this.rows         = rows;
+		}
+
+		public void write(final Path file) throws IOException {
+
+			final Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+			try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+
+				out.writeLong(rows);
+
+				for (final long bytes : columnBytes) {
+					out.writeLong(bytes);
+				}
+
+				out.writeLong(minTimestamp);
+				out.writeLong(maxTimestamp);
+				out.writeInt(actionCounts.size());
+
+				for (final Entry<String, Long> entry : actionCounts.entrySet()) {
+
+					writeBytes(out, toBytes(entry.getKey()));
+					out.writeLong(entry.getValue());
+				}
+			}
+
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+
+		public static Summary read(final Path file) throws IOException {
+
+			try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+
+				final Map<String, Long> actionCounts = new HashMap<>();
+				final long[] columnBytes             = new long[Partition.VALUE_COLUMNS.length];
+				final long rows                      = in.readLong();
+
+				for (int i = 0; i < columnBytes.length; i++) {
+					columnBytes[i] = in.readLong();
+				}
+
+				final long minTimestamp = in.readLong();
+				final long maxTimestamp = in.readLong();
+				final int count         = in.readInt();
+
+				for (int i = 0; i < count; i++) {
+
+					actionCounts.put(LogEventStore.toString(readBytes(in)), in.readLong());
+				}
+
+				return new Summary(rows, columnBytes, minTimestamp, maxTimestamp, actionCounts);
+			}
+		}
+	}
+
+	/**
+	 * Mutable counterpart of {@link Summary} for rows that are being appended.
+	 */
+	private static class PendingSummary {
+
+		private final Map<String, Long> actionCounts = new HashMap<>();
+		private final long[] columnBytes             = new long[Partition.VALUE_COLUMNS.length];
+		private long minTimestamp                    = Long.MAX_VALUE;
+		private long maxTimestamp                    = Long.MIN_VALUE;
+		private long rows                            = 0L;
+
+		public PendingSummary(final Summary summary) {
+
+			if (summary != null) {
+
+				actionCounts.putAll(summary.actionCounts);
+				System.arraycopy(summary.columnBytes, 0, columnBytes, 0, columnBytes.length);
+
+				this.minTimestamp = summary.minTimestamp;
+				this.maxTimestamp = summary.maxTimestamp;
+				this.rows         = summary.rows;
+			}
+		}
+
+		public void add(final long timestamp, final String action, final long... valueBytes) {
+
+			final Long count = actionCounts.get(action);
+
+			actionCounts.put(action, count != null ? count + 1 : 1L);
+
+			for (int i = 0; i < columnBytes.length; i++) {
+				columnBytes[i] += valueBytes[i];
+			}
+
+			minTimestamp = Math.min(minTimestamp, timestamp);
+			maxTimestamp = Math.max(maxTimestamp, timestamp);
+			rows++;
+		}
+
+		public Summary toSummary() {
+			return new Summary(rows, columnBytes, minTimestamp, maxTimestamp, actionCounts);
+		}
+	}
+
+	private static class Partition {
+
+		/**
+		 * Variable-length columns, in the order of the summary's column sizes.
+		 */
+		private static final String[] VALUE_COLUMNS = { SUBJECT_COLUMN, OBJECT_COLUMN, ACTION_COLUMN, MESSAGE_COLUMN };
+
+		private volatile Summary summary   = new PendingSummary(null).toSummary();
+		private PendingSummary pending     = null;
+		private DataOutputStream timestamp = null;
+		private DataOutputStream subject   = null;
+		private DataOutputStream object    = null;
+		private DataOutputStream action    = null;
+		private DataOutputStream message   = null;
+		private final String name;
+		private final Path dir;
+
+		public Partition(final String name, final Path dir) {
+
+			this.name = name;
+			this.dir  = dir;
+		}
+
+		/**
+		 * Reads the summary of this partition, or rebuilds it from the
+		 * columns if it does not match the column files, e.g. after an
+		 * interrupted write.
+		 */
+		public void load() throws IOException {
+
+			final Path summaryFile = dir.resolve(SUMMARY_FILE);
+
+			if (Files.exists(summaryFile)) {
+
+				try {
+
+					final Summary stored = Summary.read(summaryFile);
+
+					if (isConsistent(stored)) {
+
+						this.summary = stored;
+						return;
+					}
+
+				} catch (IOException ioex) {
+					logger.warn("Unable to read summary of log event partition {}: {}", name, ioex.getMessage());
+				}
+			}
+
+			logger.info("Rebuilding summary of log event partition {}", name);
+
+			rebuild();
+		}
+
+		public void open() throws IOException {
+
+			pending   = new PendingSummary(summary);
+			subject   = openColumn(dir, SUBJECT_COLUMN);
+			object    = openColumn(dir, OBJECT_COLUMN);
+			action    = openColumn(dir, ACTION_COLUMN);
+			message   = openColumn(dir, MESSAGE_COLUMN);
+			timestamp = openColumn(dir, TIMESTAMP_COLUMN);
+		}
+
+		public void flush() throws IOException {
+
+			if (pending.rows != summary.rows) {
+
+				subject.flush();
+				object.flush();
+				action.flush();
+				message.flush();
+				timestamp.flush();
+
+				summary = pending.toSummary();
+				summary.write(dir.resolve(SUMMARY_FILE));
+			}
+		}
+
+		public void close() throws IOException {
+
+			subject.close();
+			object.close();
+			action.close();
+			message.close();
+			timestamp.close();
+
+			pending = null;
+		}
+
+		public void scan(final Summary snapshot, final byte[] subjectId, final byte[] objectId, final byte[] actionId, final long from, final long to, final Consumer<Event> consumer) throws IOException {
+
+			try (final DataInputStream timestamps = readColumn(dir, TIMESTAMP_COLUMN);
+				final DataInputStream subjects    = readColumn(dir, SUBJECT_COLUMN);
+				final DataInputStream objects     = readColumn(dir, OBJECT_COLUMN);
+				final DataInputStream actions     = readColumn(dir, ACTION_COLUMN);
+				final DataInputStream messages    = readColumn(dir, MESSAGE_COLUMN)) {
+
+				for (long row = 0; row < snapshot.rows; row++) {
+
+					final long ts = timestamps.readLong();
+
+					if (ts < from || ts > to) {
+
+						skipBytes(subjects);
+						skipBytes(objects);
+						skipBytes(actions);
+						skipBytes(messages);
+
+						continue;
+					}
+
+					final byte[] subject = readBytes(subjects);
+					final byte[] object  = readBytes(objects);
+					final byte[] act     = readBytes(actions);
+
+					if (matches(subjectId, subject) && matches(objectId, object) && matches(actionId, act)) {
+
+						consumer.accept(new Event(ts, LogEventStore.toString(subject), LogEventStore.toString(object), LogEventStore.toString(act), LogEventStore.toString(readBytes(messages))));
+
+					} else {
+
+						skipBytes(messages);
+					}
+				}
+			}
+		}
+
+		// ----- private methods -----
+		private boolean isConsistent(final Summary stored) throws IOException {
+
+			if (size(dir, TIMESTAMP_COLUMN) != stored.rows * 8) {
+				return false;
+			}
+
+			for (int i = 0; i < VALUE_COLUMNS.length; i++) {
+
+				if (size(dir, VALUE_COLUMNS[i]) != stored.columnBytes[i]) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		private void rebuild() throws IOException {
+
+			final PendingSummary rebuilt = new PendingSummary(null);
+			final long rows              = size(dir, TIMESTAMP_COLUMN) / 8;
+
+			if (rows > 0) {
+
+				try (final DataInputStream timestamps = readColumn(dir, TIMESTAMP_COLUMN);
+					final DataInputStream subjects    = readColumn(dir, SUBJECT_COLUMN);
+					final DataInputStream objects     = readColumn(dir, OBJECT_COLUMN);
+					final DataInputStream actions     = readColumn(dir, ACTION_COLUMN);
+					final DataInputStream messages    = readColumn(dir, MESSAGE_COLUMN)) {
+
+					for (long row = 0; row < rows; row++) {
+
+						final long ts          = timestamps.readLong();
+						final long subjectSize = skipBytes(subjects);
+						final long objectSize  = skipBytes(objects);
+						final byte[] act       = readBytes(actions);
+						final long messageSize = skipBytes(messages);
+
+						rebuilt.add(ts, LogEventStore.toString(act), subjectSize, objectSize, sizeOf(act), messageSize);
+					}
+
+				} catch (EOFException eof) {
+					// a value column is shorter than the timestamp column
+				}
+			}
+
+			// remove incomplete trailing rows so new rows are aligned in all columns
+			truncate(dir.resolve(TIMESTAMP_COLUMN), rebuilt.rows * 8);
+
+			for (int i = 0; i < VALUE_COLUMNS.length; i++) {
+				truncate(dir.resolve(VALUE_COLUMNS[i]), rebuilt.columnBytes[i]);
+			}
+
+			summary = rebuilt.toSummary();
+			summary.write(dir.resolve(SUMMARY_FILE));
+		}
+	}
+}
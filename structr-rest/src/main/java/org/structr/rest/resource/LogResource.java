@@ -56,19 +56,17 @@ import org.structr.common.error.FrameworkException;
 import org.structr.core.GraphObject;
 import org.structr.core.GraphObjectMap;
 import org.structr.core.Result;
-import org.structr.core.app.App;
-import org.structr.core.app.StructrApp;
-import org.structr.core.graph.Tx;
 import org.structr.core.property.GenericProperty;
 import org.structr.core.property.ISO8601DateProperty;
 import org.structr.core.property.IntProperty;
 import org.structr.core.property.Property;
 import org.structr.core.property.PropertyKey;
-import org.structr.core.property.PropertyMap;
 import org.structr.core.property.StringProperty;
 import org.structr.rest.RestMethodResult;
 import org.structr.rest.exception.IllegalMethodException;
-import org.structr.rest.logging.entity.LogEvent;
+import org.structr.rest.logging.LogEventStore;
+import org.structr.rest.logging.LogEventStore.Event;
+import org.structr.rest.logging.LogEventStore.Statistics;
 
 /**
  *
@@ -151,36 +149,17 @@ public class LogResource extends Resource {
 
 			if (StringUtils.isNotEmpty(subjectId) && StringUtils.isNotEmpty(objectId)) {
 
-				processData(logState, StructrApp.getInstance(securityContext)
-					.nodeQuery(LogEvent.class)
-					.and(LogEvent.subjectProperty, subjectId)
-					.and(LogEvent.objectProperty, objectId)
-					.and(LogEvent.actionProperty, logState.logAction)
-					.andRange(LogEvent.timestampProperty, new Date(logState.beginTimestamp()), new Date(logState.endTimestamp()))
-					.getAsList()
-				);
+				processData(logState, subjectId, objectId);
 
 			} else if (StringUtils.isNotEmpty(subjectId) && StringUtils.isEmpty(objectId)) {
 
-				processData(logState, StructrApp.getInstance(securityContext)
-					.nodeQuery(LogEvent.class)
-					.and(LogEvent.subjectProperty, subjectId)
-					.and(LogEvent.actionProperty, logState.logAction)
-					.andRange(LogEvent.timestampProperty, new Date(logState.beginTimestamp()), new Date(logState.endTimestamp()))
-					.getAsList()
-				);
+				processData(logState, subjectId, null);
 
 			} else if (StringUtils.isEmpty(subjectId) && StringUtils.isNotEmpty(objectId)) {
 
 				logState.inverse(true);
 
-				processData(logState, StructrApp.getInstance(securityContext)
-					.nodeQuery(LogEvent.class)
-					.and(LogEvent.objectProperty, objectId)
-					.and(LogEvent.actionProperty, logState.logAction)
-					.andRange(LogEvent.timestampProperty, new Date(logState.beginTimestamp()), new Date(logState.endTimestamp()))
-					.getAsList()
-				);
+				processData(logState, null, objectId);
 
 			} else if (logState.doActionQuery()) {
 
@@ -188,13 +167,17 @@ public class LogResource extends Resource {
 
 			} else {
 
-				// create overview of existing logs
+				// create overview of existing logs from the partition summaries
+				final Statistics statistics = LogEventStore.getInstance().getStatistics();
+
 				logState.overview(true);
 
-				processData(logState, StructrApp.getInstance(securityContext)
-					.nodeQuery(LogEvent.class)
-					.getAsList()
-				);
+				for (final Entry<String, Long> entry : statistics.getActionCounts().entrySet()) {
+					logState.countAction(entry.getKey(), entry.getValue().intValue());
+				}
+
+				logState.beginTimestamp(statistics.getFirstTimestamp());
+				logState.endTimestamp(statistics.getLastTimestamp());
 			}
 
 			if (logState.overview()) {
@@ -240,9 +223,11 @@ public class LogResource extends Resource {
 
 				final String filesPath = Settings.FilesPath.getValue();
 
-				try (final Context context  = new Context(1000)) {
+				try {
+
+					final int total = collectFilesAndStore(LogEventStore.getInstance(), new File(filesPath + SUBJECTS).toPath(), 0);
 
-					collectFilesAndStore(context, new File(filesPath + SUBJECTS).toPath(), 0);
+					logger.info("Imported {} log entries", total);
 
 				} catch (FrameworkException fex) {
 					logger.warn("", fex);
@@ -258,27 +243,13 @@ public class LogResource extends Resource {
 
 			if (subjectId != null && objectId != null && action != null) {
 
-				final App app  = StructrApp.getInstance(securityContext);
-				LogEvent event = null;
+				final LogEventStore store = LogEventStore.getInstance();
+				final Event event         = new Event(System.currentTimeMillis(), subjectId, objectId, action, message);
 
-				try (final Tx tx = app.tx()) {
-
-					final PropertyMap properties = new PropertyMap();
-					properties.put(LogEvent.timestampProperty,           new Date());
-					properties.put(LogEvent.actionProperty,              action);
-					properties.put(LogEvent.subjectProperty,             subjectId);
-					properties.put(LogEvent.objectProperty,              objectId);
-					properties.put(LogEvent.messageProperty,             message);
-					properties.put(LogEvent.visibleToPublicUsers,        true);
-					properties.put(LogEvent.visibleToAuthenticatedUsers, true);
-
-					event = app.create(LogEvent.class, properties);
-
-					tx.success();
-				}
+				store.append(event);
 
 				final RestMethodResult result = new RestMethodResult(201);
-				result.addContent(event);
+				result.addContent(event.toGraphObject());
 
 				return result;
 
@@ -337,7 +308,9 @@ public class LogResource extends Resource {
 	}
 
 	// ----- private methods -----
-	private void collectFilesAndStore(final Context context, final Path dir, final int level) throws FrameworkException {
+	private int collectFilesAndStore(final LogEventStore store, final Path dir, final int level) throws FrameworkException {
+
+		int count = 0;
 
 		if (level == 1) {
 			logger.info("Path {}", dir);
@@ -349,14 +322,14 @@ public class LogResource extends Resource {
 
 				if (Files.isDirectory(p)) {
 
-					collectFilesAndStore(context, p, level+1);
+					count += collectFilesAndStore(store, p, level+1);
 
 				} else {
 
-					context.update(storeLogEntry(p));
+					count += storeLogEntry(store, p);
 
-					// update object count and commit
-					context.commit(true);
+					// make entries durable before the source file is removed
+					store.flush();
 				}
 
 				Files.delete(p);
@@ -366,19 +339,18 @@ public class LogResource extends Resource {
 		} catch (IOException ioex) {
 			logger.warn("", ioex);
 		}
+
+		return count;
 	}
 
 	private void processData(final LogState state) throws FrameworkException {
 
+		final LogEventStore store = LogEventStore.getInstance();
+
 		if (state.doCorrelate()) {
 
 			// get the basic correlation set (pds_click in the test case)
-			final List<LogEvent> correlationResult = StructrApp.getInstance(securityContext)
-				.nodeQuery(LogEvent.class)
-				.and(LogEvent.actionProperty, state.correlationAction)
-				.getAsList();
-
-			for (final LogEvent entry : correlationResult) {
+			store.scan(null, null, state.correlationAction, Long.MIN_VALUE, Long.MAX_VALUE, (final Event entry) -> {
 
 				final String pathSubjectId = state.inverse() ? entry.getObjectId() : entry.getSubjectId();
 				final String pathObjectId  = state.inverse() ? entry.getSubjectId() : entry.getObjectId();
@@ -397,28 +369,17 @@ public class LogResource extends Resource {
 					// fallback: subjectId and objectId
 					state.addCorrelationEntry(key(pathSubjectId, pathObjectId), entry);
 				}
-			}
+			});
 		}
 
 		logger.debug("No. of correlations: {}", state.getCorrelations().entrySet().size());
 
-		final List<LogEvent> result = StructrApp.getInstance(securityContext).nodeQuery(LogEvent.class)
-			.and(LogEvent.actionProperty, state.logAction)
-			.andRange(LogEvent.timestampProperty, new Date(state.beginTimestamp()), new Date(state.endTimestamp()))
-			.getAsList();
-
-		processData(state, result);
+		processData(state, null, null);
 	}
 
-	private void processData(final LogState state, final Iterable<LogEvent> result) throws FrameworkException {
+	private void processData(final LogState state, final String subjectId, final String objectId) throws FrameworkException {
 
-		int count = 0;
-
-		for (final LogEvent event : result) {
-
-			if ((++count % 100000) == 0) {
-				System.out.println(count);
-			}
+		LogEventStore.getInstance().scan(subjectId, objectId, state.logAction, state.rangeStart(), state.rangeEnd(), (final Event event) -> {
 
 			final String pathSubjectId = state.inverse() ? event.getObjectId() : event.getSubjectId();
 			final String pathObjectId  = state.inverse() ? event.getSubjectId() : event.getObjectId();
@@ -436,39 +397,24 @@ public class LogResource extends Resource {
 				state.endTimestamp(timestamp);
 			}
 
-			if (state.overview()) {
+			// passes filter? action present or matching?
+			if (state.passesFilter(entryMessage) && state.correlates(pathSubjectId, pathObjectId, entryMessage)) {
 
-				if (entryAction != null) {
+				final Map<String, Object> map = new HashMap<>();
 
-					state.countAction(entryAction);
-
-				} else {
-
-					state.countAction("null");
-				}
+				map.put(subjectProperty.jsonName(), pathSubjectId);
+				map.put(objectProperty.jsonName(), pathObjectId);
+				map.put(actionProperty.jsonName(), entryAction);
+				map.put(timestampProperty.jsonName(), timestamp);
+				map.put(messageProperty.jsonName(), entryMessage);
 
-			} else {
-
-				// passes filter? action present or matching?
-				if (state.passesFilter(entryMessage) && state.correlates(pathSubjectId, pathObjectId, entryMessage)) {
-
-					final Map<String, Object> map = new HashMap<>();
-
-					map.put(subjectProperty.jsonName(), pathSubjectId);
-					map.put(objectProperty.jsonName(), pathObjectId);
-					map.put(actionProperty.jsonName(), entryAction);
-					map.put(timestampProperty.jsonName(), timestamp);
-					map.put(messageProperty.jsonName(), entryMessage);
-
-					state.addEntry(map);
-				}
+				state.addEntry(map);
 			}
-		}
+		});
 	}
 
-	private int storeLogEntry(final Path path) throws IOException, FrameworkException {
+	private int storeLogEntry(final LogEventStore store, final Path path) throws IOException, FrameworkException {
 
-		final App app          = StructrApp.getInstance(securityContext);
 		final String fileName  = path.getFileName().toString();
 		int count              = 0;
 
@@ -489,17 +435,7 @@ public class LogResource extends Resource {
 				final String action          = part1;
 				final String message         = part2;
 
-				final PropertyMap properties = new PropertyMap();
-
-				properties.put(LogEvent.messageProperty,             message);
-				properties.put(LogEvent.actionProperty,              action);
-				properties.put(LogEvent.subjectProperty,             subjectId);
-				properties.put(LogEvent.objectProperty,              objectId);
-				properties.put(LogEvent.timestampProperty,           new Date(timestamp));
-				properties.put(LogEvent.visibleToPublicUsers,        true);
-				properties.put(LogEvent.visibleToAuthenticatedUsers, true);
-
-				app.create(LogEvent.class, properties);
+				store.append(new Event(timestamp, subjectId, objectId, action, message));
 
 				count++;
 			}
@@ -842,7 +778,7 @@ public class LogResource extends Resource {
 
 		private final Map<String, Pattern> aggregationPatterns       = new HashMap<>();
 		private final List<Map<String, Object>> entries              = new LinkedList<>();
-		private final Map<String, LinkedList<LogEvent>> correlations = new ConcurrentHashMap<>();
+		private final Map<String, LinkedList<Event>> correlations    = new ConcurrentHashMap<>();
 		private final Map<String, Integer> actions                   = new HashMap<>();
 		private long beginTimestamp                                  = Long.MAX_VALUE;
 		private long endTimestamp                                    = 0L;
@@ -902,11 +838,11 @@ public class LogResource extends Resource {
 			entries.add(entry);
 		}
 
-		public void addCorrelationEntry(final String key, final LogEvent event) {
+		public void addCorrelationEntry(final String key, final Event event) {
 
 			logger.debug("No. of correllation entry lists: {}, adding action: {} {}", new Object[]{correlations.keySet().size(), key, event.getMessage()});
 
-			LinkedList<LogEvent> existingEventList = correlations.get(key);
+			LinkedList<Event> existingEventList = correlations.get(key);
 
 			if (existingEventList == null) {
 				existingEventList = new LinkedList<>();
@@ -917,7 +853,7 @@ public class LogResource extends Resource {
 			correlations.put(key, existingEventList);
 		}
 
-		public Map<String, LinkedList<LogEvent>> getCorrelations() {
+		public Map<String, LinkedList<Event>> getCorrelations() {
 			return correlations;
 		}
 
@@ -929,19 +865,19 @@ public class LogResource extends Resource {
 			return aggregationPatterns;
 		}
 
-		public void countAction(final String action) {
+		public void countAction(final String action, final int count) {
 
 			Integer actionCount = actions.get(action);
 			if (actionCount == null) {
 
-				actions.put(action, 1);
+				actions.put(action, count);
 
 			} else {
 
-				actions.put(action, actionCount + 1);
+				actions.put(action, actionCount + count);
 			}
 
-			this.actionCount++;
+			this.actionCount += count;
 		}
 
 		public int actionCount() {
@@ -992,6 +928,14 @@ public class LogResource extends Resource {
 			this.endTimestamp = endTimestamp;
 		}
 
+		public long rangeStart() {
+			return range != null ? range.start : Long.MIN_VALUE;
+		}
+
+		public long rangeEnd() {
+			return range != null ? range.end : Long.MAX_VALUE;
+		}
+
 		public boolean isInRangeOrNull(final long timestamp) {
 			return range == null || range.contains(timestamp);
 		}
@@ -1029,7 +973,7 @@ public class LogResource extends Resource {
 				return true;
 			}
 
-			LinkedList<LogEvent> correlationEntries;
+			LinkedList<Event> correlationEntries;
 
 			if (correlationOp != null && correlationPattern != null) {
 
@@ -1051,7 +995,7 @@ public class LogResource extends Resource {
 
 							if (correlationEntries != null) {
 
-								for (LogEvent correlationEntry : correlationEntries) {
+								for (Event correlationEntry : correlationEntries) {
 
 									if (correlationEntry.getSubjectId().equals(pathSubjectId)) {
 
@@ -1071,7 +1015,7 @@ public class LogResource extends Resource {
 
 							if (correlationEntries != null) {
 
-								for (LogEvent correlationEntry : correlationEntries) {
+								for (Event correlationEntry : correlationEntries) {
 
 									if (correlationEntry.getObjectId().equals(pathObjectId)) {
 
@@ -1241,53 +1185,4 @@ public class LogResource extends Resource {
 			return timestamp1.compareTo(timestamp2);
 		}
 	}
-
-	private static class Context implements AutoCloseable {
-
-		private final App app   = StructrApp.getInstance();
-		private Tx tx           = null;
-		private int total       = 0;
-		private int count       = 0;
-		private int commitCount = 0;
-
-		public Context(final int commitCount) throws FrameworkException {
-
-			this.commitCount = commitCount;
-			this.tx          = app.tx(false, false, false);
-		}
-
-		public void commit(final boolean intermediate) throws FrameworkException {
-
-			if (count > commitCount) {
-
-				logger.info("Committing transaction after {} objects..", total);
-
-				tx.success();
-				tx.close();
-
-				if (intermediate) {
-
-					tx = app.tx(false, false, false);
-				}
-
-				count = 0;
-			}
-		}
-
-		public int getTotal() {
-			return total;
-		}
-
-		public void update(final int count) {
-			this.count += count;
-			this.total += count;
-		}
-
-		@Override
-		public void close() throws FrameworkException {
-
-			tx.success();
-			tx.close();
-		}
-	}
 }
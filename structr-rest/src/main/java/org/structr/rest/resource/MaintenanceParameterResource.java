@@ -21,11 +21,13 @@ package org.structr.rest.resource;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
+import org.structr.agent.AgentStatusCommand;
 import org.structr.agent.Task;
 import org.structr.api.service.Command;
 import org.structr.common.SecurityContext;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.Result;
+import org.structr.cron.CronStatusCommand;
 import org.structr.core.graph.BulkChangeNodePropertyKeyCommand;
 import org.structr.core.graph.BulkCopyRelationshipPropertyCommand;
 import org.structr.core.graph.BulkCreateLabelsCommand;
@@ -34,10 +36,12 @@ import org.structr.core.graph.BulkRebuildIndexCommand;
 import org.structr.core.graph.BulkSetNodePropertiesCommand;
 import org.structr.core.graph.BulkSetRelationshipPropertiesCommand;
 import org.structr.core.graph.BulkSetUuidCommand;
+import org.structr.core.graph.CacheStatusCommand;
 import org.structr.core.graph.ClearDatabase;
 import org.structr.core.graph.FlushCachesCommand;
 import org.structr.core.graph.SyncCommand;
 import org.structr.core.property.PropertyKey;
+import org.structr.core.script.ScriptingStatusCommand;
 import org.structr.rest.RestMethodResult;
 import org.structr.rest.exception.NotAllowedException;
 import org.structr.rest.maintenance.SnapshotCommand;
@@ -72,6 +76,10 @@ public class MaintenanceParameterResource extends Resource {
 		maintenanceCommandMap.put("snapshot", SnapshotCommand.class);
 		maintenanceCommandMap.put("flushCaches", FlushCachesCommand.class);
 		maintenanceCommandMap.put("analyzeSchema", SchemaAnalyzer.class);
+		maintenanceCommandMap.put("cronStatus", CronStatusCommand.class);
+		maintenanceCommandMap.put("agentStatus", AgentStatusCommand.class);
+		maintenanceCommandMap.put("cacheStatus", CacheStatusCommand.class);
+		maintenanceCommandMap.put("scriptingStatus", ScriptingStatusCommand.class);
 
 	}
 
@@ -122,7 +122,12 @@ public class GraphQLWriter {
 				writer.name(query.getFieldName());
 				writer.beginArray();
 
-				for (final GraphObject object : query.getEntities(securityContext)) {
+				final Iterable<GraphObject> entities = query.getEntities(securityContext);
+
+				// load nested objects level by level before serialization
+				query.prefetch(securityContext, entities);
+
+				for (final GraphObject object : entities) {
 
 					root.serialize(writer, null, object, query, query.getRootPath());
 				}
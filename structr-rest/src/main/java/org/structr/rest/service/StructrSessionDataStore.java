@@ -23,16 +23,16 @@ import org.eclipse.jetty.server.session.SessionData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.structr.api.config.Settings;
+import org.structr.api.util.FixedSizeCache;
 import org.structr.common.SecurityContext;
+import org.structr.common.SessionPrincipalCache;
 import org.structr.common.error.FrameworkException;
-import org.structr.core.GraphObject;
 import org.structr.core.Services;
 import org.structr.core.app.App;
 import org.structr.core.app.StructrApp;
 import org.structr.core.entity.SessionDataNode;
 import org.structr.core.graph.NodeAttribute;
 import org.structr.core.graph.Tx;
-import org.structr.core.property.BooleanProperty;
 import org.structr.core.property.PropertyMap;
 
 import java.util.*;
@@ -46,7 +46,7 @@ public class StructrSessionDataStore extends AbstractSessionDataStore {
 	private static final App app = StructrApp.getInstance(ctx);
 	private static final Services services = Services.getInstance();
 
-	private static final Map<String, SessionData> anonymousSessionCache = new HashMap<>();
+	private static final FixedSizeCache<String, SessionData> anonymousSessionCache = new FixedSizeCache<>(Settings.AnonSessionCacheSize.getValue());
 
 	@Override
 	public void doStore(final String id, final SessionData data, final long lastSaveTime) throws Exception {
@@ -55,11 +55,7 @@ public class StructrSessionDataStore extends AbstractSessionDataStore {
 
 		try (final Tx tx = app.tx(true, false, false)) {
 
-			Map<String, Object> params = new HashMap<>();
-			params.put("id", id);
-			List<GraphObject> results = app.cypher("MATCH (n:User) WHERE {id} IN n.sessionIds RETURN count(n) > 0 as result", params);
-			boolean isAuthenticated = results.get(0).getProperty(new BooleanProperty("result"));
-
+			final boolean isAuthenticated = SessionPrincipalCache.getPrincipalForSessionId(id, false) != null;
 			if (isAuthenticated) {
 
 				final SessionDataNode node = getOrCreateSessionDataNode(app, id);
@@ -93,7 +89,7 @@ public class StructrSessionDataStore extends AbstractSessionDataStore {
 
 		assertInitialized();
 
-		for (Map.Entry<String,SessionData> entry : anonymousSessionCache.entrySet()) {
+		for (Map.Entry<String,SessionData> entry : anonymousSessionCache.toMap().entrySet()) {
 			SessionData data = entry.getValue();
 			if ( (new Date().getTime() - data.getLastAccessed()) > sessionTimeout) {
 				candidates.add(entry.getKey());
@@ -125,7 +121,7 @@ public class StructrSessionDataStore extends AbstractSessionDataStore {
 	@Override
 	public boolean exists(final String id) throws Exception {
 
-		if (anonymousSessionCache.containsKey(id)) {
+		if (anonymousSessionCache.get(id) != null) {
 			return true;
 		}
 
@@ -150,8 +146,9 @@ public class StructrSessionDataStore extends AbstractSessionDataStore {
 	@Override
 	public SessionData load(final String id) throws Exception {
 
-		if (anonymousSessionCache.containsKey(id)) {
-			return anonymousSessionCache.get(id);
+		final SessionData anonymousData = anonymousSessionCache.get(id);
+		if (anonymousData != null) {
+			return anonymousData;
 		}
 
 		assertInitialized();
@@ -187,8 +184,7 @@ public class StructrSessionDataStore extends AbstractSessionDataStore {
 	@Override
 	public boolean delete(final String id) throws Exception {
 
-		if (anonymousSessionCache.containsKey(id)) {
-			anonymousSessionCache.remove(id);
+		if (anonymousSessionCache.remove(id) != null) {
 			return true;
 		}
 
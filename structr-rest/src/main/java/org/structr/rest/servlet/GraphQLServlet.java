@@ -23,7 +23,6 @@ import com.google.gson.GsonBuilder;
 import graphql.language.Document;
 import graphql.parser.Parser;
 import graphql.validation.ValidationError;
-import graphql.validation.Validator;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.LinkedHashMap;
@@ -154,7 +153,7 @@ public class GraphQLServlet extends HttpServlet implements HttpServiceServlet {
 					final Document doc = GraphQLRequest.parse(new Parser(), query);
 					if (doc != null) {
 
-						final List<ValidationError> errors = new Validator().validateDocument(SchemaService.getGraphQLSchema(), doc);
+						final List<ValidationError> errors = GraphQLRequest.validate(SchemaService.getGraphQLSchema(), query, doc);
 						if (errors.isEmpty()) {
 
 							// no validation errors in query, do request
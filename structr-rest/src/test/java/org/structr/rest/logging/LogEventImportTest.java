@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import org.junit.Test;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.graph.Tx;
+import org.structr.core.property.PropertyMap;
+import org.structr.rest.common.StructrRestTest;
+import org.structr.rest.logging.LogEventStore.Event;
+import org.structr.rest.logging.entity.LogEvent;
+
+/**
+ * Test the import of existing LogEvent nodes into the log event store.
+ */
+public class LogEventImportTest extends StructrRestTest {
+
+	@Test
+	public void testImportLogEventNodes() {
+
+		try (final Tx tx = app.tx()) {
+
+			for (int i = 0; i < 3; i++) {
+
+				final PropertyMap properties = new PropertyMap();
+
+				properties.put(LogEvent.timestampProperty, new Date(1000L * (i + 1)));
+				properties.put(LogEvent.subjectProperty,   "subject");
+				properties.put(LogEvent.objectProperty,    "object" + i);
+				properties.put(LogEvent.actionProperty,    "view");
+				properties.put(LogEvent.messageProperty,   "message" + i);
+
+				app.create(LogEvent.class, properties);
+			}
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+
+			fex.printStackTrace();
+			fail("Unexpected exception");
+		}
+
+		try {
+
+			final Path root           = Files.createTempDirectory("logevents");
+			final LogEventStore store = new LogEventStore(root);
+
+			store.importLogEventNodes();
+
+			final List<Event> events = new ArrayList<>();
+
+			store.scan("subject", null, "view", Long.MIN_VALUE, Long.MAX_VALUE, events::add);
+
+			assertEquals("Invalid number of imported events", 3, events.size());
+			assertEquals("Invalid timestamp", 2000L, events.get(1).getTimestamp());
+			assertEquals("Invalid object", "object1", events.get(1).getObjectId());
+			assertEquals("Invalid message", "message1", events.get(1).getMessage());
+
+			// nodes must only be imported once, also into a reopened store
+			final LogEventStore reopened = new LogEventStore(root);
+
+			reopened.importLogEventNodes();
+
+			assertEquals("Nodes must only be imported once", 3L, reopened.getStatistics().getCount());
+
+		} catch (IOException | FrameworkException ex) {
+
+			ex.printStackTrace();
+			fail("Unexpected exception");
+		}
+	}
+}
@@ -0,0 +1,159 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.logging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.structr.common.error.FrameworkException;
+import org.structr.rest.logging.LogEventStore.Event;
+import org.structr.rest.logging.LogEventStore.Statistics;
+
+/**
+ * Test the time-partitioned log event store.
+ */
+public class LogEventStoreTest {
+
+	private static final long DAY = TimeUnit.DAYS.toMillis(1);
+	private Path root             = null;
+
+	@Before
+	public void setUp() throws IOException {
+		root = Files.createTempDirectory("logevents");
+	}
+
+	@After
+	public void tearDown() throws IOException {
+
+		try (final Stream<Path> files = Files.walk(root)) {
+			files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+		}
+	}
+
+	@Test
+	public void testScanAndStatistics() throws IOException, FrameworkException {
+
+		final LogEventStore store = new LogEventStore(root);
+
+		store.append(new Event(1000L,           "s1", "o1", "view",  "first"));
+		store.append(new Event(2000L,           "s1", "o2", "click", null));
+		store.append(new Event(DAY + 1000L,     "s2", "o1", "view",  "third"));
+		store.append(new Event(2 * DAY + 1000L, "s1", "o1", "view",  "fourth"));
+
+		assertEquals("Invalid number of events for subject", 3, scan(store, "s1", null, null, Long.MIN_VALUE, Long.MAX_VALUE).size());
+		assertEquals("Invalid number of events for object",  3, scan(store, null, "o1", null, Long.MIN_VALUE, Long.MAX_VALUE).size());
+		assertEquals("Invalid number of events for action",  1, scan(store, null, null, "click", Long.MIN_VALUE, Long.MAX_VALUE).size());
+		assertEquals("Invalid number of events in range",    2, scan(store, null, null, "view", 0L, DAY + 1000L).size());
+		assertEquals("Unknown value must not match",         0, scan(store, "s3", null, null, Long.MIN_VALUE, Long.MAX_VALUE).size());
+
+		final List<Event> events = scan(store, "s1", "o2", null, Long.MIN_VALUE, Long.MAX_VALUE);
+
+		assertEquals("Invalid number of events", 1, events.size());
+		assertEquals("Invalid timestamp", 2000L, events.get(0).getTimestamp());
+		assertEquals("Invalid action", "click", events.get(0).getAction());
+		assertNull("Invalid message", events.get(0).getMessage());
+
+		final Statistics statistics = store.getStatistics();
+
+		assertEquals("Invalid event count", 4L, statistics.getCount());
+		assertEquals("Invalid action count", 3L, (long) statistics.getActionCounts().get("view"));
+		assertEquals("Invalid action count", 1L, (long) statistics.getActionCounts().get("click"));
+		assertEquals("Invalid first timestamp", 1000L, statistics.getFirstTimestamp());
+		assertEquals("Invalid last timestamp", 2 * DAY + 1000L, statistics.getLastTimestamp());
+	}
+
+	@Test
+	public void testRecoveryOfIncompleteRows() throws IOException, FrameworkException {
+
+		final LogEventStore store = new LogEventStore(root);
+
+		store.append(new Event(1000L, "s1", "o1", "view", "first"));
+		store.append(new Event(2000L, "s1", "o1", "view", "second"));
+		store.flush();
+
+		// simulate an interrupted write of the last row
+		final Path partition = root.resolve("1970-01-01");
+
+		try (final RandomAccessFile raf = new RandomAccessFile(partition.resolve("timestamp.col").toFile(), "rw")) {
+			raf.setLength(raf.length() - 4);
+		}
+
+		final LogEventStore reopened = new LogEventStore(root);
+
+		assertEquals("Incomplete row must be discarded", 1, scan(reopened, null, null, null, Long.MIN_VALUE, Long.MAX_VALUE).size());
+
+		reopened.append(new Event(3000L, "s2", "o1", "view", "third"));
+
+		final List<Event> events = scan(reopened, null, null, null, Long.MIN_VALUE, Long.MAX_VALUE);
+
+		assertEquals("Invalid number of events after recovery", 2, events.size());
+		assertEquals("Invalid subject after recovery", "s2", events.get(1).getSubjectId());
+		assertEquals("Invalid message after recovery", "third", events.get(1).getMessage());
+		assertEquals("Invalid event count after recovery", 2L, reopened.getStatistics().getCount());
+	}
+
+	@Test
+	public void testDeferredFlush() throws IOException, FrameworkException, InterruptedException {
+
+		final LogEventStore store = new LogEventStore(root);
+		final Path summary        = root.resolve("1970-01-01").resolve("summary.dat");
+
+		for (int i = 0; i < 100; i++) {
+			store.append(new Event(1000L + i, "subject" + i, null, "view", null));
+		}
+
+		assertFalse("Appending must not write the summary", Files.exists(summary));
+
+		// the scheduled flush writes all appended events at once
+		for (int i = 0; i < 50 && !Files.exists(summary); i++) {
+			Thread.sleep(100);
+		}
+
+		assertTrue("Appended events must be flushed after a delay", Files.exists(summary));
+
+		final LogEventStore reopened = new LogEventStore(root);
+
+		assertEquals("Invalid number of flushed events", 100, scan(reopened, null, null, null, Long.MIN_VALUE, Long.MAX_VALUE).size());
+		assertEquals("Invalid number of events for subject", 1, scan(reopened, "subject42", null, null, Long.MIN_VALUE, Long.MAX_VALUE).size());
+		assertNull("Invalid object", scan(reopened, "subject42", null, null, Long.MIN_VALUE, Long.MAX_VALUE).get(0).getObjectId());
+	}
+
+	// ----- private methods -----
+	private List<Event> scan(final LogEventStore store, final String subjectId, final String objectId, final String action, final long from, final long to) throws FrameworkException {
+
+		final List<Event> events = new ArrayList<>();
+
+		store.scan(subjectId, objectId, action, from, to, events::add);
+
+		return events;
+	}
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.rest.resource;
+
+import com.jayway.restassured.RestAssured;
+import com.jayway.restassured.filter.log.ResponseLoggingFilter;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import org.junit.Test;
+import org.structr.rest.common.StructrRestTest;
+
+/**
+ *
+ *
+ */
+public class MaintenanceResourceTest extends StructrRestTest {
+
+	@Test
+	public void testCacheStatus() {
+
+		RestAssured
+			.given()
+				.contentType("application/json; charset=UTF-8")
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(400))
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(500))
+			.expect()
+				.statusCode(200)
+				.body("result[0].name",      equalTo("node"))
+				.body("result[0].maxSize",   notNullValue())
+				.body("result[0].evictions", notNullValue())
+				.body("result[1].name",      equalTo("relationship"))
+				.body("result[2].name",      equalTo("query"))
+			.when()
+				.post(concat("/maintenance/cacheStatus"));
+	}
+
+	@Test
+	public void testScriptingStatus() {
+
+		RestAssured
+			.given()
+				.contentType("application/json; charset=UTF-8")
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(400))
+				.filter(ResponseLoggingFilter.logResponseIfStatusCodeIs(500))
+			.expect()
+				.statusCode(200)
+				.body("result.compilationCount",  notNullValue())
+				.body("result.compilationTimeMs", notNullValue())
+				.body("result.cacheHitRatio",     notNullValue())
+			.when()
+				.post(concat("/maintenance/scriptingStatus"));
+	}
+}
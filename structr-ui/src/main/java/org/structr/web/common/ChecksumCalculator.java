@@ -0,0 +1,356 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.zip.CRC32;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.structr.core.app.StructrApp;
+import org.structr.core.property.PropertyMap;
+import org.structr.web.entity.File;
+
+/**
+ * Computes the xxHash checksum and all additionally enabled checksums
+ * (crc32, md5, sha1, sha512) of a file in a single pass over its content.
+ *
+ * The data can either be fed through an input stream that is returned by
+ * {@link #wrap(java.io.InputStream)} while it is being written, or read
+ * from a file on disk with {@link #update(java.io.File)}.
+ */
+public class ChecksumCalculator {
+
+	private static final int BUFFER_SIZE = 65536;
+
+	private final XXHash64 xxHash  = new XXHash64();
+	private PropertyMap checksums  = null;
+	private MessageDigest sha512   = null;
+	private MessageDigest sha1     = null;
+	private MessageDigest md5      = null;
+	private CRC32 crc32            = null;
+
+	/**
+	 * Creates a new calculator for the given list of enabled checksums.
+	 *
+	 * @param enabledChecksums comma-separated list of checksum names, may be null
+	 */
+	public ChecksumCalculator(final String enabledChecksums) {
+
+		if (StringUtils.contains(enabledChecksums, "crc32")) {
+			crc32 = new CRC32();
+		}
+
+		if (StringUtils.contains(enabledChecksums, "md5")) {
+			md5 = DigestUtils.getMd5Digest();
+		}
+
+		if (StringUtils.contains(enabledChecksums, "sha1")) {
+			sha1 = DigestUtils.getSha1Digest();
+		}
+
+		if (StringUtils.contains(enabledChecksums, "sha512")) {
+			sha512 = DigestUtils.getSha512Digest();
+		}
+	}
+
+	public void update(final byte[] data, final int offset, final int length) {
+
+		if (length <= 0) {
+			return;
+		}
+
+		if (checksums != null) {
+			throw new IllegalStateException("Checksums have already been computed");
+		}
+
+		xxHash.update(data, offset, length);
+
+		if (crc32 != null) {
+			crc32.update(data, offset, length);
+		}
+
+		if (md5 != null) {
+			md5.update(data, offset, length);
+		}
+
+		if (sha1 != null) {
+			sha1.update(data, offset, length);
+		}
+
+		if (sha512 != null) {
+			sha512.update(data, offset, length);
+		}
+	}
+
+	public void update(final java.io.File fileOnDisk) throws IOException {
+
+		try (final InputStream is = FileUtils.openInputStream(fileOnDisk)) {
+
+			final byte[] buffer = new byte[BUFFER_SIZE];
+			int count           = 0;
+
+			while ((count = is.read(buffer)) != -1) {
+				update(buffer, 0, count);
+			}
+		}
+	}
+
+	/**
+	 * Returns an input stream that updates the checksums with all data
+	 * that is read from the given stream.
+	 *
+	 * @param source
+	 * @return the wrapped stream
+	 */
+	public InputStream wrap(final InputStream source) {
+		return new ChecksumInputStream(source);
+	}
+
+	public long getChecksum() {
+		return xxHash.getValue();
+	}
+
+	/**
+	 * Returns the computed checksums, keyed by the corresponding
+	 * properties of {@link File}. The digests are finalized on the first
+	 * call, so no more data can be added afterwards, and subsequent calls
+	 * return the same values.
+	 *
+	 * @return the checksum properties
+	 */
+	public PropertyMap getProperties() {
+
+		if (checksums == null) {
+
+			checksums = new PropertyMap();
+
+			checksums.put(StructrApp.key(File.class, "checksum"), xxHash.getValue());
+
+			if (crc32 != null) {
+				checksums.put(StructrApp.key(File.class, "crc32"), crc32.getValue());
+			}
+
+			if (md5 != null) {
+				checksums.put(StructrApp.key(File.class, "md5"), Hex.encodeHexString(md5.digest()));
+			}
+
+			if (sha1 != null) {
+				checksums.put(StructrApp.key(File.class, "sha1"), Hex.encodeHexString(sha1.digest()));
+			}
+
+			if (sha512 != null) {
+				checksums.put(StructrApp.key(File.class, "sha512"), Hex.encodeHexString(sha512.digest()));
+			}
+		}
+
+		return new PropertyMap(checksums);
+	}
+
+	// ----- nested classes -----
+	private class ChecksumInputStream extends FilterInputStream {
+
+		public ChecksumInputStream(final InputStream source) {
+			super(source);
+		}
+
+		@Override
+		public int read() throws IOException {
+
+			final int value = super.read();
+			if (value != -1) {
+
+				update(new byte[] { (byte)value }, 0, 1);
+			}
+
+			return value;
+		}
+
+		@Override
+		public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+
+			final int count = super.read(buffer, offset, length);
+
+			update(buffer, offset, count);
+
+			return count;
+		}
+
+		@Override
+		public long skip(final long n) throws IOException {
+			throw new IOException("Skipping is not supported while calculating checksums");
+		}
+
+		@Override
+		public boolean markSupported() {
+			return false;
+		}
+	}
+
+	/**
+	 * Streaming implementation of the 64-bit xxHash algorithm with seed 0,
+	 * produces the same values as LongHashFunction.xx().
+	 */
+	private static class XXHash64 {
+
+		private static final long P1 = 0x9E3779B185EBCA87L;
+		private static final long P2 = 0xC2B2AE3D27D4EB4FL;
+		private static final long P3 = 0x165667B19E3779F9L;
+		private static final long P4 = 0x85EBCA77C2B2AE63L;
+		private static final long P5 = 0x27D4EB2F165667C5L;
+
+		private final byte[] buffer = new byte[32];
+		private int bufferSize      = 0;
+		private long totalLength    = 0L;
+		private long v1             = P1 + P2;
+		private long v2             = P2;
+		private long v3             = 0L;
+		private long v4             = -P1;
+
+		public void update(final byte[] data, final int offset, final int length) {
+
+			final int end = offset + length;
+			int position  = offset;
+
+			totalLength += length;
+
+			// fill up remaining bytes from the last update
+			if (bufferSize > 0) {
+
+				final int count = Math.min(32 - bufferSize, length);
+
+				System.arraycopy(data, position, buffer, bufferSize, count);
+
+				bufferSize += count;
+				position   += count;
+
+				if (bufferSize < 32) {
+					return;
+				}
+
+				processStripe(buffer, 0);
+				bufferSize = 0;
+			}
+
+			while (position + 32 <= end) {
+
+				processStripe(data, position);
+				position += 32;
+			}
+
+			if (position < end) {
+
+				bufferSize = end - position;
+				System.arraycopy(data, position, buffer, 0, bufferSize);
+			}
+		}
+
+		public long getValue() {
+
+			long hash;
+
+			if (totalLength >= 32) {
+
+				hash = Long.rotateLeft(v1, 1) + Long.rotateLeft(v2, 7) + Long.rotateLeft(v3, 12) + Long.rotateLeft(v4, 18);
+				hash = mergeRound(hash, v1);
+				hash = mergeRound(hash, v2);
+				hash = mergeRound(hash, v3);
+				hash = mergeRound(hash, v4);
+
+			} else {
+
+				hash = P5;
+			}
+
+			hash += totalLength;
+
+			int position = 0;
+
+			while (position + 8 <= bufferSize) {
+
+				hash ^= round(0, getLong(buffer, position));
+				hash  = Long.rotateLeft(hash, 27) * P1 + P4;
+				position += 8;
+			}
+
+			if (position + 4 <= bufferSize) {
+
+				hash ^= (getInt(buffer, position) & 0xFFFFFFFFL) * P1;
+				hash  = Long.rotateLeft(hash, 23) * P2 + P3;
+				position += 4;
+			}
+
+			while (position < bufferSize) {
+
+				hash ^= (buffer[position] & 0xFF) * P5;
+				hash  = Long.rotateLeft(hash, 11) * P1;
+				position++;
+			}
+
+			hash ^= hash >>> 33;
+			hash *= P2;
+			hash ^= hash >>> 29;
+			hash *= P3;
+			hash ^= hash >>> 32;
+
+			return hash;
+		}
+
+		// ----- private methods -----
+		private void processStripe(final byte[] data, final int offset) {
+
+			v1 = round(v1, getLong(data, offset));
+			v2 = round(v2, getLong(data, offset + 8));
+			v3 = round(v3, getLong(data, offset + 16));
+			v4 = round(v4, getLong(data, offset + 24));
+		}
+
+		private static long round(final long acc, final long input) {
+			return Long.rotateLeft(acc + input * P2, 31) * P1;
+		}
+
+		private static long mergeRound(final long acc, final long value) {
+			return (acc ^ round(0, value)) * P1 + P4;
+		}
+
+		private static long getLong(final byte[] data, final int offset) {
+
+			return   (data[offset]     & 0xFFL)
+			      | ((data[offset + 1] & 0xFFL) << 8)
+			      | ((data[offset + 2] & 0xFFL) << 16)
+			      | ((data[offset + 3] & 0xFFL) << 24)
+			      | ((data[offset + 4] & 0xFFL) << 32)
+			      | ((data[offset + 5] & 0xFFL) << 40)
+			      | ((data[offset + 6] & 0xFFL) << 48)
+			      | ((data[offset + 7] & 0xFFL) << 56);
+		}
+
+		private static int getInt(final byte[] data, final int offset) {
+
+			return   (data[offset]     & 0xFF)
+			      | ((data[offset + 1] & 0xFF) << 8)
+			      | ((data[offset + 2] & 0xFF) << 16)
+			      | ((data[offset + 3] & 0xFF) << 24);
+		}
+	}
+}
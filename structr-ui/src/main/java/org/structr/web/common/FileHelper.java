@@ -28,7 +28,6 @@ import java.util.Date;
 import java.util.List;
 import java.util.UUID;
 import javax.activation.MimetypesFileTypeMap;
-import net.openhft.hashing.LongHashFunction;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
@@ -262,8 +261,11 @@ public class FileHelper {
 	 */
 	public static void setFileData(final File file, final InputStream fileStream, final String contentType) throws FrameworkException, IOException {
 
-		FileHelper.writeToFile(file, fileStream);
-		setFileProperties(file, contentType);
+		// calculate checksums while the data is written to avoid re-reading the file
+		final ChecksumCalculator calculator = new ChecksumCalculator(getEnabledChecksums(file));
+
+		FileHelper.writeToFile(file, calculator.wrap(fileStream));
+		setFileProperties(file, contentType, calculator.getProperties());
 	}
 
 	/**
@@ -275,6 +277,20 @@ public class FileHelper {
 	 * @throws IOException
 	 */
 	public static void setFileProperties (final File file, final String contentType) throws IOException, FrameworkException {
+		setFileProperties(file, contentType, getChecksums(file, file.getFileOnDisk(false)));
+	}
+
+	/**
+	 * Set the contentType, size and version properties of the given fileNode,
+	 * together with the given, already calculated checksums.
+	 *
+	 * @param file
+	 * @param contentType if null, try to auto-detect content type
+	 * @param checksums
+	 * @throws FrameworkException
+	 * @throws IOException
+	 */
+	private static void setFileProperties (final File file, final String contentType, final PropertyMap checksums) throws IOException, FrameworkException {
 
 		final java.io.File fileOnDisk = file.getFileOnDisk(false);
 		final PropertyMap map         = new PropertyMap();
@@ -283,7 +299,7 @@ public class FileHelper {
 		map.put(StructrApp.key(File.class, "size"),        FileHelper.getSize(fileOnDisk));
 		map.put(StructrApp.key(File.class, "version"),     1);
 
-		map.putAll(getChecksums(file, fileOnDisk));
+		map.putAll(checksums);
 
 		file.setProperties(file.getSecurityContext(), map);
 	}
@@ -314,7 +330,8 @@ public class FileHelper {
 	}
 
 	/**
-	 * Calculate checksums that are configured in settings of parent folder.
+	 * Calculate checksums that are configured in settings of parent folder
+	 * in a single pass over the file content.
 	 *
 	 * @param file
 	 * @param fileOnDisk
@@ -323,7 +340,22 @@ public class FileHelper {
 	 */
 	private static PropertyMap getChecksums(final File file, final java.io.File fileOnDisk) throws IOException {
 
-		final PropertyMap propertiesWithChecksums = new PropertyMap();
+		// New, very fast xxHash default checksum, will always be calculated
+		final ChecksumCalculator calculator = new ChecksumCalculator(getEnabledChecksums(file));
+
+		calculator.update(fileOnDisk);
+
+		return calculator.getProperties();
+	}
+
+	/**
+	 * Return the checksums enabled in the nearest parent folder that has
+	 * a setting, or the default checksums.
+	 *
+	 * @param file
+	 * @return
+	 */
+	private static String getEnabledChecksums(final File file) {
 
 		Folder parentFolder = file.getParent();
 		String checksums = null;
@@ -338,26 +370,7 @@ public class FileHelper {
 			checksums = Settings.DefaultChecksums.getValue();
 		}
 
-		// New, very fast xxHash default checksum, will always be calculated
-		propertiesWithChecksums.put(StructrApp.key(File.class, "checksum"), FileHelper.getChecksum(fileOnDisk));
-
-		if (StringUtils.contains(checksums, "crc32"))	{
-			propertiesWithChecksums.put(StructrApp.key(File.class, "crc32"), FileHelper.getChecksum(fileOnDisk));
-		}
-
-		if (StringUtils.contains(checksums, "md5"))	{
-			propertiesWithChecksums.put(StructrApp.key(File.class, "md5"), FileHelper.getMD5Checksum(file));
-		}
-
-		if (StringUtils.contains(checksums, "sha1"))	{
-			propertiesWithChecksums.put(StructrApp.key(File.class, "sha1"), FileHelper.getSHA1Checksum(file));
-		}
-
-		if (StringUtils.contains(checksums, "sha512"))	{
-			propertiesWithChecksums.put(StructrApp.key(File.class, "sha512"), FileHelper.getSHA512Checksum(file));
-		}
-
-		return propertiesWithChecksums;
+		return checksums;
 	}
 	/**
 	 * Update checksums, content type, size and additional properties of the given file
@@ -739,7 +752,12 @@ public class FileHelper {
 	}
 
 	public static Long getChecksum(final java.io.File fileOnDisk) throws IOException {
-		return LongHashFunction.xx().hashBytes(FileUtils.readFileToByteArray(fileOnDisk));
+
+		final ChecksumCalculator calculator = new ChecksumCalculator(null);
+
+		calculator.update(fileOnDisk);
+
+		return calculator.getChecksum();
 	}
 
 	public static Long getCRC32Checksum(final java.io.File fileOnDisk) throws IOException {
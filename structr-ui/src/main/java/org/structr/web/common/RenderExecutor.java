@@ -0,0 +1,160 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.structr.api.config.Settings;
+
+/**
+ * Bounded thread pool for asynchronous page rendering.
+ *
+ * Render tasks that exceed the configured queue size are rejected so
+ * the caller can answer with an error instead of spawning an unbounded
+ * number of threads. The time tasks spend waiting in the queue is
+ * recorded and can be inspected with the renderStatus maintenance command.
+ */
+public class RenderExecutor {
+
+	private static final Logger logger          = LoggerFactory.getLogger(RenderExecutor.class.getName());
+	private static final AtomicLong submitted   = new AtomicLong();
+	private static final AtomicLong rejected    = new AtomicLong();
+	private static final AtomicLong started     = new AtomicLong();
+	private static final AtomicLong queueTime   = new AtomicLong();
+	private static final AtomicLong maxWaitTime = new AtomicLong();
+	private static ThreadPoolExecutor executor  = null;
+
+	/**
+	 * Submits the given render task.
+	 *
+	 * @param task
+	 *
+	 * @return false if the task was rejected because the queue is full
+	 */
+	public static boolean submit(final Runnable task) {
+
+		try {
+
+			getExecutor().execute(new RenderTask(task));
+			submitted.incrementAndGet();
+
+			return true;
+
+		} catch (RejectedExecutionException rex) {
+
+			rejected.incrementAndGet();
+
+			logger.warn("Render queue is full ({} waiting, {} active), rejecting request.", getQueueSize(), getActiveCount());
+		}
+
+		return false;
+	}
+
+	public static int getActiveCount() {
+		return getExecutor().getActiveCount();
+	}
+
+	public static int getQueueSize() {
+		return getExecutor().getQueue().size();
+	}
+
+	public static long getSubmittedCount() {
+		return submitted.get();
+	}
+
+	public static long getCompletedCount() {
+		return getExecutor().getCompletedTaskCount();
+	}
+
+	public static long getRejectedCount() {
+		return rejected.get();
+	}
+
+	/**
+	 * @return the average time in milliseconds a task waited for a render thread
+	 */
+	public static long getAverageQueueTime() {
+
+		final long count = started.get();
+		if (count > 0) {
+
+			return TimeUnit.NANOSECONDS.toMillis(queueTime.get() / count);
+		}
+
+		return 0L;
+	}
+
+	/**
+	 * @return the maximum time in milliseconds a task waited for a render thread
+	 */
+	public static long getMaxQueueTime() {
+		return TimeUnit.NANOSECONDS.toMillis(maxWaitTime.get());
+	}
+
+	// ----- private methods -----
+	private static synchronized ThreadPoolExecutor getExecutor() {
+
+		if (executor == null) {
+
+			final AtomicInteger threadCount = new AtomicInteger();
+			final int threads               = Math.max(1, Settings.RenderThreads.getValue());
+
+			executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(Math.max(1, Settings.RenderQueueSize.getValue())), (runnable) -> {
+
+				final Thread thread = new Thread(runnable, "RenderThread-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+
+				return thread;
+			});
+
+			executor.allowCoreThreadTimeOut(true);
+		}
+
+		return executor;
+	}
+
+	// ----- nested classes -----
+	private static class RenderTask implements Runnable {
+
+		private final long queued   = System.nanoTime();
+		private Runnable task       = null;
+
+		public RenderTask(final Runnable task) {
+			this.task = task;
+		}
+
+		@Override
+		public void run() {
+
+			final long waitTime = System.nanoTime() - queued;
+
+			started.incrementAndGet();
+			queueTime.addAndGet(waitTime);
+			maxWaitTime.accumulateAndGet(waitTime, Math::max);
+
+			task.run();
+		}
+	}
+}
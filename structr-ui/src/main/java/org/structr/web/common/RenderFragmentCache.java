@@ -0,0 +1,256 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.commons.lang3.StringUtils;
+import org.structr.api.config.Settings;
+import org.structr.api.graph.Node;
+import org.structr.api.util.FixedSizeCache;
+import org.structr.common.SecurityContext;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.graph.RelationshipInterface;
+import org.structr.web.entity.dom.Content;
+import org.structr.web.entity.dom.DOMElement;
+import org.structr.web.entity.dom.DOMNode;
+
+/**
+ * Cache for the rendered markup of static DOM subtrees.
+ *
+ * A subtree is static if none of its nodes contains a script expression,
+ * a data binding, a query, a render condition, a shared component
+ * configuration or an action attribute, so its output only depends on
+ * the nodes themselves. Fragments are only used for anonymous requests
+ * in the default edit mode, keyed by node, depth, locale, detail mode
+ * and indentation.
+ *
+ * All entries are dropped whenever a DOM node is created, modified or
+ * deleted. Both the fragments and the static state of the examined
+ * subtrees are limited to the configured cache size.
+ */
+public class RenderFragmentCache {
+
+	private static final FixedSizeCache<String, Fragment> fragments     = new FixedSizeCache<>(Math.max(1, Settings.FragmentCacheSize.getValue()));
+	private static final FixedSizeCache<String, Boolean> staticSubtrees = new FixedSizeCache<>(Math.max(1, Settings.FragmentCacheSize.getValue()));
+	private static final AtomicLong generation                          = new AtomicLong();
+
+	/**
+	 * Renders the given node from the cache if possible, otherwise renders
+	 * it and stores the output if the node's subtree is static.
+	 *
+	 * @param node
+	 * @param renderContext
+	 * @param depth
+	 *
+	 * @return false if the node can not be rendered from the cache and must be rendered normally
+	 *
+	 * @throws FrameworkException
+	 */
+	public static boolean render(final DOMNode node, final RenderContext renderContext, final int depth) throws FrameworkException {
+
+		final AsyncBuffer out = renderContext.getBuffer();
+
+		// nodes inside of a fragment that is currently being rendered are part of that fragment
+		if (out instanceof FragmentBuffer || !isCacheable(node, renderContext)) {
+			return false;
+		}
+
+		final String key      = getKey(node, renderContext, depth);
+		final Fragment cached = fragments.get(key);
+
+		if (cached != null) {
+
+			out.append(cached.content);
+
+			if (cached.setsInBody) {
+				renderContext.setInBody(true);
+			}
+
+			return true;
+		}
+
+		final long startGeneration  = generation.get();
+		final boolean wasInBody     = renderContext.inBody();
+		final FragmentBuffer buffer = new FragmentBuffer();
+
+		renderContext.setBuffer(buffer);
+
+		try {
+
+			node.renderContent(renderContext, depth);
+
+		} finally {
+
+			renderContext.setBuffer(out);
+		}
+
+		final String content = StringUtils.join(buffer.getQueue(), "");
+
+		out.append(content);
+
+		// do not store fragments rendered during a concurrent modification
+		if (startGeneration == generation.get()) {
+
+			fragments.put(key, new Fragment(content, !wasInBody && renderContext.inBody()));
+		}
+
+		return true;
+	}
+
+	/**
+	 * Drops all cached fragments.
+	 */
+	public static void invalidate() {
+
+		generation.incrementAndGet();
+		fragments.clear();
+		staticSubtrees.clear();
+	}
+
+	public static int size() {
+		return fragments.size();
+	}
+
+	public static int getStaticSubtreeCount() {
+		return staticSubtrees.size();
+	}
+
+	// ----- private methods -----
+	private static boolean isCacheable(final DOMNode node, final RenderContext renderContext) {
+
+		if (Settings.FragmentCacheSize.getValue() <= 0) {
+			return false;
+		}
+
+		// anonymous requests are always rendered in the default edit mode
+		final SecurityContext securityContext = renderContext.getSecurityContext();
+		if (securityContext.getUser(false) != null || securityContext.isSuperUser()) {
+			return false;
+		}
+
+		return isStaticSubtree(node);
+	}
+
+	private static boolean isStaticSubtree(final DOMNode node) {
+
+		final long startGeneration = generation.get();
+		final String uuid          = node.getUuid();
+		final Boolean cached       = staticSubtrees.get(uuid);
+
+		if (cached != null) {
+			return cached;
+		}
+
+		boolean isStatic = isStaticNode(node);
+		if (isStatic) {
+
+			final List<RelationshipInterface> rels = node.getChildRelationships();
+			if (rels.isEmpty()) {
+
+				// No child relationships, maybe this node is in sync with another node
+				final DOMNode sharedComponent = node.getSharedComponent();
+				if (sharedComponent != null) {
+
+					rels.addAll(sharedComponent.getChildRelationships());
+				}
+			}
+
+			for (final RelationshipInterface rel : rels) {
+
+				if (!isStaticSubtree((DOMNode)rel.getTargetNode())) {
+
+					isStatic = false;
+					break;
+				}
+			}
+		}
+
+		if (startGeneration == generation.get()) {
+			staticSubtrees.put(uuid, isStatic);
+		}
+
+		return isStatic;
+	}
+
+	private static boolean isStaticNode(final DOMNode node) {
+
+		// pages and other special node types have their own rendering logic
+		if (!(node instanceof DOMElement || node instanceof Content)) {
+			return false;
+		}
+
+		if (node.dontCache()) {
+			return false;
+		}
+
+		if (StringUtils.isNotBlank(node.getDataKey()) || StringUtils.isNotBlank(node.getRestQuery()) || StringUtils.isNotBlank(node.getCypherQuery()) || StringUtils.isNotBlank(node.getXpathQuery()) || StringUtils.isNotBlank(node.getFunctionQuery())) {
+			return false;
+		}
+
+		if (StringUtils.isNotBlank(node.getShowConditions()) || StringUtils.isNotBlank(node.getHideConditions()) || StringUtils.isNotBlank(node.getSharedComponentConfiguration())) {
+			return false;
+		}
+
+		// examine raw values of content, HTML attributes and data-* attributes
+		final Node dbNode = node.getNode();
+		for (final String name : dbNode.getPropertyKeys()) {
+
+			if ("data-structr-action".equals(name)) {
+				return false;
+			}
+
+			final Object value = dbNode.getProperty(name);
+			if (value instanceof String && ((String)value).contains("${")) {
+
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static String getKey(final DOMNode node, final RenderContext renderContext, final int depth) {
+
+		final StringBuilder buf = new StringBuilder(node.getUuid());
+
+		buf.append(":").append(depth);
+		buf.append(":").append(renderContext.getLocale());
+		buf.append(":").append(renderContext.getDetailsDataObject() != null);
+		buf.append(":").append(renderContext.shouldIndentHtml());
+
+		return buf.toString();
+	}
+
+	// ----- nested classes -----
+	private static class FragmentBuffer extends AsyncBuffer {
+	}
+
+	private static class Fragment {
+
+		private String content     = null;
+		private boolean setsInBody = false;
+
+		public Fragment(final String content, final boolean setsInBody) {
+
+			this.content    = content;
+			this.setsInBody = setsInBody;
+		}
+	}
+}
@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.graph.MaintenanceCommand;
+import org.structr.core.graph.NodeServiceCommand;
+import org.structr.rest.resource.MaintenanceParameterResource;
+
+/**
+ * Maintenance command that returns the thread and queue statistics
+ * of the asynchronous page rendering.
+ */
+public class RenderStatusCommand extends NodeServiceCommand implements MaintenanceCommand {
+
+	private Map<String, Object> status = null;
+
+	static {
+
+		MaintenanceParameterResource.registerMaintenanceCommand("renderStatus", RenderStatusCommand.class);
+	}
+
+	@Override
+	public void execute(final Map<String, Object> attributes) throws FrameworkException {
+
+		status = new LinkedHashMap<>();
+
+		status.put("activeThreads",  RenderExecutor.getActiveCount());
+		status.put("queueSize",      RenderExecutor.getQueueSize());
+		status.put("submitted",      RenderExecutor.getSubmittedCount());
+		status.put("completed",      RenderExecutor.getCompletedCount());
+		status.put("rejected",       RenderExecutor.getRejectedCount());
+		status.put("averageQueueMs", RenderExecutor.getAverageQueueTime());
+		status.put("maxQueueMs",     RenderExecutor.getMaxQueueTime());
+	}
+
+	@Override
+	public Object getCommandResult() {
+		return status;
+	}
+
+	@Override
+	public boolean requiresEnclosingTransaction() {
+		return false;
+	}
+
+	@Override
+	public boolean requiresFlushingOfCaches() {
+		return false;
+	}
+}
@@ -0,0 +1,309 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.structr.api.config.Settings;
+
+/**
+ * Render buffer for asynchronous streaming of page output.
+ *
+ * Rendered strings are encoded to UTF-8 directly into fixed-size byte
+ * chunks which are handed over to the writing thread through a bounded
+ * queue. When the client does not consume the output fast enough, the
+ * render thread is paused until a chunk becomes available, or aborted
+ * after the configured write timeout. Chunks are recycled through a
+ * shared pool.
+ *
+ * The writing thread does not wait for output. When no chunk is available,
+ * it registers with {@link #awaitData} and returns, and the data listener
+ * is called as soon as the render thread has queued the next chunk.
+ */
+public class StreamingRenderBuffer extends AsyncBuffer {
+
+	private static final ByteBuffer END_OF_OUTPUT = ByteBuffer.allocate(0);
+	private static final Queue<ByteBuffer> pool   = new ConcurrentLinkedQueue<>();
+	private static final AtomicInteger poolSize   = new AtomicInteger();
+	private static final int maxPoolSize          = 1024;
+
+	private final CharsetEncoder encoder         = StandardCharsets.UTF_8.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+	private final AtomicBoolean waiting          = new AtomicBoolean();
+	private final BlockingQueue<ByteBuffer> full;
+	private final long timeout;
+	private final int chunkSize;
+	private volatile Runnable dataListener       = null;
+	private volatile boolean drained             = false;
+	private volatile boolean closed              = false;
+	private ByteBuffer current                   = null;
+	private char highSurrogate                   = 0;
+
+	public StreamingRenderBuffer() {
+		this(Settings.RenderChunkSize.getValue(), Settings.RenderMaxChunks.getValue(), TimeUnit.SECONDS.toMillis(Settings.RenderWriteTimeout.getValue()));
+	}
+
+	public StreamingRenderBuffer(final int chunkSize, final int maxChunks, final long timeout) {
+
+		this.full      = new ArrayBlockingQueue<>(Math.max(1, maxChunks));
+		this.chunkSize = Math.max(64, chunkSize);
+		this.timeout   = timeout;
+	}
+
+	@Override
+	public AsyncBuffer append(final String s) {
+
+		if (s != null && !s.isEmpty()) {
+
+			assertOpen();
+
+			final CharBuffer in;
+
+			if (highSurrogate != 0) {
+
+				in = CharBuffer.wrap(highSurrogate + s);
+				highSurrogate = 0;
+
+			} else {
+
+				in = CharBuffer.wrap(s);
+			}
+
+			encode(in, false);
+
+			// keep a trailing high surrogate until its low surrogate arrives
+			if (in.hasRemaining()) {
+				highSurrogate = in.get();
+			}
+		}
+
+		return this;
+	}
+
+	/**
+	 * Flushes the last partial chunk and marks the output as complete.
+	 * Must be called by the render thread after rendering.
+	 */
+	public void finish() {
+
+		try {
+
+			if (!closed) {
+
+				final CharBuffer in = highSurrogate != 0 ? CharBuffer.wrap(new char[] { highSurrogate }) : CharBuffer.allocate(0);
+
+				highSurrogate = 0;
+
+				encode(in, true);
+
+				while (encoder.flush(getCurrent()).isOverflow()) {
+					emit();
+				}
+
+				encoder.reset();
+
+				if (current != null && current.position() > 0) {
+					emit();
+				}
+
+				// wake up the writing thread
+				enqueue(END_OF_OUTPUT);
+			}
+
+		} catch (IllegalStateException ise) {
+
+			// client has gone away, output was discarded by close()
+		}
+	}
+
+	/**
+	 * Discards all buffered output and causes subsequent calls to
+	 * {@link #append} to fail, so a render thread whose client has
+	 * gone away stops early.
+	 */
+	public void close() {
+
+		closed = true;
+
+		ByteBuffer chunk = full.poll();
+		while (chunk != null) {
+
+			recycle(chunk);
+			chunk = full.poll();
+		}
+
+		// a waiting writer must finish the response
+		signal();
+	}
+
+	/**
+	 * Sets the listener that is called when a chunk becomes available
+	 * after the writing thread has called {@link #awaitData}. The
+	 * listener is called on the render thread.
+	 *
+	 * @param dataListener
+	 */
+	public void setDataListener(final Runnable dataListener) {
+		this.dataListener = dataListener;
+	}
+
+	/**
+	 * Registers the writing thread for a call of the data listener when
+	 * the next chunk is available.
+	 *
+	 * @return false if output became available in the meantime, so the caller must poll again
+	 */
+	public boolean awaitData() {
+
+		waiting.set(true);
+
+		if (!full.isEmpty() || closed) {
+
+			// if the render thread has already reset the flag, it calls the listener
+			return !waiting.compareAndSet(true, false);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Returns the next chunk of output without waiting. The chunk must
+	 * be passed to {@link #recycle} when it has been written.
+	 *
+	 * @return the next chunk, or null if no chunk is available or the output is complete
+	 */
+	public ByteBuffer poll() {
+
+		final ByteBuffer chunk = full.poll();
+		if (chunk == END_OF_OUTPUT) {
+
+			drained = true;
+
+			return null;
+		}
+
+		return chunk;
+	}
+
+	/**
+	 * @return true if all output has been returned by {@link #poll}
+	 */
+	public boolean isDrained() {
+		return drained;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	public void recycle(final ByteBuffer chunk) {
+
+		if (chunk.capacity() == chunkSize && poolSize.get() < maxPoolSize) {
+
+			chunk.clear();
+
+			poolSize.incrementAndGet();
+			pool.add(chunk);
+		}
+	}
+
+	// ----- private methods -----
+	private void encode(final CharBuffer in, final boolean endOfInput) {
+
+		while (encoder.encode(in, getCurrent(), endOfInput).isOverflow()) {
+			emit();
+		}
+	}
+
+	private ByteBuffer getCurrent() {
+
+		if (current == null) {
+
+			current = pool.poll();
+			if (current != null) {
+
+				poolSize.decrementAndGet();
+			}
+
+			if (current == null || current.capacity() != chunkSize) {
+
+				current = ByteBuffer.allocate(chunkSize);
+			}
+		}
+
+		return current;
+	}
+
+	private void emit() {
+
+		final ByteBuffer chunk = current;
+
+		current = null;
+		chunk.flip();
+
+		enqueue(chunk);
+		assertOpen();
+	}
+
+	private void enqueue(final ByteBuffer chunk) {
+
+		try {
+
+			if (!full.offer(chunk, timeout, TimeUnit.MILLISECONDS)) {
+
+				close();
+				throw new IllegalStateException("Client did not accept rendered output within " + timeout + " ms, aborting.");
+			}
+
+			signal();
+
+		} catch (InterruptedException iex) {
+
+			Thread.currentThread().interrupt();
+			close();
+
+			throw new IllegalStateException("Interrupted while waiting for client to accept rendered output.");
+		}
+	}
+
+	private void signal() {
+
+		final Runnable listener = dataListener;
+
+		if (waiting.compareAndSet(true, false) && listener != null) {
+			listener.run();
+		}
+	}
+
+	private void assertOpen() {
+
+		if (closed) {
+			throw new IllegalStateException("Render buffer closed, client connection was terminated.");
+		}
+	}
+}
@@ -0,0 +1,236 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.structr.api.config.Settings;
+import org.structr.common.AccessMode;
+import org.structr.common.PropertyView;
+import org.structr.common.SecurityContext;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.app.App;
+import org.structr.core.app.StructrApp;
+import org.structr.core.entity.Principal;
+import org.structr.core.graph.TransactionCommand;
+import org.structr.core.graph.Tx;
+import org.structr.core.property.PropertyKey;
+import org.structr.web.entity.Image;
+import org.structr.web.property.ThumbnailProperty;
+
+/**
+ * Creates thumbnails in a bounded pool of background worker threads.
+ *
+ * Requests are queued when the requesting transaction is committed, and
+ * run with the security context of the requesting user. Requests for the
+ * same image, size and crop mode are coalesced while a thumbnail is
+ * waiting to be created, and requests that exceed the queue size are
+ * dropped, so they will be repeated by the next read.
+ */
+public class ThumbnailGenerator {
+
+	private static final Logger logger                = LoggerFactory.getLogger(ThumbnailGenerator.class.getName());
+	private static final Map<String, Boolean> pending = new ConcurrentHashMap<>();
+	private static ThreadPoolExecutor executor        = null;
+
+	/**
+	 * Schedules the creation of a thumbnail of the given image after the
+	 * current transaction is committed, unless the same thumbnail is
+	 * already waiting to be created.
+	 *
+	 * @param image
+	 * @param maxWidth
+	 * @param maxHeight
+	 * @param cropToFit
+	 */
+	public static void schedule(final Image image, final int maxWidth, final int maxHeight, final boolean cropToFit) {
+
+		final SecurityContext securityContext = image.getSecurityContext();
+		final String uuid                     = image.getUuid();
+		final String key                      = getKey(uuid, maxWidth, maxHeight, cropToFit);
+		final ThumbnailTask task              = new ThumbnailTask(key, uuid, maxWidth, maxHeight, cropToFit, securityContext);
+
+		// the image may have been created in the current transaction, so it is only visible to the worker after the commit
+		TransactionCommand.afterCommit("thumbnail " + key, () -> enqueue(task));
+	}
+
+	/**
+	 * Schedules the creation of all thumbnails that are defined as
+	 * thumbnail properties in the schema of the given image's type.
+	 *
+	 * @param image
+	 */
+	public static void scheduleConfiguredThumbnails(final Image image) {
+
+		for (final PropertyKey key : StructrApp.getConfiguration().getPropertySet(image.getClass(), PropertyView.All)) {
+
+			if (key instanceof ThumbnailProperty) {
+
+				final ThumbnailProperty thumbnailProperty = (ThumbnailProperty)key;
+
+				schedule(image, thumbnailProperty.getWidth(), thumbnailProperty.getHeight(), thumbnailProperty.getCrop());
+			}
+		}
+	}
+
+	public static boolean isPending(final Image image, final int maxWidth, final int maxHeight, final boolean cropToFit) {
+		return pending.containsKey(getKey(image.getUuid(), maxWidth, maxHeight, cropToFit));
+	}
+
+	public static int getPendingCount() {
+		return pending.size();
+	}
+
+	// ----- private methods -----
+	private static void enqueue(final ThumbnailTask task) {
+
+		if (pending.putIfAbsent(task.key, Boolean.TRUE) != null) {
+
+			// coalesce with pending request
+			return;
+		}
+
+		try {
+
+			getExecutor().execute(task);
+
+		} catch (RejectedExecutionException rex) {
+
+			pending.remove(task.key);
+
+			logger.debug("Thumbnail queue is full, not creating thumbnail for {}", task.uuid);
+		}
+	}
+
+	private static String getKey(final String uuid, final int maxWidth, final int maxHeight, final boolean cropToFit) {
+		return uuid + "_" + maxWidth + "x" + maxHeight + (cropToFit ? "_cropped" : "");
+	}
+
+	private static synchronized ThreadPoolExecutor getExecutor() {
+
+		if (executor == null) {
+
+			final AtomicInteger threadCount = new AtomicInteger();
+			final int threads               = Math.max(1, Settings.ThumbnailThreads.getValue());
+
+			executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(Math.max(1, Settings.ThumbnailQueueSize.getValue())), (runnable) -> {
+
+				final Thread thread = new Thread(runnable, "ThumbnailGenerator-" + threadCount.incrementAndGet());
+				thread.setDaemon(true);
+
+				return thread;
+			});
+
+			executor.allowCoreThreadTimeOut(true);
+		}
+
+		return executor;
+	}
+
+	// ----- nested classes -----
+	private static class ThumbnailTask implements Runnable {
+
+		private String key           = null;
+		private String uuid          = null;
+		private String userId        = null;
+		private AccessMode mode      = null;
+		private boolean superUser    = false;
+		private int maxWidth         = 0;
+		private int maxHeight        = 0;
+		private boolean crop         = false;
+
+		public ThumbnailTask(final String key, final String uuid, final int maxWidth, final int maxHeight, final boolean crop, final SecurityContext securityContext) {
+
+			final Principal user = securityContext != null ? securityContext.getUser(false) : null;
+
+			this.key       = key;
+			this.uuid      = uuid;
+			this.maxWidth  = maxWidth;
+			this.maxHeight = maxHeight;
+			this.crop      = crop;
+			this.superUser = securityContext == null || securityContext.isSuperUserSecurityContext();
+			this.userId    = user != null ? user.getUuid() : null;
+			this.mode      = securityContext != null ? securityContext.getAccessMode() : AccessMode.Backend;
+		}
+
+		@Override
+		public void run() {
+
+			try {
+
+				final App app = StructrApp.getInstance(getSecurityContext());
+
+				try (final Tx tx = app.tx()) {
+
+					// the image is read with the permissions of the requesting user
+					final Image image = app.get(Image.class, uuid);
+					if (image != null) {
+
+						Image.getScaledImage(image, maxWidth, maxHeight, crop);
+
+					} else {
+
+						logger.debug("Image {} not found, unable to create thumbnail", uuid);
+					}
+
+					tx.success();
+				}
+
+			} catch (FrameworkException fex) {
+
+				logger.warn("Unable to create thumbnail for {}: {}", uuid, fex.getMessage());
+
+			} finally {
+
+				pending.remove(key);
+			}
+		}
+
+		// ----- private methods -----
+		private SecurityContext getSecurityContext() throws FrameworkException {
+
+			if (superUser) {
+				return SecurityContext.getSuperUserInstance();
+			}
+
+			Principal user = null;
+
+			if (userId != null) {
+
+				final App app = StructrApp.getInstance();
+
+				try (final Tx tx = app.tx()) {
+
+					user = app.get(Principal.class, userId);
+
+					tx.success();
+				}
+			}
+
+			return SecurityContext.getInstance(user, mode);
+		}
+	}
+}
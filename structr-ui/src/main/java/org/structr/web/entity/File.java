@@ -75,6 +75,7 @@ import org.structr.schema.json.JsonSchema;
 import org.structr.web.common.ClosingFileOutputStream;
 import org.structr.web.common.FileHelper;
 import org.structr.web.common.RenderContext;
+import org.structr.web.common.ThumbnailGenerator;
 import org.structr.web.importer.CSVFileImportJob;
 import org.structr.web.importer.XMLFileImportJob;
 import org.structr.web.property.FileDataProperty;
@@ -354,6 +355,12 @@ public interface File extends AbstractFile, Indexable, Linkable, JavaScriptSourc
 			final FulltextIndexer indexer = StructrApp.getInstance(thisFile.getSecurityContext()).getFulltextIndexer();
 			indexer.addToFulltextIndex(thisFile);
 
+			// create thumbnails in the background so they are available on first access
+			if (thisFile instanceof Image && !((Image)thisFile).isThumbnail() && Settings.ThumbnailPregeneration.getValue()) {
+
+				ThumbnailGenerator.scheduleConfiguredThumbnails((Image)thisFile);
+			}
+
 		} catch (FrameworkException fex) {
 
 			logger.warn("Unable to index {}: {}", thisFile, fex.getMessage());
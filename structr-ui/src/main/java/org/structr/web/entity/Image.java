@@ -45,6 +45,7 @@ import org.structr.schema.json.JsonSchema.Cascade;
 import org.structr.web.common.FileHelper;
 import org.structr.web.common.ImageHelper;
 import org.structr.web.common.ImageHelper.Thumbnail;
+import org.structr.web.common.ThumbnailGenerator;
 import org.structr.web.property.ImageDataProperty;
 import org.structr.web.property.ThumbnailProperty;
 
@@ -332,6 +333,24 @@ public interface Image extends File {
 	 * @return scaled image
 	 * */
 	public static Image getScaledImage(final Image thisImage, final int maxWidth, final int maxHeight, final boolean cropToFit) {
+		return getScaledImage(thisImage, maxWidth, maxHeight, cropToFit, false);
+	}
+
+	/**
+	 * Get (down-)scaled image of this image
+	 *
+	 * If createAsynchronously is true, a missing or outdated thumbnail is
+	 * created by the {@link ThumbnailGenerator}, and the original image is
+	 * returned until the thumbnail is available.
+	 *
+	 * @param maxWidth
+	 * @param maxHeight
+	 * @param cropToFit if true, scale down until the shorter edge fits inside the rectangle, and then crop
+	 * @param createAsynchronously
+	 *
+	 * @return scaled image
+	 * */
+	public static Image getScaledImage(final Image thisImage, final int maxWidth, final int maxHeight, final boolean cropToFit, final boolean createAsynchronously) {
 
 		final Class<Relation> thumbnailRel              = StructrApp.getConfiguration().getRelationshipEntityClass("ImageTHUMBNAILImage");
 		final Iterable<Relation> thumbnailRelationships = thisImage.getOutgoingRelationships(thumbnailRel);
@@ -346,6 +365,12 @@ public interface Image extends File {
 
 		if (currentChecksum == null || currentChecksum == 0) {
 
+			if (createAsynchronously) {
+
+				ThumbnailGenerator.schedule(thisImage, maxWidth, maxHeight, cropToFit);
+				return thisImage;
+			}
+
 			try {
 
 				newChecksum = FileHelper.getChecksum(originalImage.getFileOnDisk());
@@ -365,9 +390,6 @@ public interface Image extends File {
 			newChecksum = currentChecksum;
 		}
 
-		// Read Exif and GPS data from image and update properties
-		ImageHelper.getExifData(originalImage);
-
 		// Return self if SVG image
 		final String _contentType = thisImage.getContentType();
 		if (_contentType != null && (_contentType.startsWith("image/svg") || (_contentType.startsWith("image/") && _contentType.endsWith("icon")))) {
@@ -408,6 +430,12 @@ public interface Image extends File {
 
 		}
 
+		if (createAsynchronously) {
+
+			ThumbnailGenerator.schedule(thisImage, maxWidth, maxHeight, cropToFit);
+			return thisImage;
+		}
+
 		// do not create thumbnails if this transaction is set to read-only
 		if (securityContext.isReadOnlyTransaction()) {
 			return null;
@@ -432,6 +460,9 @@ public interface Image extends File {
 				originalImage.unlockSystemPropertiesOnce();
 				originalImage.setProperty(StructrApp.key(File.class, "checksum"), newChecksum);
 
+				// Read Exif and GPS data from image and update properties
+				ImageHelper.getExifData(originalImage);
+
 				final Thumbnail thumbnailData = ImageHelper.createThumbnail(originalImage, maxWidth, maxHeight, cropToFit);
 				if (thumbnailData != null) {
 
@@ -57,6 +57,7 @@ import org.structr.core.entity.Security;
 import org.structr.core.graph.ModificationQueue;
 import org.structr.core.graph.NodeInterface;
 import org.structr.core.graph.RelationshipInterface;
+import org.structr.core.graph.TransactionCommand;
 import org.structr.core.property.BooleanProperty;
 import org.structr.core.property.GenericProperty;
 import org.structr.core.property.PropertyKey;
@@ -71,6 +72,7 @@ import org.structr.web.common.AsyncBuffer;
 import org.structr.core.datasources.GraphDataSource;
 import org.structr.web.common.RenderContext;
 import org.structr.web.common.RenderContext.EditMode;
+import org.structr.web.common.RenderFragmentCache;
 import org.structr.web.common.StringRenderBuffer;
 import org.structr.web.entity.LinkSource;
 import org.structr.web.entity.Linkable;
@@ -143,6 +145,11 @@ public interface DOMNode extends NodeInterface, Node, Renderable, DOMAdoptable,
 
 		type.overrideMethod("onCreation",                  true,  DOMNode.class.getName() + ".onCreation(this, arg0, arg1);");
 		type.overrideMethod("onModification",              true,  DOMNode.class.getName() + ".onModification(this, arg0, arg1, arg2);");
+		type.overrideMethod("onDeletion",                  true,  DOMNode.class.getName() + ".onDeletion(this, arg0, arg1, arg2);");
+
+		// invalidate rendered fragments again when the changes have become visible to other transactions
+		type.overrideMethod("afterCreation",               true,  RenderFragmentCache.class.getName() + ".invalidate();");
+		type.overrideMethod("afterModification",           true,  RenderFragmentCache.class.getName() + ".invalidate();");
 
 		type.overrideMethod("getPositionProperty",         false, "return DOMNodeCONTAINSDOMNode.positionProperty;");
 
@@ -395,12 +402,24 @@ public interface DOMNode extends NodeInterface, Node, Renderable, DOMAdoptable,
 	static void onCreation(final DOMNode thisNode, final SecurityContext securityContext, final ErrorBuffer errorBuffer) throws FrameworkException {
 
 		DOMNode.checkName(thisNode, errorBuffer);
+
+		RenderFragmentCache.invalidate();
 	}
 
 	static void onModification(final DOMNode thisNode, final SecurityContext securityContext, final ErrorBuffer errorBuffer, final ModificationQueue modificationQueue) throws FrameworkException {
 
 		DOMNode.increasePageVersion(thisNode);
 		DOMNode.checkName(thisNode, errorBuffer);
+
+		RenderFragmentCache.invalidate();
+	}
+
+	static void onDeletion(final DOMNode thisNode, final SecurityContext securityContext, final ErrorBuffer errorBuffer, final PropertyMap properties) throws FrameworkException {
+
+		RenderFragmentCache.invalidate();
+
+		// invalidate rendered fragments again when the deletion has become visible to other transactions
+		TransactionCommand.afterCommit("invalidateRenderFragments", RenderFragmentCache::invalidate);
 	}
 
 	public static String escapeForHtml(final String raw) {
@@ -1560,7 +1579,7 @@ public interface DOMNode extends NodeInterface, Node, Renderable, DOMAdoptable,
 
 				}
 
-			} else {
+			} else if (!RenderFragmentCache.render(thisNode, renderContext, depth)) {
 
 				thisNode.renderContent(renderContext, depth);
 			}
@@ -18,16 +18,19 @@
  */
 package org.structr.web.function;
 
-import java.util.Date;
 import java.util.Map;
 import org.structr.common.error.FrameworkException;
-import org.structr.core.app.StructrApp;
-import org.structr.core.graph.NodeAttribute;
-import org.structr.core.property.PropertyMap;
-import org.structr.rest.logging.entity.LogEvent;
+import org.structr.rest.logging.LogEventStore;
+import org.structr.rest.logging.LogEventStore.Event;
 import org.structr.schema.action.ActionContext;
 import org.structr.web.entity.dom.DOMNode;
 
+/**
+ * Appends an event to the log event store and returns it as an object
+ * with the properties action, message, subject, object and timestamp.
+ * No LogEvent node is created, so the result has no id and cannot be
+ * used to update or delete the event.
+ */
 public class LogEventFunction extends UiFunction {
 
 	public static final String ERROR_MESSAGE_LOG_EVENT    = "Usage: ${log_event(action, message)}. Example: ${log_event('read', 'Book has been read')}";
@@ -51,13 +54,7 @@ public class LogEventFunction extends UiFunction {
 			final String subject = DOMNode.objectToString(map.get("subject"));
 			final String object  = DOMNode.objectToString(map.get("object"));
 
-			return StructrApp.getInstance().create(LogEvent.class,
-				new NodeAttribute(LogEvent.actionProperty, action),
-				new NodeAttribute(LogEvent.messageProperty, message),
-				new NodeAttribute(LogEvent.timestampProperty, new Date()),
-				new NodeAttribute(LogEvent.subjectProperty, subject),
-				new NodeAttribute(LogEvent.objectProperty, object)
-			);
+			return store(new Event(System.currentTimeMillis(), subject, object, action, message));
 
 		} else {
 
@@ -65,29 +62,12 @@ public class LogEventFunction extends UiFunction {
 
 				assertArrayHasMinLengthAndMaxLengthAndAllElementsNotNull(sources, 2, 4);
 
-				final String action = sources[0].toString();
+				final String action  = sources[0].toString();
 				final String message = sources[1].toString();
+				final String subject = sources.length > 2 ? sources[2].toString() : null;
+				final String object  = sources.length > 3 ? sources[3].toString() : null;
 
-				final LogEvent logEvent = StructrApp.getInstance().create(LogEvent.class,
-					new NodeAttribute(LogEvent.actionProperty, action),
-					new NodeAttribute(LogEvent.messageProperty, message),
-					new NodeAttribute(LogEvent.timestampProperty, new Date())
-				);
-
-				switch (sources.length) {
-
-					case 4:
-						final String object = sources[3].toString();
-						logEvent.setProperties(logEvent.getSecurityContext(), new PropertyMap(LogEvent.objectProperty, object));
-						// no break, next case should be included
-
-					case 3:
-						final String subject = sources[2].toString();
-						logEvent.setProperties(logEvent.getSecurityContext(), new PropertyMap(LogEvent.subjectProperty, subject));
-						break;
-				}
-
-				return logEvent;
+				return store(new Event(System.currentTimeMillis(), subject, object, action, message));
 
 			} catch (IllegalArgumentException e) {
 
@@ -104,6 +84,14 @@ public class LogEventFunction extends UiFunction {
 
 	@Override
 	public String shortDescription() {
-		return "Logs an event to the Structr log";
+		return "Logs an event to the Structr log and returns it as an object without id";
+	}
+
+	// ----- private methods -----
+	private Object store(final Event event) throws FrameworkException {
+
+		LogEventStore.getInstance().append(event);
+
+		return event.toGraphObject();
 	}
 }
@@ -22,12 +22,23 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.api.config.Settings;
 import org.structr.common.AccessMode;
 import org.structr.common.ContextStore;
 import org.structr.common.ResultTransformer;
@@ -50,10 +61,18 @@ public class CSVFileImportJob extends FileImportJob {
 
 	private static final Logger logger = LoggerFactory.getLogger(CSVFileImportJob.class.getName());
 
+	private static final List<JsonInput> END_OF_INPUT = Collections.emptyList();
+
 	private enum IMPORT_TYPE {
 		NODE, REL
 	}
 
+	private final AtomicReference<Throwable> writerError = new AtomicReference<>();
+	private final AtomicInteger overallCount             = new AtomicInteger();
+	private final AtomicInteger chunkCount               = new AtomicInteger();
+	private BlockingQueue<List<JsonInput>> chunkQueue    = null;
+	private int writerThreads                            = 1;
+
 	public CSVFileImportJob(File file, Principal user, Map<String, Object> configuration, final ContextStore ctxStore) throws FrameworkException {
 		super(file, user, configuration, ctxStore);
 	}
@@ -96,6 +115,7 @@ public class CSVFileImportJob extends FileImportJob {
 			final String range                       = getOrDefault(configuration.get("range"), "");
 			final boolean strictQuotes               = getOrDefault(configuration.get("strictQuotes"), false);
 			final Integer commitInterval             = parseInt(configuration.get("commitInterval"), 1000);
+			final Integer threads                    = parseInt(configuration.get("threads"), Settings.CsvImportThreads.getValue());
 
 			logger.info("Importing CSV from {} ({}) to {} using {}", filePath, fileUuid, targetType, configuration);
 
@@ -103,15 +123,9 @@ public class CSVFileImportJob extends FileImportJob {
 			final SimpleDateFormat df      = new SimpleDateFormat("yyyyMMddHHMM");
 			final String importTypeName    = "ImportFromCsv" + df.format(System.currentTimeMillis());
 
-			final SecurityContext threadContext = SecurityContext.getInstance(user, AccessMode.Backend);
-			threadContext.setContextStore(ctxStore);
+			final SecurityContext threadContext = createSecurityContext();
 			final App app                       = StructrApp.getInstance(threadContext);
-
-			// disable transaction notifications
-			threadContext.disableModificationOfAccessTime();
-			threadContext.ignoreResultCount(true);
-			threadContext.setDoTransactionNotifications(false);
-			threadContext.disableEnsureCardinality();
+			ExecutorService writers             = null;
 
 			try (final InputStream is = getFileInputStream(threadContext)) {
 
@@ -143,59 +157,71 @@ public class CSVFileImportJob extends FileImportJob {
 					}
 				}
 
+				// relationships share their end nodes, so concurrent writers would mostly wait for each other's locks
+				writerThreads = IMPORT_TYPE.REL.equals(currentImportType) ? 1 : Math.max(1, threads);
+				chunkQueue    = new ArrayBlockingQueue<>(writerThreads * 2);
+				writers       = Executors.newFixedThreadPool(writerThreads, new WriterThreadFactory());
+
+				for (int i=0; i<writerThreads; i++) {
+					writers.submit(new ChunkWriter(mapper, targetEntityType, currentImportType, relSourceType, relTargetType));
+				}
+
 				final Character fieldSeparator     = delimiter.charAt(0);
 				final Character quoteCharacter     = StringUtils.isNotEmpty(quoteChar) ? quoteChar.charAt(0) : null;
 				final Iterable<JsonInput> iterable = CsvHelper.cleanAndParseCSV(threadContext, new InputStreamReader(is, "utf-8"), targetEntityType, fieldSeparator, quoteCharacter, range, reverse(importMappings), strictQuotes);
 				final Iterator<JsonInput> iterator = iterable.iterator();
-				int chunks                         = 0;
-				int overallCount                   = 0;
-
-				while (iterator.hasNext()) {
-
-					int count = 0;
-
-					try (final Tx tx = app.tx()) {
-
-						final long chunkStartTime = System.currentTimeMillis();
-
-						while (iterator.hasNext() && count++ < commitInterval) {
+				boolean aborted                    = false;
 
-							final JsonInput input = iterator.next();
+				while (iterator.hasNext() && writerError.get() == null) {
 
-							mapper.transformInput(threadContext, targetEntityType, input);
+					final List<JsonInput> chunk = new ArrayList<>(commitInterval);
 
-							if (currentImportType.equals(IMPORT_TYPE.NODE)) {
+					while (iterator.hasNext() && chunk.size() < commitInterval) {
 
-								app.create(targetEntityType, PropertyMap.inputTypeToJavaType(threadContext, targetEntityType, input));
+						final JsonInput input = iterator.next();
 
-							} else {
-
-								final AbstractNode sourceNode = (AbstractNode)app.get(relSourceType, (String)input.get("sourceId"));
-								final AbstractNode targetNode = (AbstractNode)app.get(relTargetType, (String)input.get("targetId"));
-
-								app.create(sourceNode, targetNode, targetEntityType, PropertyMap.inputTypeToJavaType(threadContext, targetEntityType, input));
-							}
-
-							overallCount++;
+						// invalid lines are reported by the parser and skipped
+						if (input != null) {
+							chunk.add(input);
 						}
+					}
 
-						tx.success();
-
-						chunks++;
-
-						chunkFinished(chunkStartTime, chunks, commitInterval, overallCount);
-
+					// blocks while all writers are busy, gives up when a writer has failed
+					boolean queued = false;
+					while (!queued && writerError.get() == null) {
+						queued = chunkQueue.offer(chunk, 1, TimeUnit.SECONDS);
 					}
 
 					// do this outside of the transaction!
 					shouldPause();
 					if (shouldAbort()) {
-						return;
+
+						aborted = true;
+						break;
 					}
+				}
 
+				if (aborted || writerError.get() != null) {
+					chunkQueue.clear();
 				}
 
-				importFinished(startTime, overallCount);
+				// signal end of input to all writers and wait for them to finish
+				for (int i=0; i<writerThreads; i++) {
+					chunkQueue.put(END_OF_INPUT);
+				}
+
+				writers.shutdown();
+				writers.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+
+				final Throwable error = writerError.get();
+				if (error != null) {
+
+					reportException(error instanceof Exception ? (Exception)error : new RuntimeException(error));
+
+				} else if (!aborted) {
+
+					importFinished(startTime, overallCount.get());
+				}
 
 			} catch (IOException | FrameworkException fex) {
 
@@ -205,8 +231,14 @@ public class CSVFileImportJob extends FileImportJob {
 				reportException(ex);
 			} catch (IllegalAccessException ex) {
 				reportException(ex);
+			} catch (InterruptedException ex) {
+				reportException(ex);
 			} finally {
 
+				if (writers != null) {
+					writers.shutdownNow();
+				}
+
 				try {
 					builder.removeMapping(app, targetType, importTypeName);
 				} catch (FrameworkException ex) {
@@ -219,6 +251,20 @@ public class CSVFileImportJob extends FileImportJob {
 
 	}
 
+	@Override
+	public Map<String, Object> getStatusData(final JobStatusMessageSubtype subtype) {
+
+		final Map<String, Object> data = super.getStatusData(subtype);
+
+		if (JobStatusMessageSubtype.CHUNK.equals(subtype)) {
+
+			data.put("writerThreads", writerThreads);
+			data.put("pendingChunks", chunkQueue != null ? chunkQueue.size() : 0);
+		}
+
+		return data;
+	}
+
 	@Override
 	public String getJobType() {
 		return "CSV";
@@ -233,4 +279,112 @@ public class CSVFileImportJob extends FileImportJob {
 	public String getJobExceptionMessageType() {
 		return "FILE_IMPORT_EXCEPTION";
 	}
+
+	// ----- private methods -----
+	private SecurityContext createSecurityContext() {
+
+		final SecurityContext securityContext = SecurityContext.getInstance(user, AccessMode.Backend);
+
+		// every writer works on its own copy, so counters and stored values are not shared between threads
+		securityContext.setContextStore(new ContextStore(ctxStore));
+
+		// disable transaction notifications
+		securityContext.disableModificationOfAccessTime();
+		securityContext.ignoreResultCount(true);
+		securityContext.setDoTransactionNotifications(false);
+		securityContext.disableEnsureCardinality();
+
+		return securityContext;
+	}
+
+	// ----- nested classes -----
+	/**
+	 * Converts and creates the objects of one chunk of parsed CSV lines
+	 * per transaction, until the end of the input is signalled.
+	 */
+	private class ChunkWriter implements Runnable {
+
+		private ResultTransformer mapper  = null;
+		private IMPORT_TYPE importType    = null;
+		private Class targetEntityType    = null;
+		private Class relSourceType       = null;
+		private Class relTargetType       = null;
+
+		public ChunkWriter(final ResultTransformer mapper, final Class targetEntityType, final IMPORT_TYPE importType, final Class relSourceType, final Class relTargetType) {
+
+			this.mapper           = mapper;
+			this.targetEntityType = targetEntityType;
+			this.importType       = importType;
+			this.relSourceType    = relSourceType;
+			this.relTargetType    = relTargetType;
+		}
+
+		@Override
+		public void run() {
+
+			final SecurityContext securityContext = createSecurityContext();
+			final App app                         = StructrApp.getInstance(securityContext);
+
+			try {
+
+				List<JsonInput> chunk = chunkQueue.take();
+
+				while (chunk != END_OF_INPUT) {
+
+					// keep consuming until the end of the input after an error
+					if (writerError.get() == null) {
+
+						try {
+
+							final long chunkStartTime = System.currentTimeMillis();
+
+							try (final Tx tx = app.tx()) {
+
+								for (final JsonInput input : chunk) {
+
+									mapper.transformInput(securityContext, targetEntityType, input);
+
+									if (importType.equals(IMPORT_TYPE.NODE)) {
+
+										app.create(targetEntityType, PropertyMap.inputTypeToJavaType(securityContext, targetEntityType, input));
+
+									} else {
+
+										final AbstractNode sourceNode = (AbstractNode)app.get(relSourceType, (String)input.get("sourceId"));
+										final AbstractNode targetNode = (AbstractNode)app.get(relTargetType, (String)input.get("targetId"));
+
+										app.create(sourceNode, targetNode, targetEntityType, PropertyMap.inputTypeToJavaType(securityContext, targetEntityType, input));
+									}
+								}
+
+								tx.success();
+							}
+
+							chunkFinished(chunkStartTime, chunkCount.incrementAndGet(), chunk.size(), overallCount.addAndGet(chunk.size()));
+
+						} catch (Throwable t) {
+
+							writerError.compareAndSet(null, t);
+						}
+					}
+
+					chunk = chunkQueue.take();
+				}
+
+			} catch (InterruptedException iex) {
+
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private class WriterThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(final Runnable runnable) {
+			return new Thread(runnable, "CSVImportWriter-" + jobId() + "-" + count.incrementAndGet());
+		}
+	}
 }
@@ -46,6 +46,7 @@ abstract class FileImportJob extends ScheduledJob {
 	protected String fileName;
 	protected Long fileSize;
 	protected Integer processedChunks = 0;
+	protected long importStartTime    = 0L;
 
 	public FileImportJob (final File file, final Principal user, final Map<String, Object> configuration, final ContextStore ctxStore) {
 
@@ -112,7 +113,15 @@ abstract class FileImportJob extends ScheduledJob {
 		return jobInfo;
 	}
 
-	protected void chunkFinished(final long chunkStartTime, final int currentChunkNo, final int chunkSize, final int overallCount) {
+	@Override
+	protected void reportBegin() {
+
+		importStartTime = System.currentTimeMillis();
+
+		super.reportBegin();
+	}
+
+	protected synchronized void chunkFinished(final long chunkStartTime, final int currentChunkNo, final int chunkSize, final int overallCount) {
 
 		processedChunks                   = currentChunkNo;
 
@@ -128,6 +137,12 @@ abstract class FileImportJob extends ScheduledJob {
 		data.put("objectsCreated",   chunkSize);
 		data.put("duration",         formattedDuration);
 		data.put("objectsPerSecond", objectsPerSecond);
+		data.put("objectsOverall",   overallCount);
+
+		if (importStartTime > 0L) {
+			data.put("overallObjectsPerSecond", decimalFormat.format(overallCount / ((System.currentTimeMillis() - importStartTime) / 1000.0)));
+		}
+
 		TransactionCommand.simpleBroadcastGenericMessage(data);
 
 	}
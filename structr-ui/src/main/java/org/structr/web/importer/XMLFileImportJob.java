@@ -22,31 +22,40 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import javax.xml.stream.XMLStreamException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.api.config.Settings;
 import org.structr.common.AccessMode;
 import org.structr.common.ContextStore;
 import org.structr.common.SecurityContext;
 import org.structr.common.error.FrameworkException;
+import org.structr.core.GraphObject;
 import org.structr.core.Services;
 import org.structr.core.app.App;
 import org.structr.core.app.StructrApp;
 import org.structr.core.entity.AbstractNode;
 import org.structr.core.entity.Principal;
+import org.structr.core.graph.NodeInterface;
+import org.structr.core.graph.TransactionCommand;
 import org.structr.core.graph.Tx;
+import org.structr.core.property.PropertyKey;
 import org.structr.core.property.PropertyMap;
 import org.structr.module.StructrModule;
 import org.structr.module.xml.XMLModule;
 import org.structr.rest.common.XMLHandler;
+import org.structr.schema.SchemaHelper;
 import org.structr.web.entity.File;
 
 public class XMLFileImportJob extends FileImportJob {
 
 	private static final Logger logger = LoggerFactory.getLogger(XMLFileImportJob.class.getName());
+	public static final String MERGE_KEY = "mergeKey";
 
+	private final Map<String, MergeIndex> mergeIndexes = new HashMap<>();
 	private String contentType;
 
 	public XMLFileImportJob(final File file, final Principal user, final Map<String, Object> configuration, final ContextStore ctxStore) throws FrameworkException {
@@ -106,11 +115,14 @@ public class XMLFileImportJob extends FileImportJob {
 					reportBegin();
 
 					final Iterator<Map<String, Object>> iterator = new XMLHandler(configuration, reader);
-					final int batchSize                          = 100;
+					final int maxTime                            = Math.max(1, Settings.XmlImportTransactionTime.getValue());
+					final int maxModifications                   = Math.max(1, Settings.XmlImportMaxChanges.getValue());
 					int chunks                                   = 0;
 
 					final long startTime = System.currentTimeMillis();
 
+					buildMergeIndexes(app);
+
 					while (iterator.hasNext()) {
 
 						final long chunkStartTime = System.currentTimeMillis();
@@ -123,11 +135,14 @@ public class XMLFileImportJob extends FileImportJob {
 						// make transaction available in context
 						threadContext.setAttribute("currentTransaction", tx);
 
-						while (iterator.hasNext() && ++count <= batchSize) {
+						// commit when the transaction has been running long enough or has grown too large
+						do {
 
-							app.create(AbstractNode.class, PropertyMap.inputTypeToJavaType(threadContext, iterator.next()));
+							importElement(threadContext, app, iterator.next());
 							overallCount++;
-						}
+							count++;
+
+						} while (iterator.hasNext() && System.currentTimeMillis() - chunkStartTime < maxTime && TransactionCommand.getModificationQueueSize() < maxModifications);
 
 						// tx might have changed, reload from context
 						tx = (Tx)threadContext.getAttribute("currentTransaction");
@@ -136,7 +151,7 @@ public class XMLFileImportJob extends FileImportJob {
 
 						chunks++;
 
-						chunkFinished(chunkStartTime, chunks, batchSize, overallCount);
+						chunkFinished(chunkStartTime, chunks, count, overallCount);
 
 						// do this outside of the transaction!
 						shouldPause();
@@ -177,4 +192,119 @@ public class XMLFileImportJob extends FileImportJob {
 	public String getJobExceptionMessageType() {
 		return "FILE_IMPORT_EXCEPTION";
 	}
+
+	// ----- private methods -----
+	/**
+	 * Loads the existing nodes of all root types that have a merge key
+	 * configured, so elements can be matched without a query per element.
+	 */
+	private void buildMergeIndexes(final App app) throws FrameworkException {
+
+		for (final Object value : configuration.values()) {
+
+			if (value instanceof Map) {
+
+				final Map<String, Object> config = (Map<String, Object>)value;
+				final Object typeName            = config.get(XMLHandler.TYPE);
+				final Object keyName             = config.get(MERGE_KEY);
+
+				if (Boolean.TRUE.equals(config.get(XMLHandler.ISROOT)) && typeName != null && keyName != null && !mergeIndexes.containsKey(typeName.toString())) {
+
+					final Class type = SchemaHelper.getEntityClassForRawType(typeName.toString());
+					if (type == null) {
+
+						throw new FrameworkException(422, "Cannot merge XML import data, type " + typeName + " does not exist.");
+					}
+
+					final PropertyKey key = StructrApp.key(type, keyName.toString());
+					if (key == null) {
+
+						throw new FrameworkException(422, "Cannot merge XML import data, type " + typeName + " has no property " + keyName + ".");
+					}
+
+					final MergeIndex index = new MergeIndex(type, key);
+
+					try (final Tx tx = app.tx()) {
+
+						for (final NodeInterface node : (Iterable<NodeInterface>)app.nodeQuery(type).getAsList()) {
+							index.add(node);
+						}
+
+						tx.success();
+					}
+
+					logger.info("Loaded {} existing {} nodes for merge key {}", index.size(), typeName, keyName);
+
+					mergeIndexes.put(typeName.toString(), index);
+				}
+			}
+		}
+	}
+
+	private void importElement(final SecurityContext securityContext, final App app, final Map<String, Object> data) throws FrameworkException {
+
+		final Object typeName  = data.get(XMLHandler.TYPE);
+		final MergeIndex index = typeName != null ? mergeIndexes.get(typeName.toString()) : null;
+		final PropertyMap map  = PropertyMap.inputTypeToJavaType(securityContext, data);
+
+		if (index != null) {
+
+			final String existingId = index.get(map);
+			if (existingId != null) {
+
+				final NodeInterface existing = app.getNodeById(index.type, existingId);
+				if (existing != null) {
+
+					map.remove(AbstractNode.type);
+					existing.setProperties(securityContext, map);
+
+					return;
+				}
+			}
+
+			index.add(app.create(index.type, map));
+
+		} else {
+
+			app.create(AbstractNode.class, map);
+		}
+	}
+
+	// ----- nested classes -----
+	private static class MergeIndex {
+
+		private final Map<String, String> uuids = new HashMap<>();
+		private PropertyKey key                 = null;
+		private Class type                      = null;
+
+		public MergeIndex(final Class type, final PropertyKey key) {
+
+			this.type = type;
+			this.key  = key;
+		}
+
+		public void add(final GraphObject obj) {
+
+			final Object value = obj.getProperty(key);
+			if (value != null) {
+
+				uuids.put(value.toString(), obj.getUuid());
+			}
+		}
+
+		public String get(final PropertyMap map) {
+
+			final Object value = map.get(key);
+			if (value != null) {
+
+				return uuids.get(value.toString());
+			}
+
+			return null;
+		}
+
+		public int size() {
+			return uuids.size();
+		}
+	}
 }
@@ -20,17 +20,12 @@ package org.structr.web.maintenance;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import java.io.FileOutputStream;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
 import java.io.Reader;
-import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.Arrays;
@@ -38,14 +33,25 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -82,7 +88,6 @@ import org.structr.schema.action.ActionContext;
 import org.structr.schema.export.StructrSchema;
 import org.structr.schema.json.JsonSchema;
 import org.structr.web.common.AbstractMapComparator;
-import org.structr.web.common.FileHelper;
 import org.structr.web.common.RenderContext;
 import org.structr.web.entity.AbstractFile;
 import org.structr.web.entity.AbstractMinifiedFile;
@@ -101,6 +106,7 @@ import org.structr.web.entity.dom.Page;
 import org.structr.web.entity.dom.ShadowDocument;
 import org.structr.web.entity.dom.Template;
 import org.structr.web.maintenance.deploy.ComponentImportVisitor;
+import org.structr.web.maintenance.deploy.DeploymentManifest;
 import org.structr.web.maintenance.deploy.FileImportVisitor;
 import org.structr.web.maintenance.deploy.PageImportVisitor;
 import org.structr.web.maintenance.deploy.SchemaImportVisitor;
@@ -113,6 +119,9 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 
 	private static final Logger logger                     = LoggerFactory.getLogger(DeployCommand.class.getName());
 	private static final Pattern pattern                   = Pattern.compile("[a-f0-9]{32}");
+	private static final Gson gson                         = new GsonBuilder().setPrettyPrinting().create();
+	private static final Gson listGson                     = new GsonBuilder().serializeNulls().setPrettyPrinting().create();
+	private static final Gson localizationGson             = new GsonBuilder().serializeNulls().create();
 
 	private static final Map<String, String> deferredPageLinks = new LinkedHashMap<>();
 	private static final Set<String> missingPrincipals         = new HashSet<>();
@@ -172,7 +181,7 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 	}
 
 	public Gson getGson() {
-		return new GsonBuilder().setPrettyPrinting().create();
+		return gson;
 	}
 
 	// ----- public static methods -----
@@ -271,15 +280,9 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 		final boolean changeLogEnabled = Settings.ChangelogEnabled.getValue();
 		Settings.ChangelogEnabled.setValue(false);
 
-		// read grants.json
-		publishDeploymentProgressMessage(DEPLOYMENT_IMPORT_STATUS, "Importing resource access grants");
-
-		final Path grantsConf = source.resolve("security/grants.json");
-		if (Files.exists(grantsConf)) {
-
-			info("Reading {}", grantsConf);
-			importListData(ResourceAccess.class, readConfigList(grantsConf));
-		}
+		// checksums recorded by the export, used to skip reading unchanged files
+		final DeploymentManifest manifest          = DeploymentManifest.read(source, true);
+		final Map<String, DeploymentTask> sections = new LinkedHashMap<>();
 
 		// read schema-methods.json
 		final Path schemaMethodsConf = source.resolve("schema-methods.json");
@@ -295,24 +298,37 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 			importListData(SchemaMethod.class, readConfigList(schemaMethodsConf));
 		}
 
+		// read grants.json
+		final Path grantsConf = source.resolve("security/grants.json");
+		if (Files.exists(grantsConf)) {
+
+			sections.put("Importing resource access grants", () -> {
+
+				info("Reading {}", grantsConf);
+				importListData(ResourceAccess.class, readConfigList(grantsConf));
+			});
+		}
+
 		// read mail-templates.json
 		final Path mailTemplatesConf = source.resolve("mail-templates.json");
 		if (Files.exists(mailTemplatesConf)) {
 
-			info("Reading {}", mailTemplatesConf);
-			publishDeploymentProgressMessage(DEPLOYMENT_IMPORT_STATUS, "Importing mail templates");
+			sections.put("Importing mail templates", () -> {
 
-			importListData(MailTemplate.class, readConfigList(mailTemplatesConf));
+				info("Reading {}", mailTemplatesConf);
+				importListData(MailTemplate.class, readConfigList(mailTemplatesConf));
+			});
 		}
 
 		// read widgets.json
 		final Path widgetsConf = source.resolve("widgets.json");
 		if (Files.exists(widgetsConf)) {
 
-			info("Reading {}", widgetsConf);
-			publishDeploymentProgressMessage(DEPLOYMENT_IMPORT_STATUS, "Importing widgets");
+			sections.put("Importing widgets", () -> {
 
-			importListData(Widget.class, readConfigList(widgetsConf));
+				info("Reading {}", widgetsConf);
+				importListData(Widget.class, readConfigList(widgetsConf));
+			});
 		}
 
 		// read localizations.json
@@ -326,12 +342,16 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 			// it is a way to differentiate between new and old localization strings
 			additionalData.put(StructrApp.key(Localization.class, "imported"), false);
 
-			info("Reading {}", localizationsConf);
-			publishDeploymentProgressMessage(DEPLOYMENT_IMPORT_STATUS, "Importing localizations");
+			sections.put("Importing localizations", () -> {
 
-			importListData(Localization.class, readConfigList(localizationsConf), additionalData);
+				info("Reading {}", localizationsConf);
+				importListData(Localization.class, readConfigList(localizationsConf), additionalData);
+			});
 		}
 
+		// sections contain different types and are imported in parallel
+		runInParallel(DEPLOYMENT_IMPORT_STATUS, sections);
+
 		// read files.conf
 		final Path filesConfFile = source.resolve("files.json");
 		if (Files.exists(filesConfFile)) {
@@ -389,7 +409,7 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 				info("Importing files (unchanged files will be skipped)");
 				publishDeploymentProgressMessage(DEPLOYMENT_IMPORT_STATUS, "Importing files");
 
-				FileImportVisitor fiv = new FileImportVisitor(files, filesConf);
+				FileImportVisitor fiv = new FileImportVisitor(files, filesConf, manifest);
 				Files.walkFileTree(files, fiv);
 				fiv.handleDeferredFiles();
 
@@ -422,7 +442,15 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 		// remove all DOMNodes from the database (clean webapp for import, but only
 		// if the actual import directories exist, don't delete web components if
 		// an empty directory was specified accidentially).
-		if (Files.exists(templates) && Files.exists(components) && Files.exists(pages)) {
+		final boolean hasWebComponents = Files.exists(templates) && Files.exists(components) && Files.exists(pages);
+		final boolean importWeb        = !hasWebComponents || hasWebChanges(source, templates, components, pages, sitesConfFile);
+
+		if (hasWebComponents && !importWeb) {
+
+			info("Pages, templates and components are unchanged, skipping import");
+			publishDeploymentProgressMessage(DEPLOYMENT_IMPORT_STATUS, "Pages, templates and components are unchanged");
+
+		} else if (hasWebComponents) {
 
 			try (final Tx tx = app.tx()) {
 
@@ -453,7 +481,7 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 		}
 
 		// import templates, must be done before pages so the templates exist
-		if (Files.exists(templates)) {
+		if (importWeb && Files.exists(templates)) {
 
 			try {
 
@@ -468,7 +496,7 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 		}
 
 		// import components, must be done before pages so the shared components exist
-		if (Files.exists(components)) {
+		if (importWeb && Files.exists(components)) {
 
 			try {
 
@@ -483,7 +511,7 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 		}
 
 		// import pages
-		if (Files.exists(pages)) {
+		if (importWeb && Files.exists(pages)) {
 
 			try {
 
@@ -498,7 +526,7 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 		}
 
 		// import sites
-		if (Files.exists(sitesConfFile)) {
+		if (importWeb && Files.exists(sitesConfFile)) {
 
 			info("Importing sites");
 			publishDeploymentProgressMessage(DEPLOYMENT_IMPORT_STATUS, "Importing sites");
@@ -594,7 +622,7 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 
 	}
 
-	private void publishDeploymentProgressMessage (final String type, final String message) {
+	private synchronized void publishDeploymentProgressMessage (final String type, final String message) {
 
 		final Map<String, Object> msgData = new HashMap();
 		msgData.put("type", type);
@@ -617,6 +645,105 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 
 	}
 
+	/**
+	 * Runs the given deployment sections in parallel, each in its own
+	 * transaction, and waits for all of them to finish. The first
+	 * exception of a section is rethrown.
+	 */
+	private void runInParallel(final String type, final Map<String, DeploymentTask> sections) throws FrameworkException {
+
+		final int threads                = Math.max(1, Math.min(sections.size(), Runtime.getRuntime().availableProcessors()));
+		final ExecutorService executor   = Executors.newFixedThreadPool(threads, new DeploymentThreadFactory());
+		final List<Future<Object>> tasks = new LinkedList<>();
+
+		try {
+
+			for (final Entry<String, DeploymentTask> section : sections.entrySet()) {
+
+				tasks.add(executor.submit(() -> {
+
+					publishDeploymentProgressMessage(type, section.getKey());
+					section.getValue().run();
+
+					return null;
+				}));
+			}
+
+			for (final Future<Object> task : tasks) {
+
+				try {
+
+					task.get();
+
+				} catch (ExecutionException eex) {
+
+					final Throwable cause = eex.getCause();
+
+					if (cause instanceof FrameworkException) {
+						throw (FrameworkException)cause;
+					}
+
+					if (cause instanceof RuntimeException) {
+						throw (RuntimeException)cause;
+					}
+
+					throw new FrameworkException(500, cause.getMessage());
+				}
+			}
+
+		} catch (InterruptedException iex) {
+
+			Thread.currentThread().interrupt();
+			throw new FrameworkException(500, "Deployment was interrupted.");
+
+		} finally {
+
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Compares pages, shared components, templates and sites of the given
+	 * deployment source with an export of the current database, without
+	 * writing anything.
+	 */
+	private boolean hasWebChanges(final Path source, final Path templates, final Path components, final Path pages, final Path sitesConf) throws FrameworkException {
+
+		final DeploymentManifest comparison = DeploymentManifest.read(source, true);
+
+		info("Comparing pages, templates and components with deployment source");
+
+		exportTemplates(comparison, templates, source.resolve("templates.json"));
+		exportComponents(comparison, components, source.resolve("components.json"));
+		exportPages(comparison, pages, source.resolve("pages.json"));
+
+		if (Files.exists(sitesConf)) {
+			exportSites(comparison, sitesConf);
+		}
+
+		if (comparison.hasChanges()) {
+			return true;
+		}
+
+		// files in the source that the current database would not export
+		for (final Path dir : Arrays.asList(templates, components, pages)) {
+
+			try (final Stream<Path> stream = Files.walk(dir)) {
+
+				if (stream.filter(Files::isRegularFile).anyMatch(file -> !comparison.contains(file))) {
+					return true;
+				}
+
+			} catch (IOException ioex) {
+
+				logger.warn("", ioex);
+				return true;
+			}
+		}
+
+		return false;
+	}
+
 	private void doExport(final Map<String, Object> attributes) throws FrameworkException {
 
 		final String path  = (String) attributes.get("target");
@@ -660,35 +787,25 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 			final Path localizations  = target.resolve("localizations.json");
 			final Path widgets	  = target.resolve("widgets.json");
 
-			publishDeploymentProgressMessage(DEPLOYMENT_EXPORT_STATUS, "Exporting Files");
-			exportFiles(files, filesConf);
-
-			publishDeploymentProgressMessage(DEPLOYMENT_EXPORT_STATUS, "Exporting Sites");
-			exportSites(sitesConf);
-
-			publishDeploymentProgressMessage(DEPLOYMENT_EXPORT_STATUS, "Exporting Pages");
-			exportPages(pages, pagesConf);
+			// the manifest records the checksums of all exported artifacts, so unchanged artifacts are not rewritten
+			final DeploymentManifest manifest          = DeploymentManifest.read(target, false);
+			final Map<String, DeploymentTask> sections = new LinkedHashMap<>();
 
-			publishDeploymentProgressMessage(DEPLOYMENT_EXPORT_STATUS, "Exporting Components");
-			exportComponents(components, componentsConf);
+			sections.put("Exporting Files",                  () -> exportFiles(manifest, files, filesConf));
+			sections.put("Exporting Sites",                  () -> exportSites(manifest, sitesConf));
+			sections.put("Exporting Pages",                  () -> exportPages(manifest, pages, pagesConf));
+			sections.put("Exporting Components",             () -> exportComponents(manifest, components, componentsConf));
+			sections.put("Exporting Templates",              () -> exportTemplates(manifest, templates, templatesConf));
+			sections.put("Exporting Resource Access Grants", () -> exportResourceAccessGrants(manifest, grants));
+			sections.put("Exporting Schema",                 () -> exportSchema(manifest, schemaJson));
+			sections.put("Exporting Mail Templates",         () -> exportMailTemplates(manifest, mailTemplates));
+			sections.put("Exporting Localizations",          () -> exportLocalizations(manifest, localizations));
+			sections.put("Exporting Widgets",                () -> exportWidgets(manifest, widgets));
 
-			publishDeploymentProgressMessage(DEPLOYMENT_EXPORT_STATUS, "Exporting Templates");
-			exportTemplates(templates, templatesConf);
+			// sections are independent of each other and are exported in parallel
+			runInParallel(DEPLOYMENT_EXPORT_STATUS, sections);
 
-			publishDeploymentProgressMessage(DEPLOYMENT_EXPORT_STATUS, "Exporting Resource Access Grants");
-			exportResourceAccessGrants(grants);
-
-			publishDeploymentProgressMessage(DEPLOYMENT_EXPORT_STATUS, "Exporting Schema");
-			exportSchema(schemaJson);
-
-			publishDeploymentProgressMessage(DEPLOYMENT_EXPORT_STATUS, "Exporting Mail Templates");
-			exportMailTemplates(mailTemplates);
-
-			publishDeploymentProgressMessage(DEPLOYMENT_EXPORT_STATUS, "Exporting Localizations");
-			exportLocalizations(localizations);
-
-			publishDeploymentProgressMessage(DEPLOYMENT_EXPORT_STATUS, "Exporting Widgets");
-			exportWidgets(widgets);
+			manifest.store();
 
 			for (StructrModule module : StructrApp.getConfiguration().getModules().values()) {
 
@@ -727,7 +844,7 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 		}
 	}
 
-	private void exportFiles(final Path target, final Path configTarget) throws FrameworkException {
+	private void exportFiles(final DeploymentManifest manifest, final Path target, final Path configTarget) throws FrameworkException {
 
 		logger.info("Exporting files (unchanged files will be skipped)");
 
@@ -741,7 +858,7 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 
 			// fetch toplevel folders and recurse
 			for (final Folder folder : app.nodeQuery(Folder.class).and(parentKey, null).sort(Folder.name).and(inclKey, true).getAsList()) {
-				exportFilesAndFolders(target, folder, config);
+				exportFilesAndFolders(manifest, target, folder, config);
 			}
 
 			// fetch toplevel files that are marked for export or for use as a javascript library
@@ -753,7 +870,7 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 					.or(jsKey, true)
 				.getAsList()) {
 
-				exportFile(target, file, config);
+				exportFile(manifest, target, file, config);
 			}
 
 			tx.success();
@@ -762,16 +879,16 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 			logger.warn("", ioex);
 		}
 
-		try (final Writer fos = new OutputStreamWriter(new FileOutputStream(configTarget.toFile()))) {
+		try {
 
-			getGson().toJson(config, fos);
+			manifest.write(configTarget, getGson().toJson(config));
 
 		} catch (IOException ioex) {
 			logger.warn("", ioex);
 		}
 	}
 
-	private void exportFilesAndFolders(final Path target, final Folder folder, final Map<String, Object> config) throws IOException {
+	private void exportFilesAndFolders(final DeploymentManifest manifest, final Path target, final Folder folder, final Map<String, Object> config) throws IOException {
 
 		// ignore folders with mounted content
 		if (folder.isMounted()) {
@@ -800,18 +917,18 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 		Collections.sort(folders, new GraphObjectComparator(AbstractNode.name, false));
 
 		for (final Folder child : folders) {
-			exportFilesAndFolders(path, child, config);
+			exportFilesAndFolders(manifest, path, child, config);
 		}
 
 		final List<File> files = Iterables.toList(folder.getFiles());
 		Collections.sort(files, new GraphObjectComparator(AbstractNode.name, false));
 
 		for (final File file : files) {
-			exportFile(path, file, config);
+			exportFile(manifest, path, file, config);
 		}
 	}
 
-	private void exportFile(final Path target, final File file, final Map<String, Object> config) throws IOException {
+	private void exportFile(final DeploymentManifest manifest, final Path target, final File file, final Map<String, Object> config) throws IOException {
 
 		if (!DeployCommand.okToExport(file)) {
 			return;
@@ -821,25 +938,14 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 		final String name                    = file.getName();
 		final Path src                       = file.getFileOnDisk().toPath();
 		Path targetPath                      = target.resolve(name);
-		boolean doExport                     = true;
 
-		if (Files.exists(targetPath)) {
-
-			// compare checksum
-			final Long checksumOfExistingFile = FileHelper.getChecksum(targetPath.toFile());
-			final Long checksumOfExportFile   = file.getChecksum();
-
-			doExport = !checksumOfExistingFile.equals(checksumOfExportFile);
-		}
-
-		if (doExport) {
+		try {
 
-			try {
-				Files.copy(src, targetPath, StandardCopyOption.REPLACE_EXISTING);
+			// unchanged files are recognized by the manifest without reading them
+			manifest.copy(src, targetPath, file.getChecksum());
 
-			} catch (IOException ioex) {
-				logger.warn("Unable to write file {}: {}", targetPath.toString(), ioex.getMessage());
-			}
+		} catch (IOException ioex) {
+			logger.warn("Unable to write file {}: {}", targetPath.toString(), ioex.getMessage());
 		}
 
 		exportFileConfiguration(file, properties);
@@ -849,7 +955,7 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 		}
 	}
 
-	private void exportSites(final Path target) throws FrameworkException {
+	private void exportSites(final DeploymentManifest manifest, final Path target) throws FrameworkException {
 
 		logger.info("Exporting sites");
 
@@ -881,16 +987,16 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 			tx.success();
 		}
 
-		try (final Writer fos = new OutputStreamWriter(new FileOutputStream(target.toFile()))) {
+		try {
 
-			getGson().toJson(sites, fos);
+			manifest.write(target, getGson().toJson(sites));
 
 		} catch (IOException ioex) {
 			logger.warn("", ioex);
 		}
 	}
 
-	private void exportPages(final Path target, final Path configTarget) throws FrameworkException {
+	private void exportPages(final DeploymentManifest manifest, final Path target, final Path configTarget) throws FrameworkException {
 
 		logger.info("Exporting pages (unchanged pages will be skipped)");
 
@@ -909,35 +1015,17 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 						final Map<String, Object> properties = new TreeMap<>();
 						final String name                    = page.getName();
 						final Path pageFile                  = target.resolve(name + ".html");
-						boolean doExport                     = true;
-
-						if (Files.exists(pageFile)) {
-
-							try {
-
-								final String existingContent = new String(Files.readAllBytes(pageFile), "utf-8");
-								doExport = !existingContent.equals(content);
-
-							} catch (IOException ignore) {
-								logger.warn("", ignore);
-							}
-						}
 
 						pagesConfig.put(name, properties);
 						exportConfiguration(page, properties);
 						exportOwnershipAndSecurity(page, properties);
 
-						if (doExport) {
+						try {
 
-							try (final OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(pageFile.toFile()))) {
+							manifest.write(pageFile, content);
 
-								writer.write(content);
-								writer.flush();
-								writer.close();
-
-							} catch (IOException ioex) {
-								logger.warn("", ioex);
-							}
+						} catch (IOException ioex) {
+							logger.warn("", ioex);
 						}
 					}
 				}
@@ -946,16 +1034,16 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 			tx.success();
 		}
 
-		try (final Writer fos = new OutputStreamWriter(new FileOutputStream(configTarget.toFile()))) {
+		try {
 
-			getGson().toJson(pagesConfig, fos);
+			manifest.write(configTarget, getGson().toJson(pagesConfig));
 
 		} catch (IOException ioex) {
 			logger.warn("", ioex);
 		}
 	}
 
-	private void exportComponents(final Path target, final Path configTarget) throws FrameworkException {
+	private void exportComponents(final DeploymentManifest manifest, final Path target, final Path configTarget) throws FrameworkException {
 
 		logger.info("Exporting components (unchanged components will be skipped)");
 
@@ -971,7 +1059,6 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 
 					final boolean hasParent = node.getParent() != null;
 					final boolean inTrash   = node.inTrash();
-					boolean doExport        = true;
 
 					// skip nodes in trash and non-toplevel nodes
 					if (inTrash || hasParent) {
@@ -997,30 +1084,15 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 						final Map<String, Object> properties = new TreeMap<>();
 						final Path targetFile = target.resolve(name + ".html");
 
-						if (Files.exists(targetFile)) {
-
-							try {
-
-								final String existingContent = new String(Files.readAllBytes(targetFile), "utf-8");
-								doExport = !existingContent.equals(content);
-
-							} catch (IOException ignore) {}
-						}
-
 						configuration.put(name, properties);
 						exportConfiguration(node, properties);
 
-						if (doExport) {
-
-							try (final OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(targetFile.toFile()))) {
+						try {
 
-								writer.write(content);
-								writer.flush();
-								writer.close();
+							manifest.write(targetFile, content);
 
-							} catch (IOException ioex) {
-								logger.warn("", ioex);
-							}
+						} catch (IOException ioex) {
+							logger.warn("", ioex);
 						}
 					}
 				}
@@ -1029,16 +1101,16 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 			tx.success();
 		}
 
-		try (final Writer fos = new OutputStreamWriter(new FileOutputStream(configTarget.toFile()))) {
+		try {
 
-			getGson().toJson(configuration, fos);
+			manifest.write(configTarget, getGson().toJson(configuration));
 
 		} catch (IOException ioex) {
 			logger.warn("", ioex);
 		}
 	}
 
-	private void exportTemplates(final Path target, final Path configTarget) throws FrameworkException {
+	private void exportTemplates(final DeploymentManifest manifest, final Path target, final Path configTarget) throws FrameworkException {
 
 		logger.info("Exporting templates (unchanged templates will be skipped)");
 
@@ -1057,25 +1129,24 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 					continue;
 				}
 
-				exportTemplateSource(target, template, configuration);
+				exportTemplateSource(manifest, target, template, configuration);
 			}
 
 			tx.success();
 		}
 
-		try (final Writer fos = new OutputStreamWriter(new FileOutputStream(configTarget.toFile()))) {
+		try {
 
-			getGson().toJson(configuration, fos);
+			manifest.write(configTarget, getGson().toJson(configuration));
 
 		} catch (IOException ioex) {
 			logger.warn("", ioex);
 		}
 	}
 
-	private void exportTemplateSource(final Path target, final DOMNode template, final Map<String, Object> configuration) throws FrameworkException {
+	private void exportTemplateSource(final DeploymentManifest manifest, final Path target, final DOMNode template, final Map<String, Object> configuration) throws FrameworkException {
 
 		final Map<String, Object> properties = new TreeMap<>();
-		boolean doExport                     = true;
 
 		final String content = template.getProperty(StructrApp.key(Template.class, "content"));
 		if (content != null) {
@@ -1094,35 +1165,20 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 
 			final Path targetFile = target.resolve(name + ".html");
 
-			if (Files.exists(targetFile)) {
-
-				try {
-
-					final String existingContent = new String(Files.readAllBytes(targetFile), "utf-8");
-					doExport = !existingContent.equals(content);
-
-				} catch (IOException ignore) {}
-			}
-
 			configuration.put(name, properties);
 			exportConfiguration(template, properties);
 
-			if (doExport) {
-
-				try (final OutputStreamWriter writer = new OutputStreamWriter(new FileOutputStream(targetFile.toFile()))) {
+			try {
 
-					writer.write(content);
-					writer.flush();
-					writer.close();
+				manifest.write(targetFile, content);
 
-				} catch (IOException ioex) {
-					logger.warn("", ioex);
-				}
+			} catch (IOException ioex) {
+				logger.warn("", ioex);
 			}
 		}
 	}
 
-	private void exportResourceAccessGrants(final Path target) throws FrameworkException {
+	private void exportResourceAccessGrants(final DeploymentManifest manifest, final Path target) throws FrameworkException {
 
 		logger.info("Exporting resource access grants");
 
@@ -1143,16 +1199,16 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 			tx.success();
 		}
 
-		try (final Writer fos = new OutputStreamWriter(new FileOutputStream(target.toFile()))) {
+		try {
 
-			getGson().toJson(grants, fos);
+			manifest.write(target, getGson().toJson(grants));
 
 		} catch (IOException ioex) {
 			logger.warn("", ioex);
 		}
 	}
 
-	private void exportSchema(final Path target) throws FrameworkException {
+	private void exportSchema(final DeploymentManifest manifest, final Path target) throws FrameworkException {
 
 		logger.info("Exporting schema");
 
@@ -1160,11 +1216,9 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 
 			final JsonSchema schema = StructrSchema.createFromDatabase(StructrApp.getInstance());
 
-			try (final Writer writer = new FileWriter(target.toFile())) {
+			try {
 
-				writer.append(schema.toString());
-				writer.append("\n");
-				writer.flush();
+				manifest.write(target, schema.toString() + "\n");
 
 			} catch (IOException ioex) {
 				logger.warn("", ioex);
@@ -1327,7 +1381,7 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 		}
 	}
 
-	private void exportMailTemplates(final Path target) throws FrameworkException {
+	private void exportMailTemplates(final DeploymentManifest manifest, final Path target) throws FrameworkException {
 
 		logger.info("Exporting mail templates");
 
@@ -1353,7 +1407,7 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 			tx.success();
 		}
 
-		try (final Writer fos = new OutputStreamWriter(new FileOutputStream(target.toFile()))) {
+		try {
 
 			mailTemplates.sort(new AbstractMapComparator<Object>() {
 				@Override
@@ -1362,14 +1416,15 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 				}
 			});
 
-			getGson().toJson(mailTemplates, fos);
+			// null values are written so that the import can clear properties
+			manifest.write(target, listGson.toJson(mailTemplates));
 
 		} catch (IOException ioex) {
 			logger.warn("", ioex);
 		}
 	}
 
-	private void exportWidgets(final Path target) throws FrameworkException {
+	private void exportWidgets(final DeploymentManifest manifest, final Path target) throws FrameworkException {
 
 		logger.info("Exporting widgets");
 
@@ -1397,16 +1452,17 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 			tx.success();
 		}
 
-		try (final Writer fos = new OutputStreamWriter(new FileOutputStream(target.toFile()))) {
+		try {
 
-			getGson().toJson(widgets, fos);
+			// null values are written so that the import can clear properties
+			manifest.write(target, listGson.toJson(widgets));
 
 		} catch (IOException ioex) {
 			logger.warn("", ioex);
 		}
 	}
 
-	private void exportLocalizations(final Path target) throws FrameworkException {
+	private void exportLocalizations(final DeploymentManifest manifest, final Path target) throws FrameworkException {
 
 		logger.info("Exporting localizations");
 
@@ -1436,7 +1492,7 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 			tx.success();
 		}
 
-		try (final Writer fos = new OutputStreamWriter(new FileOutputStream(target.toFile()))) {
+		try {
 
 			localizations.sort(new AbstractMapComparator<Object>() {
 				@Override
@@ -1451,14 +1507,12 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 				}
 			});
 
-			final Gson gson = new GsonBuilder().serializeNulls().create();
-
 			final StringBuilder sb = new StringBuilder("[");
 
 			List<String> jsonStrings = new LinkedList();
 
 			for (Map<String, Object> loc : localizations) {
-				jsonStrings.add("\t" + gson.toJson(loc));
+				jsonStrings.add("\t" + localizationGson.toJson(loc));
 			}
 
 			if (!jsonStrings.isEmpty()) {
@@ -1469,7 +1523,7 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 
 			sb.append("]");
 
-			fos.write(sb.toString());
+			manifest.write(target, sb.toString());
 
 //			getGson().toJson(localizations, fos);
 
@@ -1511,8 +1565,13 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 
 		try (final Tx tx = app.tx()) {
 
-			for (final T toDelete : app.nodeQuery(type).getAsList()) {
-				app.delete(toDelete);
+			final Map<String, List<T>> existingNodes = new HashMap<>();
+			final List<PropertyMap> entries          = new LinkedList<>();
+			final List<PropertyMap> toCreate         = new LinkedList<>();
+			final Set<PropertyKey> keys              = new LinkedHashSet<>();
+
+			for (final T node : app.nodeQuery(type).getAsList()) {
+				existingNodes.computeIfAbsent(node.getProperty(AbstractNode.name), k -> new LinkedList<>()).add(node);
 			}
 
 			for (final Map<String, Object> entry : data) {
@@ -1524,6 +1583,27 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 					map.putAll(add);
 				}
 
+				entries.add(map);
+				keys.addAll(map.keySet());
+			}
+
+			for (final PropertyMap map : entries) {
+
+				// keep existing nodes with identical properties
+				if (!removeMatchingNode(existingNodes.get(map.get(AbstractNode.name)), map, keys)) {
+					toCreate.add(map);
+				}
+			}
+
+			// remaining nodes were changed or removed, delete them before creating new ones
+			for (final List<T> nodes : existingNodes.values()) {
+
+				for (final T toDelete : nodes) {
+					app.delete(toDelete);
+				}
+			}
+
+			for (final PropertyMap map : toCreate) {
 				app.create(type, map);
 			}
 
@@ -1538,6 +1618,42 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 		}
 	}
 
+	/**
+	 * Removes the first node from the given candidates whose values of the
+	 * given keys match the given properties. Keys that are missing in the
+	 * properties must be null in the node, so that a property which was
+	 * cleared in the source does not keep its old value.
+	 */
+	private <T extends NodeInterface> boolean removeMatchingNode(final List<T> candidates, final PropertyMap properties, final Set<PropertyKey> keys) {
+
+		if (candidates != null) {
+
+			final Iterator<T> iterator = candidates.iterator();
+			while (iterator.hasNext()) {
+
+				final T node    = iterator.next();
+				boolean matches = true;
+
+				for (final PropertyKey key : keys) {
+
+					if (!Objects.deepEquals(node.getProperty(key), properties.get(key))) {
+
+						matches = false;
+						break;
+					}
+				}
+
+				if (matches) {
+
+					iterator.remove();
+					return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
 	private void importSites(final List<Map<String, Object>> data) throws FrameworkException {
 
 		final SecurityContext context = SecurityContext.getSuperUserInstance();
@@ -1619,4 +1735,21 @@ public class DeployCommand extends NodeServiceCommand implements MaintenanceComm
 	public static void addMissingPrincipal (final String principalName) {
 		missingPrincipals.add(principalName);
 	}
+
+	// ----- nested classes -----
+	@FunctionalInterface
+	private interface DeploymentTask {
+
+		void run() throws FrameworkException;
+	}
+
+	private static class DeploymentThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(final Runnable runnable) {
+			return new Thread(runnable, "DeploymentWorker-" + count.incrementAndGet());
+		}
+	}
 }
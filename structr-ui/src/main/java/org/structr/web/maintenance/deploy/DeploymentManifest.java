@@ -0,0 +1,271 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.maintenance.deploy;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.structr.web.common.ChecksumCalculator;
+import org.structr.web.common.FileHelper;
+
+/**
+ * Checksums of the artifacts of a deployment export, stored in the
+ * export directory.
+ *
+ * The size and modification time of each artifact are recorded with its
+ * checksum, so unchanged artifacts are recognized without reading them,
+ * while artifacts modified outside of Structr (e.g. by a version control
+ * checkout) are checksummed again.
+ *
+ * A read-only manifest never modifies the directory, {@link #write} and
+ * {@link #copy} only report whether the content would change, which is
+ * used to compare a deployment source with the current database state.
+ */
+public class DeploymentManifest {
+
+	private static final Logger logger              = LoggerFactory.getLogger(DeploymentManifest.class.getName());
+	private static final Gson gson                  = new GsonBuilder().setPrettyPrinting().create();
+
+	public static final String FILE_NAME            = "deployment-manifest.json";
+
+	private final Map<String, Entry> previousEntries = new TreeMap<>();
+	private final Map<String, Entry> currentEntries  = new ConcurrentHashMap<>();
+	private final Set<String> changedPaths           = ConcurrentHashMap.newKeySet();
+	private final boolean readOnly;
+	private final Path root;
+
+	private DeploymentManifest(final Path root, final boolean readOnly) {
+
+		this.readOnly = readOnly;
+		this.root     = root;
+	}
+
+	/**
+	 * Reads the manifest of the given directory, or creates an empty
+	 * manifest if the directory does not contain one.
+	 *
+	 * @param root
+	 * @param readOnly
+	 * @return the manifest
+	 */
+	public static DeploymentManifest read(final Path root, final boolean readOnly) {
+
+		final DeploymentManifest manifest = new DeploymentManifest(root, readOnly);
+		final Path file                   = root.resolve(FILE_NAME);
+
+		if (Files.exists(file)) {
+
+			try (final Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+
+				final Map<String, Entry> entries = gson.fromJson(reader, new TypeToken<Map<String, Entry>>() {}.getType());
+				if (entries != null) {
+
+					manifest.previousEntries.putAll(entries);
+				}
+
+			} catch (IOException | JsonParseException ex) {
+				logger.warn("Unable to read deployment manifest {}, all artifacts will be compared: {}", file, ex.getMessage());
+			}
+		}
+
+		return manifest;
+	}
+
+	/**
+	 * Stores the entries of all artifacts written or confirmed since this
+	 * manifest was read.
+	 *
+	 * @throws IOException
+	 */
+	public void store() throws IOException {
+
+		if (!readOnly) {
+
+			try (final Writer writer = Files.newBufferedWriter(root.resolve(FILE_NAME), StandardCharsets.UTF_8)) {
+
+				gson.toJson(new TreeMap<>(currentEntries), writer);
+			}
+		}
+	}
+
+	/**
+	 * Returns the recorded checksum of the given file, or null if the file
+	 * is unknown or was modified since it was recorded.
+	 *
+	 * @param file
+	 * @return the checksum or null
+	 */
+	public Long getChecksum(final Path file) {
+
+		final String key = getKey(file);
+
+		Entry entry = currentEntries.get(key);
+		if (entry == null) {
+
+			entry = previousEntries.get(key);
+		}
+
+		if (entry != null) {
+
+			try {
+
+				if (Files.size(file) == entry.size && Files.getLastModifiedTime(file).toMillis() == entry.lastModified) {
+					return entry.checksum;
+				}
+
+			} catch (IOException ignore) {
+				// file does not exist anymore
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Writes the given content to the given file, unless the file already
+	 * has the same content.
+	 *
+	 * @param file
+	 * @param content
+	 * @return whether the content of the file was changed
+	 * @throws IOException
+	 */
+	public boolean write(final Path file, final String content) throws IOException {
+
+		final byte[] data                   = content.getBytes(StandardCharsets.UTF_8);
+		final ChecksumCalculator calculator = new ChecksumCalculator(null);
+
+		calculator.update(data, 0, data.length);
+
+		final long checksum = calculator.getChecksum();
+
+		if (hasChecksum(file, checksum)) {
+			return false;
+		}
+
+		changedPaths.add(getKey(file));
+
+		if (!readOnly) {
+
+			Files.write(file, data);
+			record(file, checksum);
+		}
+
+		return true;
+	}
+
+	/**
+	 * Copies the given source file to the given target, unless the target
+	 * already has the given checksum.
+	 *
+	 * @param source
+	 * @param target
+	 * @param checksum the checksum of the source file, or null if unknown
+	 * @return whether the content of the target was changed
+	 * @throws IOException
+	 */
+	public boolean copy(final Path source, final Path target, final Long checksum) throws IOException {
+
+		final long sourceChecksum = checksum != null ? checksum : FileHelper.getChecksum(source.toFile());
+
+		if (hasChecksum(target, sourceChecksum)) {
+			return false;
+		}
+
+		changedPaths.add(getKey(target));
+
+		if (!readOnly) {
+
+			Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+			record(target, sourceChecksum);
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return whether any call to {@link #write} or {@link #copy} changed (or would have changed) an artifact
+	 */
+	public boolean hasChanges() {
+		return !changedPaths.isEmpty();
+	}
+
+	/**
+	 * @param file
+	 * @return whether the given file was written or confirmed as unchanged since this manifest was read
+	 */
+	public boolean contains(final Path file) {
+		return currentEntries.containsKey(getKey(file)) || changedPaths.contains(getKey(file));
+	}
+
+	// ----- private methods -----
+	private boolean hasChecksum(final Path file, final long checksum) throws IOException {
+
+		Long existing = getChecksum(file);
+		if (existing == null && Files.exists(file)) {
+
+			existing = FileHelper.getChecksum(file.toFile());
+		}
+
+		if (existing != null && existing == checksum) {
+
+			record(file, checksum);
+			return true;
+		}
+
+		return false;
+	}
+
+	private void record(final Path file, final long checksum) throws IOException {
+		currentEntries.put(getKey(file), new Entry(checksum, Files.size(file), Files.getLastModifiedTime(file).toMillis()));
+	}
+
+	private String getKey(final Path file) {
+		return root.relativize(file).toString().replace('\\', '/');
+	}
+
+	// ----- nested classes -----
+	private static class Entry {
+
+		private long checksum     = 0L;
+		private long size         = 0L;
+		private long lastModified = 0L;
+
+		public Entry(final long checksum, final long size, final long lastModified) {
+
+			this.checksum     = checksum;
+			this.size         = size;
+			this.lastModified = lastModified;
+		}
+	}
+}
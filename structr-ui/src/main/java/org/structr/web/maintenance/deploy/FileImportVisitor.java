@@ -25,12 +25,17 @@ import java.nio.file.FileVisitor;
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.common.PropertyView;
 import org.structr.common.SecurityContext;
 import org.structr.common.error.FrameworkException;
 import org.structr.core.app.App;
@@ -43,6 +48,7 @@ import org.structr.core.graph.Tx;
 import org.structr.core.property.GenericProperty;
 import org.structr.core.property.PropertyKey;
 import org.structr.core.property.PropertyMap;
+import org.structr.schema.ConfigurationProvider;
 import org.structr.web.common.FileHelper;
 import org.structr.web.common.ImageHelper;
 import org.structr.web.entity.AbstractFile;
@@ -57,19 +63,32 @@ import org.structr.web.entity.Image;
 public class FileImportVisitor implements FileVisitor<Path> {
 
 	private static final Logger logger      = LoggerFactory.getLogger(FileImportVisitor.class.getName());
+
+	// properties that the export omits when they are null or false
+	private static final String[] optionalFileProperties = new String[] {
+		"visibleToPublicUsers", "visibleToAuthenticatedUsers", "isTemplate", "dontCache", "contentType", "cacheForSeconds",
+		"useAsJavascriptLibrary", "includeInFrontendExport", "basicAuthRealm", "enableBasicAuth"
+	};
+
 	private Map<String, Object> config      = null;
 	private SecurityContext securityContext = null;
+	private DeploymentManifest manifest     = null;
 	private Path basePath                   = null;
 	private App app                         = null;
 	private List<File> deferredFiles        = null;
 	private Map<String, Folder> folderCache = null;
 
 	public FileImportVisitor(final Path basePath, final Map<String, Object> config) {
+		this(basePath, config, null);
+	}
+
+	public FileImportVisitor(final Path basePath, final Map<String, Object> config, final DeploymentManifest manifest) {
 
 		this.securityContext = SecurityContext.getSuperUserInstance();
 		this.securityContext.setDoTransactionNotifications(false);
 		this.basePath        = basePath;
 		this.config          = config;
+		this.manifest        = manifest;
 		this.app             = StructrApp.getInstance(this.securityContext);
 		this.deferredFiles   = new ArrayList<>();
 		this.folderCache     = new HashMap<>();
@@ -237,7 +256,7 @@ public class FileImportVisitor implements FileVisitor<Path> {
 				if (file != null) {
 
 					final Long checksumOfExistingFile = file.getChecksum();
-					final Long checksumOfNewFile      = FileHelper.getChecksum(path.toFile());
+					final Long checksumOfNewFile      = getChecksum(path);
 
 					if (checksumOfExistingFile != null && checksumOfNewFile != null && checksumOfExistingFile.equals(checksumOfNewFile)) {
 
@@ -276,8 +295,14 @@ public class FileImportVisitor implements FileVisitor<Path> {
 					if (fileProperties.containsKey(StructrApp.key(AbstractMinifiedFile.class, "minificationSources"))) {
 						deferredFiles.add(file);
 					} else {
-						file.unlockSystemPropertiesOnce();
-						file.setProperties(securityContext, fileProperties);
+
+						// only modify properties of unchanged files if necessary
+						final PropertyMap properties = skipFile ? getChangedProperties(file, fileProperties) : fileProperties;
+						if (!properties.isEmpty()) {
+
+							file.unlockSystemPropertiesOnce();
+							file.setProperties(securityContext, properties);
+						}
 					}
 				}
 
@@ -332,6 +357,66 @@ public class FileImportVisitor implements FileVisitor<Path> {
 		}
 	}
 
+	private Long getChecksum(final Path path) throws IOException {
+
+		final Long checksum = manifest != null ? manifest.getChecksum(path) : null;
+		if (checksum != null) {
+
+			return checksum;
+		}
+
+		return FileHelper.getChecksum(path.toFile());
+	}
+
+	/**
+	 * Returns the properties whose values differ from the values of the
+	 * given file. Optional and dynamic properties that are missing in the
+	 * given properties were empty in the source, so they are cleared.
+	 */
+	private PropertyMap getChangedProperties(final File file, final PropertyMap properties) {
+
+		final ConfigurationProvider conf = StructrApp.getConfiguration();
+		final Set<PropertyKey> keys      = new LinkedHashSet<>(properties.keySet());
+		final PropertyMap changed        = new PropertyMap();
+
+		for (final String name : optionalFileProperties) {
+
+			final PropertyKey key = conf.getPropertyKeyForJSONName(file.getClass(), name, false);
+			if (key != null) {
+
+				keys.add(key);
+			}
+		}
+
+		for (final PropertyKey key : conf.getPropertySet(file.getClass(), PropertyView.All)) {
+
+			// dynamic properties are exported as well, see DeployCommand
+			if (!key.isPartOfBuiltInSchema() && key.relatedType() == null) {
+
+				keys.add(key);
+			}
+		}
+
+		for (final PropertyKey key : keys) {
+
+			final Object value = properties.get(key);
+
+			if (value == null && isEmpty(file.getProperty(key))) {
+				continue;
+			}
+
+			if (!Objects.deepEquals(file.getProperty(key), value)) {
+				changed.put(key, value);
+			}
+		}
+
+		return changed;
+	}
+
+	private boolean isEmpty(final Object value) {
+		return value == null || Boolean.FALSE.equals(value) || (value instanceof Collection && ((Collection)value).isEmpty());
+	}
+
 	private PropertyMap getPropertiesForFileOrFolder(final String path) throws FrameworkException {
 
 		final Object data = config.get(path);
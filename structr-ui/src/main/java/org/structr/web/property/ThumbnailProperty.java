@@ -20,6 +20,7 @@ package org.structr.web.property;
 
 import org.apache.commons.lang3.StringUtils;
 import org.structr.api.Predicate;
+import org.structr.api.config.Settings;
 import org.structr.api.search.SortType;
 import org.structr.common.SecurityContext;
 import org.structr.core.GraphObject;
@@ -57,7 +58,7 @@ public class ThumbnailProperty extends AbstractReadOnlyProperty<Image> {
 			return null;
 		}
 
-		return ((Image)obj).getScaledImage(width, height, crop);
+		return Image.getScaledImage((Image)obj, width, height, crop, Settings.ThumbnailsAsync.getValue());
 	}
 
 	@Override
@@ -0,0 +1,212 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.servlet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jetty.server.HttpOutput;
+import org.eclipse.jetty.server.InclusiveByteRange;
+import org.eclipse.jetty.util.MultiPartOutputStream;
+import org.structr.web.entity.File;
+
+/**
+ * Streams the content of a file node to a servlet response, supporting
+ * single and multiple byte ranges.
+ *
+ * Files stored on local disk are sent from memory-mapped regions of a
+ * positioned {@link FileChannel}, so neither skipped bytes nor the content
+ * itself pass through heap buffers. All other files (e.g. templates, whose
+ * content is rendered) are copied from {@link File#getInputStream()}.
+ */
+public class FileStreamer {
+
+	private static final long MAPPED_CHUNK_SIZE = 8 * 1024 * 1024;
+
+	private final HttpServletResponse response;
+	private final ServletOutputStream out;
+	private final String contentType;
+	private final java.io.File fileOnDisk;
+	private final File file;
+
+	public FileStreamer(final File file, final HttpServletResponse response, final ServletOutputStream out, final String contentType) {
+
+		this.fileOnDisk  = getLocalFile(file);
+		this.contentType = contentType;
+		this.response    = response;
+		this.file        = file;
+		this.out         = out;
+	}
+
+	/**
+	 * Streams the file content, or the requested ranges of it, to the
+	 * response and returns the resulting HTTP status code.
+	 *
+	 * @param request
+	 * @return the status code
+	 * @throws IOException
+	 */
+	public int stream(final HttpServletRequest request) throws IOException {
+
+		final List<String> rangeHeaders = Collections.list(request.getHeaders("Range"));
+		final long length               = fileOnDisk != null ? fileOnDisk.length() : file.getSize();
+
+		response.setContentType(contentType);
+
+		// Tell the client that we support byte ranges
+		response.setHeader("Accept-Ranges", "bytes");
+
+		if (rangeHeaders.isEmpty()) {
+
+			response.setStatus(HttpServletResponse.SC_OK);
+
+			if (fileOnDisk != null) {
+
+				response.setContentLengthLong(length);
+				writeRange(0, length);
+
+			} else {
+
+				try (final InputStream in = file.getInputStream()) {
+
+					IOUtils.copyLarge(in, out);
+				}
+			}
+
+			return HttpServletResponse.SC_OK;
+		}
+
+		final List<InclusiveByteRange> ranges = InclusiveByteRange.satisfiableRanges(Collections.enumeration(rangeHeaders), length);
+		if (ranges == null || ranges.isEmpty()) {
+
+			response.setHeader("Content-Range", InclusiveByteRange.to416HeaderRangeString(length));
+			response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+
+			return HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE;
+		}
+
+		response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+
+		if (ranges.size() == 1) {
+
+			final InclusiveByteRange range = ranges.get(0);
+
+			response.setHeader("Content-Range", range.toHeaderRangeString(length));
+			response.setContentLengthLong(range.getSize(length));
+
+			writeRange(range.getFirst(length), range.getSize(length));
+
+		} else {
+
+			final MultiPartOutputStream multi = new MultiPartOutputStream(out);
+
+			response.setContentType("multipart/byteranges; boundary=" + multi.getBoundary());
+
+			for (final InclusiveByteRange range : ranges) {
+
+				multi.startPart(contentType, new String[] { "Content-Range: " + range.toHeaderRangeString(length) });
+
+				writeRange(range.getFirst(length), range.getSize(length));
+			}
+
+			multi.close();
+		}
+
+		return HttpServletResponse.SC_PARTIAL_CONTENT;
+	}
+
+	// ----- private methods -----
+	private void writeRange(final long start, final long count) throws IOException {
+
+		if (fileOnDisk != null) {
+
+			try (final FileChannel channel = FileChannel.open(fileOnDisk.toPath(), StandardOpenOption.READ)) {
+
+				if (out instanceof HttpOutput) {
+
+					final HttpOutput httpOutput = (HttpOutput)out;
+					long position               = start;
+					long remaining              = count;
+
+					// let Jetty write directly from the page cache
+					while (remaining > 0) {
+
+						final long size               = Math.min(remaining, MAPPED_CHUNK_SIZE);
+						final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+
+						httpOutput.write(buffer);
+
+						position  += size;
+						remaining -= size;
+					}
+
+				} else {
+
+					final WritableByteChannel target = Channels.newChannel(out);
+					long position                    = start;
+					long remaining                   = count;
+
+					while (remaining > 0) {
+
+						final long transferred = channel.transferTo(position, remaining, target);
+						if (transferred <= 0) {
+							break;
+						}
+
+						position  += transferred;
+						remaining -= transferred;
+					}
+				}
+			}
+
+		} else {
+
+			try (final InputStream in = file.getInputStream()) {
+
+				IOUtils.copyLarge(in, out, start, count);
+			}
+		}
+	}
+
+	private java.io.File getLocalFile(final File file) {
+
+		// templates are rendered, so their content differs from the file on disk
+		if (file.isTemplate()) {
+			return null;
+		}
+
+		final java.io.File fileOnDisk = file.getFileOnDisk(false);
+		if (fileOnDisk != null && fileOnDisk.isFile() && fileOnDisk.canRead()) {
+
+			return fileOnDisk;
+		}
+
+		return null;
+	}
+}
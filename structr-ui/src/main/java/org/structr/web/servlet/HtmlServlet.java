@@ -19,8 +19,8 @@
 package org.structr.web.servlet;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.text.DateFormat;
 import java.text.ParseException;
@@ -36,12 +36,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
 import java.util.TimeZone;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import javax.servlet.AsyncContext;
@@ -88,6 +84,8 @@ import org.structr.web.auth.UiAuthenticator;
 import org.structr.web.common.FileHelper;
 import org.structr.web.common.RenderContext;
 import org.structr.web.common.RenderContext.EditMode;
+import org.structr.web.common.RenderExecutor;
+import org.structr.web.common.StreamingRenderBuffer;
 import org.structr.web.common.StringRenderBuffer;
 import org.structr.web.entity.AbstractFile;
 import org.structr.web.entity.File;
@@ -120,7 +118,6 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 
 	private static final List<String> customResponseHeaders        = new LinkedList<>();
 	private static final ThreadLocalMatcher threadLocalUUIDMatcher = new ThreadLocalMatcher("[a-fA-F0-9]{32}");
-	private static final ExecutorService threadPool                = Executors.newCachedThreadPool();
 
 	private final Pattern FilenameCleanerPattern                      = Pattern.compile("[\n\r]", Pattern.CASE_INSENSITIVE | Pattern.MULTILINE | Pattern.DOTALL);
 	private final StructrHttpServiceConfig config                     = new StructrHttpServiceConfig();
@@ -819,77 +816,54 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 	protected void renderAsyncOutput(HttpServletRequest request, HttpServletResponse response, App app, RenderContext renderContext, DOMNode rootElement) throws IOException {
 		final AsyncContext async = request.startAsync();
 		final ServletOutputStream out = async.getResponse().getOutputStream();
-		final AtomicBoolean finished = new AtomicBoolean(false);
+		final StreamingRenderBuffer buffer = new StreamingRenderBuffer();
 		final DOMNode rootNode = rootElement;
 
-		threadPool.submit(new Runnable() {
+		renderContext.setBuffer(buffer);
 
-			@Override
-			public void run() {
-
-				try (final Tx tx = app.tx()) {
-
-					// render
-					rootNode.render(renderContext, 0);
-					finished.set(true);
+		final WriteListener writeListener = new WriteListener() {
 
-					tx.success();
-
-				} catch (Throwable t) {
-
-					t.printStackTrace();
-					logger.warn("Error while rendering page {}: {}", rootNode.getName(), t.getMessage());
-
-					try {
-
-						response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
-						finished.set(true);
-
-					} catch (IOException ex) {
-						logger.warn("", ex);
-					}
-				}
-			}
-
-		});
-
-		// start output write listener
-		out.setWriteListener(new WriteListener() {
+			// the chunk that is currently being written, recycled when the output is ready again
+			private ByteBuffer pending = null;
 
 			@Override
 			public void onWritePossible() throws IOException {
 
 				try {
 
-					final Queue<String> queue = renderContext.getBuffer().getQueue();
 					while (out.isReady()) {
 
-						String buffer = null;
+						if (pending != null) {
 
-						synchronized (queue) {
-							buffer = queue.poll();
+							buffer.recycle(pending);
+							pending = null;
 						}
 
-						if (buffer != null) {
+						final ByteBuffer chunk = buffer.poll();
+						if (chunk != null) {
 
-							out.print(buffer);
+							pending = chunk;
 
-						} else {
+							out.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
 
-							if (finished.get()) {
+						} else if (buffer.isDrained() || buffer.isClosed()) {
 
-								async.complete();
+							async.complete();
 
-								// prevent this block from being called again
-								break;
-							}
+							// prevent this block from being called again
+							break;
 
-							Thread.sleep(1);
+						} else if (buffer.awaitData()) {
+
+							// the render thread resumes writing when the next chunk is available
+							break;
 						}
 					}
 
 				} catch (EofException ee) {
 
+					buffer.close();
+
 					final SecurityContext sc = renderContext.getSecurityContext();
 					final Principal user     = sc.getUser(false);
 					final String username    = (user != null) ? user.getName() : "anonymous";
@@ -897,13 +871,18 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 					logger.warn("Could not flush the response body content to the client, probably because the network connection was terminated.");
 					logger.warn(" -> From: {} | URI: {} | Query: {} | User: {}", request.getRemoteAddr(), request.getRequestURI(), request.getQueryString(), username);
 
-				} catch (IOException | InterruptedException t) {
+				} catch (IOException t) {
+
+					buffer.close();
 					logger.warn("Unexpected exception", t);
 				}
 			}
 
 			@Override
 			public void onError(Throwable t) {
+
+				buffer.close();
+
 				if (t instanceof EofException) {
 
 					final SecurityContext sc = renderContext.getSecurityContext();
@@ -917,7 +896,69 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 					logger.warn("Unexpected exception", t);
 				}
 			}
+		};
+
+		// continue writing in a container thread when the render thread has produced output
+		buffer.setDataListener(() -> async.start(() -> {
+
+			try {
+
+				writeListener.onWritePossible();
+
+			} catch (IOException ioex) {
+				logger.warn("Unexpected exception", ioex);
+			}
+		}));
+
+		final boolean accepted = RenderExecutor.submit(new Runnable() {
+
+			@Override
+			public void run() {
+
+				try (final Tx tx = app.tx()) {
+
+					// render
+					rootNode.render(renderContext, 0);
+
+					tx.success();
+
+				} catch (Throwable t) {
+
+					if (buffer.isClosed()) {
+
+						logger.debug("Rendering of page {} aborted: {}", rootNode.getName(), t.getMessage());
+
+					} else {
+
+						logger.warn("Error while rendering page {}", rootNode.getName(), t);
+
+						try {
+
+							response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+
+						} catch (IOException | IllegalStateException ex) {
+							logger.warn("", ex);
+						}
+					}
+
+				} finally {
+
+					buffer.finish();
+				}
+			}
+
 		});
+
+		if (!accepted) {
+
+			response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+			async.complete();
+
+			return;
+		}
+
+		// start output write listener
+		out.setWriteListener(writeListener);
 	}
 
 	protected void writeOutputSteam(HttpServletResponse response, StringRenderBuffer buffer) throws IOException {
@@ -1528,60 +1569,13 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 			} else {
 
 				// 2b: stream file to response
-				final InputStream in = file.getInputStream();
 				final String contentType = file.getContentType();
 
-				if (contentType != null) {
-
-					response.setContentType(contentType);
-
-				} else {
-
-					// Default
-					response.setContentType("application/octet-stream");
-				}
-
-				final String range = request.getHeader("Range");
-
 				try {
 
-					if (StringUtils.isNotEmpty(range)) {
-
-						final long len = file.getSize();
-						long start     = 0;
-						long end       = len - 1;
-
-						final Matcher matcher = Pattern.compile("bytes=(?<start>\\d*)-(?<end>\\d*)").matcher(range);
-
-						if (matcher.matches()) {
-							String startGroup = matcher.group("start");
-							start = startGroup.isEmpty() ? start : Long.valueOf(startGroup);
-							start = Math.max(0, start);
-
-							String endGroup = matcher.group("end");
-							end = endGroup.isEmpty() ? end : Long.valueOf(endGroup);
-							end = end > len - 1 ? len - 1 : end;
-						}
-
-						long contentLength = end - start + 1;
-
-						// Tell the client that we support byte ranges
-						response.setHeader("Accept-Ranges", "bytes");
-						response.setHeader("Content-Range", String.format("bytes %s-%s/%s", start, end, len));
-						response.setHeader("Content-Length", String.format("%s", contentLength));
-
-						response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
-						callbackMap.put("statusCode", HttpServletResponse.SC_PARTIAL_CONTENT);
-
-						IOUtils.copyLarge(in, out, start, contentLength);
-
-					} else {
-
-						response.setStatus(HttpServletResponse.SC_OK);
-						callbackMap.put("statusCode", HttpServletResponse.SC_OK);
+					final FileStreamer streamer = new FileStreamer(file, response, out, contentType != null ? contentType : "application/octet-stream");
 
-						IOUtils.copyLarge(in, out);
-					}
+					callbackMap.put("statusCode", streamer.stream(request));
 
 				} catch (Throwable t) {
 
@@ -1597,12 +1591,6 @@ public class HtmlServlet extends HttpServlet implements HttpServiceServlet {
 						} catch (Throwable t) {
 						}
 					}
-
-					if (in != null) {
-						in.close();
-					}
-
-					response.setStatus(HttpServletResponse.SC_OK);
 				}
 			}
 		}
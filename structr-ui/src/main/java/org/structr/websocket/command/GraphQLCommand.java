@@ -23,7 +23,6 @@ import graphql.GraphQL;
 import graphql.language.Document;
 import graphql.parser.Parser;
 import graphql.validation.ValidationError;
-import graphql.validation.Validator;
 import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
@@ -76,7 +75,7 @@ public class GraphQLCommand extends AbstractCommand {
 					
 					if (doc != null) {
 
-						final List<ValidationError> errors = new Validator().validateDocument(SchemaService.getGraphQLSchema(), doc);
+						final List<ValidationError> errors = GraphQLRequest.validate(SchemaService.getGraphQLSchema(), query, doc);
 						if (errors.isEmpty()) {
 
 							// no validation errors in query, do request
@@ -143,6 +143,10 @@ public abstract class StructrUiTest {
 		Settings.NodeCacheSize.setValue(100000);
 		Settings.RelationshipCacheSize.setValue(100000);
 
+		// create thumbnails synchronously, tests for background creation enable it explicitly
+		Settings.ThumbnailsAsync.setValue(false);
+		Settings.ThumbnailPregeneration.setValue(false);
+
 		//Settings.LogSchemaOutput.setValue(true);
 
 		final Services services = Services.getInstance();
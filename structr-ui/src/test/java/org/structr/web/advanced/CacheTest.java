@@ -18,6 +18,7 @@
  */
 package org.structr.web.advanced;
 
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
@@ -25,21 +26,31 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicBoolean;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import org.junit.Test;
 import org.structr.api.config.Settings;
 import org.structr.common.error.FrameworkException;
+import org.structr.core.app.StructrApp;
 import org.structr.core.entity.SchemaNode;
 import org.structr.core.entity.SchemaProperty;
 import org.structr.core.graph.NodeAttribute;
 import org.structr.core.graph.Tx;
+import org.structr.core.property.PropertyKey;
 import org.structr.schema.export.StructrSchema;
 import org.structr.schema.json.JsonProperty;
 import org.structr.schema.json.JsonSchema;
 import org.structr.schema.json.JsonType;
 import org.structr.web.StructrUiTest;
+import org.structr.web.common.RenderFragmentCache;
 import org.structr.web.entity.TestFive;
 import org.structr.web.entity.TestTwo;
+import org.structr.web.entity.dom.Content;
+import org.structr.web.entity.dom.DOMNode;
+import org.structr.web.entity.dom.Page;
 
 /**
  */
@@ -201,4 +212,68 @@ public class CacheTest extends StructrUiTest {
 			t.printStackTrace();
 		}
 	}
+
+	@Test
+	public void testRenderFragmentCache() {
+
+		final String pageName = "fragment-cache-test";
+
+		try (final Tx tx = app.tx()) {
+
+			Page.createSimplePage(securityContext, pageName);
+
+			for (final DOMNode node : app.nodeQuery(DOMNode.class).getAsList()) {
+				makePublic(node);
+			}
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try {
+
+			final Document doc1 = Jsoup.connect(baseUri + pageName).get();
+
+			assertEquals("Initial body text", doc1.select("html > body > div").first().text());
+			assertEquals("Fragment-cache-test", doc1.select("html > body > h1").first().text());
+			assertTrue("Static subtrees should be cached for anonymous requests", RenderFragmentCache.size() > 0);
+
+			// second request is served from the cache
+			final Document doc2 = Jsoup.connect(baseUri + pageName).get();
+
+			assertEquals("Initial body text", doc2.select("html > body > div").first().text());
+
+		} catch (IOException ioex) {
+			ioex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			final PropertyKey<String> contentKey = StructrApp.key(Content.class, "content");
+			final Content content                = app.nodeQuery(Content.class).and(contentKey, "Initial body text").getFirst();
+
+			content.setProperty(contentKey, "Modified body text");
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try {
+
+			final Document doc = Jsoup.connect(baseUri + pageName).get();
+
+			assertEquals("Modifications must invalidate cached fragments", "Modified body text", doc.select("html > body > div").first().text());
+
+		} catch (IOException ioex) {
+			ioex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+	}
 }
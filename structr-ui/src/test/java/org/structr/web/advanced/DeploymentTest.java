@@ -1967,6 +1967,138 @@ public class DeploymentTest extends StructrUiTest {
 		compare(calculateHash(), true);
 	}
 
+	@Test
+	public void test42IncrementalImport() {
+
+		final PropertyKey<String> textKey = StructrApp.key(MailTemplate.class, "text");
+		String pageId                     = null;
+
+		// setup
+		try (final Tx tx = app.tx()) {
+
+			pageId = Page.createSimplePage(securityContext, "test42").getUuid();
+
+			app.create(MailTemplate.class,
+				new NodeAttribute<>(AbstractNode.name, "test42"),
+				new NodeAttribute<>(textKey, "original text")
+			);
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fail("Unexpected exception.");
+		}
+
+		// test, don't clean the database but modify the mail template
+		doImportExportRoundtrip(true, false, new Function() {
+
+			@Override
+			public Object apply(Object t) {
+
+				try (final Tx tx = app.tx()) {
+
+					app.nodeQuery(MailTemplate.class).andName("test42").getFirst().setProperty(textKey, "modified text");
+
+					tx.success();
+
+				} catch (FrameworkException fex) {}
+
+				return null;
+			}
+		});
+
+		// check
+		try (final Tx tx = app.tx()) {
+
+			final Page page = app.nodeQuery(Page.class).andName("test42").getFirst();
+
+			Assert.assertNotNull("Invalid deployment result", page);
+			Assert.assertEquals("Unchanged page should not be re-created by deployment import", pageId, page.getUuid());
+
+			Assert.assertEquals("Invalid number of mail templates after deployment import", 1, app.nodeQuery(MailTemplate.class).getAsList().size());
+			Assert.assertEquals("Deployment import does not restore modified mail template", "original text", app.nodeQuery(MailTemplate.class).getFirst().getProperty(textKey));
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fail("Unexpected exception.");
+		}
+	}
+
+	@Test
+	public void test43IncrementalImportClearsProperties() {
+
+		final PropertyKey<String> localeKey   = StructrApp.key(MailTemplate.class, "locale");
+		final PropertyKey<Boolean> libraryKey = StructrApp.key(File.class, "useAsJavascriptLibrary");
+		final PropertyKey<String> realmKey    = StructrApp.key(File.class, "basicAuthRealm");
+		final String fileName                 = "test43.js";
+
+		// setup
+		try (final Tx tx = app.tx()) {
+
+			app.create(MailTemplate.class,
+				new NodeAttribute<>(AbstractNode.name, "test43"),
+				new NodeAttribute<>(StructrApp.key(MailTemplate.class, "text"), "text")
+			);
+
+			final Folder folder = FileHelper.createFolderPath(securityContext, "/test43");
+			final File file     = FileHelper.createFile(securityContext, "test".getBytes("utf-8"), "text/javascript", File.class, fileName);
+
+			folder.setProperty(StructrApp.key(Folder.class, "includeInFrontendExport"), true);
+
+			file.setProperty(StructrApp.key(File.class, "parent"), folder);
+			file.setProperty(StructrApp.key(File.class, "includeInFrontendExport"), true);
+
+			tx.success();
+
+		} catch (IOException | FrameworkException fex) {
+			logger.warn("", fex);
+			fail("Unexpected exception.");
+		}
+
+		// test, don't clean the database but set properties that are empty in the export
+		doImportExportRoundtrip(true, false, new Function() {
+
+			@Override
+			public Object apply(Object t) {
+
+				try (final Tx tx = app.tx()) {
+
+					app.nodeQuery(MailTemplate.class).andName("test43").getFirst().setProperty(localeKey, "de");
+
+					final File file = app.nodeQuery(File.class).and(File.name, fileName).getFirst();
+
+					file.setProperty(libraryKey, true);
+					file.setProperty(realmKey, "realm");
+
+					tx.success();
+
+				} catch (FrameworkException fex) {}
+
+				return null;
+			}
+		});
+
+		// check
+		try (final Tx tx = app.tx()) {
+
+			final MailTemplate template = app.nodeQuery(MailTemplate.class).andName("test43").getFirst();
+			final File file             = app.nodeQuery(File.class).and(File.name, fileName).getFirst();
+
+			Assert.assertNotNull("Invalid deployment result", template);
+			Assert.assertNull("Deployment import does not clear property that is empty in the source", template.getProperty(localeKey));
+
+			Assert.assertNotNull("Invalid deployment result", file);
+			Assert.assertFalse("Deployment import does not clear property that is empty in the source", file.getProperty(libraryKey));
+			Assert.assertNull("Deployment import does not clear property that is empty in the source", file.getProperty(realmKey));
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fail("Unexpected exception.");
+		}
+	}
+
 	// ----- private methods -----
 	private void compare(final String sourceHash, final boolean deleteTestDirectory) {
 		compare(sourceHash, deleteTestDirectory, true);
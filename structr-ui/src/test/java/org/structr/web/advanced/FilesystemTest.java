@@ -18,12 +18,14 @@
  */
 package org.structr.web.advanced;
 
+import com.jayway.restassured.RestAssured;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import org.hamcrest.Matchers;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,6 +35,8 @@ import org.structr.core.app.StructrApp;
 import org.structr.core.graph.NodeAttribute;
 import org.structr.core.graph.Tx;
 import org.structr.web.StructrUiTest;
+import org.structr.web.common.FileHelper;
+import org.structr.web.entity.File;
 import org.structr.web.entity.Folder;
 import org.structr.web.entity.Image;
 import org.structr.web.entity.User;
@@ -195,4 +199,81 @@ public class FilesystemTest extends StructrUiTest {
 			fail("Unexpected exception.");
 		}
 	}
+
+	@Test
+	public void test04RangeRequests() {
+
+		try (final Tx tx = app.tx()) {
+
+			final File file = FileHelper.createFile(securityContext, "0123456789abcdefghij".getBytes("utf-8"), "text/plain", File.class, "range.txt");
+
+			file.setProperty(File.visibleToPublicUsers, true);
+
+			tx.success();
+
+		} catch (Throwable t) {
+			t.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		RestAssured.basePath = htmlUrl;
+
+		// complete file
+		RestAssured
+			.given()
+			.expect()
+			.statusCode(200)
+			.header("Accept-Ranges", "bytes")
+			.header("Content-Length", "20")
+			.body(Matchers.equalTo("0123456789abcdefghij"))
+			.when()
+			.get("/range.txt");
+
+		// single range
+		RestAssured
+			.given()
+			.header("Range", "bytes=5-9")
+			.expect()
+			.statusCode(206)
+			.header("Content-Range", "bytes 5-9/20")
+			.header("Content-Length", "5")
+			.body(Matchers.equalTo("56789"))
+			.when()
+			.get("/range.txt");
+
+		// suffix range
+		RestAssured
+			.given()
+			.header("Range", "bytes=-3")
+			.expect()
+			.statusCode(206)
+			.header("Content-Range", "bytes 17-19/20")
+			.body(Matchers.equalTo("hij"))
+			.when()
+			.get("/range.txt");
+
+		// multiple ranges
+		RestAssured
+			.given()
+			.header("Range", "bytes=0-1,18-")
+			.expect()
+			.statusCode(206)
+			.contentType(Matchers.startsWith("multipart/byteranges; boundary="))
+			.body(Matchers.containsString("Content-Range: bytes 0-1/20"))
+			.body(Matchers.containsString("Content-Range: bytes 18-19/20"))
+			.body(Matchers.containsString("\r\n\r\n01\r\n"))
+			.body(Matchers.containsString("\r\n\r\nij\r\n"))
+			.when()
+			.get("/range.txt");
+
+		// unsatisfiable range
+		RestAssured
+			.given()
+			.header("Range", "bytes=30-40")
+			.expect()
+			.statusCode(416)
+			.header("Content-Range", "bytes */20")
+			.when()
+			.get("/range.txt");
+	}
 }
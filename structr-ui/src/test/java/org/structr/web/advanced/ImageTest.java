@@ -22,10 +22,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.structr.api.config.Settings;
 import org.structr.common.AccessMode;
 import org.structr.common.Permission;
 import org.structr.common.SecurityContext;
@@ -40,6 +43,7 @@ import org.structr.core.property.PropertyKey;
 import org.structr.web.StructrUiTest;
 import org.structr.web.common.FileHelper;
 import org.structr.web.common.ImageHelper;
+import org.structr.web.common.ThumbnailGenerator;
 import org.structr.web.entity.Folder;
 import org.structr.web.entity.Image;
 
@@ -167,6 +171,67 @@ public class ImageTest extends StructrUiTest {
 		}
 	}
 
+	@Test
+	public void testAsynchronousThumbnailGeneration() {
+
+		final PropertyKey<Image> tnMidKey = StructrApp.key(Image.class, "tnMid");
+		String imageId                    = null;
+
+		Settings.ThumbnailsAsync.setValue(true);
+
+		try {
+
+			try (final Tx tx = app.tx()) {
+
+				try (final InputStream is = ImageTest.class.getResourceAsStream("/test/thumbtest.png")) {
+
+					final Image image = ImageHelper.createImage(securityContext, is, "image/png", Image.class, "async.png", false);
+
+					// original image is returned while the thumbnail is being created
+					assertEquals("Original image should be returned while thumbnail is created", image.getUuid(), image.getProperty(tnMidKey).getUuid());
+
+					// the image is not visible to other threads before the commit
+					assertEquals("Thumbnail must not be queued before the commit", 0, ThumbnailGenerator.getPendingCount());
+
+					imageId = image.getUuid();
+				}
+
+				tx.success();
+
+			} catch (FrameworkException | IOException ex) {
+				ex.printStackTrace();
+				fail("Unexpected exception.");
+			}
+
+			// wait for background thumbnail creation
+			final long timeout = System.currentTimeMillis() + 30000;
+			while (ThumbnailGenerator.getPendingCount() > 0 && System.currentTimeMillis() < timeout) {
+
+				try { Thread.sleep(100); } catch (InterruptedException iex) {}
+			}
+
+			try (final Tx tx = app.tx()) {
+
+				final Image image     = app.get(Image.class, imageId);
+				final Image thumbnail = image.getProperty(tnMidKey);
+
+				assertFalse("Thumbnail should have been created in the background", imageId.equals(thumbnail.getUuid()));
+				assertTrue("Thumbnail should be marked as thumbnail", thumbnail.isThumbnail());
+				assertEquals("Invalid number of thumbnails", 1, image.getThumbnails().size());
+
+				tx.success();
+
+			} catch (FrameworkException fex) {
+				fex.printStackTrace();
+				fail("Unexpected exception.");
+			}
+
+		} finally {
+
+			Settings.ThumbnailsAsync.setValue(false);
+		}
+	}
+
 	/*
 	 * Test is disabled because we cannot prevent users from creating identical
 	   folder paths. If that happens in a production system, the administrator
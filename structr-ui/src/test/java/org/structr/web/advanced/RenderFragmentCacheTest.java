@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.advanced;
+
+import java.io.IOException;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.structr.api.config.Settings;
+import org.structr.common.error.FrameworkException;
+import org.structr.core.app.StructrApp;
+import org.structr.core.graph.Tx;
+import org.structr.core.property.PropertyKey;
+import org.structr.web.StructrUiTest;
+import org.structr.web.common.RenderFragmentCache;
+import org.structr.web.entity.dom.Content;
+import org.structr.web.entity.dom.DOMNode;
+import org.structr.web.entity.dom.Page;
+import org.structr.web.entity.html.Body;
+import org.w3c.dom.Element;
+
+/**
+ * Test invalidation and size limits of the render fragment cache.
+ */
+public class RenderFragmentCacheTest extends StructrUiTest {
+
+	private static final int CACHE_SIZE = 4;
+
+	@BeforeClass
+	public static void start() throws Exception {
+
+		// must be set before the services and the cache are initialized
+		Settings.FragmentCacheSize.setValue(CACHE_SIZE);
+
+		StructrUiTest.start();
+	}
+
+	@Test
+	public void testDeletionInvalidatesFragments() {
+
+		final String pageName = "fragment-deletion-test";
+		String unattachedId   = null;
+
+		createPage(pageName, 0);
+
+		try (final Tx tx = app.tx()) {
+
+			unattachedId = app.create(Content.class).getUuid();
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try {
+
+			final Document doc = Jsoup.connect(baseUri + pageName).get();
+
+			assertEquals("Initial body text", doc.select("html > body > div").first().text());
+			assertTrue("Static subtrees should be cached for anonymous requests", RenderFragmentCache.size() > 0);
+
+		} catch (IOException ioex) {
+			ioex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		// a node without relationships doesn't modify any other node when it is deleted
+		try (final Tx tx = app.tx()) {
+
+			app.delete(app.get(Content.class, unattachedId));
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		assertEquals("Deletions must invalidate cached fragments", 0, RenderFragmentCache.size());
+
+		try {
+
+			Jsoup.connect(baseUri + pageName).get();
+
+		} catch (IOException ioex) {
+			ioex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try (final Tx tx = app.tx()) {
+
+			final PropertyKey<String> contentKey = StructrApp.key(Content.class, "content");
+
+			app.delete(app.nodeQuery(Content.class).and(contentKey, "Initial body text").getFirst());
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		try {
+
+			final Document doc = Jsoup.connect(baseUri + pageName).get();
+
+			assertEquals("Deletions must invalidate cached fragments", "", doc.select("html > body > div").first().text());
+
+		} catch (IOException ioex) {
+			ioex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+	}
+
+	@Test
+	public void testCacheSizeIsLimited() {
+
+		final String pageName = "fragment-size-test";
+		final int count       = 20;
+
+		createPage(pageName, count);
+
+		try {
+
+			for (int i = 0; i < 2; i++) {
+
+				final Document doc = Jsoup.connect(baseUri + pageName).get();
+
+				for (int j = 0; j < count; j++) {
+					assertEquals("Text " + j, doc.select("html > body > div").get(j + 1).text());
+				}
+			}
+
+		} catch (IOException ioex) {
+			ioex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+
+		assertTrue("Number of cached fragments must be limited", RenderFragmentCache.size() <= CACHE_SIZE);
+		assertTrue("Number of cached static subtrees must be limited", RenderFragmentCache.getStaticSubtreeCount() <= CACHE_SIZE);
+		assertTrue("Static subtrees should be examined", RenderFragmentCache.getStaticSubtreeCount() > 0);
+	}
+
+	// ----- private methods -----
+	private void createPage(final String name, final int additionalDivs) {
+
+		try (final Tx tx = app.tx()) {
+
+			final Page page = Page.createSimplePage(securityContext, name);
+			final Body body = app.nodeQuery(Body.class).and(StructrApp.key(DOMNode.class, "ownerDocument"), page).getFirst();
+
+			for (int i = 0; i < additionalDivs; i++) {
+
+				final Element div = page.createElement("div");
+
+				div.appendChild(page.createTextNode("Text " + i));
+				body.appendChild(div);
+			}
+
+			for (final DOMNode node : app.nodeQuery(DOMNode.class).getAsList()) {
+				makePublic(node);
+			}
+
+			tx.success();
+
+		} catch (FrameworkException fex) {
+			fex.printStackTrace();
+			fail("Unexpected exception.");
+		}
+	}
+}
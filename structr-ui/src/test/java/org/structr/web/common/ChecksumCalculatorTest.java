@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import static junit.framework.TestCase.assertEquals;
+import net.openhft.hashing.LongHashFunction;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.output.NullOutputStream;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class ChecksumCalculatorTest {
+
+	@Test
+	public void testStreamingXXHash() throws IOException {
+
+		final Random random = new Random(42L);
+
+		for (final int length : new int[] { 0, 1, 3, 4, 7, 8, 15, 31, 32, 33, 63, 64, 65, 100, 1000, 65536, 100003 }) {
+
+			final byte[] data = new byte[length];
+			random.nextBytes(data);
+
+			final long expected = LongHashFunction.xx().hashBytes(data);
+
+			// single update
+			final ChecksumCalculator single = new ChecksumCalculator(null);
+			single.update(data, 0, data.length);
+
+			assertEquals("Invalid xxHash checksum for length " + length, expected, single.getChecksum());
+
+			// small, unaligned updates
+			final ChecksumCalculator chunked = new ChecksumCalculator(null);
+			int position = 0;
+
+			while (position < length) {
+
+				final int count = Math.min(1 + random.nextInt(50), length - position);
+
+				chunked.update(data, position, count);
+				position += count;
+			}
+
+			assertEquals("Invalid chunked xxHash checksum for length " + length, expected, chunked.getChecksum());
+
+			// wrapped stream
+			final ChecksumCalculator wrapped = new ChecksumCalculator("crc32,md5,sha1,sha512");
+
+			try (final InputStream is = wrapped.wrap(new ByteArrayInputStream(data))) {
+
+				IOUtils.copy(is, new NullOutputStream());
+			}
+
+			assertEquals("Invalid streamed xxHash checksum for length " + length, expected, wrapped.getChecksum());
+		}
+	}
+}
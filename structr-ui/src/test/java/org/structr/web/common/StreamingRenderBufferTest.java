@@ -0,0 +1,188 @@
+/**
+ * Copyright (C) 2010-2018 Structr GmbH
+ *
+ * This file is part of Structr <http://structr.org>.
+ *
+ * Structr is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * Structr is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with Structr.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.structr.web.common;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import static junit.framework.TestCase.assertEquals;
+import static junit.framework.TestCase.assertFalse;
+import static junit.framework.TestCase.assertNull;
+import static junit.framework.TestCase.assertTrue;
+import static junit.framework.TestCase.fail;
+import org.junit.Test;
+
+/**
+ *
+ */
+public class StreamingRenderBufferTest {
+
+	@Test
+	public void testChunkedEncoding() throws Exception {
+
+		final String[] parts = { "<html>", "äöü߀", "\uD83D", "\uDE00", " text ", "😀😀", "", null, "</html>" };
+		final StringBuilder expected = new StringBuilder();
+
+		for (int i=0; i<200; i++) {
+
+			for (final String part : parts) {
+
+				if (part != null) {
+					expected.append(part);
+				}
+			}
+		}
+
+		final StreamingRenderBuffer buffer = new StreamingRenderBuffer(64, 4, 10000L);
+		final ExecutorService executor     = Executors.newSingleThreadExecutor();
+		final Semaphore available          = new Semaphore(0);
+
+		buffer.setDataListener(available::release);
+
+		try {
+
+			final Future<?> renderer = executor.submit(() -> {
+
+				for (int i=0; i<200; i++) {
+
+					for (final String part : parts) {
+						buffer.append(part);
+					}
+				}
+
+				buffer.finish();
+			});
+
+			final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+			while (!buffer.isDrained()) {
+
+				final ByteBuffer chunk = buffer.poll();
+				if (chunk != null) {
+
+					assertTrue("Chunk exceeds chunk size", chunk.remaining() <= 64);
+
+					out.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+					buffer.recycle(chunk);
+
+				} else if (!buffer.isDrained() && buffer.awaitData()) {
+
+					assertTrue("Writer was not notified about new output", available.tryAcquire(10, TimeUnit.SECONDS));
+				}
+			}
+
+			renderer.get();
+
+			assertEquals("Invalid streamed output", expected.toString(), new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+		} finally {
+
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testBackpressure() throws Exception {
+
+		final StreamingRenderBuffer buffer = new StreamingRenderBuffer(64, 2, 500L);
+		final StringBuilder data           = new StringBuilder();
+
+		for (int i=0; i<64; i++) {
+			data.append("x");
+		}
+
+		// two chunks fit into the queue, the third one blocks until the timeout
+		buffer.append(data.toString());
+		buffer.append(data.toString());
+
+		final long start = System.currentTimeMillis();
+
+		try {
+
+			buffer.append(data.toString());
+			buffer.append(data.toString());
+
+			fail("Render buffer should abort when the client does not read.");
+
+		} catch (IllegalStateException expected) {
+		}
+
+		assertTrue("Render thread was not paused", System.currentTimeMillis() - start >= 400L);
+		assertTrue("Render buffer should be closed after timeout", buffer.isClosed());
+		assertNull("Closed render buffer should not contain output", buffer.poll());
+	}
+
+	@Test
+	public void testDataListener() throws Exception {
+
+		final StreamingRenderBuffer buffer = new StreamingRenderBuffer(64, 4, 500L);
+		final AtomicInteger notifications  = new AtomicInteger();
+
+		buffer.setDataListener(notifications::incrementAndGet);
+
+		// no output yet, so the writer has to wait
+		assertNull("Empty render buffer should not return output", buffer.poll());
+		assertTrue("Writer should wait for output", buffer.awaitData());
+
+		// partial chunks are kept until the chunk is full or the output is finished
+		buffer.append("partial");
+		assertEquals("Writer was notified before a chunk was available", 0, notifications.get());
+
+		buffer.finish();
+		assertEquals("Writer was not notified exactly once", 1, notifications.get());
+
+		final ByteBuffer chunk = buffer.poll();
+		assertEquals("Invalid streamed output", "partial", StandardCharsets.UTF_8.decode(chunk).toString());
+
+		assertNull("Finished render buffer should not return more output", buffer.poll());
+		assertTrue("Render buffer should be drained", buffer.isDrained());
+
+		// output that is queued before the writer waits is returned directly
+		final StreamingRenderBuffer other = new StreamingRenderBuffer(64, 4, 500L);
+
+		other.setDataListener(notifications::incrementAndGet);
+		other.finish();
+
+		assertFalse("Writer should not wait when output is available", other.awaitData());
+		assertEquals("Writer was notified although it did not wait", 1, notifications.get());
+	}
+
+	@Test
+	public void testCloseNotifiesWaitingWriter() throws Exception {
+
+		final StreamingRenderBuffer buffer = new StreamingRenderBuffer(64, 4, 500L);
+		final AtomicInteger notifications  = new AtomicInteger();
+
+		buffer.setDataListener(notifications::incrementAndGet);
+
+		assertTrue("Writer should wait for output", buffer.awaitData());
+
+		buffer.close();
+
+		assertEquals("Waiting writer was not notified when the render buffer was closed", 1, notifications.get());
+		assertTrue("Render buffer should be closed", buffer.isClosed());
+		assertFalse("Writer should not wait for a closed render buffer", buffer.awaitData());
+	}
+}